@@ -0,0 +1,137 @@
+package fr.etu.steats.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class compares two JMH results written with {@code -rf csv}, a baseline and a candidate.
+ * A benchmark is reported as a regression or an improvement only when its score moved by more than the threshold
+ * and the confidence intervals of both runs do not overlap. The process exits with 1 if there is a regression.
+ * <p>
+ * Usage: {@code BenchmarkComparator <baseline.csv> <candidate.csv> [threshold in %, 5 by default]}
+ */
+public class BenchmarkComparator {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparator <baseline.csv> <candidate.csv> [threshold in %]");
+            System.exit(2);
+        }
+        double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> candidate = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-90s %15s %15s %9s  %s%n", "Benchmark", "Baseline", "Candidate", "Change", "Verdict");
+        for (Map.Entry<String, Result> entry : candidate.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-90s %15s %15s %9s  %s%n", entry.getKey(), "-", after.format(), "-", "NEW");
+                continue;
+            }
+            double change = (after.score - before.score) / before.score * 100;
+            String verdict = verdict(before, after, change, threshold);
+            if (verdict.equals("REGRESSION")) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-90s %15s %15s %+8.1f%%  %s%n", entry.getKey(), before.format(), after.format(), change, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!candidate.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-90s %15s %15s %9s  %s%n", key, baseline.get(key).format(), "-", "-", "MISSING");
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) above %.1f%%%n", regressions, threshold);
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static String verdict(Result before, Result after, double change, double threshold) {
+        boolean significant = Math.abs(after.score - before.score) > before.error + after.error;
+        if (!significant || Math.abs(change) <= threshold) {
+            return "SAME";
+        }
+        // The throughput is better when higher, every other mode measures a time
+        boolean better = after.higherIsBetter() == (change > 0);
+        return better ? "IMPROVEMENT" : "REGRESSION";
+    }
+
+    /**
+     * @return the results by benchmark, mode and parameters
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> header = split(lines.get(0));
+        int benchmarkColumn = header.indexOf("Benchmark");
+        int modeColumn = header.indexOf("Mode");
+        int scoreColumn = header.indexOf("Score");
+        int errorColumn = header.indexOf("Score Error (99.9%)");
+        int unitColumn = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = split(line);
+            StringBuilder key = new StringBuilder(fields.get(benchmarkColumn)).append(" [").append(fields.get(modeColumn));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < fields.size() && !fields.get(i).isEmpty()) {
+                    key.append(", ").append(header.get(i).substring("Param: ".length())).append('=').append(fields.get(i));
+                }
+            }
+            key.append(']');
+            results.put(key.toString(), new Result(fields.get(modeColumn), parse(fields.get(scoreColumn)),
+                    (errorColumn < 0) ? 0 : parse(fields.get(errorColumn)), fields.get(unitColumn)));
+        }
+        return results;
+    }
+
+    private static double parse(String value) {
+        return (value.isEmpty() || value.equals("NaN")) ? 0 : Double.parseDouble(value);
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Result(String mode, double score, double error, String unit) {
+        private boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+
+        private String format() {
+            return String.format(Locale.ROOT, "%.3f %s", score, unit);
+        }
+    }
+}
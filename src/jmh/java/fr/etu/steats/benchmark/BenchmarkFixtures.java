@@ -0,0 +1,77 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderBuilder;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.Scheduler;
+import org.joda.time.DateTime;
+import org.joda.time.LocalTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * This class builds the data shared by the benchmarks.
+ */
+final class BenchmarkFixtures {
+    static final String DELIVERY_ADDRESS = "Learning Centre Campus, 06410 Biot, France";
+    static final String MENU_NAME = "Burger";
+    /**
+     * Large enough for the time slots never to be full during a benchmark.
+     */
+    static final int UNLIMITED_CAPACITY = 100_000_000;
+
+    private BenchmarkFixtures() {
+        throw new IllegalStateException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * The notifications would measure the console instead of the application.
+     */
+    static void silenceLogs() {
+        LoggerUtils.setLevel(Level.OFF);
+    }
+
+    static DateTime tomorrowAtNoon() {
+        return new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0));
+    }
+
+    static List<Restaurant> createRestaurants(int count, int capacity) {
+        List<Restaurant> restaurants = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Restaurant restaurant = new Restaurant("Restaurant" + i, i, "password", new Scheduler(), capacity, i + " rue de la paix");
+            restaurant.addMenuItem(new Menu(MENU_NAME, 10));
+            restaurant.addMenuItem(new Menu("Salad", 7.5));
+            restaurants.add(restaurant);
+        }
+        return restaurants;
+    }
+
+    static List<CustomerAccount> createCustomers(int count) {
+        List<CustomerAccount> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(new CustomerAccount("Customer" + i, "Benchmark", "password"));
+        }
+        return customers;
+    }
+
+    static OrderAbstract createOrder(CustomerAccount customer, Restaurant restaurant, DateTime deliveryDate) throws UnauthorizedOperationException {
+        return new OrderBuilder(deliveryDate, customer)
+                .setDeliveryAddress(DELIVERY_ADDRESS)
+                .addMenuItems(List.of(new OrderItem(restaurant.getMenuItem(MENU_NAME), restaurant)))
+                .build();
+    }
+
+    static OrderAbstract createFinishedOrder(CustomerAccount customer, Restaurant restaurant, DateTime deliveryDate) throws UnauthorizedOperationException {
+        OrderAbstract order = createOrder(customer, restaurant, deliveryDate);
+        order.getItems().forEach(item -> item.setStatus(EOrderStatus.FINISH));
+        return order;
+    }
+}
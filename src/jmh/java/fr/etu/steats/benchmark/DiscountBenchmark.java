@@ -0,0 +1,78 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderBuilder;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.DiscountService;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price an order with items of several restaurants, for customers with a more or less long history.
+ * Below 10 previous orders in a restaurant the history is browsed on every call, above the discount is granted once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountBenchmark {
+    @Param({"1", "5"})
+    private int restaurantCount;
+
+    @Param({"10", "1000"})
+    private int customerCount;
+
+    @Param({"0", "9", "100"})
+    private int previousOrderCount;
+
+    private List<OrderAbstract> orders;
+    private int next;
+
+    @Setup
+    public void setUp() throws UnauthorizedOperationException {
+        BenchmarkFixtures.silenceLogs();
+        List<Restaurant> restaurants = BenchmarkFixtures.createRestaurants(restaurantCount, BenchmarkFixtures.UNLIMITED_CAPACITY);
+        DateTime deliveryDate = BenchmarkFixtures.tomorrowAtNoon();
+        DateTime lastWeek = deliveryDate.minusDays(7);
+
+        orders = new ArrayList<>(customerCount);
+        for (CustomerAccount customer : BenchmarkFixtures.createCustomers(customerCount)) {
+            for (int i = 0; i < previousOrderCount; i++) {
+                customer.addOrder(BenchmarkFixtures.createFinishedOrder(customer, restaurants.get(i % restaurantCount), lastWeek));
+            }
+            List<OrderItem> items = new ArrayList<>();
+            for (Restaurant restaurant : restaurants) {
+                items.add(new OrderItem(restaurant.getMenuItem(BenchmarkFixtures.MENU_NAME), restaurant));
+            }
+            orders.add(new OrderBuilder(deliveryDate, customer)
+                    .setDeliveryAddress(BenchmarkFixtures.DELIVERY_ADDRESS)
+                    .addMenuItems(items)
+                    .build());
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public double computePriceAfterDiscount() {
+        return DiscountService.computePriceAfterDiscount(orders.get(next++ % customerCount));
+    }
+}
@@ -0,0 +1,79 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.OrderService;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Find orders by id among a large number of saved orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderLookupBenchmark {
+    private static final int LOOKUP_COUNT = 1 << 16;
+
+    @Param({"10000", "100000", "1000000"})
+    private int orderCount;
+
+    @Param({"10"})
+    private int restaurantCount;
+
+    @Param({"1000"})
+    private int customerCount;
+
+    private OrderService orderService;
+    private int[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws UnauthorizedOperationException {
+        BenchmarkFixtures.silenceLogs();
+        List<Restaurant> restaurants = BenchmarkFixtures.createRestaurants(restaurantCount, BenchmarkFixtures.UNLIMITED_CAPACITY);
+        List<CustomerAccount> customers = BenchmarkFixtures.createCustomers(customerCount);
+        DateTime deliveryDate = BenchmarkFixtures.tomorrowAtNoon();
+        orderService = new OrderService();
+
+        int[] savedIds = new int[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            CustomerAccount customer = customers.get(i % customerCount);
+            OrderAbstract order = BenchmarkFixtures.createOrder(customer, restaurants.get(i % restaurantCount), deliveryDate);
+            orderService.getOrderRepository().save(order);
+            customer.addOrder(order);
+            savedIds[i] = order.getId();
+        }
+        // Random ids decided beforehand, so the benchmark does not measure the random generator
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new int[LOOKUP_COUNT];
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            ids[i] = savedIds[random.nextInt(orderCount)];
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public OrderAbstract findOrderById() {
+        return orderService.findOrderById(ids[next++ & (LOOKUP_COUNT - 1)]);
+    }
+}
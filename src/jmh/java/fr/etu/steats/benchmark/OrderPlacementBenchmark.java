@@ -0,0 +1,80 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.registry.CustomerRegistry;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.DeliveryLocationService;
+import fr.etu.steats.service.OrderService;
+import fr.etu.steats.service.RegistrationService;
+import fr.etu.steats.service.RestaurantService;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Place a single order end to end, from the customer registry to the time slots of the restaurant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPlacementBenchmark {
+    @Param({"1", "10", "100"})
+    private int restaurantCount;
+
+    @Param({"10", "1000"})
+    private int customerCount;
+
+    private List<CustomerRegistry> registries;
+    private List<Map<Integer, List<String>>> orders;
+    private DateTime deliveryDate;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BenchmarkFixtures.silenceLogs();
+        List<Restaurant> restaurants = BenchmarkFixtures.createRestaurants(restaurantCount, BenchmarkFixtures.UNLIMITED_CAPACITY);
+        OrderService orderService = new OrderService();
+        RegistrationService registrationService = new RegistrationService();
+        DeliveryLocationService deliveryLocationService = new DeliveryLocationService();
+        RestaurantService restaurantService = new RestaurantService(new HashSet<>(restaurants));
+
+        registries = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            CustomerRegistry registry = new CustomerRegistry(orderService, registrationService, deliveryLocationService, restaurantService);
+            registry.customerRegister("Customer" + i, "Benchmark", "password");
+            registries.add(registry);
+        }
+        orders = new ArrayList<>(restaurantCount);
+        for (Restaurant restaurant : restaurants) {
+            orders.add(Map.of(restaurant.getId(), List.of(BenchmarkFixtures.MENU_NAME)));
+        }
+        deliveryDate = BenchmarkFixtures.tomorrowAtNoon();
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean placeSingleOrder() throws UnauthorizedOperationException {
+        int index = next++;
+        CustomerRegistry registry = registries.get(index % customerCount);
+        return registry.placeSingleOrder(orders.get(index % restaurantCount), deliveryDate, BenchmarkFixtures.DELIVERY_ADDRESS);
+    }
+}
@@ -0,0 +1,57 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.StatisticReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generate the statistic report of the admin over every restaurant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticReportBenchmark {
+    @Param({"10", "100"})
+    private int restaurantCount;
+
+    @Param({"100", "5000"})
+    private int ordersPerRestaurant;
+
+    private Set<Restaurant> restaurants;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.silenceLogs();
+        List<Restaurant> created = BenchmarkFixtures.createRestaurants(restaurantCount, BenchmarkFixtures.UNLIMITED_CAPACITY);
+        for (Restaurant restaurant : created) {
+            for (int i = 0; i < ordersPerRestaurant; i++) {
+                restaurant.addOrder(new OrderItem(restaurant.getMenuItem(BenchmarkFixtures.MENU_NAME), restaurant));
+            }
+        }
+        restaurants = new HashSet<>(created);
+    }
+
+    @Benchmark
+    public StatisticReport generateReport() {
+        return new StatisticReport(restaurants);
+    }
+}
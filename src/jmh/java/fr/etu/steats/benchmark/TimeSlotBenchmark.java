@@ -0,0 +1,77 @@
+package fr.etu.steats.benchmark;
+
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.TimeSlot;
+import fr.etu.steats.restaurant.TimeSlotManager;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Find the time slots of a deadline and reserve places in them, with slots already holding orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSlotBenchmark {
+    @Param({"0", "1000", "100000"})
+    private int orderCount;
+
+    @Param({"1", "7"})
+    private int dayCount;
+
+    private TimeSlotManager timeSlotManager;
+    private List<OrderItem> items;
+    private DateTime[] deadlines;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws UnauthorizedOperationException {
+        BenchmarkFixtures.silenceLogs();
+        Restaurant restaurant = BenchmarkFixtures.createRestaurants(1, BenchmarkFixtures.UNLIMITED_CAPACITY).get(0);
+        timeSlotManager = restaurant.getTimeSlotManager();
+        items = List.of(new OrderItem(restaurant.getMenuItem(BenchmarkFixtures.MENU_NAME), restaurant));
+
+        // Every slot between 9h and 19h of the following days can be a deadline
+        DateTime firstDeadline = BenchmarkFixtures.tomorrowAtNoon().withHourOfDay(9);
+        int deadlinesPerDay = 10 * 60 / TimeSlot.TIME_SLOT_DURATION;
+        deadlines = new DateTime[dayCount * deadlinesPerDay];
+        for (int day = 0; day < dayCount; day++) {
+            for (int slot = 0; slot < deadlinesPerDay; slot++) {
+                deadlines[day * deadlinesPerDay + slot] = firstDeadline.plusDays(day).plusMinutes(slot * TimeSlot.TIME_SLOT_DURATION);
+            }
+        }
+        for (int i = 0; i < orderCount; i++) {
+            timeSlotManager.addOrderToPrepareWithDeadline(items, deadlines[i % deadlines.length]);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public List<TimeSlot> getTimeSlotForOrder() {
+        return timeSlotManager.getTimeSlotForOrder(deadlines[next++ % deadlines.length]);
+    }
+
+    @Benchmark
+    public boolean addOrderToPrepareWithDeadline() throws UnauthorizedOperationException {
+        return timeSlotManager.addOrderToPrepareWithDeadline(items, deadlines[next++ % deadlines.length]);
+    }
+}
@@ -1,17 +1,36 @@
 package fr.etu.steats;
 
+import fr.etu.steats.enums.EJournalDurability;
 import fr.etu.steats.registry.AdminRegistry;
 import fr.etu.steats.registry.CustomerRegistry;
 import fr.etu.steats.registry.DeliveryRegistry;
 import fr.etu.steats.registry.RestaurantRegistry;
 import fr.etu.steats.service.*;
+import fr.etu.steats.utils.LoggerUtils;
 import fr.etu.steats.utils.Scheduler;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 public class STEats {
+    private static final int LOG_QUEUE_CAPACITY = 10_000;
+    private static final int NOTIFICATION_QUEUE_CAPACITY = 10_000;
+    private static final long NOTIFICATION_MAX_WAIT_MILLIS = 50;
     private final CustomerRegistry customerRegistry;
     private final DeliveryRegistry deliveryRegistry;
     private final AdminRegistry adminRegistry;
     private final RestaurantRegistry restaurantRegistry;
+    private final SnapshotService snapshotService;
+
+    static {
+        // The requests don't wait for the console: the notifications and the log output are written on background threads
+        LoggerUtils.enableAsynchronousOutput(LOG_QUEUE_CAPACITY);
+        NotificationService.enableAsynchronousDelivery(NOTIFICATION_QUEUE_CAPACITY, NOTIFICATION_MAX_WAIT_MILLIS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> NotificationService.disableAsynchronousDelivery(1, TimeUnit.SECONDS), "notification-flush"));
+    }
 
     public STEats() {
         this(new PaymentService(), new Scheduler());
@@ -26,15 +45,77 @@ public class STEats {
     }
 
     public STEats(PaymentService paymentService, Scheduler scheduler) {
-        RestaurantService restaurantService = new RestaurantService(scheduler);
-        OrderService orderService = new OrderService(paymentService);
-        RegistrationService registrationService = new RegistrationService(scheduler);
-        DeliveryLocationService deliveryLocationService = new DeliveryLocationService();
+        // The services load their CSV files in parallel
+        this(CompletableFuture.supplyAsync(DeliveryLocationService::new), loadFromCsv(paymentService, scheduler));
+    }
 
+    private STEats(CompletableFuture<DeliveryLocationService> deliveryLocationServiceLoad, SnapshotService snapshotService) {
+        DeliveryLocationService deliveryLocationService = deliveryLocationServiceLoad.join();
+        RegistrationService registrationService = snapshotService.getRegistrationService();
+        RestaurantService restaurantService = snapshotService.getRestaurantService();
+        OrderService orderService = snapshotService.getOrderService();
+        this.snapshotService = snapshotService;
         this.customerRegistry = new CustomerRegistry(orderService, registrationService, deliveryLocationService, restaurantService);
         this.deliveryRegistry = new DeliveryRegistry(registrationService, orderService);
         this.adminRegistry = new AdminRegistry(deliveryLocationService, registrationService, restaurantService, orderService);
-        this.restaurantRegistry = new RestaurantRegistry(restaurantService);
+        this.restaurantRegistry = new RestaurantRegistry(restaurantService, orderService);
+    }
+
+    /**
+     * Restart from a snapshot written by {@link #getSnapshotService()} instead of the CSV files.
+     * The delivery locations are still read from their file.
+     *
+     * @throws IOException if the snapshot can't be read, or is not a valid snapshot
+     */
+    public static STEats restore(Path snapshot, PaymentService paymentService, Scheduler scheduler) throws IOException {
+        CompletableFuture<DeliveryLocationService> deliveryLocationServiceLoad = CompletableFuture.supplyAsync(DeliveryLocationService::new);
+        return new STEats(deliveryLocationServiceLoad, SnapshotService.restore(snapshot, paymentService, scheduler));
+    }
+
+    /**
+     * Restart from the last snapshot, then replay the events written in the journal since.
+     * The first time, when there is no snapshot and the journal is empty, the CSV files are loaded and saved in
+     * a first snapshot, which keeps the ids of the accounts the events will refer to.
+     * The lifecycle of the orders is written in the journal from then on.
+     *
+     * @throws IOException if the snapshot or the journal can't be read, or if the journal has events but there is no snapshot
+     */
+    public static STEats recover(Path snapshot, Path journalDirectory, EJournalDurability durability, PaymentService paymentService, Scheduler scheduler) throws IOException {
+        CompletableFuture<DeliveryLocationService> deliveryLocationServiceLoad = CompletableFuture.supplyAsync(DeliveryLocationService::new);
+        OrderJournal journal = OrderJournal.open(journalDirectory, durability);
+        SnapshotService snapshotService;
+        try {
+            if (Files.exists(snapshot)) {
+                snapshotService = SnapshotService.restore(snapshot, paymentService, scheduler);
+                journal.replay(snapshotService, scheduler);
+            } else if (journal.getEventJournal().getLastSequence() == 0) {
+                snapshotService = loadFromCsv(paymentService, scheduler);
+                snapshotService.write(snapshot);
+            } else {
+                throw new IOException("The journal " + journalDirectory + " can't be replayed without the snapshot " + snapshot + " holding its accounts");
+            }
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        snapshotService.setJournal(journal);
+        return new STEats(deliveryLocationServiceLoad, snapshotService);
+    }
+
+    /**
+     * The restaurants are loaded in parallel with the accounts: their ids come from their own counter, restarted by the load.
+     */
+    private static SnapshotService loadFromCsv(PaymentService paymentService, Scheduler scheduler) {
+        CompletableFuture<RestaurantService> restaurantServiceLoad = CompletableFuture.supplyAsync(() -> new RestaurantService(scheduler));
+        CompletableFuture<RegistrationService> registrationServiceLoad = CompletableFuture.supplyAsync(() -> new RegistrationService(scheduler));
+        return new SnapshotService(registrationServiceLoad.join(), restaurantServiceLoad.join(), new OrderService(paymentService));
+    }
+
+    /**
+     * The snapshots are taken on demand, or periodically once started.
+     */
+    public SnapshotService getSnapshotService() {
+        return snapshotService;
     }
 
     public CustomerRegistry getCustomerRegistry() {
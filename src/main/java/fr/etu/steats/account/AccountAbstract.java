@@ -1,24 +1,69 @@
 package fr.etu.steats.account;
 
 import fr.etu.steats.exception.BadPasswordException;
+import fr.etu.steats.service.CredentialService;
+import fr.etu.steats.service.PasswordHash;
 
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AccountAbstract {
+    private static final AtomicInteger ID_FACTORY = new AtomicInteger(1);
+    /**
+     * The id never changes, unlike the other fields of an account, so it can key the caches of the services.
+     */
+    private final int id;
     private final String firstName;
     private final String lastName;
-    private String password;
+    /**
+     * Only the hash of the password is kept, see {@link CredentialService}.
+     * It is computed in the background, the first use waits for it.
+     */
+    private volatile PasswordHash passwordHash;
 
     protected AccountAbstract(String firstName, String lastName, String password) {
-        if (firstName == null || lastName == null || password == null) {
+        this(firstName, lastName, password, null);
+    }
+
+    /**
+     * Create an account loaded from a file, see {@link PasswordHash#fromFile(String)}.
+     */
+    protected AccountAbstract(String firstName, String lastName, PasswordHash passwordHash) {
+        this(firstName, lastName, null, passwordHash);
+    }
+
+    /**
+     * @param password the new password to hash in the background, or null to keep the given hash
+     */
+    private AccountAbstract(String firstName, String lastName, String password, PasswordHash passwordHash) {
+        if (firstName == null || lastName == null || (password == null && passwordHash == null)) {
             throw new IllegalArgumentException("The first name, the last name and the password can't be null");
         }
-        if (firstName.isBlank() || lastName.isBlank() || password.isBlank()) {
+        if (firstName.isBlank() || lastName.isBlank() || (password != null && password.isBlank())) {
             throw new IllegalArgumentException("The first name, the last name and the password can't be blank");
         }
+        this.id = ID_FACTORY.getAndIncrement();
         this.firstName = firstName.trim().toLowerCase();
         this.lastName = lastName.trim().toLowerCase();
-        this.password = password;
+        this.passwordHash = (password != null) ? PasswordHash.inBackground(password) : passwordHash;
+    }
+
+    /**
+     * Restore an account from a snapshot, with its id and the hash of its password.
+     * The next accounts get ids above the restored one.
+     */
+    protected AccountAbstract(int id, String firstName, String lastName, String passwordHash) {
+        if (firstName == null || lastName == null || passwordHash == null) {
+            throw new IllegalArgumentException("The first name, the last name and the password hash can't be null");
+        }
+        ID_FACTORY.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.passwordHash = PasswordHash.of(passwordHash);
+    }
+
+    public int getId() {
+        return id;
     }
 
     public String getFirstName() {
@@ -37,15 +82,15 @@ public abstract class AccountAbstract {
         return this.firstName.substring(0, 1).toUpperCase() + this.firstName.substring(1) + " " + this.lastName.toUpperCase();
     }
 
-    public String getPassword() {
-        return password;
+    public String getPasswordHash() {
+        return passwordHash.get();
     }
 
     public boolean checkPassword(String password) throws BadPasswordException {
         if (password == null || password.isBlank()) {
             throw new BadPasswordException("The password can't be null or blank");
         }
-        if (!this.password.equals(password)) {
+        if (!CredentialService.matches(password, passwordHash)) {
             throw new BadPasswordException("The password you provided is incorrect, please retry. \nIf you forgot your password, contact an administrator to change your it.");
         }
         return true;
@@ -55,9 +100,12 @@ public abstract class AccountAbstract {
         if (password == null || password.isBlank()) {
             throw new IllegalArgumentException("The password can't be null or blank");
         }
-        this.password = password;
+        this.passwordHash = PasswordHash.inBackground(password);
     }
 
+    /**
+     * Two accounts are the same only if they have the same id, whatever their other fields, which may change.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -65,16 +113,11 @@ public abstract class AccountAbstract {
 
         AccountAbstract accountAbstract = (AccountAbstract) o;
 
-        if (!firstName.equals(accountAbstract.firstName)) return false;
-        if (!lastName.equals(accountAbstract.lastName)) return false;
-        return Objects.equals(password, accountAbstract.password);
+        return id == accountAbstract.id;
     }
 
     @Override
     public int hashCode() {
-        int result = firstName.hashCode();
-        result = 31 * result + lastName.hashCode();
-        result = 31 * result + (password != null ? password.hashCode() : 0);
-        return result;
+        return Integer.hashCode(id);
     }
 }
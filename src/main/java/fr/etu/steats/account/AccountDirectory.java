@@ -0,0 +1,85 @@
+package fr.etu.steats.account;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class stores the accounts of one type by id and by normalized name.
+ * The id and the name of an account never change, so a lookup costs O(1) whatever the order history of the account.
+ * A name is registered at most once: the name index is written first with {@code putIfAbsent}, so two concurrent
+ * sign-ups with the same name can't both succeed.
+ *
+ * @param <T> the type of account
+ */
+public class AccountDirectory<T extends AccountAbstract> {
+    private final ConcurrentMap<Integer, T> accountsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<NameKey, T> accountsByName = new ConcurrentHashMap<>();
+
+    /**
+     * @return false if the account, or an account with the same name, was already in the directory
+     */
+    public boolean add(T account) {
+        if (account == null) {
+            throw new IllegalArgumentException("The account can't be null");
+        }
+        if (accountsByName.putIfAbsent(NameKey.of(account), account) != null) {
+            return false;
+        }
+        accountsById.put(account.getId(), account);
+        return true;
+    }
+
+    public boolean remove(T account) {
+        if (account == null || !accountsById.remove(account.getId(), account)) {
+            return false;
+        }
+        accountsByName.remove(NameKey.of(account), account);
+        return true;
+    }
+
+    /**
+     * The names are compared trimmed and in lower case, like they are stored in the accounts.
+     *
+     * @return the account with this name, or null if there is none
+     */
+    public T findByName(String firstName, String lastName) {
+        if (firstName == null || lastName == null) {
+            return null;
+        }
+        return accountsByName.get(new NameKey(normalize(firstName), normalize(lastName)));
+    }
+
+    /**
+     * @return the account with this id, or null if there is none
+     */
+    public T findById(int id) {
+        return accountsById.get(id);
+    }
+
+    public boolean contains(T account) {
+        return account != null && accountsById.get(account.getId()) == account;
+    }
+
+    /**
+     * @return a read-only view of the accounts
+     */
+    public Collection<T> getAll() {
+        return Collections.unmodifiableCollection(accountsById.values());
+    }
+
+    public int size() {
+        return accountsById.size();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    private record NameKey(String firstName, String lastName) {
+        private static NameKey of(AccountAbstract account) {
+            return new NameKey(account.getFirstName(), account.getLastName());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package fr.etu.steats.account;
 
+import fr.etu.steats.service.PasswordHash;
+
 /**
  * This class represents an admin account
  * An admin account can manage restaurants and delivery accounts and can see statistics
@@ -9,4 +11,26 @@ public class AdminAccount extends AccountAbstract {
     public AdminAccount(String firstName, String lastName, String password) {
         super(firstName, lastName, password);
     }
-}
\ No newline at end of file
+
+    private AdminAccount(String firstName, String lastName, PasswordHash passwordHash) {
+        super(firstName, lastName, passwordHash);
+    }
+
+    /**
+     * Load an admin account from a file holding the hash of its password or the password in clear.
+     */
+    public static AdminAccount fromFile(String firstName, String lastName, String passwordOrHash) {
+        return new AdminAccount(firstName, lastName, PasswordHash.fromFile(passwordOrHash));
+    }
+
+    private AdminAccount(int id, String firstName, String lastName, String passwordHash) {
+        super(id, firstName, lastName, passwordHash);
+    }
+
+    /**
+     * Restore an admin account from a snapshot.
+     */
+    public static AdminAccount restore(int id, String firstName, String lastName, String passwordHash) {
+        return new AdminAccount(id, firstName, lastName, passwordHash);
+    }
+}
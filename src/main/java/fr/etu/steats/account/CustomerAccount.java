@@ -3,14 +3,27 @@ package fr.etu.steats.account;
 import fr.etu.steats.enums.ECustomerStatus;
 import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.order.OrderListener;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.DiscountService;
+import fr.etu.steats.service.PasswordHash;
+import org.joda.time.DateTime;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CustomerAccount extends AccountAbstract {
     private final List<OrderAbstract> orders;
     private double credit;
     private ECustomerStatus type;
+    /**
+     * The latest deliveries of the customer in each restaurant, updated when an order reaches the FINISH status.
+     */
+    private final Map<Restaurant, RecentDeliveries> recentDeliveriesByRestaurant = new ConcurrentHashMap<>();
+    private final OrderListener finishedOrderListener = this::recordIfFinished;
 
     public CustomerAccount(String firstName, String lastName, String password) {
         this(firstName, lastName, password, ECustomerStatus.EXTERNAL);
@@ -24,6 +37,36 @@ public class CustomerAccount extends AccountAbstract {
         this.type = type;
     }
 
+    private CustomerAccount(String firstName, String lastName, PasswordHash passwordHash) {
+        super(firstName, lastName, passwordHash);
+
+        this.orders = new ArrayList<>();
+        this.credit = 0;
+        this.type = ECustomerStatus.EXTERNAL;
+    }
+
+    /**
+     * Load a customer from a file holding the hash of its password or the password in clear.
+     */
+    public static CustomerAccount fromFile(String firstName, String lastName, String passwordOrHash) {
+        return new CustomerAccount(firstName, lastName, PasswordHash.fromFile(passwordOrHash));
+    }
+
+    private CustomerAccount(int id, String firstName, String lastName, String passwordHash, ECustomerStatus type, double credit) {
+        super(id, firstName, lastName, passwordHash);
+
+        this.orders = new ArrayList<>();
+        this.credit = credit;
+        this.type = type;
+    }
+
+    /**
+     * Restore a customer from a snapshot, its orders are added back with {@link #addOrder(OrderAbstract)}.
+     */
+    public static CustomerAccount restore(int id, String firstName, String lastName, String passwordHash, ECustomerStatus type, double credit) {
+        return new CustomerAccount(id, firstName, lastName, passwordHash, type, credit);
+    }
+
     public List<OrderAbstract> getOrders() {
         return this.orders;
     }
@@ -32,7 +75,42 @@ public class CustomerAccount extends AccountAbstract {
         if (order == null) {
             throw new IllegalArgumentException("The order can't be null");
         }
-        return this.orders.add(order);
+        boolean added = this.orders.add(order);
+        if (order.getStatus() == EOrderStatus.FINISH) {
+            recordDelivery(order);
+        } else {
+            order.addListener(finishedOrderListener);
+        }
+        return added;
+    }
+
+    /**
+     * @param numberOfOrders at most {@link DiscountService#CUMULATED_ORDER_COUNT}
+     * @return whether at least this number of finished orders with items of the restaurant were delivered after the date
+     */
+    public boolean hasFinishedOrdersSince(Restaurant restaurant, int numberOfOrders, DateTime since) {
+        RecentDeliveries recentDeliveries = recentDeliveriesByRestaurant.get(restaurant);
+        if (recentDeliveries == null) {
+            return numberOfOrders <= 0;
+        }
+        return recentDeliveries.hasAtLeastSince(numberOfOrders, since.getMillis());
+    }
+
+    private void recordIfFinished(OrderAbstract order) {
+        // Removing the listener succeeds once, so an order is recorded once even if its items finish concurrently
+        if (order.getStatus() == EOrderStatus.FINISH && order.removeListener(finishedOrderListener)) {
+            recordDelivery(order);
+        }
+    }
+
+    private void recordDelivery(OrderAbstract order) {
+        long deliveryDate = order.getDeliveryDate().getMillis();
+        order.getItems().stream()
+                .map(OrderItem::getRestaurant)
+                .distinct()
+                .forEach(restaurant -> recentDeliveriesByRestaurant
+                        .computeIfAbsent(restaurant, key -> new RecentDeliveries(DiscountService.CUMULATED_ORDER_COUNT))
+                        .record(deliveryDate));
     }
 
     public double getCredit() {
@@ -63,28 +141,6 @@ public class CustomerAccount extends AccountAbstract {
         }
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-
-        CustomerAccount otherAccount = (CustomerAccount) o;
-
-        if (Double.compare(credit, otherAccount.credit) != 0) return false;
-        return orders.equals(otherAccount.orders);
-    }
-
-    @Override
-    public int hashCode() {
-        int result = super.hashCode();
-        long temp;
-        result = 31 * result + (orders != null ? orders.hashCode() : 0);
-        temp = Double.doubleToLongBits(credit);
-        result = 31 * result + (int) (temp ^ (temp >>> 32));
-        return result;
-    }
-
     public List<OrderAbstract> getPreviousOrder() {
         return this.orders.stream().filter(order -> order.getStatus() == EOrderStatus.FINISH).toList();
     }
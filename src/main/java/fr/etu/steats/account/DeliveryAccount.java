@@ -4,10 +4,13 @@ import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderAbstract;
 import fr.etu.steats.service.NotificationService;
 import fr.etu.steats.service.OrderService;
+import fr.etu.steats.service.PasswordHash;
 import fr.etu.steats.utils.Scheduler;
 import fr.etu.steats.utils.UserLevel;
 
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static fr.etu.steats.enums.EOrderStatus.WAITING_DELIVER_ACCEPTANCE;
 
@@ -24,42 +27,92 @@ public class DeliveryAccount extends AccountAbstract {
         this.scheduler = (scheduler == null) ? new Scheduler() : scheduler;
     }
 
+    private DeliveryAccount(String firstName, String lastName, PasswordHash passwordHash, Scheduler scheduler) {
+        super(firstName, lastName, passwordHash);
+        this.scheduler = (scheduler == null) ? new Scheduler() : scheduler;
+    }
+
+    /**
+     * Load a delivery account from a file holding the hash of its password or the password in clear.
+     */
+    public static DeliveryAccount fromFile(String firstName, String lastName, String passwordOrHash, Scheduler scheduler) {
+        return new DeliveryAccount(firstName, lastName, PasswordHash.fromFile(passwordOrHash), scheduler);
+    }
+
+    private DeliveryAccount(int id, String firstName, String lastName, String passwordHash, Scheduler scheduler) {
+        super(id, firstName, lastName, passwordHash);
+        this.scheduler = (scheduler == null) ? new Scheduler() : scheduler;
+    }
+
+    /**
+     * Restore a delivery account from a snapshot, its order is given back with {@link #restoreAssignedOrder(OrderAbstract)}.
+     */
+    public static DeliveryAccount restore(int id, String firstName, String lastName, String passwordHash, Scheduler scheduler) {
+        return new DeliveryAccount(id, firstName, lastName, passwordHash, scheduler);
+    }
+
     public void setAssignedOrder(OrderAbstract orderAbstract) {
         this.assignedOrder = orderAbstract;
         this.assignedOrder.assignDeliveryMan(this);
-        NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, "New order n°" + orderAbstract.getId() + " to deliver to " + this.assignedOrder.getDeliveryAddress(), this.getFullName());
+        String deliveryAddress = orderAbstract.getDeliveryAddress();
+        NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, () -> "New order n°" + orderAbstract.getId() + " to deliver to " + deliveryAddress, this.getFullName());
+    }
+
+    /**
+     * Give back the order assigned before a snapshot, without notifying the delivery man again.
+     */
+    public void restoreAssignedOrder(OrderAbstract orderAbstract) {
+        this.assignedOrder = orderAbstract;
+        this.assignedOrder.assignDeliveryMan(this);
     }
 
     public void putOrderInDelivery() throws UnauthorizedOperationException, InterruptedException {
         if (this.assignedOrder != null && this.assignedOrder.getStatus().equals(WAITING_DELIVER_ACCEPTANCE)) {
-            this.assignedOrder.setInDelivery();
+            OrderAbstract order = this.assignedOrder;
+            order.setInDelivery();
             scheduler.waitTenMinutes();
-            this.assignedOrder.setFinished();
-            this.assignedOrder.addCustomerCredit(OrderService.MIN_NUMBER_OF_ORDERS, OrderService.DISCOUNT);
-            this.assignedOrder = null;
+            finishDelivery(order);
         }
         NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, "Congrats ! You have finished your delivery !", this.getFullName());
     }
 
-    public OrderAbstract getAssignedOrder() {
-        return assignedOrder;
+    /**
+     * Deliver the assigned order without blocking the caller, the order is delivered once the future completes.
+     * The future completes exceptionally with an {@link UnauthorizedOperationException} if the order can't be finished.
+     */
+    public CompletableFuture<Void> putOrderInDeliveryAsync() throws UnauthorizedOperationException {
+        return putOrderInDeliveryAsync(Runnable::run);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-
-        DeliveryAccount otherAccount = (DeliveryAccount) o;
+    /**
+     * @param finisher runs the end of the delivery on the work executor of the scheduler once the 10 minutes are over,
+     *                 for example under the locks held for its start
+     */
+    public CompletableFuture<Void> putOrderInDeliveryAsync(Executor finisher) throws UnauthorizedOperationException {
+        if (this.assignedOrder == null || !this.assignedOrder.getStatus().equals(WAITING_DELIVER_ACCEPTANCE)) {
+            NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, "Congrats ! You have finished your delivery !", this.getFullName());
+            return CompletableFuture.completedFuture(null);
+        }
+        OrderAbstract order = this.assignedOrder;
+        order.setInDelivery();
+        return scheduler.afterTenMinutes().thenRunAsync(() -> finisher.execute(() -> {
+            try {
+                finishDelivery(order);
+            } catch (UnauthorizedOperationException e) {
+                throw new CompletionException(e);
+            }
+        }), scheduler.getWorkExecutor()).thenRun(() -> NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, "Congrats ! You have finished your delivery !", this.getFullName()));
+    }
 
-        return Objects.equals(assignedOrder, otherAccount.assignedOrder);
+    private void finishDelivery(OrderAbstract order) throws UnauthorizedOperationException {
+        order.setFinished();
+        order.addCustomerCredit(OrderService.MIN_NUMBER_OF_ORDERS, OrderService.DISCOUNT);
+        if (this.assignedOrder == order) {
+            this.assignedOrder = null;
+        }
     }
 
-    @Override
-    public int hashCode() {
-        int result = super.hashCode();
-        result = 31 * result + (assignedOrder != null ? assignedOrder.hashCode() : 0);
-        return result;
+    public OrderAbstract getAssignedOrder() {
+        return assignedOrder;
     }
 }
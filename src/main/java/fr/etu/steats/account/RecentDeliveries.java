@@ -0,0 +1,48 @@
+package fr.etu.steats.account;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the latest delivery dates of the finished orders of a customer in one restaurant.
+ * Only the {@code capacity} latest dates are kept: there are at least {@code capacity} deliveries since a date
+ * exactly when the oldest of them is after this date, so the question is answered in constant time and memory.
+ */
+class RecentDeliveries {
+    /**
+     * The kept dates in milliseconds, sorted from the oldest to the latest.
+     */
+    private final long[] latestDates;
+    private int size;
+
+    RecentDeliveries(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.latestDates = new long[capacity];
+    }
+
+    synchronized void record(long deliveryDate) {
+        if (size < latestDates.length) {
+            latestDates[size++] = deliveryDate;
+        } else if (deliveryDate > latestDates[0]) {
+            latestDates[0] = deliveryDate;
+        } else {
+            return;
+        }
+        Arrays.sort(latestDates, 0, size);
+    }
+
+    /**
+     * @param count at most the capacity
+     * @return whether at least {@code count} deliveries happened strictly after the date
+     */
+    synchronized boolean hasAtLeastSince(int count, long since) {
+        if (count > latestDates.length) {
+            throw new IllegalArgumentException("Only the " + latestDates.length + " latest deliveries are kept");
+        }
+        if (count <= 0) {
+            return true;
+        }
+        return size >= count && latestDates[size - count] > since;
+    }
+}
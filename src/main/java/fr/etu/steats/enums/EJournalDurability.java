@@ -0,0 +1,15 @@
+package fr.etu.steats.enums;
+
+/**
+ * When the records appended to a journal are forced to the disk.
+ */
+public enum EJournalDurability {
+    /**
+     * An append returns once its record is on the disk, the appends made meanwhile by other threads share the same fsync.
+     */
+    SYNC,
+    /**
+     * An append returns at once, a background thread forces the records to the disk periodically.
+     */
+    ASYNC
+}
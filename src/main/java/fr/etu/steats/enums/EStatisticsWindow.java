@@ -0,0 +1,7 @@
+package fr.etu.steats.enums;
+
+public enum EStatisticsWindow {
+    LAST_15_MINUTES,
+    LAST_DAY,
+    LAST_WEEK
+}
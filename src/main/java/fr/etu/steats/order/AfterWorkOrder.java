@@ -4,6 +4,7 @@ import fr.etu.steats.account.CustomerAccount;
 import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.exception.UnauthorizedModificationException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.service.ClockService;
 import fr.etu.steats.service.DiscountService;
 import org.joda.time.DateTime;
 
@@ -25,6 +26,14 @@ public class AfterWorkOrder extends OrderAbstract {
         if (items == null) {
             this.items = new ArrayList<>();
         }
+        this.items.forEach(this::watchItem);
+    }
+
+    AfterWorkOrder(int id, CustomerAccount customer, DateTime deliveryDate, String deliveryAddress, boolean isCanceled, List<OrderItem> items, int numberOfParticipant) {
+        super(id, customer, deliveryDate, deliveryAddress, isCanceled);
+        this.numberOfParticipant = numberOfParticipant;
+        this.items = items;
+        this.items.forEach(this::watchItem);
     }
 
     @Override
@@ -65,7 +74,7 @@ public class AfterWorkOrder extends OrderAbstract {
 
     @Override
     public EOrderStatus getStatus() {
-        return computeStatus(this.items.stream().map(OrderItem::getStatus).toList());
+        return computeItemsStatus();
     }
 
     @Override
@@ -118,7 +127,7 @@ public class AfterWorkOrder extends OrderAbstract {
             for (OrderItem item : this.items) {
                 item.setStatus(CANCELED);
             }
-            this.isCanceled = true;
+            markCanceled();
             return true;
         }
         return false;
@@ -129,7 +138,7 @@ public class AfterWorkOrder extends OrderAbstract {
     }
 
     public void setNumberOfParticipant(int numberOfParticipant) {
-        if (deliveryDate.compareTo(DateTime.now()) > 0) {
+        if (deliveryDate.compareTo(ClockService.now()) > 0) {
             throw new IllegalArgumentException("You can't change the number of participant after the delivery date");
         }
         this.numberOfParticipant = numberOfParticipant;
@@ -54,6 +54,7 @@ public class BuffetOrder extends OrderAbstract {
         }
         this.items = items;
         this.checkRestaurant(restaurant);
+        this.items.forEach(this::watchItem);
         this.restaurant = restaurant;
         this.needToBeDelivered = false;
         this.needToBePaid = false;
@@ -78,6 +79,7 @@ public class BuffetOrder extends OrderAbstract {
             throw new IllegalArgumentException("You can't create an buffet order without items");
         }
         this.checkRestaurant(restaurant);
+        this.items.forEach(this::watchItem);
         if (needToBeDelivered) {
             if (deliveryDate.isBeforeNow() || deliveryAddress.isEmpty()) {
                 throw new IllegalArgumentException("Delivery date can't be in the past and delivery address can't be empty");
@@ -95,6 +97,18 @@ public class BuffetOrder extends OrderAbstract {
         }
     }
 
+    /**
+     * Restore a buffet order from a snapshot, the status of its items is kept as it is.
+     */
+    BuffetOrder(int id, CustomerAccount customer, DateTime deliveryDate, String deliveryAddress, boolean isCanceled, List<OrderItem> items, Restaurant restaurant, boolean needToBeDelivered, boolean needToBePaid) {
+        super(id, customer, deliveryDate, deliveryAddress, isCanceled);
+        this.items = items;
+        this.items.forEach(this::watchItem);
+        this.restaurant = restaurant;
+        this.needToBeDelivered = needToBeDelivered;
+        this.needToBePaid = needToBePaid;
+    }
+
     private void checkRestaurant(Restaurant theRestaurant) {
         if (theRestaurant == null) {
             throw new IllegalArgumentException("You can't create an buffet order without a associated restaurant");
@@ -142,7 +156,7 @@ public class BuffetOrder extends OrderAbstract {
 
     @Override
     public EOrderStatus getStatus() {
-        return computeStatus(this.items.stream().map(OrderItem::getStatus).toList());
+        return computeItemsStatus();
     }
 
     @Override
@@ -224,7 +238,7 @@ public class BuffetOrder extends OrderAbstract {
             for (OrderItem item : this.items) {
                 item.setStatus(CANCELED);
             }
-            this.isCanceled = true;
+            markCanceled();
             return true;
         }
         return false;
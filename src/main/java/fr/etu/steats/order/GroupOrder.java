@@ -10,17 +10,65 @@ import fr.etu.steats.utils.UserLevel;
 import org.joda.time.DateTime;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static fr.etu.steats.enums.EOrderStatus.IN_DELIVERY;
 import static fr.etu.steats.enums.EOrderStatus.WAITING_DELIVER_ACCEPTANCE;
 
 public class GroupOrder extends OrderAbstract {
     private final List<OrderAbstract> orders;
+    /**
+     * The number of sub orders in each status, kept up to date by the status transitions of the sub orders.
+     */
+    private final OrderStatusAggregate subOrderStatuses = new OrderStatusAggregate();
+    /**
+     * The items of all the sub orders in a read-only list, null when it must be built again.
+     * Rebuilt and invalidated while holding its lock.
+     */
+    private final AtomicReference<List<OrderItem>> itemsView = new AtomicReference<>();
+    private final OrderListener subOrderListener = new OrderListener() {
+        @Override
+        public void statusChanged(OrderAbstract subOrder, EOrderStatus oldStatus, EOrderStatus newStatus) {
+            synchronized (subOrderStatuses) {
+                subOrderStatuses.transition(oldStatus, newStatus);
+                subOrderStatuses.setStatus(resolveSubOrderStatus());
+            }
+        }
+
+        @Override
+        public void orderUpdated(OrderAbstract subOrder) {
+            notifyListeners();
+        }
+
+        @Override
+        public void itemsUpdated(OrderAbstract subOrder) {
+            resetItems();
+            notifyItemsUpdated();
+        }
+    };
 
     protected GroupOrder(CustomerAccount owner, DateTime deliveryDate, String deliveryAddress) {
         super(owner, deliveryDate, deliveryAddress);
-        this.orders = new ArrayList<>();
+        this.orders = new CopyOnWriteArrayList<>();
+    }
+
+    GroupOrder(int id, CustomerAccount owner, DateTime deliveryDate, String deliveryAddress, boolean isCanceled) {
+        super(id, owner, deliveryDate, deliveryAddress, isCanceled);
+        this.orders = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Give back a sub order saved in a snapshot, whatever its status.
+     */
+    void restoreSubOrder(OrderAbstract order) {
+        order.setParentGroupOwner(this);
+        this.orders.add(order);
+        watchSubOrder(order);
+        resetItems();
+        notifyItemsUpdated();
     }
 
     @Override
@@ -37,7 +85,14 @@ public class GroupOrder extends OrderAbstract {
         order.setDeliveryAddress(this.getDeliveryAddress());
         order.setDeliveryDate(this.getDeliveryDate());
         order.setParentGroupOwner(this);
-        return this.orders.add(order);
+        if (this.orders.add(order)) {
+            watchSubOrder(order);
+            resetItems();
+            notifyItemsUpdated();
+            notifyListeners();
+            return true;
+        }
+        return false;
     }
 
     public List<OrderAbstract> getSubOrders() {
@@ -49,17 +104,69 @@ public class GroupOrder extends OrderAbstract {
         return true;
     }
 
+    /**
+     * @return the items of all the sub orders in a read-only list, kept until a sub order is added or changes its items
+     */
     @Override
     public List<OrderItem> getItems() {
-        List<OrderItem> items = new ArrayList<>();
-        for (OrderAbstract suborder : getSubOrders()) {
-            items.addAll(suborder.getItems());
+        List<OrderItem> items = itemsView.get();
+        if (items == null) {
+            synchronized (itemsView) {
+                items = itemsView.get();
+                if (items == null) {
+                    List<OrderItem> allItems = new ArrayList<>();
+                    for (OrderAbstract suborder : getSubOrders()) {
+                        allItems.addAll(suborder.getItems());
+                    }
+                    items = Collections.unmodifiableList(allItems);
+                    itemsView.set(items);
+                }
+            }
         }
         return items;
     }
 
+    private void resetItems() {
+        synchronized (itemsView) {
+            itemsView.set(null);
+        }
+    }
+
+    /**
+     * Same result as {@link #computeStatus(List)} on the statuses of the sub orders, without going through them at each call.
+     */
     public EOrderStatus getStatus() {
-        return computeStatus(this.orders.stream().map(OrderAbstract::getStatus).toList());
+        EOrderStatus status;
+        synchronized (subOrderStatuses) {
+            status = subOrderStatuses.getStatus();
+        }
+        return (status != null) ? status : defaultStatus();
+    }
+
+    /**
+     * Count a new sub order, from the status its next transition will start from.
+     */
+    private void watchSubOrder(OrderAbstract order) {
+        EOrderStatus status = order.addStatusListener(subOrderListener);
+        synchronized (subOrderStatuses) {
+            subOrderStatuses.add(status);
+            subOrderStatuses.setStatus(resolveSubOrderStatus());
+        }
+    }
+
+    /**
+     * Only goes through the sub orders when they are in different blocking statuses, then the first of them wins.
+     */
+    private EOrderStatus resolveSubOrderStatus() {
+        if (subOrderStatuses.dependsOnOrder()) {
+            for (OrderAbstract order : this.orders) {
+                EOrderStatus status = order.getStatus();
+                if (OrderStatusAggregate.isBlocking(status)) {
+                    return status;
+                }
+            }
+        }
+        return subOrderStatuses.resolve();
     }
 
     @Override
@@ -180,7 +287,7 @@ public class GroupOrder extends OrderAbstract {
                 return false;
             }
         }
-        this.isCanceled = true;
+        markCanceled();
         return true;
     }
 
@@ -2,6 +2,7 @@ package fr.etu.steats.order;
 
 import fr.etu.steats.account.CustomerAccount;
 import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.ECustomerStatus;
 import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.exception.UnauthorizedModificationException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
@@ -9,13 +10,15 @@ import fr.etu.steats.service.DiscountService;
 import org.joda.time.DateTime;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static fr.etu.steats.enums.EOrderStatus.CANCELED;
 import static fr.etu.steats.enums.EOrderStatus.WAITING_PAYMENT;
 
 public abstract class OrderAbstract {
 
-    protected static int nextId = 1;
+    private static final AtomicInteger ID_FACTORY = new AtomicInteger(1);
     protected final int id;
     protected final CustomerAccount customer;
     protected DateTime deliveryDate;
@@ -23,19 +26,48 @@ public abstract class OrderAbstract {
     protected boolean isCanceled;
     protected DeliveryAccount deliveryMan;
     private OrderAbstract parentGroupOwner;
+    private final List<OrderListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The status given to the listeners by the last notification, null before the first one. Read and written under its lock,
+     * so the transitions given to the listeners follow one another.
+     */
+    private final Object notifiedStatusLock = new Object();
+    private EOrderStatus notifiedStatus;
+    private final OrderItemStatusListener itemStatusListener = (item, oldStatus, newStatus) -> {
+        itemStatusChanged(oldStatus, newStatus);
+        notifyListeners();
+    };
+    /**
+     * The number of items in each status, kept up to date by the transitions of the items.
+     */
+    private final OrderStatusAggregate itemStatuses = new OrderStatusAggregate();
 
     protected OrderAbstract(CustomerAccount customer, DateTime deliveryDate, String deliveryAddress) {
         if (customer == null || deliveryDate == null) {
             throw new IllegalArgumentException("The customer, delivery date and address can't be null");
         }
-        this.id = nextId;
-        nextId++;
+        this.id = ID_FACTORY.getAndIncrement();
         this.customer = customer;
         this.deliveryDate = deliveryDate;
         this.deliveryAddress = deliveryAddress;
         this.isCanceled = false;
     }
 
+    /**
+     * Restore an order from a snapshot with its id, the next orders get ids above it.
+     */
+    protected OrderAbstract(int id, CustomerAccount customer, DateTime deliveryDate, String deliveryAddress, boolean isCanceled) {
+        if (customer == null || deliveryDate == null) {
+            throw new IllegalArgumentException("The customer, delivery date and address can't be null");
+        }
+        ID_FACTORY.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.customer = customer;
+        this.deliveryDate = deliveryDate;
+        this.deliveryAddress = deliveryAddress;
+        this.isCanceled = isCanceled;
+    }
+
     public int getId() {
         return id;
     }
@@ -77,17 +109,30 @@ public abstract class OrderAbstract {
 
     public double getNonReducedTotalPrice() {
         if (needToBePaid()) {
-            return this.getItems().stream().mapToDouble(item -> item.getPrice(this.customer.getType())).sum();
+            return getNonReducedTotalPriceInCents() / 100.0;
         }
         return 0;
     }
 
+    /**
+     * @return the sum of the prices of the items in cents for the type of the customer, even if the order isn't paid
+     */
+    public long getNonReducedTotalPriceInCents() {
+        ECustomerStatus type = this.customer.getType();
+        List<OrderItem> items = this.getItems();
+        long total = 0;
+        for (int i = 0; i < items.size(); i++) {
+            total += items.get(i).getPriceInCents(type);
+        }
+        return total;
+    }
+
     public abstract EOrderStatus getStatus();
 
     public EOrderStatus computeStatus(List<EOrderStatus> status) {
         EOrderStatus res = null;
         for (EOrderStatus aStatus : status) {
-            if (List.of(EOrderStatus.WAITING_PAYMENT, EOrderStatus.IN_DELIVERY, EOrderStatus.FINISH, EOrderStatus.CANCELED).contains(aStatus)) {
+            if (OrderStatusAggregate.isBlocking(aStatus)) {
                 return aStatus;
             }
             if (res == null) {
@@ -101,9 +146,83 @@ public abstract class OrderAbstract {
             }
         }
 
-        EOrderStatus defaultStatus = (isCanceled) ? CANCELED : WAITING_PAYMENT;
+        return (res != null) ? res : defaultStatus();
+    }
+
+    /**
+     * @return the status of an order without any item or sub order with a status
+     */
+    protected EOrderStatus defaultStatus() {
+        return (isCanceled) ? CANCELED : WAITING_PAYMENT;
+    }
+
+    /**
+     * Same result as {@link #computeStatus(List)} on the statuses of the items, but read from the counts kept up to date by the item transitions.
+     * The counts are rebuilt when the list of items changed behind the order.
+     */
+    protected EOrderStatus computeItemsStatus() {
+        List<OrderItem> items = getItems();
+        EOrderStatus status;
+        synchronized (itemStatuses) {
+            if (itemStatuses.size() != items.size()) {
+                recountItemStatuses(items);
+            }
+            status = itemStatuses.getStatus();
+        }
+        return (status != null) ? status : defaultStatus();
+    }
+
+    /**
+     * Rebuild the item counts at the next status read, for example when the items of the order were replaced.
+     */
+    protected void resetItemStatuses() {
+        synchronized (itemStatuses) {
+            itemStatuses.invalidate();
+        }
+    }
+
+    private void itemStatusChanged(EOrderStatus oldStatus, EOrderStatus newStatus) {
+        List<OrderItem> items = getItems();
+        synchronized (itemStatuses) {
+            if (itemStatuses.size() != items.size()) {
+                recountItemStatuses(items);
+            } else {
+                itemStatuses.transition(oldStatus, newStatus);
+                itemStatuses.setStatus(resolveItemsStatus(items));
+            }
+        }
+    }
 
-        return (res != null) ? res : defaultStatus;
+    private void recountItemStatuses(List<OrderItem> items) {
+        itemStatuses.clear();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            // Items added to the list directly were not watched yet
+            unwatchItem(item);
+            watchItem(item);
+            itemStatuses.add(item.getStatus());
+        }
+        itemStatuses.setStatus(resolveItemsStatus(items));
+    }
+
+    private EOrderStatus resolveItemsStatus(List<OrderItem> items) {
+        if (itemStatuses.dependsOnOrder()) {
+            for (int i = 0; i < items.size(); i++) {
+                EOrderStatus status = items.get(i).getStatus();
+                if (OrderStatusAggregate.isBlocking(status)) {
+                    return status;
+                }
+            }
+        }
+        return itemStatuses.resolve();
+    }
+
+    /**
+     * Mark the order as canceled, so that its status is canceled even without any item, and notify its listeners.
+     */
+    protected void markCanceled() {
+        this.isCanceled = true;
+        notifyListeners();
     }
 
     public void assignDeliveryMan(DeliveryAccount deliveryMan) {
@@ -131,12 +250,90 @@ public abstract class OrderAbstract {
         return parentGroupOwner != null;
     }
 
+    public OrderAbstract getParentGroupOwner() {
+        return parentGroupOwner;
+    }
+
     public void setParentGroupOwner(OrderAbstract joinedGroupOrder) {
         if (joinedGroupOrder.allowSubOrder()) {
             parentGroupOwner = joinedGroupOrder;
+            notifyListeners();
         }
     }
 
+    public void addListener(OrderListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener can't be null");
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Add a listener which follows the status of the order through {@link OrderListener#statusChanged}.
+     *
+     * @return the status the first transition given to the listener starts from
+     */
+    EOrderStatus addStatusListener(OrderListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener can't be null");
+        }
+        synchronized (notifiedStatusLock) {
+            if (notifiedStatus == null) {
+                notifiedStatus = getStatus();
+            }
+            this.listeners.add(listener);
+            return notifiedStatus;
+        }
+    }
+
+    /**
+     * @return false if the listener was not registered, or was already removed
+     */
+    public boolean removeListener(OrderListener listener) {
+        return this.listeners.remove(listener);
+    }
+
+    protected void notifyListeners() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        EOrderStatus oldStatus;
+        EOrderStatus newStatus;
+        synchronized (notifiedStatusLock) {
+            oldStatus = notifiedStatus;
+            newStatus = getStatus();
+            notifiedStatus = newStatus;
+        }
+        if (oldStatus != newStatus) {
+            for (OrderListener listener : listeners) {
+                listener.statusChanged(this, oldStatus, newStatus);
+            }
+        }
+        for (OrderListener listener : listeners) {
+            listener.orderUpdated(this);
+        }
+    }
+
+    /**
+     * Tell the listeners that the items of the order were added or replaced, so that the views built on them are rebuilt.
+     */
+    protected void notifyItemsUpdated() {
+        for (OrderListener listener : listeners) {
+            listener.itemsUpdated(this);
+        }
+    }
+
+    /**
+     * Subscribe this order to the status transitions of one of its items, so that listeners of the order are notified.
+     */
+    protected void watchItem(OrderItem item) {
+        item.addStatusListener(itemStatusListener);
+    }
+
+    protected void unwatchItem(OrderItem item) {
+        item.removeStatusListener(itemStatusListener);
+    }
+
     public boolean allowSubOrder() {
         return false;
     }
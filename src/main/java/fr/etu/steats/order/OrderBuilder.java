@@ -108,7 +108,7 @@ public class OrderBuilder {
                 restaurant.getMenuItems().forEach(item -> {
                     OrderItem newItem = new OrderItem(item, restaurant);
                     newItem.setStatus(EOrderStatus.IN_PREPARATION);
-                    itemList.add(new OrderItem(item, restaurant));
+                    itemList.add(newItem);
                 });
                 return new AfterWorkOrder(customer, deliveryDate, deliveryAddress, itemList, numberOfParticipant);
             }
@@ -3,13 +3,32 @@ package fr.etu.steats.order;
 import fr.etu.steats.enums.ECustomerStatus;
 import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.MenuSnapshot;
 import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.ClockService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class OrderItem {
     private final Menu menu;
+    /**
+     * The version of the menu of the restaurant the item was ordered from: the current version if it still holds
+     * the menu item, else the version that published it. The menu item, and so its price, never changes once
+     * published: an update of the menu publishes a new item.
+     */
+    private final long menuVersion;
     private final Restaurant restaurant;
-    private EOrderStatus status;
+    /**
+     * Written under the monitor of the item, so that every transition sees the status left by the previous one.
+     */
+    private volatile EOrderStatus status;
     private boolean deliverable;
+    private final List<OrderItemStatusListener> statusListeners = new CopyOnWriteArrayList<>();
+    /**
+     * The time in milliseconds at which the item last entered each status, indexed by status ordinal, 0 if never.
+     */
+    private final long[] statusTimestamps = new long[EOrderStatus.values().length];
 
     public OrderItem(Menu menu, Restaurant restaurant) {
         if (menu == null || restaurant == null) {
@@ -17,26 +36,95 @@ public class OrderItem {
         }
         this.menu = menu;
         this.restaurant = restaurant;
+        MenuSnapshot currentMenu = restaurant.getMenu();
+        this.menuVersion = (currentMenu != null && currentMenu.getItem(menu.getName()) == menu) ? currentMenu.getVersion() : menu.getPublishedVersion();
         this.status = EOrderStatus.WAITING_PAYMENT;
+        this.statusTimestamps[status.ordinal()] = ClockService.currentTimeMillis();
         this.deliverable = true;
     }
 
+    /**
+     * Restore an item from a snapshot, with its status and the time it entered each status.
+     */
+    OrderItem(Menu menu, Restaurant restaurant, long menuVersion, EOrderStatus status, boolean deliverable, long[] statusTimestamps) {
+        this.menu = menu;
+        this.restaurant = restaurant;
+        this.menuVersion = menuVersion;
+        this.status = status;
+        this.deliverable = deliverable;
+        System.arraycopy(statusTimestamps, 0, this.statusTimestamps, 0, Math.min(statusTimestamps.length, this.statusTimestamps.length));
+    }
+
     public Menu getMenu() {
         return this.menu;
     }
 
+    public long getMenuVersion() {
+        return this.menuVersion;
+    }
+
     public Restaurant getRestaurant() {
         return this.restaurant;
     }
 
-    public void setStatus(EOrderStatus status) {
+    /**
+     * Change the status of the item and notify its listeners.
+     * Transitions are serialized on the monitor of the item: each one reads the status left by the previous one and
+     * the listeners see them one at a time, in order. A listener registered while holding this monitor, after reading
+     * the current status, sees every later transition.
+     */
+    public synchronized void setStatus(EOrderStatus status) {
+        EOrderStatus oldStatus = this.status;
         this.status = status;
+        if (oldStatus != status) {
+            if (status != null) {
+                statusTimestamps[status.ordinal()] = ClockService.currentTimeMillis();
+            }
+            for (OrderItemStatusListener listener : statusListeners) {
+                listener.statusChanged(this, oldStatus, status);
+            }
+        }
+    }
+
+    /**
+     * Give back a transition saved in a journal, with the time the item entered the status.
+     * The listeners are told through {@link OrderItemStatusListener#statusRestored}.
+     */
+    synchronized void restoreStatus(EOrderStatus status, long timestamp) {
+        EOrderStatus oldStatus = this.status;
+        this.status = status;
+        if (status != null) {
+            statusTimestamps[status.ordinal()] = timestamp;
+        }
+        if (oldStatus != status) {
+            for (OrderItemStatusListener listener : statusListeners) {
+                listener.statusRestored(this, oldStatus, status);
+            }
+        }
+    }
+
+    public void addStatusListener(OrderItemStatusListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener can't be null");
+        }
+        this.statusListeners.add(listener);
+    }
+
+    public void removeStatusListener(OrderItemStatusListener listener) {
+        this.statusListeners.remove(listener);
     }
 
     public EOrderStatus getStatus() {
         return this.status;
     }
 
+    /**
+     * @return the time in milliseconds at which the item last entered this status, or 0 if it never did
+     */
+    public long getStatusTimestamp(EOrderStatus status) {
+        return this.statusTimestamps[status.ordinal()];
+    }
+
     public boolean needToBeDelivered() {
         return this.deliverable;
     }
@@ -48,4 +136,8 @@ public class OrderItem {
     public double getPrice(ECustomerStatus typeOfCustomer) {
         return this.menu.getPrice(typeOfCustomer);
     }
+
+    public long getPriceInCents(ECustomerStatus typeOfCustomer) {
+        return this.menu.getPriceInCents(typeOfCustomer);
+    }
 }
@@ -0,0 +1,19 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.enums.EOrderStatus;
+
+/**
+ * Callback fired by an {@link OrderItem} each time its status actually changes.
+ */
+@FunctionalInterface
+public interface OrderItemStatusListener {
+    void statusChanged(OrderItem item, EOrderStatus oldStatus, EOrderStatus newStatus);
+
+    /**
+     * Fired instead of {@link #statusChanged} when a transition saved before a restart is given back,
+     * with the time it happened. Handled as a change by default.
+     */
+    default void statusRestored(OrderItem item, EOrderStatus oldStatus, EOrderStatus newStatus) {
+        statusChanged(item, oldStatus, newStatus);
+    }
+}
@@ -0,0 +1,25 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.enums.EOrderStatus;
+
+/**
+ * Callback fired by an order when something that may change its indexing changed
+ * (the status of one of its items, its items themselves or its parent group order).
+ */
+@FunctionalInterface
+public interface OrderListener {
+    void orderUpdated(OrderAbstract order);
+
+    /**
+     * Fired before {@link #orderUpdated(OrderAbstract)} when items were added to the order or replaced.
+     */
+    default void itemsUpdated(OrderAbstract order) {
+    }
+
+    /**
+     * Fired before {@link #orderUpdated(OrderAbstract)} when the status of the order changed since the previous notification.
+     * The old status is the new status of the previous call, null for the first one.
+     */
+    default void statusChanged(OrderAbstract order, EOrderStatus oldStatus, EOrderStatus newStatus) {
+    }
+}
@@ -0,0 +1,188 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static fr.etu.steats.enums.EOrderStatus.IN_PREPARATION;
+import static fr.etu.steats.enums.EOrderStatus.WAITING_DELIVER_ACCEPTANCE;
+
+/**
+ * This class stores every order known by the system.
+ * Orders are indexed by id, by customer, by status, by parent group order and by delivery readiness,
+ * so that lookups cost O(1) or a time proportional to the size of the result.
+ * The secondary indexes are kept up to date through the {@link OrderListener} of each saved order.
+ * Every index is a concurrent collection, so orders can be saved and reindexed from several threads.
+ */
+public class OrderRepository {
+    /**
+     * Every saved order in insertion order, in an array that doubles when full. Written under appendLock,
+     * an order is visible to the readers once size covers it.
+     */
+    private volatile OrderAbstract[] orders = new OrderAbstract[16];
+    private volatile int size;
+    private final Object appendLock = new Object();
+    private final ConcurrentMap<Integer, OrderAbstract> ordersById = new ConcurrentHashMap<>();
+    /**
+     * Customers are indexed by id.
+     */
+    private final ConcurrentMap<Integer, List<OrderAbstract>> ordersByCustomer = new ConcurrentHashMap<>();
+    private final Map<EOrderStatus, ConcurrentNavigableMap<Integer, OrderAbstract>> ordersByStatus = new EnumMap<>(EOrderStatus.class);
+    private final ConcurrentMap<Integer, ConcurrentNavigableMap<Integer, OrderAbstract>> subOrdersByParent = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Integer, OrderAbstract> ordersReadyToDeliver = new ConcurrentSkipListMap<>();
+    /**
+     * The status and parent under which each order is currently indexed, used to move it between buckets.
+     * Reindexing an order happens inside a compute on this map, so two transitions of the same order never interleave.
+     */
+    private final ConcurrentMap<Integer, IndexState> indexStates = new ConcurrentHashMap<>();
+    private final OrderListener reindexListener = this::reindex;
+    private final List<OrderAbstract> view = new RepositoryView();
+
+    public OrderRepository() {
+        for (EOrderStatus status : EOrderStatus.values()) {
+            ordersByStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Save an order and index it.
+     *
+     * @param order the order to save
+     * @return false if this order was already saved
+     */
+    public boolean save(OrderAbstract order) {
+        if (order == null) {
+            throw new IllegalArgumentException("You can't save a null order");
+        }
+        if (ordersById.putIfAbsent(order.getId(), order) != null) {
+            return false;
+        }
+        synchronized (appendLock) {
+            OrderAbstract[] current = orders;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                orders = current;
+            }
+            current[size] = order;
+            size++;
+        }
+        ordersByCustomer.computeIfAbsent(order.getCustomer().getId(), key -> new CopyOnWriteArrayList<>()).add(order);
+        order.addListener(reindexListener);
+        reindex(order);
+        return true;
+    }
+
+    public OrderAbstract findById(int id) {
+        return ordersById.get(id);
+    }
+
+    /**
+     * @return a live view of every saved order in insertion order, adding an order to it saves it
+     */
+    public List<OrderAbstract> findAll() {
+        return view;
+    }
+
+    public List<OrderAbstract> findByCustomer(CustomerAccount customer) {
+        List<OrderAbstract> customerOrders = ordersByCustomer.get(customer.getId());
+        return (customerOrders == null) ? List.of() : Collections.unmodifiableList(customerOrders);
+    }
+
+    public List<OrderAbstract> findByStatus(EOrderStatus status) {
+        return List.copyOf(ordersByStatus.get(status).values());
+    }
+
+    public List<OrderAbstract> findSubOrders(int parentId) {
+        Map<Integer, OrderAbstract> subOrders = subOrdersByParent.get(parentId);
+        return (subOrders == null) ? List.of() : List.copyOf(subOrders.values());
+    }
+
+    /**
+     * @return the top level orders that need to be delivered and are in preparation or waiting for a delivery man
+     */
+    public List<OrderAbstract> findReadyToDeliver() {
+        return List.copyOf(ordersReadyToDeliver.values());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void reindex(OrderAbstract order) {
+        int id = order.getId();
+        indexStates.compute(id, (key, previous) -> {
+            EOrderStatus status = order.getStatus();
+            Integer parentId = order.isPartOfGroupOrder() ? order.getParentGroupOwner().getId() : null;
+            EOrderStatus previousStatus = (previous == null) ? null : previous.status();
+            Integer previousParentId = (previous == null) ? null : previous.parentId();
+
+            if (previousStatus != status) {
+                if (previousStatus != null) {
+                    ordersByStatus.get(previousStatus).remove(id);
+                }
+                if (status != null) {
+                    ordersByStatus.get(status).put(id, order);
+                }
+            }
+
+            if (previousParentId != null && !previousParentId.equals(parentId)) {
+                subOrdersByParent.get(previousParentId).remove(id);
+            }
+            if (parentId != null) {
+                subOrdersByParent.computeIfAbsent(parentId, parent -> new ConcurrentSkipListMap<>()).put(id, order);
+            }
+
+            if (parentId == null && order.needToBeDelivered() && (status == IN_PREPARATION || status == WAITING_DELIVER_ACCEPTANCE)) {
+                ordersReadyToDeliver.put(id, order);
+            } else {
+                ordersReadyToDeliver.remove(id);
+            }
+            return new IndexState(status, parentId);
+        });
+    }
+
+    private record IndexState(EOrderStatus status, Integer parentId) {
+    }
+
+    /**
+     * Read view over the orders in insertion order, where {@code add} goes through {@link #save(OrderAbstract)}.
+     * Reading an index costs O(1), so indexed loops over the view stay linear.
+     */
+    private class RepositoryView extends AbstractList<OrderAbstract> {
+        @Override
+        public OrderAbstract get(int index) {
+            // The size is read before the array, so the array holds at least this many orders
+            int currentSize = OrderRepository.this.size;
+            if (index < 0 || index >= currentSize) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+            }
+            return orders[index];
+        }
+
+        @Override
+        public int size() {
+            return OrderRepository.this.size();
+        }
+
+        @Override
+        public boolean add(OrderAbstract order) {
+            return save(order);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof OrderAbstract order && ordersById.get(order.getId()) == order;
+        }
+    }
+}
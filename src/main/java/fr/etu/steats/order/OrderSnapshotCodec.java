@@ -0,0 +1,223 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.utils.SnapshotInput;
+import fr.etu.steats.utils.SnapshotOutput;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class writes the orders and their items in a snapshot and restores them.
+ * The items are written once in a table and the orders refer to them by index, since an item can appear
+ * several times in an order and is shared with the time slots of its restaurant.
+ * The accounts, restaurants and menu items are referred to by id or index and resolved by the caller.
+ */
+public final class OrderSnapshotCodec {
+    private static final byte SINGLE_ORDER = 1;
+    private static final byte GROUP_ORDER = 2;
+    private static final byte BUFFET_ORDER = 3;
+    private static final byte AFTER_WORK_ORDER = 4;
+    private static final EOrderStatus[] STATUSES = EOrderStatus.values();
+
+    private OrderSnapshotCodec() {
+        throw new IllegalStateException("Utility class cannot be instantiated");
+    }
+
+    public static void writeItem(SnapshotOutput out, OrderItem item, int menuIndex) {
+        out.putInt(item.getRestaurant().getId());
+        out.putInt(menuIndex);
+        out.putLong(item.getMenuVersion());
+        EOrderStatus status = item.getStatus();
+        out.putByte((status == null) ? -1 : status.ordinal());
+        out.putBoolean(item.needToBeDelivered());
+        out.putByte(STATUSES.length);
+        for (EOrderStatus each : STATUSES) {
+            out.putLong(item.getStatusTimestamp(each));
+        }
+    }
+
+    public static OrderItem readItem(SnapshotInput in, IntFunction<Menu> menus, IntFunction<Restaurant> restaurants) throws IOException {
+        Restaurant restaurant = resolve(restaurants, in.getInt(), "restaurant");
+        Menu menu = resolve(menus, in.getInt(), "menu item");
+        long menuVersion = in.getLong();
+        int status = in.getByte();
+        if (status >= STATUSES.length) {
+            throw new IOException("Unknown order status " + status + " in the snapshot");
+        }
+        boolean deliverable = in.getBoolean();
+        long[] statusTimestamps = new long[in.getByte()];
+        for (int i = 0; i < statusTimestamps.length; i++) {
+            statusTimestamps[i] = in.getLong();
+        }
+        return new OrderItem(menu, restaurant, menuVersion, (status < 0) ? null : STATUSES[status], deliverable, statusTimestamps);
+    }
+
+    /**
+     * @param saved      whether the order is in the {@link OrderRepository}
+     * @param itemIndexes the index of each item in the table of items
+     */
+    public static void writeOrder(SnapshotOutput out, OrderAbstract order, boolean saved, ToIntFunction<OrderItem> itemIndexes) {
+        out.putByte(kindOf(order));
+        out.putInt(order.getId());
+        out.putInt(order.getCustomer().getId());
+        out.putLong(order.deliveryDate.getMillis());
+        out.putString(order.deliveryAddress);
+        out.putBoolean(order.isCanceled);
+        DeliveryAccount deliveryMan = order.getDeliveryMan();
+        out.putInt((deliveryMan == null) ? 0 : deliveryMan.getId());
+        out.putBoolean(saved);
+        if (order instanceof GroupOrder groupOrder) {
+            List<OrderAbstract> subOrders = groupOrder.getSubOrders();
+            out.putInt(subOrders.size());
+            subOrders.forEach(subOrder -> out.putInt(subOrder.getId()));
+            return;
+        }
+        List<OrderItem> items = copyOf(order.getItems());
+        out.putInt(items.size());
+        items.forEach(item -> out.putInt(itemIndexes.applyAsInt(item)));
+        if (order instanceof BuffetOrder buffetOrder) {
+            out.putInt(buffetOrder.getRestaurant().getId());
+            out.putBoolean(buffetOrder.needToBeDelivered());
+            out.putBoolean(buffetOrder.needToBePaid());
+        } else if (order instanceof AfterWorkOrder afterWorkOrder) {
+            out.putInt(afterWorkOrder.getNumberOfParticipant());
+        }
+    }
+
+    /**
+     * Read the orders, link the group orders to their sub orders and save the orders that were saved in the repository.
+     *
+     * @return the orders by id, in the order they were written
+     */
+    public static Map<Integer, OrderAbstract> readOrders(SnapshotInput in, int count, IntFunction<CustomerAccount> customers, IntFunction<DeliveryAccount> deliveryMen,
+                                                         IntFunction<OrderItem> items, IntFunction<Restaurant> restaurants, OrderRepository repository) throws IOException {
+        Map<Integer, OrderAbstract> orders = new LinkedHashMap<>();
+        Map<GroupOrder, int[]> subOrderIds = new LinkedHashMap<>();
+        List<OrderAbstract> savedOrders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte kind = in.getByte();
+            int id = in.getInt();
+            CustomerAccount customer = resolve(customers, in.getInt(), "customer");
+            DateTime deliveryDate = new DateTime(in.getLong());
+            String deliveryAddress = in.getString();
+            boolean isCanceled = in.getBoolean();
+            int deliveryManId = in.getInt();
+            boolean saved = in.getBoolean();
+
+            OrderAbstract order;
+            if (kind == GROUP_ORDER) {
+                GroupOrder groupOrder = new GroupOrder(id, customer, deliveryDate, deliveryAddress, isCanceled);
+                subOrderIds.put(groupOrder, readIds(in));
+                order = groupOrder;
+            } else {
+                int[] itemIndexes = readIds(in);
+                List<OrderItem> orderItems = new ArrayList<>(itemIndexes.length);
+                for (int itemIndex : itemIndexes) {
+                    orderItems.add(resolve(items, itemIndex, "item"));
+                }
+                order = switch (kind) {
+                    case SINGLE_ORDER -> new SingleOrder(id, customer, deliveryDate, deliveryAddress, isCanceled, orderItems);
+                    case BUFFET_ORDER -> new BuffetOrder(id, customer, deliveryDate, deliveryAddress, isCanceled, orderItems,
+                            resolve(restaurants, in.getInt(), "restaurant"), in.getBoolean(), in.getBoolean());
+                    case AFTER_WORK_ORDER -> new AfterWorkOrder(id, customer, deliveryDate, deliveryAddress, isCanceled, orderItems, in.getInt());
+                    default -> throw new IOException("Unknown kind of order " + kind + " in the snapshot");
+                };
+            }
+            if (deliveryManId != 0) {
+                order.assignDeliveryMan(resolve(deliveryMen, deliveryManId, "delivery account"));
+            }
+            if (orders.putIfAbsent(id, order) != null) {
+                throw new IOException("The order " + id + " is twice in the snapshot");
+            }
+            if (saved) {
+                savedOrders.add(order);
+            }
+        }
+
+        for (Map.Entry<GroupOrder, int[]> group : subOrderIds.entrySet()) {
+            for (int subOrderId : group.getValue()) {
+                group.getKey().restoreSubOrder(resolve(orders::get, subOrderId, "order"));
+            }
+        }
+        // The orders are indexed once linked, so the sub orders are filed under their group
+        savedOrders.forEach(repository::save);
+        return orders;
+    }
+
+    /**
+     * Add an order read back after its group, for example from the journal.
+     */
+    public static void restoreSubOrder(GroupOrder groupOrder, OrderAbstract order) {
+        groupOrder.restoreSubOrder(order);
+    }
+
+    /**
+     * Give back a status change read from the journal, with the time it happened.
+     */
+    public static void restoreStatus(OrderItem item, EOrderStatus status, long timestamp) {
+        item.restoreStatus(status, timestamp);
+    }
+
+    /**
+     * Mark an order as canceled, with its sub orders for a group order. The status of the items is left as it is.
+     */
+    public static void restoreCanceled(OrderAbstract order) {
+        order.markCanceled();
+        if (order instanceof GroupOrder groupOrder) {
+            groupOrder.getSubOrders().forEach(OrderSnapshotCodec::restoreCanceled);
+        }
+    }
+
+    /**
+     * @return the items of the order, read without failing if the order is updated concurrently
+     */
+    public static List<OrderItem> copyOf(List<OrderItem> items) {
+        List<OrderItem> copy = new ArrayList<>(items);
+        copy.removeIf(Objects::isNull);
+        return copy;
+    }
+
+    private static byte kindOf(OrderAbstract order) {
+        if (order instanceof GroupOrder) {
+            return GROUP_ORDER;
+        }
+        if (order instanceof BuffetOrder) {
+            return BUFFET_ORDER;
+        }
+        if (order instanceof AfterWorkOrder) {
+            return AFTER_WORK_ORDER;
+        }
+        if (order instanceof SingleOrder) {
+            return SINGLE_ORDER;
+        }
+        throw new IllegalArgumentException("Unknown kind of order " + order.getClass().getName());
+    }
+
+    private static int[] readIds(SnapshotInput in) throws IOException {
+        int[] ids = new int[in.getCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.getInt();
+        }
+        return ids;
+    }
+
+    private static <T> T resolve(IntFunction<T> lookup, int id, String type) throws IOException {
+        T value = lookup.apply(id);
+        if (value == null) {
+            throw new IOException("Unknown " + type + " " + id + " in the snapshot");
+        }
+        return value;
+    }
+}
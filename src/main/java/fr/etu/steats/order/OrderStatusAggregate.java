@@ -0,0 +1,113 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.enums.EOrderStatus;
+
+import java.util.Arrays;
+
+/**
+ * The number of parts of an order (its items, or the sub orders of a group order) in each status.
+ * The counts follow the status transitions of the parts, so the status of the order is derived without going through them.
+ */
+final class OrderStatusAggregate {
+    private static final EOrderStatus[] STATUSES = EOrderStatus.values();
+    /**
+     * A part in one of these statuses gives its status to the whole order.
+     */
+    private static final EOrderStatus[] BLOCKING_STATUSES = {EOrderStatus.WAITING_PAYMENT, EOrderStatus.IN_DELIVERY, EOrderStatus.FINISH, EOrderStatus.CANCELED};
+    /**
+     * The other statuses, the first one with a part gives its status to the whole order.
+     */
+    private static final EOrderStatus[] PROGRESS_STATUSES = {EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.IN_PREPARATION, EOrderStatus.WAITING_DELIVER_ACCEPTANCE};
+
+    /**
+     * The number of parts in each status, indexed by status ordinal.
+     */
+    private final int[] counts = new int[STATUSES.length];
+    /**
+     * The number of counted parts, -1 when the counts must be rebuilt.
+     */
+    private int size = -1;
+    /**
+     * The status of the order derived from the counts, null if no part has a status.
+     */
+    private EOrderStatus status;
+
+    EOrderStatus getStatus() {
+        return status;
+    }
+
+    void setStatus(EOrderStatus status) {
+        this.status = status;
+    }
+
+    static boolean isBlocking(EOrderStatus status) {
+        return status == EOrderStatus.WAITING_PAYMENT || status == EOrderStatus.IN_DELIVERY
+                || status == EOrderStatus.FINISH || status == EOrderStatus.CANCELED;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    void invalidate() {
+        size = -1;
+    }
+
+    /**
+     * @return the number of counted parts, -1 when the counts must be rebuilt
+     */
+    int size() {
+        return size;
+    }
+
+    void add(EOrderStatus status) {
+        size++;
+        if (status != null) {
+            counts[status.ordinal()]++;
+        }
+    }
+
+    void transition(EOrderStatus oldStatus, EOrderStatus newStatus) {
+        if (oldStatus != null) {
+            counts[oldStatus.ordinal()]--;
+        }
+        if (newStatus != null) {
+            counts[newStatus.ordinal()]++;
+        }
+    }
+
+    int count(EOrderStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    /**
+     * @return true if parts are in different blocking statuses, then the status of the order is the one of the first of them
+     */
+    boolean dependsOnOrder() {
+        int blocking = 0;
+        for (EOrderStatus status : BLOCKING_STATUSES) {
+            if (counts[status.ordinal()] > 0) {
+                blocking++;
+            }
+        }
+        return blocking > 1;
+    }
+
+    /**
+     * @return the status of the order, or null if no part has a status. Only valid if {@link #dependsOnOrder()} is false.
+     */
+    EOrderStatus resolve() {
+        for (EOrderStatus status : BLOCKING_STATUSES) {
+            if (counts[status.ordinal()] > 0) {
+                return status;
+            }
+        }
+        for (EOrderStatus status : PROGRESS_STATUSES) {
+            if (counts[status.ordinal()] > 0) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
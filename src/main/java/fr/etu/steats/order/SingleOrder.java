@@ -23,6 +23,13 @@ public class SingleOrder extends OrderAbstract {
         if (items == null) {
             this.items = new ArrayList<>();
         }
+        this.items.forEach(this::watchItem);
+    }
+
+    SingleOrder(int id, CustomerAccount customer, DateTime deliveryDate, String deliveryAddress, boolean isCanceled, List<OrderItem> items) {
+        super(id, customer, deliveryDate, deliveryAddress, isCanceled);
+        this.items = items;
+        this.items.forEach(this::watchItem);
     }
 
     @Override
@@ -35,6 +42,9 @@ public class SingleOrder extends OrderAbstract {
             throw new IllegalArgumentException("An order item can't be null or incomplete");
         }
         this.items.add(item);
+        watchItem(item);
+        notifyItemsUpdated();
+        notifyListeners();
     }
 
     /**
@@ -64,7 +74,7 @@ public class SingleOrder extends OrderAbstract {
     }
 
     public EOrderStatus getStatus() {
-        return computeStatus(this.items.stream().map(OrderItem::getStatus).toList());
+        return computeItemsStatus();
     }
 
     public boolean setWaitingRestaurantAcceptance() throws UnauthorizedOperationException {
@@ -155,7 +165,12 @@ public class SingleOrder extends OrderAbstract {
             throw new IllegalArgumentException("Items can't be null");
         }
         if (statusAllowsUpdate()) {
+            this.items.forEach(this::unwatchItem);
             this.items = newItems;
+            this.items.forEach(this::watchItem);
+            resetItemStatuses();
+            notifyItemsUpdated();
+            notifyListeners();
             return true;
         }
         return false;
@@ -166,7 +181,7 @@ public class SingleOrder extends OrderAbstract {
             for (OrderItem item : this.items) {
                 item.setStatus(CANCELED);
             }
-            this.isCanceled = true;
+            markCanceled();
             return true;
         }
         return false;
@@ -3,6 +3,7 @@ package fr.etu.steats.registry;
 import fr.etu.steats.account.AdminAccount;
 import fr.etu.steats.account.CustomerAccount;
 import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.EStatisticsWindow;
 import fr.etu.steats.exception.AlreadyRegisteredUser;
 import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.NoAccountFoundException;
@@ -10,6 +11,7 @@ import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderItem;
 import fr.etu.steats.restaurant.Restaurant;
 import fr.etu.steats.restaurant.StatisticReport;
+import fr.etu.steats.restaurant.WindowedStatisticReport;
 import fr.etu.steats.service.DeliveryLocationService;
 import fr.etu.steats.service.OrderService;
 import fr.etu.steats.service.RegistrationService;
@@ -84,6 +86,16 @@ public class AdminRegistry {
         return new StatisticReport(this.restaurantService.findRestaurantById(restaurantId));
     }
 
+    public WindowedStatisticReport getWindowedStatisticsFromAllRestaurants(EStatisticsWindow window) throws UnauthorizedOperationException {
+        this.checkAdminAccount();
+        return new WindowedStatisticReport(this.restaurantService.getRestaurants(), window);
+    }
+
+    public WindowedStatisticReport getWindowedStatisticsFromOneRestaurant(int restaurantId, EStatisticsWindow window) throws UnauthorizedOperationException {
+        this.checkAdminAccount();
+        return new WindowedStatisticReport(this.restaurantService.findRestaurantById(restaurantId), window);
+    }
+
     public boolean addDeliveryLocation(String location) throws UnauthorizedOperationException {
         this.checkAdminAccount();
         return this.deliveryLocationService.addDeliveryLocation(location);
@@ -8,6 +8,7 @@ import fr.etu.steats.order.OrderItem;
 import fr.etu.steats.order.SingleOrder;
 import fr.etu.steats.restaurant.Menu;
 import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.CredentialService;
 import fr.etu.steats.service.DeliveryLocationService;
 import fr.etu.steats.service.OrderService;
 import fr.etu.steats.service.RegistrationService;
@@ -26,6 +27,10 @@ public class CustomerRegistry {
     private static final String ERROR_UPDATE = "You can't update an order you doesn't own";
     private static final String ERROR_OWNER = "Your are not the owner of this order.";
     private CustomerAccount customerAccount;
+    /**
+     * The session opened at the login, checked instead of the password by every operation.
+     */
+    private String sessionToken;
     private final OrderService orderService;
     private final RegistrationService registrationService;
     private final DeliveryLocationService deliveryLocationService;
@@ -49,11 +54,15 @@ public class CustomerRegistry {
      */
     public void customerLogin(String firstname, String lastname, String password) throws BadPasswordException, NoAccountFoundException {
         this.customerAccount = this.registrationService.loginCustomer(firstname, lastname, password);
+        CredentialService.getSessions().close(this.sessionToken);
+        this.sessionToken = CredentialService.getSessions().open(this.customerAccount);
     }
 
     public void customerRegister(String firstname, String lastname, String password) {
         try {
             this.customerAccount = this.registrationService.registerCustomer(firstname, lastname, password);
+            CredentialService.getSessions().close(this.sessionToken);
+            this.sessionToken = CredentialService.getSessions().open(this.customerAccount);
         } catch (AlreadyRegisteredUser e) {
             LoggerUtils.log(Level.SEVERE, e.getMessage());
         }
@@ -314,5 +323,8 @@ public class CustomerRegistry {
         if (this.customerAccount == null) {
             throw new UnauthorizedOperationException("You are not logged in. Please log in to continue.");
         }
+        if (!CredentialService.getSessions().isValid(this.sessionToken, this.customerAccount)) {
+            throw new UnauthorizedOperationException("Your session has expired. Please log in to continue.");
+        }
     }
 }
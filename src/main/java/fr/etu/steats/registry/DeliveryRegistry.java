@@ -5,13 +5,19 @@ import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.NoAccountFoundException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.service.CredentialService;
 import fr.etu.steats.service.OrderService;
 import fr.etu.steats.service.RegistrationService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DeliveryRegistry {
     private DeliveryAccount deliveryAccount;
+    /**
+     * The session opened at the login, checked instead of the password by every operation.
+     */
+    private String sessionToken;
     private final RegistrationService registrationService;
     private final OrderService orderService;
 
@@ -34,13 +40,31 @@ public class DeliveryRegistry {
 
     public void deliveryLogin(String firstname, String lastname, String password) throws BadPasswordException, NoAccountFoundException {
         this.deliveryAccount = this.registrationService.loginDelivery(firstname, lastname, password);
+        CredentialService.getSessions().close(this.sessionToken);
+        this.sessionToken = CredentialService.getSessions().open(this.deliveryAccount);
     }
 
     public List<OrderAbstract> getOrderReadyToDeliver() throws UnauthorizedOperationException {
+        this.verifyDeliveryAccount();
+        return this.orderService.getOrderReadyToDeliver();
+    }
+
+    /**
+     * Start the delivery of the assigned order, without waiting for it.
+     *
+     * @return a future completed once the order is delivered
+     */
+    public CompletableFuture<Void> deliverAssignedOrder() throws UnauthorizedOperationException {
+        this.verifyDeliveryAccount();
+        return this.orderService.deliverAssignedOrder(this.deliveryAccount);
+    }
+
+    private void verifyDeliveryAccount() throws UnauthorizedOperationException {
         if (this.deliveryAccount == null) {
             throw new UnauthorizedOperationException("A non registered/logged delivery man can't handle an order...");
         }
-
-        return this.orderService.getOrderReadyToDeliver();
+        if (!CredentialService.getSessions().isValid(this.sessionToken, this.deliveryAccount)) {
+            throw new UnauthorizedOperationException("Your session has expired. Please log in to continue.");
+        }
     }
 }
@@ -5,17 +5,26 @@ import fr.etu.steats.exception.NonExistantRestaurantException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.restaurant.Menu;
 import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.service.CredentialService;
+import fr.etu.steats.service.OrderService;
 import fr.etu.steats.service.RestaurantService;
 import fr.etu.steats.utils.LoggerUtils;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 public class RestaurantRegistry {
     private Restaurant restaurant;
+    /**
+     * The session opened at the login, checked instead of the password by every operation.
+     */
+    private String sessionToken;
     private final RestaurantService restaurantService;
+    private final OrderService orderService;
 
-    public RestaurantRegistry(RestaurantService restaurantService) {
+    public RestaurantRegistry(RestaurantService restaurantService, OrderService orderService) {
         this.restaurantService = restaurantService;
+        this.orderService = orderService;
     }
 
     public Restaurant getRestaurant() {
@@ -29,6 +38,8 @@ public class RestaurantRegistry {
     public void restaurantLogin(String name, String password) {
         try {
             this.restaurant = this.restaurantService.login(name, password);
+            CredentialService.getSessions().close(this.sessionToken);
+            this.sessionToken = CredentialService.getSessions().open(this.restaurant);
         } catch (NonExistantRestaurantException | BadPasswordException e) {
             LoggerUtils.log(Level.SEVERE, e.getMessage());
         }
@@ -49,9 +60,32 @@ public class RestaurantRegistry {
         this.restaurant.removeMenuItem(menuName);
     }
 
+    /**
+     * Start the preparation of an order, without waiting for it.
+     *
+     * @return a future completed once the order is prepared
+     */
+    public CompletableFuture<Void> prepareOrder(int orderId) throws UnauthorizedOperationException {
+        this.verifyRestaurant();
+        return this.orderService.prepareOrder(this.restaurant, orderId);
+    }
+
+    /**
+     * Start the preparation of the orders of the nearest time slot, without waiting for it.
+     *
+     * @return a future completed once the orders are prepared
+     */
+    public CompletableFuture<Void> prepareNearestTimeSlot() throws UnauthorizedOperationException {
+        this.verifyRestaurant();
+        return this.orderService.prepareNearestTimeSlot(this.restaurant);
+    }
+
     private void verifyRestaurant() throws UnauthorizedOperationException {
         if (this.restaurant == null) {
-            throw new UnauthorizedOperationException("You need to be registered as a restaurant to update your menu. Please retry after a login.");
+            throw new UnauthorizedOperationException("You need to be registered as a restaurant to manage it. Please retry after a login.");
+        }
+        if (!CredentialService.getSessions().isValid(this.sessionToken, this.restaurant)) {
+            throw new UnauthorizedOperationException("Your session has expired. Please log in to continue.");
         }
     }
 }
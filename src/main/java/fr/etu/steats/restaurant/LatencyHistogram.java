@@ -0,0 +1,129 @@
+package fr.etu.steats.restaurant;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a log-linear histogram of durations in milliseconds, in the spirit of HDR histograms.
+ * Every power of two is split in {@value #SUB_BUCKET_COUNT} buckets, so a recorded value is known within about 6%,
+ * whatever its magnitude, with a fixed memory footprint. The buckets are only allocated once a value is recorded.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * The values above are counted in the last bucket, it is about 24 days.
+     */
+    public static final long MAX_TRACKABLE_VALUE = Integer.MAX_VALUE;
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_VALUE) + 1;
+
+    private volatile AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_TRACKABLE_VALUE));
+        getOrCreateCounts().incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalValue.add(clamped);
+        maxValue.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * Add every value recorded by another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        AtomicLongArray otherCounts = other.counts;
+        if (otherCounts == null) {
+            return;
+        }
+        AtomicLongArray ownCounts = getOrCreateCounts();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = otherCounts.get(i);
+            if (count != 0) {
+                ownCounts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        totalValue.add(other.totalValue.sum());
+        maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+    }
+
+    public void reset() {
+        counts = null;
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.set(0);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return (count == 0) ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the one at this percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        AtomicLongArray snapshot = counts;
+        long count = getCount();
+        if (snapshot == null || count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    private AtomicLongArray getOrCreateCounts() {
+        AtomicLongArray current = counts;
+        if (current == null) {
+            synchronized (this) {
+                current = counts;
+                if (current == null) {
+                    current = new AtomicLongArray(BUCKET_COUNT);
+                    counts = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * The values under 2 * {@value #SUB_BUCKET_COUNT} have their own bucket,
+     * above each power of two is split in {@value #SUB_BUCKET_COUNT} buckets of the same width.
+     */
+    private static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
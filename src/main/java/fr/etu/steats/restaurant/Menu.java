@@ -2,15 +2,35 @@ package fr.etu.steats.restaurant;
 
 import fr.etu.steats.enums.ECustomerStatus;
 
+/**
+ * The prices are stored in cents, so the sum of the prices of an order is exact.
+ * The price for each type of customer is resolved when a price changes, not on every call.
+ * Once published in the menu of a restaurant, an item never changes: the orders keep the item, and the price,
+ * they were placed against, and the menu is indexed by its name and its after-work flag.
+ * The menu of the restaurant must be updated instead, which publishes a new item.
+ */
 public class Menu {
     private static final String ERROR_NEGATIVE = "Price cannot be negative";
+    private static final ECustomerStatus[] CUSTOMER_TYPES = ECustomerStatus.values();
     private String name;
-    private double globalPrice;
+    private volatile long globalPriceInCents;
     private boolean afterWork;
-    private double studentPrice;
-    private double staffPrice;
-    private double facultyPrice;
-    private double externalPrice;
+    /**
+     * True once the item is in a version of the menu of a restaurant.
+     */
+    private volatile boolean published;
+    /**
+     * The version of the menu that published the item, 0 if it is not published or the version is unknown.
+     */
+    private volatile long publishedVersion;
+    /**
+     * The specific price of each type of customer in cents, indexed by ordinal, 0 if the global price applies.
+     */
+    private final long[] specificPricesInCents = new long[CUSTOMER_TYPES.length];
+    /**
+     * The price paid by each type of customer in cents, indexed by ordinal. Replaced as a whole when a price changes.
+     */
+    private volatile long[] priceTableInCents = new long[CUSTOMER_TYPES.length];
 
     public Menu(String name, double price) {
         this(name, price, true);
@@ -24,8 +44,9 @@ public class Menu {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
         this.name = name;
-        this.globalPrice = price;
+        this.globalPriceInCents = toCents(price);
         this.afterWork = afterWork;
+        rebuildPriceTable();
     }
 
     public String getName() {
@@ -33,78 +54,78 @@ public class Menu {
     }
 
     public void setName(String name) {
+        checkNotPublished();
         this.name = name;
     }
 
     public double getPrice(ECustomerStatus typeOfCustomer) {
-        if (typeOfCustomer == ECustomerStatus.STUDENT && studentPrice > 0) {
-            return studentPrice;
-        }
-        if (typeOfCustomer == ECustomerStatus.STAFF && staffPrice > 0) {
-            return staffPrice;
-        }
-        if (typeOfCustomer == ECustomerStatus.FACULTY && facultyPrice > 0) {
-            return facultyPrice;
-        }
-        if (typeOfCustomer == ECustomerStatus.EXTERNAL && externalPrice > 0) {
-            return externalPrice;
+        return toPrice(getPriceInCents(typeOfCustomer));
+    }
+
+    /**
+     * @return the price paid by this type of customer in cents, the global price if the type is null
+     */
+    public long getPriceInCents(ECustomerStatus typeOfCustomer) {
+        if (typeOfCustomer == null) {
+            return globalPriceInCents;
         }
-        return globalPrice;
+        return priceTableInCents[typeOfCustomer.ordinal()];
     }
 
     public double getGlobalPrice() {
-        return globalPrice;
+        return toPrice(globalPriceInCents);
     }
 
-    public void setGlobalPrice(double globalPrice) {
+    public long getGlobalPriceInCents() {
+        return globalPriceInCents;
+    }
+
+    public synchronized void setGlobalPrice(double globalPrice) {
+        checkNotPublished();
         if (globalPrice < 0) {
             throw new IllegalArgumentException(ERROR_NEGATIVE);
         }
-        this.globalPrice = globalPrice;
+        this.globalPriceInCents = toCents(globalPrice);
+        rebuildPriceTable();
+    }
+
+    /**
+     * @return the specific price of this type of customer in cents, 0 if the global price applies
+     */
+    public synchronized long getSpecificPriceInCents(ECustomerStatus typeOfCustomer) {
+        return specificPricesInCents[typeOfCustomer.ordinal()];
     }
 
     public double getStudentPrice() {
-        return studentPrice;
+        return getSpecificPrice(ECustomerStatus.STUDENT);
     }
 
     public void setStudentPrice(double studentPrice) {
-        if (studentPrice < 0) {
-            throw new IllegalArgumentException(ERROR_NEGATIVE);
-        }
-        this.studentPrice = studentPrice;
+        setSpecificPrice(ECustomerStatus.STUDENT, studentPrice);
     }
 
     public double getStaffPrice() {
-        return staffPrice;
+        return getSpecificPrice(ECustomerStatus.STAFF);
     }
 
     public void setStaffPrice(double staffPrice) {
-        if (staffPrice < 0) {
-            throw new IllegalArgumentException(ERROR_NEGATIVE);
-        }
-        this.staffPrice = staffPrice;
+        setSpecificPrice(ECustomerStatus.STAFF, staffPrice);
     }
 
     public double getFacultyPrice() {
-        return facultyPrice;
+        return getSpecificPrice(ECustomerStatus.FACULTY);
     }
 
     public void setFacultyPrice(double facultyPrice) {
-        if (facultyPrice < 0) {
-            throw new IllegalArgumentException(ERROR_NEGATIVE);
-        }
-        this.facultyPrice = facultyPrice;
+        setSpecificPrice(ECustomerStatus.FACULTY, facultyPrice);
     }
 
     public double getExternalPrice() {
-        return externalPrice;
+        return getSpecificPrice(ECustomerStatus.EXTERNAL);
     }
 
     public void setExternalPrice(double externalPrice) {
-        if (externalPrice < 0) {
-            throw new IllegalArgumentException(ERROR_NEGATIVE);
-        }
-        this.externalPrice = externalPrice;
+        setSpecificPrice(ECustomerStatus.EXTERNAL, externalPrice);
     }
 
     public boolean isAfterWork() {
@@ -112,6 +133,63 @@ public class Menu {
     }
 
     public void setAfterWork(boolean afterWork) {
+        checkNotPublished();
         this.afterWork = afterWork;
     }
+
+    public boolean isPublished() {
+        return published;
+    }
+
+    public long getPublishedVersion() {
+        return publishedVersion;
+    }
+
+    /**
+     * Mark the item as part of a version of the menu of a restaurant, it can't be modified anymore.
+     * An item already published keeps the version that published it first.
+     *
+     * @param version the version of the menu that publishes the item, 0 if it is unknown
+     */
+    synchronized void publish(long version) {
+        if (!published) {
+            this.publishedVersion = version;
+            this.published = true;
+        }
+    }
+
+    private void checkNotPublished() {
+        if (published) {
+            throw new IllegalStateException("The item " + name + " is published in a menu, update the menu of the restaurant instead");
+        }
+    }
+
+    private synchronized double getSpecificPrice(ECustomerStatus typeOfCustomer) {
+        return toPrice(specificPricesInCents[typeOfCustomer.ordinal()]);
+    }
+
+    private synchronized void setSpecificPrice(ECustomerStatus typeOfCustomer, double price) {
+        checkNotPublished();
+        if (price < 0) {
+            throw new IllegalArgumentException(ERROR_NEGATIVE);
+        }
+        specificPricesInCents[typeOfCustomer.ordinal()] = toCents(price);
+        rebuildPriceTable();
+    }
+
+    private void rebuildPriceTable() {
+        long[] table = new long[CUSTOMER_TYPES.length];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (specificPricesInCents[i] > 0) ? specificPricesInCents[i] : globalPriceInCents;
+        }
+        this.priceTableInCents = table;
+    }
+
+    private static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    private static double toPrice(long cents) {
+        return cents / 100.0;
+    }
 }
@@ -0,0 +1,91 @@
+package fr.etu.steats.restaurant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is one version of the menu of a restaurant, which never changes once published.
+ * A change of the menu builds the next version, so a reader never sees a half-updated menu and never waits for
+ * a writer. The items of a published version can't be modified: an update replaces an item by a new one,
+ * which lets the orders keep the item, and the price, they were placed against.
+ */
+public final class MenuSnapshot {
+    static final MenuSnapshot EMPTY = new MenuSnapshot(0, List.of());
+
+    private final long version;
+    private final List<Menu> items;
+    private final Map<String, Menu> itemsByName;
+    private final List<Menu> afterWorkItems;
+
+    private MenuSnapshot(long version, List<Menu> items) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(items);
+        Map<String, Menu> byName = new HashMap<>();
+        for (Menu item : items) {
+            byName.put(item.getName(), item);
+        }
+        this.itemsByName = byName;
+        this.afterWorkItems = items.stream().filter(Menu::isAfterWork).toList();
+    }
+
+    /**
+     * Rebuild a version of the menu saved in a snapshot.
+     */
+    static MenuSnapshot restored(long version, List<Menu> items) {
+        return new MenuSnapshot(version, items);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Menu> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the item with this name, or null if there is none
+     */
+    public Menu getItem(String name) {
+        return itemsByName.get(name);
+    }
+
+    public List<Menu> getAfterWorkItems() {
+        return afterWorkItems;
+    }
+
+    MenuSnapshot with(Menu item) {
+        if (itemsByName.containsKey(item.getName())) {
+            throw new IllegalArgumentException("item already exists");
+        }
+        List<Menu> newItems = new ArrayList<>(items);
+        newItems.add(item);
+        return new MenuSnapshot(version + 1, newItems);
+    }
+
+    MenuSnapshot without(String name) {
+        Menu item = itemsByName.get(name);
+        if (item == null) {
+            return this;
+        }
+        List<Menu> newItems = new ArrayList<>(items);
+        newItems.remove(item);
+        return new MenuSnapshot(version + 1, newItems);
+    }
+
+    MenuSnapshot replacing(String name, Menu newItem) {
+        Menu item = itemsByName.get(name);
+        if (item == null) {
+            throw new IllegalArgumentException("itemName does not exist");
+        }
+        if (!newItem.getName().equals(name) && itemsByName.containsKey(newItem.getName())) {
+            throw new IllegalArgumentException("item already exists");
+        }
+        List<Menu> newItems = new ArrayList<>(items);
+        newItems.set(newItems.indexOf(item), newItem);
+        return new MenuSnapshot(version + 1, newItems);
+    }
+}
@@ -5,13 +5,28 @@ import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.AfterWorkOrder;
 import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.order.OrderItemStatusListener;
+import fr.etu.steats.service.CredentialService;
 import fr.etu.steats.service.NotificationService;
+import fr.etu.steats.service.PasswordHash;
 import fr.etu.steats.utils.Scheduler;
 import fr.etu.steats.utils.UserLevel;
 import org.joda.time.DateTime;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class represents a restaurant.
@@ -19,23 +34,64 @@ import java.util.List;
  */
 public class Restaurant {
     /**
-     * The password is used to identify the restaurant. Used by the restaurant manager to log in.
+     * The hash of the password used by the restaurant manager to log in, see {@link CredentialService}.
+     * It is computed in the background when the restaurant is created, the first use waits for it.
      */
-    private final String password;
-    private String name;
+    private final PasswordHash passwordHash;
+    private volatile String name;
+    /**
+     * The directory indexing the restaurant by name, which a rename goes through. Null if the restaurant is in none.
+     */
+    private volatile RestaurantDirectory directory;
     /**
      * The id of the restaurant is used to identify it. It is unique.
      */
     private final int id;
     /**
-     * The menu of the restaurant.
+     * The current version of the menu. It is read by every order without locking and replaced on every change.
+     */
+    private final AtomicReference<MenuSnapshot> menu = new AtomicReference<>(MenuSnapshot.EMPTY);
+    /**
+     * Held by the changes of the menu, so that each one builds on the previous version and publishes its items once.
+     */
+    private final Object menuWriteLock = new Object();
+    /**
+     * Every item published in a version of the menu and still referenced, the orders keep the item they were placed against.
      */
-    private final List<Menu> menuItems = new ArrayList<>();
+    private final Set<Menu> publishedMenuItems = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
     /**
      * The orders in preparation by the restaurant.
      */
-    private final List<OrderItem> orders = new ArrayList<>();
-    private final List<OrderItem> oldOrders = new ArrayList<>();
+    private final List<OrderItem> orders = new CopyOnWriteArrayList<>();
+    private final List<OrderItem> oldOrders = new CopyOnWriteArrayList<>();
+    /**
+     * The number of orders in preparation by the restaurant for each status, updated on every status transition.
+     */
+    private final Map<EOrderStatus, LongAdder> orderCountByStatus = createOrderCounters();
+    private final OrderItemStatusListener orderCountListener = (item, oldStatus, newStatus) -> {
+        decrementOrderCount(oldStatus);
+        incrementOrderCount(newStatus);
+    };
+    /**
+     * The activity of the restaurant over the last minutes, hours and days.
+     */
+    private final RollingStatistics statistics = new RollingStatistics();
+    private final OrderItemStatusListener statisticsListener = new OrderItemStatusListener() {
+        @Override
+        public void statusChanged(OrderItem item, EOrderStatus oldStatus, EOrderStatus newStatus) {
+            recordTransition(item, oldStatus, newStatus);
+        }
+
+        /**
+         * A transition given back after a restart was recorded before it, the statistics of that time are not kept.
+         */
+        @Override
+        public void statusRestored(OrderItem item, EOrderStatus oldStatus, EOrderStatus newStatus) {
+            if (newStatus == EOrderStatus.FINISH || newStatus == EOrderStatus.CANCELED) {
+                item.removeStatusListener(this);
+            }
+        }
+    };
     /**
      * The scheduler is used to simulate the preparation of an order.
      */
@@ -48,31 +104,48 @@ public class Restaurant {
     }
 
     public Restaurant(String name, int id, String password, Scheduler scheduler, String address) {
-        this.name = name.trim().toLowerCase();
-        this.id = id;
-        this.password = password;
-        this.scheduler = scheduler;
-        this.timeSlotManager = new TimeSlotManager();
-        this.address = address;
+        this(name, id, hashPassword(password), scheduler, new TimeSlotManager(), address);
     }
 
     public Restaurant(String name, int id, String password, Scheduler scheduler, int capacity, String address) {
+        this(name, id, hashPassword(password), scheduler, new TimeSlotManager(capacity), address);
+    }
+
+    private Restaurant(String name, int id, PasswordHash passwordHash, Scheduler scheduler, TimeSlotManager timeSlotManager, String address) {
         this.name = name.trim().toLowerCase();
         this.id = id;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.scheduler = scheduler;
-        this.timeSlotManager = new TimeSlotManager(capacity);
+        this.timeSlotManager = timeSlotManager;
         this.address = address;
     }
 
+    /**
+     * Restore a restaurant from a snapshot, with the hash of its password.
+     * Its menu and its orders are given back with {@link #restoreMenu(long, List, Collection)} and {@link #restoreOrders(List)}.
+     */
+    public static Restaurant restore(String name, int id, String passwordHash, Scheduler scheduler, int capacity, String address) {
+        return new Restaurant(name, id, PasswordHash.of(passwordHash), scheduler, new TimeSlotManager(capacity), address);
+    }
+
+    /**
+     * Load a restaurant from a file holding the hash of its password or the password in clear.
+     */
+    public static Restaurant fromFile(String name, int id, String passwordOrHash, Scheduler scheduler, String address) {
+        return new Restaurant(name, id, PasswordHash.fromFile(passwordOrHash), scheduler, new TimeSlotManager(), address);
+    }
+
+    private static PasswordHash hashPassword(String password) {
+        return (password == null) ? PasswordHash.of(null) : PasswordHash.inBackground(password);
+    }
+
     public void addMenuItem(Menu item) {
         if (item == null) {
             throw new IllegalArgumentException("item cannot be null");
         }
-        if (menuItems.contains(item)) {
-            throw new IllegalArgumentException("item already exists");
+        synchronized (menuWriteLock) {
+            publishMenu(this.menu.get().with(item), item);
         }
-        this.menuItems.add(item);
     }
 
 
@@ -80,35 +153,130 @@ public class Restaurant {
         if (itemName == null || itemName.isEmpty()) {
             throw new IllegalArgumentException("itemName cannot be null or empty");
         }
-        menuItems.removeIf(item -> item.getName().equals(itemName));
+        synchronized (menuWriteLock) {
+            this.menu.set(this.menu.get().without(itemName));
+        }
     }
 
+    /**
+     * @return the menu item with this name in the current version of the menu, or null if there is none
+     */
     public Menu getMenuItem(String itemName) {
-        for (Menu item : menuItems) {
-            if (item.getName().equals(itemName)) {
-                return item;
-            }
-        }
-        return null;
+        return this.menu.get().getItem(itemName);
     }
 
+    /**
+     * Publish a new version of the menu where the item is replaced by a copy with the new name and prices.
+     * The orders already placed keep the previous item and its prices.
+     */
     public void updateMenuItem(String itemName, Menu newMenuItem) {
         if (itemName == null || itemName.isEmpty()) {
             throw new IllegalArgumentException("itemName cannot be null or empty");
         }
-        for (Menu item : menuItems) {
-            if (item.getName().equals(itemName)) {
-                item.setName(newMenuItem.getName());
-                item.setGlobalPrice(newMenuItem.getGlobalPrice());
-                item.setStudentPrice(newMenuItem.getStudentPrice());
-                item.setFacultyPrice(newMenuItem.getFacultyPrice());
-                item.setExternalPrice(newMenuItem.getExternalPrice());
-                item.setStaffPrice(newMenuItem.getStaffPrice());
-                return;
-            } else {
+        synchronized (menuWriteLock) {
+            MenuSnapshot snapshot = this.menu.get();
+            Menu item = snapshot.getItem(itemName);
+            if (item == null) {
                 throw new IllegalArgumentException("itemName does not exist");
             }
+            Menu updatedItem = new Menu(newMenuItem.getName(), newMenuItem.getGlobalPrice(), item.isAfterWork());
+            updatedItem.setStudentPrice(newMenuItem.getStudentPrice());
+            updatedItem.setFacultyPrice(newMenuItem.getFacultyPrice());
+            updatedItem.setExternalPrice(newMenuItem.getExternalPrice());
+            updatedItem.setStaffPrice(newMenuItem.getStaffPrice());
+            publishMenu(snapshot.replacing(itemName, updatedItem), updatedItem);
+        }
+    }
+
+    /**
+     * Publish the next version of the menu, with its new item frozen first so that no reader sees it change.
+     * It is called under the menu write lock.
+     */
+    private void publishMenu(MenuSnapshot next, Menu newItem) {
+        newItem.publish(next.getVersion());
+        publishedMenuItems.add(newItem);
+        this.menu.set(next);
+    }
+
+    /**
+     * @return the current version of the menu
+     */
+    public MenuSnapshot getMenu() {
+        return this.menu.get();
+    }
+
+    /**
+     * Publish the version of the menu saved in a snapshot.
+     *
+     * @param previousItems the items of the previous versions still referenced by the restored orders
+     */
+    public void restoreMenu(long version, List<Menu> items, Collection<Menu> previousItems) {
+        synchronized (menuWriteLock) {
+            items.forEach(item -> item.publish(version));
+            previousItems.forEach(item -> item.publish(0));
+            publishedMenuItems.addAll(items);
+            publishedMenuItems.addAll(previousItems);
+            this.menu.set(MenuSnapshot.restored(version, new ArrayList<>(items)));
+        }
+    }
+
+    /**
+     * Give back the orders that were in preparation when a snapshot was taken, or created by the events of the journal.
+     * The orders already there are found with one identity set, and the new ones are added at once.
+     */
+    public void restoreOrders(List<OrderItem> items) {
+        Set<OrderItem> present = identitySetOf(orders);
+        List<OrderItem> restored = new ArrayList<>();
+        for (OrderItem item : items) {
+            if (present.add(item)) {
+                restored.add(item);
+            }
         }
+        orders.addAll(restored);
+        restored.forEach(this::trackOrder);
+    }
+
+    /**
+     * Forget the orders the restaurant was done with when the events of the journal were written, if they are still there.
+     * The statistics keep following the orders until their end.
+     */
+    public void restoreOrdersDone(Collection<OrderItem> items) {
+        Set<OrderItem> done = identitySetOf(items);
+        List<OrderItem> removed = new ArrayList<>();
+        for (OrderItem item : orders) {
+            if (done.contains(item)) {
+                removed.add(item);
+            }
+        }
+        if (!removed.isEmpty()) {
+            orders.removeIf(done::contains);
+            for (TimeSlot slot : timeSlotManager.getSlots().values()) {
+                removed.forEach(slot::removeOrderFromTimeSlot);
+            }
+            removed.forEach(this::untrackOrder);
+        }
+        for (OrderItem item : done) {
+            if (item.getStatus() != EOrderStatus.FINISH && item.getStatus() != EOrderStatus.CANCELED) {
+                followStatistics(item);
+            }
+        }
+    }
+
+    private static Set<OrderItem> identitySetOf(Collection<OrderItem> items) {
+        Set<OrderItem> set = Collections.newSetFromMap(new IdentityHashMap<>(items.size() * 2));
+        set.addAll(items);
+        return set;
+    }
+
+    /**
+     * @return the password hash, only to save the restaurant in a snapshot
+     */
+    public String getPasswordHash() {
+        return passwordHash.get();
+    }
+
+    public RollingStatistics getStatistics() {
+        return statistics;
     }
 
     public TimeSlotManager getTimeSlotManager() {
@@ -119,30 +287,67 @@ public class Restaurant {
         return name;
     }
 
+    /**
+     * Rename the restaurant, and its entry in the directory of its service.
+     *
+     * @throws IllegalArgumentException if another restaurant of the directory has this name
+     */
     public void setName(String name) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
+        RestaurantDirectory currentDirectory = this.directory;
+        if (currentDirectory == null) {
+            this.name = name;
+        } else if (!currentDirectory.rename(this, name)) {
+            throw new IllegalArgumentException("The restaurant " + name + " already exists...");
+        }
+    }
+
+    void changeName(String name) {
         this.name = name;
     }
 
+    void setDirectory(RestaurantDirectory directory) {
+        this.directory = directory;
+    }
+
+    RestaurantDirectory getDirectory() {
+        return directory;
+    }
+
     public int getId() {
         return id;
     }
 
     public List<Menu> getMenuItems() {
-        return menuItems;
+        return this.menu.get().getItems();
     }
 
     public boolean checkPassword(String password) throws BadPasswordException {
-        if (!this.password.equals(password)) {
+        if (password == null || !CredentialService.matches(password, passwordHash)) {
             throw new BadPasswordException("The password you provided is incorrect, please retry. \nIf you forgot your password, contact an administrator to change your it.");
         }
         return true;
     }
 
     public List<OrderItem> getOrders() {
-        return orders;
+        return Collections.unmodifiableList(orders);
+    }
+
+    /**
+     * @return the number of orders in preparation by the restaurant with this status, without going through the orders
+     */
+    public long countOrders(EOrderStatus status) {
+        LongAdder counter = orderCountByStatus.get(status);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    /**
+     * @return the number of orders in preparation by the restaurant
+     */
+    public long countOrders() {
+        return orderCountByStatus.values().stream().mapToLong(LongAdder::sum).sum();
     }
 
     public void addOrder(OrderItem order) {
@@ -153,11 +358,14 @@ public class Restaurant {
             throw new IllegalArgumentException("order already exists");
         }
         this.orders.add(order);
+        trackOrder(order);
         NotificationService.sendNotificationToUser(UserLevel.RESTAURANT_MANAGER, "You have a new order to prepare !", this.getName());
     }
 
     public void addAfterWorkOrder(AfterWorkOrder order) {
         if (this.timeSlotManager.addAfterWorkOrder(order)) {
+            // After work orders skip the order list, their preparation latency is still recorded
+            order.getItems().forEach(this::followStatistics);
             NotificationService.sendNotificationToUser(UserLevel.RESTAURANT_MANAGER, "You have a new after work order to prepare !", this.getName());
         }
     }
@@ -170,9 +378,11 @@ public class Restaurant {
             throw new IllegalArgumentException("order does not exist");
         }
         for (TimeSlot slot : timeSlotManager.getSlots().values()) {
-            slot.getOrderToPrepareDuringTimeSlot().remove(order);
+            slot.removeOrderFromTimeSlot(order);
+        }
+        if (this.orders.remove(order)) {
+            untrackOrder(order);
         }
-        this.orders.remove(order);
     }
 
     protected void verifyOrder(OrderItem order) {
@@ -182,7 +392,8 @@ public class Restaurant {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order does not exist");
         }
-        if (this.getMenuItem(order.getMenu().getName()) != order.getMenu()) {
+        // The item may come from a previous version of the menu
+        if (this.getMenuItem(order.getMenu().getName()) != order.getMenu() && !publishedMenuItems.contains(order.getMenu())) {
             throw new IllegalArgumentException("The order does not belong to this restaurant");
         }
         if (order.getMenu() == null) {
@@ -194,17 +405,66 @@ public class Restaurant {
     }
 
     public void prepareOrder(int orderId) throws InterruptedException {
+        OrderItem order = startPreparation(orderId);
+        scheduler.waitTenMinutes();
+        finishPreparation(order, orderId);
+    }
+
+    /**
+     * Prepare an order without blocking the caller, the order is prepared once the future completes.
+     */
+    public CompletableFuture<Void> prepareOrderAsync(int orderId) {
+        return prepareOrderAsync(orderId, Runnable::run);
+    }
+
+    /**
+     * @param finisher runs the end of the preparation on the work executor of the scheduler once the 10 minutes are over,
+     *                 for example under the locks held for its start
+     */
+    public CompletableFuture<Void> prepareOrderAsync(int orderId, Executor finisher) {
+        OrderItem order = startPreparation(orderId);
+        return scheduler.afterTenMinutes().thenRunAsync(() -> finisher.execute(() -> finishPreparation(order, orderId)), scheduler.getWorkExecutor());
+    }
+
+    private OrderItem startPreparation(int orderId) {
         OrderItem order = orders.get(orderId - 1);
         verifyOrder(order);
         order.setStatus(EOrderStatus.IN_PREPARATION);
-        NotificationService.sendNotificationToUser(UserLevel.USER, "Your order n°" + orderId + " is in preparation in the restaurant " + this.getName() + ".");
-        scheduler.waitTenMinutes();
+        String restaurantName = this.getName();
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order n°" + orderId + " is in preparation in the restaurant " + restaurantName + ".");
+        return order;
+    }
+
+    private void finishPreparation(OrderItem order, int orderId) {
         order.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
-        NotificationService.sendNotificationToUser(UserLevel.USER, "Your order n°" + orderId + " is prepared ! Waiting for the delivery man to take it.");
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order n°" + orderId + " is prepared ! Waiting for the delivery man to take it.");
         removeOrder(order);
     }
 
     public void prepareAllOrderOfNearestTimeSlot() throws InterruptedException, UnauthorizedOperationException {
+        TimeSlot timeSlot = startTimeSlotPreparation();
+        scheduler.waitTenMinutes();
+        finishTimeSlotPreparation(timeSlot);
+    }
+
+    /**
+     * Prepare the orders of the nearest time slot without blocking the caller,
+     * they are prepared once the future completes.
+     */
+    public CompletableFuture<Void> prepareAllOrderOfNearestTimeSlotAsync() throws UnauthorizedOperationException {
+        return prepareAllOrderOfNearestTimeSlotAsync(Runnable::run);
+    }
+
+    /**
+     * @param finisher runs the end of the preparation on the work executor of the scheduler once the 10 minutes are over,
+     *                 for example under the locks held for its start
+     */
+    public CompletableFuture<Void> prepareAllOrderOfNearestTimeSlotAsync(Executor finisher) throws UnauthorizedOperationException {
+        TimeSlot timeSlot = startTimeSlotPreparation();
+        return scheduler.afterTenMinutes().thenRunAsync(() -> finisher.execute(() -> finishTimeSlotPreparation(timeSlot)), scheduler.getWorkExecutor());
+    }
+
+    private TimeSlot startTimeSlotPreparation() throws UnauthorizedOperationException {
         TimeSlot timeSlot = timeSlotManager.getNeareastTimeSlotWithWorkRemaining();
 
         for (AfterWorkOrder order : timeSlot.getAfterWorkOrderCurrentlyOnGoing()) {
@@ -216,9 +476,10 @@ public class Restaurant {
         }
 
         timeSlot.getOrderToPrepareDuringTimeSlot().forEach(orderItem -> orderItem.setStatus(EOrderStatus.IN_PREPARATION));
+        return timeSlot;
+    }
 
-        scheduler.waitTenMinutes();
-
+    private void finishTimeSlotPreparation(TimeSlot timeSlot) {
         timeSlot.getOrderToPrepareDuringTimeSlot()
                 .forEach(orderItem -> {
                     if (orderItem.needToBeDelivered()) {
@@ -229,7 +490,11 @@ public class Restaurant {
                 });
 
         oldOrders.addAll(timeSlot.getOrderToPrepareDuringTimeSlot());
-        orders.removeAll(timeSlot.getOrderToPrepareDuringTimeSlot());
+        for (OrderItem orderItem : timeSlot.getOrderToPrepareDuringTimeSlot()) {
+            if (orders.remove(orderItem)) {
+                untrackOrder(orderItem);
+            }
+        }
     }
 
     public void cancelOrder(int orderId) {
@@ -237,15 +502,39 @@ public class Restaurant {
         verifyOrder(order);
         order.setStatus(EOrderStatus.CANCELED);
         removeOrder(order);
-        NotificationService.sendNotificationToUser(UserLevel.USER, "Your order " + orderId + " has been cancelled.");
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order " + orderId + " has been cancelled.");
     }
 
     public boolean canOrderBePreparedBeforeDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
         return timeSlotManager.canOrderBePreparedBeforeDeadline(items, deliveryDate);
     }
 
+    /**
+     * Claim places for the items in the time slots before the deadline, to commit later with
+     * {@link #addOrderListWhoNeedToBePrepareBeforeDeadline(SlotReservation)} or to cancel.
+     *
+     * @return the reservation, or null if the restaurant doesn't have enough places before the deadline
+     */
+    public SlotReservation reserveOrderListBeforeDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
+        return timeSlotManager.reserve(items == null ? null : List.copyOf(items), deliveryDate);
+    }
+
     public boolean addOrderListWhoNeedToBePrepareBeforeDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
-        if (timeSlotManager.addOrderToPrepareWithDeadline(List.copyOf(items), deliveryDate) && this.orders.addAll(items)) {
+        SlotReservation reservation = reserveOrderListBeforeDeadline(items, deliveryDate);
+        return reservation != null && addOrderListWhoNeedToBePrepareBeforeDeadline(reservation);
+    }
+
+    /**
+     * Commit a reservation made by this restaurant: its items are put in their time slots and in the orders to prepare.
+     *
+     * @return false if the reservation was already committed or cancelled
+     */
+    public boolean addOrderListWhoNeedToBePrepareBeforeDeadline(SlotReservation reservation) {
+        if (reservation == null || reservation.getTimeSlotManager() != timeSlotManager) {
+            throw new IllegalArgumentException("The reservation does not belong to this restaurant");
+        }
+        if (reservation.commit() && this.orders.addAll(reservation.getItems())) {
+            reservation.getItems().forEach(this::trackOrder);
             NotificationService.sendNotificationToUser(UserLevel.RESTAURANT_MANAGER, "You have a new order to prepare !", this.getName());
             return true;
         }
@@ -278,7 +567,67 @@ public class Restaurant {
         this.name = address;
     }
 
+    /**
+     * The after work menu is computed when the menu changes, not on every call.
+     */
     public List<Menu> getAfterWorkMenuItems() {
-        return this.getMenuItems().stream().filter(Menu::isAfterWork).toList();
+        return this.menu.get().getAfterWorkItems();
+    }
+
+    private static Map<EOrderStatus, LongAdder> createOrderCounters() {
+        Map<EOrderStatus, LongAdder> counters = new EnumMap<>(EOrderStatus.class);
+        for (EOrderStatus status : EOrderStatus.values()) {
+            counters.put(status, new LongAdder());
+        }
+        return counters;
+    }
+
+    private void trackOrder(OrderItem order) {
+        // Transitions are serialized on the item, so none of them can be missed or counted twice in between
+        synchronized (order) {
+            order.addStatusListener(orderCountListener);
+            incrementOrderCount(order.getStatus());
+        }
+        followStatistics(order);
+    }
+
+    /**
+     * The statistics follow the item until its end, even once the restaurant is done with it.
+     */
+    private void followStatistics(OrderItem order) {
+        order.removeStatusListener(statisticsListener);
+        order.addStatusListener(statisticsListener);
+    }
+
+    private void recordTransition(OrderItem order, EOrderStatus oldStatus, EOrderStatus newStatus) {
+        if (newStatus == EOrderStatus.CANCELED) {
+            statistics.recordCancellation();
+        } else if (oldStatus == EOrderStatus.IN_PREPARATION && newStatus != null) {
+            statistics.recordPreparationLatency(order.getStatusTimestamp(newStatus) - order.getStatusTimestamp(EOrderStatus.IN_PREPARATION));
+        } else if (oldStatus == EOrderStatus.IN_DELIVERY && newStatus == EOrderStatus.FINISH) {
+            statistics.recordDeliveryLatency(order.getStatusTimestamp(newStatus) - order.getStatusTimestamp(EOrderStatus.IN_DELIVERY));
+        }
+        if (newStatus == EOrderStatus.FINISH || newStatus == EOrderStatus.CANCELED) {
+            order.removeStatusListener(statisticsListener);
+        }
+    }
+
+    private void untrackOrder(OrderItem order) {
+        synchronized (order) {
+            order.removeStatusListener(orderCountListener);
+            decrementOrderCount(order.getStatus());
+        }
+    }
+
+    private void incrementOrderCount(EOrderStatus status) {
+        if (status != null) {
+            orderCountByStatus.get(status).increment();
+        }
+    }
+
+    private void decrementOrderCount(EOrderStatus status) {
+        if (status != null) {
+            orderCountByStatus.get(status).decrement();
+        }
     }
 }
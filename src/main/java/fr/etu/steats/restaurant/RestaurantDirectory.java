@@ -0,0 +1,140 @@
+package fr.etu.steats.restaurant;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class stores the restaurants by id and by normalized name, so a restaurant is resolved in O(1).
+ * A name is registered at most once: the additions, renames and removals are serialized, so two restaurants can't
+ * share a name, while the lookups don't lock. A restaurant of the directory is renamed through it,
+ * so the name index follows the current names.
+ */
+public class RestaurantDirectory {
+    private final ConcurrentMap<Integer, Restaurant> restaurantsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Restaurant> restaurantsByName = new ConcurrentHashMap<>();
+    private final Set<Restaurant> view = new RestaurantSet();
+    /**
+     * Serializes the changes of the name index: additions, renames and removals.
+     */
+    private final Object indexLock = new Object();
+
+    /**
+     * @return false if the restaurant, or a restaurant with the same name or id, was already in the directory
+     */
+    public boolean add(Restaurant restaurant) {
+        if (restaurant == null) {
+            throw new IllegalArgumentException("The restaurant can't be null");
+        }
+        synchronized (indexLock) {
+            String name = normalize(restaurant.getName());
+            if (restaurantsByName.putIfAbsent(name, restaurant) != null) {
+                return false;
+            }
+            if (restaurantsById.putIfAbsent(restaurant.getId(), restaurant) != null) {
+                restaurantsByName.remove(name, restaurant);
+                return false;
+            }
+            restaurant.setDirectory(this);
+            return true;
+        }
+    }
+
+    /**
+     * Rename a restaurant of the directory. The new name is claimed before the old one is released,
+     * so another restaurant can't take it meanwhile.
+     *
+     * @return false if another restaurant of the directory has this name
+     */
+    boolean rename(Restaurant restaurant, String newName) {
+        synchronized (indexLock) {
+            String oldName = normalize(restaurant.getName());
+            String name = normalize(newName);
+            if (restaurantsById.get(restaurant.getId()) != restaurant) {
+                restaurant.changeName(newName);
+                return true;
+            }
+            if (!name.equals(oldName)) {
+                Restaurant owner = restaurantsByName.putIfAbsent(name, restaurant);
+                if (owner != null && owner != restaurant) {
+                    return false;
+                }
+            }
+            restaurant.changeName(newName);
+            if (!name.equals(oldName)) {
+                restaurantsByName.remove(oldName, restaurant);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the removed restaurant, or null if there is none with this id
+     */
+    public Restaurant removeById(int id) {
+        synchronized (indexLock) {
+            Restaurant restaurant = restaurantsById.remove(id);
+            if (restaurant != null) {
+                restaurantsByName.remove(normalize(restaurant.getName()), restaurant);
+                if (restaurant.getDirectory() == this) {
+                    restaurant.setDirectory(null);
+                }
+            }
+            return restaurant;
+        }
+    }
+
+    /**
+     * @return the restaurant with this id, or null if there is none
+     */
+    public Restaurant findById(int id) {
+        return restaurantsById.get(id);
+    }
+
+    /**
+     * The names are compared trimmed and in lower case.
+     *
+     * @return the restaurant with this name, or null if there is none
+     */
+    public Restaurant findByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return restaurantsByName.get(normalize(name));
+    }
+
+    /**
+     * @return a read-only view of the restaurants, where {@code contains} is a lookup by id
+     */
+    public Set<Restaurant> getAll() {
+        return view;
+    }
+
+    public int size() {
+        return restaurantsById.size();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    private class RestaurantSet extends AbstractSet<Restaurant> {
+        @Override
+        public Iterator<Restaurant> iterator() {
+            return Collections.unmodifiableCollection(restaurantsById.values()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return restaurantsById.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Restaurant restaurant && restaurant.equals(restaurantsById.get(restaurant.getId()));
+        }
+    }
+}
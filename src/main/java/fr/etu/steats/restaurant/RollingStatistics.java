@@ -0,0 +1,133 @@
+package fr.etu.steats.restaurant;
+
+import fr.etu.steats.enums.EStatisticsWindow;
+import fr.etu.steats.service.ClockService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class aggregates the activity of a restaurant in rolling time windows.
+ * Every event is added to the bucket of its minute and to the bucket of its hour. The buckets are rings
+ * reused once their period is over, so the memory is bounded and a window is answered by reading a fixed number of buckets.
+ */
+public class RollingStatistics {
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = 7 * 24;
+
+    private final Bucket[] minuteBuckets = createBuckets(MINUTE_BUCKETS);
+    private final Bucket[] hourBuckets = createBuckets(HOUR_BUCKETS);
+
+    /**
+     * Record an order accepted by the restaurant.
+     *
+     * @param revenue the price paid for the items of this restaurant
+     */
+    public void recordOrderCreated(double revenue) {
+        long now = ClockService.currentTimeMillis();
+        long cents = Math.round(revenue * 100);
+        for (Bucket bucket : currentBuckets(now)) {
+            bucket.orders.increment();
+            bucket.revenueInCents.add(cents);
+        }
+    }
+
+    public void recordCancellation() {
+        long now = ClockService.currentTimeMillis();
+        for (Bucket bucket : currentBuckets(now)) {
+            bucket.cancellations.increment();
+        }
+    }
+
+    /**
+     * @param latency the time between the beginning and the end of the preparation, in milliseconds
+     */
+    public void recordPreparationLatency(long latency) {
+        long now = ClockService.currentTimeMillis();
+        for (Bucket bucket : currentBuckets(now)) {
+            bucket.preparationLatencies.record(latency);
+        }
+    }
+
+    /**
+     * @param latency the time between the pick-up by the delivery man and the delivery, in milliseconds
+     */
+    public void recordDeliveryLatency(long latency) {
+        long now = ClockService.currentTimeMillis();
+        for (Bucket bucket : currentBuckets(now)) {
+            bucket.deliveryLatencies.record(latency);
+        }
+    }
+
+    /**
+     * Add the activity of the window, ending now, to a report.
+     */
+    void collect(EStatisticsWindow window, WindowedStatisticReport report) {
+        long now = ClockService.currentTimeMillis();
+        switch (window) {
+            case LAST_15_MINUTES -> collect(minuteBuckets, Math.floorDiv(now, MILLIS_PER_MINUTE), 15, report);
+            case LAST_DAY -> collect(hourBuckets, Math.floorDiv(now, MILLIS_PER_HOUR), 24, report);
+            case LAST_WEEK -> collect(hourBuckets, Math.floorDiv(now, MILLIS_PER_HOUR), HOUR_BUCKETS, report);
+        }
+    }
+
+    private static void collect(Bucket[] buckets, long currentPeriod, int numberOfPeriods, WindowedStatisticReport report) {
+        for (int i = 0; i < numberOfPeriods; i++) {
+            long period = currentPeriod - i;
+            Bucket bucket = buckets[(int) Math.floorMod(period, (long) buckets.length)];
+            if (bucket.period == period) {
+                report.add(bucket.orders.sum(), bucket.revenueInCents.sum(), bucket.cancellations.sum(),
+                        bucket.preparationLatencies, bucket.deliveryLatencies);
+            }
+        }
+    }
+
+    private Bucket[] currentBuckets(long now) {
+        return new Bucket[]{
+                bucketOf(minuteBuckets, Math.floorDiv(now, MILLIS_PER_MINUTE)),
+                bucketOf(hourBuckets, Math.floorDiv(now, MILLIS_PER_HOUR))
+        };
+    }
+
+    /**
+     * @return the bucket of the period, cleared first if it still holds an older period
+     */
+    private static Bucket bucketOf(Bucket[] buckets, long period) {
+        Bucket bucket = buckets[(int) Math.floorMod(period, (long) buckets.length)];
+        if (bucket.period != period) {
+            synchronized (bucket) {
+                if (bucket.period != period) {
+                    bucket.reset(period);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private static Bucket[] createBuckets(int size) {
+        Bucket[] buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    private static final class Bucket {
+        private volatile long period = Long.MIN_VALUE;
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder revenueInCents = new LongAdder();
+        private final LongAdder cancellations = new LongAdder();
+        private final LatencyHistogram preparationLatencies = new LatencyHistogram();
+        private final LatencyHistogram deliveryLatencies = new LatencyHistogram();
+
+        private void reset(long newPeriod) {
+            orders.reset();
+            revenueInCents.reset();
+            cancellations.reset();
+            preparationLatencies.reset();
+            deliveryLatencies.reset();
+            period = newPeriod;
+        }
+    }
+}
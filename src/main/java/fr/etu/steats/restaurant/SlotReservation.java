@@ -0,0 +1,98 @@
+package fr.etu.steats.restaurant;
+
+import fr.etu.steats.order.OrderItem;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents places claimed in the time slots of a restaurant for a list of items.
+ * The places are held until the reservation is committed by the restaurant or cancelled.
+ */
+public class SlotReservation {
+    private enum State {PENDING, COMMITTED, CANCELLED}
+
+    private final TimeSlotManager timeSlotManager;
+    private final List<OrderItem> items;
+    private final DateTime deliveryDate;
+    private final List<TimeSlot> slots;
+    /**
+     * The number of places claimed in each slot, in the same order as the slots.
+     */
+    private final int[] places;
+    private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+
+    SlotReservation(TimeSlotManager timeSlotManager, List<OrderItem> items, DateTime deliveryDate, List<TimeSlot> slots, int[] places) {
+        this.timeSlotManager = timeSlotManager;
+        this.items = List.copyOf(items);
+        this.deliveryDate = deliveryDate;
+        this.slots = List.copyOf(slots);
+        this.places = places.clone();
+    }
+
+    public List<OrderItem> getItems() {
+        return items;
+    }
+
+    public DateTime getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    /**
+     * @return the start epoch minute of the slot of each item, in the same order as the items
+     */
+    public long[] getItemSlotKeys() {
+        long[] keys = new long[items.size()];
+        int itemIndex = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            for (int j = 0; j < places[i]; j++) {
+                keys[itemIndex++] = slots.get(i).getStartEpochMinute();
+            }
+        }
+        return keys;
+    }
+
+    public boolean isPending() {
+        return state.get() == State.PENDING;
+    }
+
+    TimeSlotManager getTimeSlotManager() {
+        return timeSlotManager;
+    }
+
+    /**
+     * Put the items in the slots where their places were claimed.
+     *
+     * @return false if the reservation was already committed or cancelled
+     */
+    boolean commit() {
+        if (!state.compareAndSet(State.PENDING, State.COMMITTED)) {
+            return false;
+        }
+        int itemIndex = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            TimeSlot slot = slots.get(i);
+            for (int j = 0; j < places[i]; j++) {
+                slot.addReservedOrderToTimeSlot(items.get(itemIndex++));
+            }
+            timeSlotManager.markSlotWithWork(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Give back every claimed place.
+     *
+     * @return false if the reservation was already committed or cancelled
+     */
+    public boolean cancel() {
+        if (!state.compareAndSet(State.PENDING, State.CANCELLED)) {
+            return false;
+        }
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).release(places[i]);
+        }
+        return true;
+    }
+}
@@ -1,10 +1,12 @@
 package fr.etu.steats.restaurant;
 
-import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.service.ClockService;
 
 import java.util.Date;
 import java.util.Set;
 
+import static fr.etu.steats.enums.EOrderStatus.*;
+
 /**
  * This class represents a statistic report.
  * It is used to generate a report of the restaurant's activity by the admin.
@@ -22,45 +24,31 @@ public class StatisticReport {
     private int nbRestaurants;
 
     public StatisticReport(Set<Restaurant> restaurants) {
-        this.dateCreated = new Date();
+        this.dateCreated = new Date(ClockService.currentTimeMillis());
         this.generateReport(restaurants);
     }
 
     public StatisticReport(Restaurant restaurant) {
-        this.dateCreated = new Date();
+        this.dateCreated = new Date(ClockService.currentTimeMillis());
         this.generateReport(Set.of(restaurant));
     }
 
+    /**
+     * Read the status counters of each restaurant, the orders themselves are never browsed.
+     */
     private void generateReport(Set<Restaurant> restaurants) {
         this.nbRestaurants = restaurants.size();
         for (Restaurant restaurant : restaurants) {
-            this.nbOrders += restaurant.getOrders().size();
-            for (OrderItem orderItem : restaurant.getOrders()) {
-                switch (orderItem.getStatus()) {
-                    case WAITING_PAYMENT:
-                        this.nbOrdersWaitingPayment++;
-                        break;
-                    case WAITING_RESTAURANT_ACCEPTANCE:
-                        this.nbOrdersWaitingRestaurantAcceptance++;
-                        break;
-                    case IN_PREPARATION:
-                        this.nbOrdersInPreparation++;
-                        break;
-                    case WAITING_DELIVER_ACCEPTANCE:
-                        this.nbOrdersWaitingDeliverAcceptance++;
-                        break;
-                    case IN_DELIVERY:
-                        this.nbOrdersInDelivery++;
-                        break;
-                    case FINISH:
-                        this.nbOrdersFinish++;
-                        break;
-                    case CANCELED:
-                        this.nbOrdersCancelled++;
-                        break;
-                }
-            }
+            this.nbOrdersWaitingPayment += (int) restaurant.countOrders(WAITING_PAYMENT);
+            this.nbOrdersWaitingRestaurantAcceptance += (int) restaurant.countOrders(WAITING_RESTAURANT_ACCEPTANCE);
+            this.nbOrdersInPreparation += (int) restaurant.countOrders(IN_PREPARATION);
+            this.nbOrdersWaitingDeliverAcceptance += (int) restaurant.countOrders(WAITING_DELIVER_ACCEPTANCE);
+            this.nbOrdersInDelivery += (int) restaurant.countOrders(IN_DELIVERY);
+            this.nbOrdersFinish += (int) restaurant.countOrders(FINISH);
+            this.nbOrdersCancelled += (int) restaurant.countOrders(CANCELED);
         }
+        this.nbOrders = nbOrdersWaitingPayment + nbOrdersWaitingRestaurantAcceptance + nbOrdersInPreparation
+                + nbOrdersWaitingDeliverAcceptance + nbOrdersInDelivery + nbOrdersFinish + nbOrdersCancelled;
     }
 
     public Date getDateCreated() {
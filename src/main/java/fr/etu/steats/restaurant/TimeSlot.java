@@ -2,34 +2,63 @@ package fr.etu.steats.restaurant;
 
 import fr.etu.steats.order.AfterWorkOrder;
 import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.service.ClockService;
 import org.joda.time.LocalTime;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.etu.steats.enums.EOrderStatus.IN_PREPARATION;
+import static fr.etu.steats.enums.EOrderStatus.WAITING_PAYMENT;
+import static fr.etu.steats.enums.EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE;
 
 public class TimeSlot {
     public static final int TIME_SLOT_DURATION = 10;
+    /**
+     * The epoch minute of the beginning of the slot, used as its key by the {@link TimeSlotManager}.
+     */
+    private final long startEpochMinute;
     private final LocalTime beginningTime;
     private final LocalTime finishingTime;
     private final int capacity;
     private final List<OrderItem> orderToPrepareDuringTimeSlot;
+    /**
+     * The number of places claimed in this slot, by the items already added and by the pending reservations.
+     * It is only updated with compare-and-set, so concurrent reservations never exceed the capacity.
+     */
+    private final AtomicInteger reservedPlaces;
 
     private final List<AfterWorkOrder> afterWorkCurrentlyOnGoing;
 
     public TimeSlot(LocalTime beginningTime, int capacity, List<OrderItem> orderToPrepare, List<AfterWorkOrder> afterWorkOrders) {
+        this(beginningTime.toDateTimeToday().getMillis() / 60_000L, beginningTime, capacity, orderToPrepare, afterWorkOrders);
+    }
+
+    TimeSlot(long startEpochMinute, int capacity) {
+        this(startEpochMinute, new LocalTime(startEpochMinute * 60_000L), capacity, new CopyOnWriteArrayList<>(), new CopyOnWriteArrayList<>());
+    }
+
+    private TimeSlot(long startEpochMinute, LocalTime beginningTime, int capacity, List<OrderItem> orderToPrepare, List<AfterWorkOrder> afterWorkOrders) {
+        this.startEpochMinute = startEpochMinute;
         this.beginningTime = beginningTime;
         this.finishingTime = beginningTime.plusMinutes(TIME_SLOT_DURATION);
         this.capacity = capacity;
         this.orderToPrepareDuringTimeSlot = orderToPrepare;
+        this.reservedPlaces = new AtomicInteger(orderToPrepare.size());
         this.afterWorkCurrentlyOnGoing = afterWorkOrders;
     }
 
     public TimeSlot(LocalTime beginningTime, int capacity, List<OrderItem> orderToPrepare) {
-        this(beginningTime, capacity, orderToPrepare, new ArrayList<>());
+        this(beginningTime, capacity, orderToPrepare, new CopyOnWriteArrayList<>());
     }
 
     public TimeSlot(LocalTime beginningTime, int capacity) {
-        this(beginningTime, capacity, new ArrayList<>(), new ArrayList<>());
+        this(beginningTime, capacity, new CopyOnWriteArrayList<>(), new CopyOnWriteArrayList<>());
+    }
+
+    public long getStartEpochMinute() {
+        return startEpochMinute;
     }
 
     public LocalTime getBeginningTime() {
@@ -49,7 +78,7 @@ public class TimeSlot {
     }
 
     public boolean isOnGoing() {
-        LocalTime now = new LocalTime();
+        LocalTime now = ClockService.currentTime();
         return now.isAfter(beginningTime) && now.isBefore(finishingTime);
     }
 
@@ -57,21 +86,100 @@ public class TimeSlot {
         if (item == null) {
             throw new IllegalArgumentException("You can't add a null order item to the time slot...");
         }
-        if (orderToPrepareDuringTimeSlot.size() < capacity) {
+        if (tryReserve(1) == 1) {
             return orderToPrepareDuringTimeSlot.add(item);
         }
         return false;
     }
 
+    /**
+     * Add an item whose place was already claimed with {@link #tryReserve(int)}.
+     */
+    void addReservedOrderToTimeSlot(OrderItem item) {
+        orderToPrepareDuringTimeSlot.add(item);
+    }
+
+    /**
+     * Remove an item from the slot and give its place back.
+     *
+     * @return false if the item was not in this slot
+     */
+    public boolean removeOrderFromTimeSlot(OrderItem item) {
+        if (orderToPrepareDuringTimeSlot.remove(item)) {
+            release(1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Claim up to the wanted number of places in this slot, without blocking.
+     *
+     * @param wanted the number of places to claim
+     * @return the number of places actually claimed, between 0 and wanted
+     */
+    public int tryReserve(int wanted) {
+        if (wanted <= 0) {
+            return 0;
+        }
+        while (true) {
+            int reserved = reservedPlaces.get();
+            int claimed = Math.min(capacity - reserved, wanted);
+            if (claimed <= 0) {
+                return 0;
+            }
+            if (reservedPlaces.compareAndSet(reserved, reserved + claimed)) {
+                return claimed;
+            }
+        }
+    }
+
+    /**
+     * Give back places claimed with {@link #tryReserve(int)} that won't be used.
+     */
+    public void release(int places) {
+        if (places > 0) {
+            reservedPlaces.updateAndGet(reserved -> Math.max(0, reserved - places));
+        }
+    }
+
     public boolean addAfterWorkOrderToTimeSlot(AfterWorkOrder order) {
         return this.afterWorkCurrentlyOnGoing.add(order);
     }
 
     public int numberOfAvailablePlaceForItem() {
-        return capacity - orderToPrepareDuringTimeSlot.size();
+        return capacity - reservedPlaces.get();
     }
 
     public List<AfterWorkOrder> getAfterWorkOrderCurrentlyOnGoing() {
         return this.afterWorkCurrentlyOnGoing;
     }
+
+    /**
+     * @return true if an item is waiting for the restaurant or in preparation, or if an after work order is on going
+     */
+    public boolean hasWorkRemaining() {
+        for (OrderItem item : orderToPrepareDuringTimeSlot) {
+            if (item.getStatus() == IN_PREPARATION || item.getStatus() == WAITING_RESTAURANT_ACCEPTANCE) {
+                return true;
+            }
+        }
+        for (AfterWorkOrder order : afterWorkCurrentlyOnGoing) {
+            if (order.getStatus() == IN_PREPARATION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if no item or after work order of this slot can need the restaurant anymore, even once paid
+     */
+    public boolean isWorkOver() {
+        if (hasWorkRemaining()) {
+            return false;
+        }
+        return orderToPrepareDuringTimeSlot.stream().noneMatch(item -> item.getStatus() == WAITING_PAYMENT)
+                && afterWorkCurrentlyOnGoing.stream().noneMatch(order -> order.getStatus() == WAITING_PAYMENT || order.getStatus() == WAITING_RESTAURANT_ACCEPTANCE);
+    }
 }
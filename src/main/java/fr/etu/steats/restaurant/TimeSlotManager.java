@@ -8,25 +8,38 @@ import org.joda.time.LocalDateTime;
 import org.joda.time.LocalTime;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
-import static fr.etu.steats.enums.EOrderStatus.IN_PREPARATION;
-import static fr.etu.steats.enums.EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE;
 import static fr.etu.steats.restaurant.TimeSlot.TIME_SLOT_DURATION;
 
+/**
+ * This class manages the time slots of a restaurant.
+ * The slots are indexed by the epoch minute of their beginning, in a sorted map,
+ * so finding the slots before a deadline or the nearest slot with work remaining is a logarithmic lookup.
+ */
 public class TimeSlotManager {
     public static final int MAX_NUMBER_OF_SLOT_TO_CHECK = 3;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final int MINUTES_PER_DAY = 24 * 60;
     private LocalTime openingTime;
     private LocalTime closingTime;
-    private final Map<DateTime, TimeSlot> slots;
+    private final NavigableMap<Long, TimeSlot> slots;
+    /**
+     * The keys of the slots that received work. The slots whose work is over are removed lazily when they are met.
+     */
+    private final NavigableSet<Long> slotsWithWork;
     private final int capacity;
 
     public TimeSlotManager(LocalTime openingTime, LocalTime closingTime, int capacity) {
         this.openingTime = openingTime.withSecondOfMinute(0);
         this.closingTime = closingTime.withSecondOfMinute(0);
-        slots = new HashMap<>();
+        slots = new ConcurrentSkipListMap<>();
+        slotsWithWork = new ConcurrentSkipListSet<>();
         this.capacity = capacity;
     }
 
@@ -46,7 +59,10 @@ public class TimeSlotManager {
         return closingTime;
     }
 
-    public Map<DateTime, TimeSlot> getSlots() {
+    /**
+     * @return the slots sorted by the epoch minute of their beginning
+     */
+    public NavigableMap<Long, TimeSlot> getSlots() {
         return slots;
     }
 
@@ -69,15 +85,7 @@ public class TimeSlotManager {
     }
 
     public boolean canOrderBePreparedBeforeDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
-        if (deliveryDate == null || deliveryDate.isBeforeNow()) {
-            throw new UnauthorizedOperationException("You can't add items to prepare if they don't have a delivery date or if they're delivery date is already passed...");
-        }
-        if (!checkIfRestaurantOpen(new LocalDateTime(deliveryDate).minusMinutes(10))) {
-            throw new UnauthorizedOperationException("You can't prepare an order when the restaurant is closed...");
-        }
-        if (items == null || items.isEmpty()) {
-            throw new UnauthorizedOperationException("You need to have at least 1 item to perform this operation...");
-        }
+        checkOrderToPrepare(items, deliveryDate);
         List<TimeSlot> nonFullSlot = getTimeSlotForOrder(deliveryDate);
 
         if (nonFullSlot == null || nonFullSlot.isEmpty()) {
@@ -86,95 +94,137 @@ public class TimeSlotManager {
         return nonFullSlot.stream().mapToInt(TimeSlot::numberOfAvailablePlaceForItem).sum() >= items.size();
     }
 
-    public boolean addOrderToPrepareWithDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
-        if (!canOrderBePreparedBeforeDeadline(items, deliveryDate)) {
-            return false;
-        }
-
-        List<OrderItem> itemsToPrepare = new ArrayList<>(items);
+    /**
+     * Claim a place for every item in the slots before the deadline, in a single pass and without locking.
+     * If there are not enough places, the ones already claimed are given back.
+     *
+     * @return the reservation to commit through the restaurant or to cancel, or null if there is not enough places
+     */
+    public SlotReservation reserve(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
+        checkOrderToPrepare(items, deliveryDate);
         List<TimeSlot> nonFullSlot = getTimeSlotForOrder(deliveryDate);
+        if (nonFullSlot == null || nonFullSlot.isEmpty()) {
+            return null;
+        }
 
-        for (TimeSlot slot : nonFullSlot) {
-            while (slot.numberOfAvailablePlaceForItem() > 0 && !itemsToPrepare.isEmpty()) {
-                slot.addOrderToTimeSlot(itemsToPrepare.get(0));
-                itemsToPrepare.remove(0);
+        int[] places = new int[nonFullSlot.size()];
+        int remaining = items.size();
+        for (int i = 0; i < nonFullSlot.size() && remaining > 0; i++) {
+            places[i] = nonFullSlot.get(i).tryReserve(remaining);
+            remaining -= places[i];
+        }
+        if (remaining > 0) {
+            for (int i = 0; i < nonFullSlot.size(); i++) {
+                nonFullSlot.get(i).release(places[i]);
             }
+            return null;
         }
+        return new SlotReservation(this, items, deliveryDate, nonFullSlot, places);
+    }
 
-        return true;
+    public boolean addOrderToPrepareWithDeadline(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
+        SlotReservation reservation = reserve(items, deliveryDate);
+        return reservation != null && reservation.commit();
     }
 
-    public List<TimeSlot> getTimeSlotForOrder(DateTime deliveryDate) {
-        LocalDateTime finalPreparationTime = new LocalDateTime(deliveryDate);
-        if (!checkIfRestaurantOpen(finalPreparationTime)) {
-            finalPreparationTime = closingTime.toDateTimeToday().toLocalDateTime();
+    private void checkOrderToPrepare(List<OrderItem> items, DateTime deliveryDate) throws UnauthorizedOperationException {
+        if (deliveryDate == null || deliveryDate.isBeforeNow()) {
+            throw new UnauthorizedOperationException("You can't add items to prepare if they don't have a delivery date or if they're delivery date is already passed...");
+        }
+        if (!checkIfRestaurantOpen(new LocalDateTime(deliveryDate).minusMinutes(10))) {
+            throw new UnauthorizedOperationException("You can't prepare an order when the restaurant is closed...");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new UnauthorizedOperationException("You need to have at least 1 item to perform this operation...");
         }
+    }
 
-        // Rounding the final preparation time to the nearest previous possible timeSlotEnd, for example 18:34 => 18:30
-        while (finalPreparationTime.getMinuteOfHour() % TIME_SLOT_DURATION != 0) {
-            finalPreparationTime = finalPreparationTime.minusMinutes(1);
-        }
-
-        List<DateTime> slotsToCheck = getPreviousSlotDate(finalPreparationTime, deliveryDate);
-        List<TimeSlot> nonFullSlot = new ArrayList<>();
-        for (DateTime date : slotsToCheck) {
-            // Case where the time slot need to be created
-            if (!slots.containsKey(date) || slots.get(date) == null) {
-                LocalTime tmp = new LocalTime(date);
-                slots.put(date, new TimeSlot(tmp, capacity));
-                nonFullSlot.add(slots.get(date));
+    /**
+     * Give back the content of a slot saved in a snapshot, the places of the items are claimed again.
+     */
+    public void restoreSlot(long startEpochMinute, List<OrderItem> items, List<AfterWorkOrder> afterWorkOrders) {
+        TimeSlot slot = slots.computeIfAbsent(startEpochMinute, minute -> new TimeSlot(minute, capacity));
+        for (OrderItem item : items) {
+            if (slot.tryReserve(1) == 1) {
+                slot.addReservedOrderToTimeSlot(item);
             }
-            // Case where he already exists and have space left
-            else if (slots.get(date).numberOfAvailablePlaceForItem() > 0) {
-                nonFullSlot.add(slots.get(date));
+        }
+        afterWorkOrders.forEach(slot::addAfterWorkOrderToTimeSlot);
+        markSlotWithWork(slot);
+    }
+
+    void markSlotWithWork(TimeSlot slot) {
+        slotsWithWork.add(slot.getStartEpochMinute());
+    }
+
+    public List<TimeSlot> getTimeSlotForOrder(DateTime deliveryDate) {
+        long[] slotsToCheck = getPreviousSlotKeys(deliveryDate);
+        List<TimeSlot> nonFullSlot = new ArrayList<>(slotsToCheck.length);
+        for (long key : slotsToCheck) {
+            // The time slot is created the first time it is needed, atomically so two threads share the same one
+            TimeSlot slot = slots.computeIfAbsent(key, minute -> new TimeSlot(minute, capacity));
+            if (slot.numberOfAvailablePlaceForItem() > 0) {
+                nonFullSlot.add(slot);
             }
         }
         return nonFullSlot;
     }
 
-    public List<DateTime> getPreviousSlotDate(LocalDateTime finalPreparationTime, DateTime dateOfTheLocalTime) {
-        if (!checkIfRestaurantOpen(finalPreparationTime)) {
-            return new ArrayList<>();
+    /**
+     * Compute the epoch minutes of the slots that end before the deadline, the latest first.
+     * If the restaurant is closed at the deadline, the slots before the last closing time are used instead.
+     *
+     * @param deadline the time at which the preparation must be over
+     * @return at most {@link #MAX_NUMBER_OF_SLOT_TO_CHECK} slot keys, stopping at the first slot where the restaurant is closed
+     */
+    public long[] getPreviousSlotKeys(DateTime deadline) {
+        DateTime end = deadline;
+        if (!isOpenAt(end.getMillisOfDay())) {
+            end = deadline.withTime(closingTime);
+            if (end.isAfter(deadline)) {
+                end = end.minusDays(1);
+            }
         }
-        DateTime copyOfTheDate = new DateTime(dateOfTheLocalTime);
-        copyOfTheDate = copyOfTheDate.withMinuteOfHour(0);
 
-        List<DateTime> probablyAvailableSlots = new ArrayList<>();
-        LocalDateTime date = finalPreparationTime;
-        while (date.plusMinutes((TIME_SLOT_DURATION) * MAX_NUMBER_OF_SLOT_TO_CHECK).isAfter(finalPreparationTime) && probablyAvailableSlots.size() < MAX_NUMBER_OF_SLOT_TO_CHECK) {
-            date = date.minusMinutes(TIME_SLOT_DURATION);
-            if (!checkIfRestaurantOpen(date)) {
+        // Rounding the final preparation time to the nearest previous possible timeSlotEnd, for example 18:34 => 18:30
+        int minuteOfDay = end.getMinuteOfDay();
+        long endMinute = Math.floorDiv(end.getMillis(), MILLIS_PER_MINUTE) - minuteOfDay % TIME_SLOT_DURATION;
+        minuteOfDay -= minuteOfDay % TIME_SLOT_DURATION;
+
+        long[] keys = new long[MAX_NUMBER_OF_SLOT_TO_CHECK];
+        int count = 0;
+        while (count < MAX_NUMBER_OF_SLOT_TO_CHECK) {
+            minuteOfDay = Math.floorMod(minuteOfDay - TIME_SLOT_DURATION, MINUTES_PER_DAY);
+            if (!isOpenAt((int) (minuteOfDay * MILLIS_PER_MINUTE))) {
                 break;
             }
-
-            copyOfTheDate = copyOfTheDate.withHourOfDay(date.getHourOfDay());
-            copyOfTheDate = copyOfTheDate.withMinuteOfHour(date.getMinuteOfHour());
-
-            probablyAvailableSlots.add(new DateTime(copyOfTheDate));
+            keys[count] = endMinute - (long) (count + 1) * TIME_SLOT_DURATION;
+            count++;
         }
-
-        return probablyAvailableSlots;
+        return (count == keys.length) ? keys : Arrays.copyOf(keys, count);
     }
 
     public boolean checkIfRestaurantOpen(LocalDateTime time) {
-        return time.toLocalTime().isAfter(openingTime) && time.toLocalTime().isBefore(closingTime) || time.toLocalTime().isBefore(openingTime) && time.toLocalTime().isBefore(closingTime) && openingTime.isAfter(closingTime);
+        return isOpenAt(time.getMillisOfDay());
     }
 
-    public TimeSlot getNeareastTimeSlotWithWorkRemaining() {
-        if (slots.isEmpty()) {
-            return null;
-        }
+    private boolean isOpenAt(int millisOfDay) {
+        int opening = openingTime.getMillisOfDay();
+        int closing = closingTime.getMillisOfDay();
+        return millisOfDay > opening && millisOfDay < closing || millisOfDay < opening && millisOfDay < closing && opening > closing;
+    }
 
-        for (Map.Entry<DateTime, TimeSlot> entry : slots.entrySet()) {
-            for (OrderItem item : entry.getValue().getOrderToPrepareDuringTimeSlot()) {
-                if ((item.getStatus() == IN_PREPARATION || item.getStatus() == WAITING_RESTAURANT_ACCEPTANCE)) {
-                    return entry.getValue();
-                }
+    /**
+     * @return the earliest slot that still has items or after work orders in preparation, or null if there is none
+     */
+    public TimeSlot getNeareastTimeSlotWithWorkRemaining() {
+        for (Long key : slotsWithWork) {
+            TimeSlot slot = slots.get(key);
+            if (slot != null && slot.hasWorkRemaining()) {
+                return slot;
             }
-            for (AfterWorkOrder order : entry.getValue().getAfterWorkOrderCurrentlyOnGoing()) {
-                if (order.getStatus() == IN_PREPARATION) {
-                    return entry.getValue();
-                }
+            if (slot == null || slot.isWorkOver()) {
+                slotsWithWork.remove(key);
             }
         }
         return null;
@@ -185,6 +235,11 @@ public class TimeSlotManager {
         if (timeSlotForOrder.isEmpty()) {
             return false;
         }
-        return timeSlotForOrder.get(0).addAfterWorkOrderToTimeSlot(order);
+        TimeSlot slot = timeSlotForOrder.get(0);
+        if (slot.addAfterWorkOrderToTimeSlot(order)) {
+            markSlotWithWork(slot);
+            return true;
+        }
+        return false;
     }
 }
@@ -0,0 +1,91 @@
+package fr.etu.steats.restaurant;
+
+import fr.etu.steats.enums.EStatisticsWindow;
+import fr.etu.steats.service.ClockService;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * This class represents the activity of restaurants over a recent time window.
+ * It is built from the rolling statistics of the restaurants, without browsing their orders.
+ */
+public class WindowedStatisticReport {
+    private final Date dateCreated;
+    private final EStatisticsWindow window;
+    private long nbOrders;
+    private long revenueInCents;
+    private long nbCancellations;
+    private final LatencyHistogram preparationLatencies = new LatencyHistogram();
+    private final LatencyHistogram deliveryLatencies = new LatencyHistogram();
+    private final int nbRestaurants;
+
+    public WindowedStatisticReport(Set<Restaurant> restaurants, EStatisticsWindow window) {
+        this.dateCreated = new Date(ClockService.currentTimeMillis());
+        this.window = window;
+        this.nbRestaurants = restaurants.size();
+        for (Restaurant restaurant : restaurants) {
+            restaurant.getStatistics().collect(window, this);
+        }
+    }
+
+    public WindowedStatisticReport(Restaurant restaurant, EStatisticsWindow window) {
+        this(Set.of(restaurant), window);
+    }
+
+    void add(long orders, long revenue, long cancellations, LatencyHistogram preparation, LatencyHistogram delivery) {
+        this.nbOrders += orders;
+        this.revenueInCents += revenue;
+        this.nbCancellations += cancellations;
+        this.preparationLatencies.add(preparation);
+        this.deliveryLatencies.add(delivery);
+    }
+
+    public Date getDateCreated() {
+        return dateCreated;
+    }
+
+    public EStatisticsWindow getWindow() {
+        return window;
+    }
+
+    public long getNbOrders() {
+        return nbOrders;
+    }
+
+    public double getRevenue() {
+        return revenueInCents / 100.0;
+    }
+
+    public long getNbCancellations() {
+        return nbCancellations;
+    }
+
+    public int getNbRestaurants() {
+        return nbRestaurants;
+    }
+
+    public LatencyHistogram getPreparationLatencies() {
+        return preparationLatencies;
+    }
+
+    public LatencyHistogram getDeliveryLatencies() {
+        return deliveryLatencies;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowedStatisticReport{" +
+                "dateCreated=" + dateCreated +
+                ", window=" + window +
+                ", nbOrders=" + nbOrders +
+                ", revenue=" + getRevenue() +
+                ", nbCancellations=" + nbCancellations +
+                ", preparationLatencyP50=" + preparationLatencies.getValueAtPercentile(50) +
+                ", preparationLatencyP99=" + preparationLatencies.getValueAtPercentile(99) +
+                ", deliveryLatencyP50=" + deliveryLatencies.getValueAtPercentile(50) +
+                ", deliveryLatencyP99=" + deliveryLatencies.getValueAtPercentile(99) +
+                ", nbRestaurants=" + nbRestaurants +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package fr.etu.steats.service;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.LocalTime;
+
+/**
+ * This class gives the current time to the application.
+ * Every date computed from "now" must come from here, so a simulation can replace the clock,
+ * for example with a {@link fr.etu.steats.utils.SimulatedScheduler} which moves the time forward instantly.
+ */
+public class ClockService {
+
+    private ClockService() {
+        throw new IllegalStateException("Utility class cannot be instantiated");
+    }
+
+    public static long currentTimeMillis() {
+        return DateTimeUtils.currentTimeMillis();
+    }
+
+    public static DateTime now() {
+        return new DateTime(currentTimeMillis());
+    }
+
+    public static LocalTime currentTime() {
+        return new LocalTime(currentTimeMillis());
+    }
+
+    /**
+     * Replace the clock of the whole application, Joda-Time included.
+     */
+    public static void setClock(DateTimeUtils.MillisProvider clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("The clock can't be null");
+        }
+        DateTimeUtils.setCurrentMillisProvider(clock);
+    }
+
+    public static void useSystemClock() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+}
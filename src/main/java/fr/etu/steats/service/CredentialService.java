@@ -0,0 +1,138 @@
+package fr.etu.steats.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class hashes and checks the passwords of the accounts and of the restaurants.
+ * A password hash is slow on purpose, so it runs on a small dedicated pool with a bounded queue:
+ * a rush of logins waits for this pool instead of taking the processors of the orders.
+ * Once a password is checked, the caller opens a session in {@link #getSessions()} to avoid checking it again.
+ * The password of a new account is hashed with {@link #hashAsync(String)}, so creating an account doesn't wait for it.
+ * The passwords of the accounts loaded from a file are not hashed by this pool when they are loaded, see {@link PasswordHash}.
+ * <p>
+ * The cost of the hash is read from the {@value #ITERATIONS_PROPERTY} system property.
+ */
+public class CredentialService {
+    public static final String ITERATIONS_PROPERTY = "steats.password.iterations";
+    public static final int DEFAULT_ITERATIONS = 100_000;
+    /**
+     * A session expires after 30 minutes without any operation, each operation extends it.
+     * A registry whose session expired refuses the operations until its user logs in again.
+     */
+    public static final long SESSION_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int SESSION_EVICTION_THRESHOLD = 1024;
+    private static final int LOGIN_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int LOGIN_QUEUE_CAPACITY = 1024;
+
+    private static final ThreadPoolExecutor LOGIN_EXECUTOR = createLoginExecutor();
+    private static final SessionCache SESSIONS = new SessionCache(SESSION_TIME_TO_LIVE_MILLIS, SESSION_EVICTION_THRESHOLD);
+    private static volatile PasswordHasher hasher = new Pbkdf2PasswordHasher(Integer.getInteger(ITERATIONS_PROPERTY, DEFAULT_ITERATIONS));
+
+    private CredentialService() {
+        throw new IllegalStateException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Replace the hasher used for the new passwords. The passwords already hashed must still match with it.
+     */
+    public static void setHasher(PasswordHasher passwordHasher) {
+        if (passwordHasher == null) {
+            throw new IllegalArgumentException("The password hasher can't be null");
+        }
+        hasher = passwordHasher;
+    }
+
+    public static PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    public static SessionCache getSessions() {
+        return SESSIONS;
+    }
+
+    /**
+     * Hash the password on the login pool, the caller waits for the result.
+     */
+    public static String hash(String password) {
+        PasswordHasher currentHasher = hasher;
+        return runOnLoginExecutor(() -> currentHasher.hash(password));
+    }
+
+    /**
+     * Hash the password on the login pool without waiting for the result.
+     * When the pool is saturated, the password is hashed on the calling thread instead.
+     */
+    public static CompletableFuture<String> hashAsync(String password) {
+        PasswordHasher currentHasher = hasher;
+        try {
+            return CompletableFuture.supplyAsync(() -> currentHasher.hash(password), LOGIN_EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(currentHasher.hash(password));
+        }
+    }
+
+    /**
+     * Check the password against the hash on the login pool, the caller waits for the result.
+     */
+    public static boolean matches(String password, String hash) {
+        PasswordHasher currentHasher = hasher;
+        return runOnLoginExecutor(() -> currentHasher.matches(password, hash));
+    }
+
+    /**
+     * Check the password against the stored hash on the login pool, the caller waits for the result.
+     * A password loaded in clear from a file is hashed by the same task.
+     */
+    public static boolean matches(String password, PasswordHash passwordHash) {
+        PasswordHasher currentHasher = hasher;
+        return runOnLoginExecutor(() -> currentHasher.matches(password, passwordHash.get()));
+    }
+
+    /**
+     * @return the number of hashes waiting for a thread of the login pool
+     */
+    public static int getPendingCount() {
+        return LOGIN_EXECUTOR.getQueue().size();
+    }
+
+    private static <T> T runOnLoginExecutor(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = LOGIN_EXECUTOR.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many logins in progress, please retry later.", e);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The password check was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ThreadPoolExecutor createLoginExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "credential-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(LOGIN_THREADS, LOGIN_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LOGIN_QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
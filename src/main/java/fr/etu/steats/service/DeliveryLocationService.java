@@ -1,13 +1,10 @@
 package fr.etu.steats.service;
 
-import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.CsvLoader;
+import fr.etu.steats.utils.LoadReport;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.logging.Level;
 
 /**
  * This class represents a delivery location service.
@@ -16,21 +13,22 @@ import java.util.logging.Level;
 public class DeliveryLocationService {
     private static final String DELIVERY_LOCATION_FILE_PATH = "src/main/resources/delivery_locations.csv";
     private final Set<String> deliveryLocations;
+    private final LoadReport loadReport;
 
     public DeliveryLocationService() {
         this.deliveryLocations = new HashSet<>();
-        this.loadDeliveryLocationsFromCSV();
+        this.loadReport = this.loadDeliveryLocationsFromCSV();
     }
 
-    private void loadDeliveryLocationsFromCSV() {
-        try (BufferedReader br = new BufferedReader(new FileReader(DELIVERY_LOCATION_FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                this.deliveryLocations.add(line);
-            }
-        } catch (IOException e) {
-            LoggerUtils.log(Level.SEVERE, "Error while reading the delivery locations CSV file: " + DELIVERY_LOCATION_FILE_PATH);
-        }
+    /**
+     * A location contains commas, so each line is read as a single field.
+     */
+    private LoadReport loadDeliveryLocationsFromCSV() {
+        return CsvLoader.load(DELIVERY_LOCATION_FILE_PATH, '\n', row -> this.deliveryLocations.add(row.get(0)));
+    }
+
+    public LoadReport getLoadReport() {
+        return loadReport;
     }
 
     public boolean isDeliveryLocation(String location) {
@@ -0,0 +1,153 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.restaurant.Restaurant;
+import org.joda.time.DateTime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class stores the discounts granted to a customer in a restaurant until their expiration.
+ * The grants are keyed by the ids of the customer and of the restaurant, which never change.
+ * A delay queue orders them by expiration: the expired grants are evicted on every write, and when the store is full
+ * the grant expiring first is evicted, so the memory stays bounded on a long-running node.
+ * Reading a grant never takes a lock.
+ */
+public class DiscountGrantStore {
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+
+    private final int maxSize;
+    private final Map<Long, Grant> grants = new ConcurrentHashMap<>();
+    private final DelayQueue<Grant> expirations = new DelayQueue<>();
+
+    public DiscountGrantStore(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return whether the customer has a discount in the restaurant which is not expired
+     */
+    public boolean hasActiveGrant(CustomerAccount customer, Restaurant restaurant) {
+        long key = keyOf(customer, restaurant);
+        Grant grant = grants.get(key);
+        if (grant == null) {
+            return false;
+        }
+        if (grant.isExpired()) {
+            grants.remove(key, grant);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Grant a discount until the expiration date, replacing the previous grant of the customer in this restaurant.
+     */
+    public synchronized void grant(CustomerAccount customer, Restaurant restaurant, DateTime expiration) {
+        grant(keyOf(customer, restaurant), expiration.getMillis());
+    }
+
+    /**
+     * Give back a grant saved in a snapshot, see {@link #forEachGrant(GrantVisitor)}.
+     */
+    public synchronized void restoreGrant(int customerId, int restaurantId, long expirationMillis) {
+        grant(keyOf(customerId, restaurantId), expirationMillis);
+    }
+
+    /**
+     * Visit the grants without blocking the readers and the writers, a grant added meanwhile may be missed.
+     */
+    public void forEachGrant(GrantVisitor visitor) {
+        grants.values().forEach(grant -> visitor.visit((int) (grant.key >>> 32), (int) grant.key, grant.expirationMillis));
+    }
+
+    private void grant(long key, long expirationMillis) {
+        evictExpired();
+        Grant grant = new Grant(key, expirationMillis);
+        Grant previous = grants.put(key, grant);
+        if (previous != null) {
+            expirations.remove(previous);
+        }
+        expirations.add(grant);
+        while (grants.size() > maxSize) {
+            evict(expirations.peek());
+        }
+    }
+
+    public synchronized void revoke(CustomerAccount customer, Restaurant restaurant) {
+        Grant grant = grants.remove(keyOf(customer, restaurant));
+        if (grant != null) {
+            expirations.remove(grant);
+        }
+    }
+
+    public synchronized void clear() {
+        grants.clear();
+        expirations.clear();
+    }
+
+    public int size() {
+        return grants.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void evictExpired() {
+        Grant expired;
+        while ((expired = expirations.poll()) != null) {
+            grants.remove(expired.key, expired);
+        }
+    }
+
+    private void evict(Grant grant) {
+        if (grant != null && expirations.remove(grant)) {
+            grants.remove(grant.key, grant);
+        }
+    }
+
+    private static long keyOf(CustomerAccount customer, Restaurant restaurant) {
+        return keyOf(customer.getId(), restaurant.getId());
+    }
+
+    private static long keyOf(int customerId, int restaurantId) {
+        return ((long) customerId << 32) | (restaurantId & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    public interface GrantVisitor {
+        void visit(int customerId, int restaurantId, long expirationMillis);
+    }
+
+    private static final class Grant implements Delayed {
+        private final long key;
+        private final long expirationMillis;
+
+        private Grant(long key, long expirationMillis) {
+            this.key = key;
+            this.expirationMillis = expirationMillis;
+        }
+
+        private boolean isExpired() {
+            return expirationMillis <= ClockService.currentTimeMillis();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expirationMillis - ClockService.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expirationMillis, ((Grant) other).expirationMillis);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package fr.etu.steats.service;
 
 import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.ECustomerStatus;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderAbstract;
 import fr.etu.steats.order.OrderItem;
@@ -10,64 +11,112 @@ import org.joda.time.DateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 public class DiscountService {
-    private static final Map<CustomerAccount, Map<Restaurant, DateTime>> discounts = new HashMap<>();
+    /**
+     * The number of orders delivered by a restaurant, in the period, that grant the cumulated order discount.
+     */
+    public static final int CUMULATED_ORDER_COUNT = 10;
+    public static final int CUMULATED_ORDER_PERIOD_IN_DAYS = 15;
+    /**
+     * The part of the price paid under the cumulated order discount, in percent.
+     */
+    public static final int CUMULATED_ORDER_PERCENT_PAID = 95;
+    private static final DiscountGrantStore discounts = new DiscountGrantStore(DiscountGrantStore.DEFAULT_MAX_SIZE);
+    private static volatile CreditListener creditListener;
+
+    /**
+     * The cumulated order discounts on going.
+     */
+    public static DiscountGrantStore getDiscountGrantStore() {
+        return discounts;
+    }
+
+    /**
+     * Set the listener told of every credit granted by {@link #computeCustomerCredit(List, int, double)}, null for none.
+     */
+    public static void setCreditListener(CreditListener listener) {
+        creditListener = listener;
+    }
 
     private DiscountService(){
         // Empty constructor
     }
 
+    /**
+     * The prices are summed in cents and the discount is applied once on the sum, rounded to the cent.
+     */
     public static double computePriceAfterDiscount(OrderAbstract orderAbstract) {
-        double price = 0;
-
         CustomerAccount customerAccount = orderAbstract.getCustomer();
-
-        Map<Restaurant, List<OrderItem>> restaurantOrderItemMap = orderAbstract.getItems().stream()
-                .collect(Collectors.groupingBy(OrderItem::getRestaurant));
-
-        for (Entry<Restaurant, List<OrderItem>> entry : restaurantOrderItemMap.entrySet()) {
-            for (OrderItem item : entry.getValue()) {
-                //Apply the discount by type of customer if we have one
-                double temporaryPrice = item.getPrice(customerAccount.getType());
-                //Apply the cumulated order discount if we have one
-                if (isUnderCumulatedOrderDiscount(customerAccount, entry.getKey())) {
-                    temporaryPrice = temporaryPrice * 0.95;
+        ECustomerStatus type = customerAccount.getType();
+        List<OrderItem> items = orderAbstract.getItems();
+
+        long fullPriceInCents = 0;
+        long discountedPriceInCents = 0;
+        // Most orders come from one restaurant: the eligibility is only stored in a map when there are several
+        Restaurant lastRestaurant = null;
+        boolean lastRestaurantDiscount = false;
+        Map<Restaurant, Boolean> discountByRestaurant = null;
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            Restaurant restaurant = item.getRestaurant();
+            if (restaurant != lastRestaurant) {
+                if (lastRestaurant != null && discountByRestaurant == null) {
+                    discountByRestaurant = new HashMap<>();
+                    discountByRestaurant.put(lastRestaurant, lastRestaurantDiscount);
                 }
-                price += temporaryPrice;
+                lastRestaurantDiscount = (discountByRestaurant == null)
+                        ? isUnderCumulatedOrderDiscount(customerAccount, restaurant)
+                        : discountByRestaurant.computeIfAbsent(restaurant, key -> isUnderCumulatedOrderDiscount(customerAccount, key));
+                lastRestaurant = restaurant;
+            }
+            //Apply the discount by type of customer if we have one
+            if (lastRestaurantDiscount) {
+                discountedPriceInCents += item.getPriceInCents(type);
+            } else {
+                fullPriceInCents += item.getPriceInCents(type);
             }
         }
 
-        return price;
+        //Apply the cumulated order discount if we have one
+        return (fullPriceInCents + applyCumulatedOrderDiscount(discountedPriceInCents)) / 100.0;
     }
 
-    public static boolean isUnderCumulatedOrderDiscount(CustomerAccount customerAccount, Restaurant restaurant) {
-        List<OrderAbstract> history = customerAccount.getPreviousOrder();
+    /**
+     * The share of each restaurant in {@link #computePriceAfterDiscount(OrderAbstract)}, the discount of a restaurant only applying to its items.
+     *
+     * @return the price of the items of each restaurant of the order after the cumulated order discount, in cents
+     */
+    public static Map<Restaurant, Long> computeRestaurantPricesAfterDiscountInCents(OrderAbstract orderAbstract) {
+        CustomerAccount customerAccount = orderAbstract.getCustomer();
+        ECustomerStatus type = customerAccount.getType();
+        Map<Restaurant, Long> pricesInCents = new HashMap<>();
+        for (OrderItem item : orderAbstract.getItems()) {
+            pricesInCents.merge(item.getRestaurant(), item.getPriceInCents(type), Long::sum);
+        }
+        pricesInCents.replaceAll((restaurant, priceInCents) -> isUnderCumulatedOrderDiscount(customerAccount, restaurant)
+                ? applyCumulatedOrderDiscount(priceInCents)
+                : priceInCents);
+        return pricesInCents;
+    }
 
+    /**
+     * @return the part of a price paid under the cumulated order discount, rounded half up to the cent
+     */
+    public static long applyCumulatedOrderDiscount(long priceInCents) {
+        return (priceInCents * CUMULATED_ORDER_PERCENT_PAID + 50) / 100;
+    }
+
+    public static boolean isUnderCumulatedOrderDiscount(CustomerAccount customerAccount, Restaurant restaurant) {
         //If we already have a discount on going that is still valid for a cumulated number of order at the same restaurant, then we return true
-        if (discounts.containsKey(customerAccount) && discounts.get(customerAccount).containsKey(restaurant)) {
-            DateTime finishingDate = discounts.get(customerAccount).get(restaurant);
-            if (finishingDate.isAfterNow()) {
-                return true;
-            }
-            discounts.get(customerAccount).remove(restaurant);
+        if (discounts.hasActiveGrant(customerAccount, restaurant)) {
+            return true;
         }
 
         //Else if we have 10 order at the same restaurant in the last 15 days, then we create a discount and return true
-        DateTime oldestOrderDateForDiscount = DateTime.now().minusDays(15);
-        List<OrderAbstract> numberOfOrderInDateRange = history.stream().filter(
-                order -> !order.getItems().stream().filter(item -> item.getRestaurant() == restaurant).toList().isEmpty() && order.getDeliveryDate().isAfter(oldestOrderDateForDiscount)
-        ).toList();
-
-
-        if (numberOfOrderInDateRange.size() >= 10) {
-            if (discounts.containsKey(customerAccount)) {
-                discounts.get(customerAccount).put(restaurant, DateTime.now().plusDays(15));
-            } else {
-                discounts.put(customerAccount, Map.of(restaurant, DateTime.now().plusDays(15)));
-            }
+        DateTime oldestOrderDateForDiscount = ClockService.now().minusDays(CUMULATED_ORDER_PERIOD_IN_DAYS);
+        if (customerAccount.hasFinishedOrdersSince(restaurant, CUMULATED_ORDER_COUNT, oldestOrderDateForDiscount)) {
+            discounts.grant(customerAccount, restaurant, ClockService.now().plusDays(CUMULATED_ORDER_PERIOD_IN_DAYS));
 
             return true;
         }
@@ -84,11 +133,24 @@ public class DiscountService {
         }
 
         if (orders.stream().mapToInt(order -> order.getItems().size()).sum() >= minNumberOfOrder) {
+            CreditListener listener = creditListener;
             for (OrderAbstract order : orders) {
-                order.getCustomer().addCredit(order.getNonReducedTotalPrice() * discountRate);
+                double credit = order.getNonReducedTotalPrice() * discountRate;
+                order.getCustomer().addCredit(credit);
+                if (listener != null) {
+                    listener.creditGranted(order.getCustomer(), credit);
+                }
             }
             return true;
         }
         return false;
     }
+
+    /**
+     * Callback fired after a credit is added to a customer.
+     */
+    @FunctionalInterface
+    public interface CreditListener {
+        void creditGranted(CustomerAccount customer, double credit);
+    }
 }
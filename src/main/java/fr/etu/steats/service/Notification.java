@@ -0,0 +1,67 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.utils.UserLevel;
+
+import java.util.function.Supplier;
+
+/**
+ * This class represents a notification waiting to be delivered to a user.
+ * The text shown to the user, and the message itself when it is given by a supplier, are only built when the notification is delivered.
+ */
+public class Notification {
+    private final UserLevel userLevel;
+    private Supplier<String> messageSupplier;
+    private String message;
+    private final String userName;
+
+    /**
+     * @param userLevel The type of user to send the notification to.
+     * @param message   The message to send.
+     * @param userName  The name of the user to send the notification to, or null if it is unknown.
+     */
+    public Notification(UserLevel userLevel, String message, String userName) {
+        this.userLevel = userLevel;
+        this.message = message;
+        this.userName = userName;
+    }
+
+    /**
+     * @param userLevel The type of user to send the notification to.
+     * @param message   The supplier of the message, called once by the first sink reading it.
+     * @param userName  The name of the user to send the notification to, or null if it is unknown.
+     */
+    public Notification(UserLevel userLevel, Supplier<String> message, String userName) {
+        this.userLevel = userLevel;
+        this.messageSupplier = message;
+        this.userName = userName;
+    }
+
+    public UserLevel getUserLevel() {
+        return userLevel;
+    }
+
+    /**
+     * A notification is delivered by one thread at a time, so the message is built at most once.
+     */
+    public String getMessage() {
+        if (messageSupplier != null) {
+            message = messageSupplier.get();
+            messageSupplier = null;
+        }
+        return message;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * @return the text of the notification, with the name of the user when it is known
+     */
+    public String getText() {
+        if (userName == null) {
+            return "🔔 " + getMessage();
+        }
+        return "(" + userName + ")" + " 🔔 " + getMessage();
+    }
+}
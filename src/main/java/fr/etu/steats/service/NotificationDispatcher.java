@@ -0,0 +1,99 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.utils.AsyncBatchQueue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class delivers the notifications on a background thread.
+ * The senders only put the notification in the bounded queue of an {@link AsyncBatchQueue}, drained by batches.
+ * When the queue is full, a sender waits at most the configured time, then the notification is dropped and counted.
+ */
+public class NotificationDispatcher {
+    public static final int BATCH_SIZE = 64;
+
+    private final AsyncBatchQueue<Notification> queue;
+    private final NotificationSink sink;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param capacity      the maximum number of notifications waiting to be delivered
+     * @param maxWaitMillis the time a sender waits for a free place when the queue is full, 0 to drop immediately
+     * @param sink          where the notifications are delivered, from the background thread
+     */
+    public NotificationDispatcher(int capacity, long maxWaitMillis, NotificationSink sink) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the queue must be positive");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("The sink can't be null");
+        }
+        this.sink = sink;
+        this.queue = new AsyncBatchQueue<>("notification-dispatcher", capacity, BATCH_SIZE, maxWaitMillis, this::deliver);
+    }
+
+    /**
+     * Queue a notification for delivery.
+     *
+     * @return false if the notification was dropped, because the queue stayed full or the dispatcher is shut down
+     */
+    public boolean submit(Notification notification) {
+        return queue.submit(notification);
+    }
+
+    /**
+     * Wait until every accepted notification is delivered.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        return queue.flush(timeout, unit);
+    }
+
+    /**
+     * Stop accepting notifications, deliver the ones already queued and stop the background thread.
+     *
+     * @return false if the queue could not be flushed before the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        return queue.shutdown(timeout, unit);
+    }
+
+    public boolean isRunning() {
+        return queue.isRunning();
+    }
+
+    public long getSubmittedCount() {
+        return queue.getSubmittedCount();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.getQueueSize();
+    }
+
+    private void deliver(List<Notification> batch) {
+        for (Notification notification : batch) {
+            try {
+                sink.deliver(notification);
+                delivered.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+        }
+    }
+}
@@ -3,16 +3,28 @@ package fr.etu.steats.service;
 import fr.etu.steats.utils.LoggerUtils;
 import fr.etu.steats.utils.UserLevel;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 /**
  * This class represents a notification service.
  * It is used to send notifications to the users, delivery man and restaurant managers.
  * It is used to notify the users when their order is ready for example.
+ * Each type of user can have its own sink, the logger is used by default.
+ * The notifications are delivered on the calling thread, unless the asynchronous delivery is enabled.
+ * A message given by a supplier is built on delivery, so never when the logger skips its level, and off the calling thread
+ * when the delivery is asynchronous. The supplier must only read values that don't change after the call.
  */
 public class NotificationService {
     public static final String TEXT_GREEN = "\u001B[32m";
     public static final String TEXT_YELLOW = "\u001B[33m";
     public static final String TEXT_BLUE = "\u001B[34m";
     public static final String RESET = "\u001B[0m";
+    private static final NotificationSink LOGGER_SINK = notification -> LoggerUtils.log(notification.getUserLevel(), notification::getText);
+    private static final Map<UserLevel, NotificationSink> sinks = new ConcurrentHashMap<>();
+    private static volatile NotificationDispatcher dispatcher;
 
     NotificationService() {
         throw new IllegalStateException("Utility class cannot be instantiated");
@@ -25,7 +37,7 @@ public class NotificationService {
      * @param message   The message to send.
      */
     public static void sendNotificationToUser(UserLevel userLevel, String message) {
-        LoggerUtils.log(userLevel, "🔔 " + message);
+        send(new Notification(userLevel, message, null));
     }
 
     /**
@@ -36,6 +48,88 @@ public class NotificationService {
      * @param userName  The name of the user to send the notification to.
      */
     public static void sendNotificationToUser(UserLevel userLevel, String message, String userName) {
-        LoggerUtils.log(userLevel, "(" + userName + ")" + " 🔔 " + message);
+        send(new Notification(userLevel, message, userName));
+    }
+
+    /**
+     * Send a notification whose message is built on delivery.
+     *
+     * @param userLevel The type of user to send the notification to.
+     * @param message   The supplier of the message to send.
+     */
+    public static void sendNotificationToUser(UserLevel userLevel, Supplier<String> message) {
+        send(new Notification(userLevel, message, null));
+    }
+
+    /**
+     * Send a notification to a user with his name, whose message is built on delivery.
+     *
+     * @param userLevel The type of user to send the notification to.
+     * @param message   The supplier of the message to send.
+     * @param userName  The name of the user to send the notification to.
+     */
+    public static void sendNotificationToUser(UserLevel userLevel, Supplier<String> message, String userName) {
+        send(new Notification(userLevel, message, userName));
+    }
+
+    /**
+     * Deliver the notifications of a type of user to a sink instead of the logger.
+     */
+    public static void setSink(UserLevel userLevel, NotificationSink sink) {
+        if (userLevel == null || sink == null) {
+            throw new IllegalArgumentException("The user level and the sink can't be null");
+        }
+        sinks.put(userLevel, sink);
+    }
+
+    /**
+     * Deliver the notifications of a type of user to the logger again.
+     */
+    public static void removeSink(UserLevel userLevel) {
+        sinks.remove(userLevel);
+    }
+
+    /**
+     * Deliver the notifications on a background thread from now on.
+     *
+     * @param capacity      the maximum number of notifications waiting to be delivered
+     * @param maxWaitMillis the time a sender waits when the queue is full before the notification is dropped
+     */
+    public static synchronized void enableAsynchronousDelivery(int capacity, long maxWaitMillis) {
+        if (dispatcher != null) {
+            dispatcher.shutdown(1, TimeUnit.SECONDS);
+        }
+        dispatcher = new NotificationDispatcher(capacity, maxWaitMillis, NotificationService::deliver);
+    }
+
+    /**
+     * Deliver the queued notifications and go back to a delivery on the calling thread.
+     *
+     * @return false if the queued notifications could not all be delivered before the timeout
+     */
+    public static synchronized boolean disableAsynchronousDelivery(long timeout, TimeUnit unit) {
+        NotificationDispatcher current = dispatcher;
+        dispatcher = null;
+        return current == null || current.shutdown(timeout, unit);
+    }
+
+    /**
+     * @return the dispatcher of the asynchronous delivery, with its metrics, or null if the delivery is synchronous
+     */
+    public static NotificationDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    private static void send(Notification notification) {
+        NotificationDispatcher current = dispatcher;
+        if (current == null) {
+            deliver(notification);
+        } else {
+            current.submit(notification);
+        }
+    }
+
+    private static void deliver(Notification notification) {
+        sinks.getOrDefault(notification.getUserLevel(), LOGGER_SINK).deliver(notification);
     }
 }
@@ -0,0 +1,9 @@
+package fr.etu.steats.service;
+
+/**
+ * This interface represents a destination for the notifications of a type of user, like the console, an e-mail or a push service.
+ */
+@FunctionalInterface
+public interface NotificationSink {
+    void deliver(Notification notification);
+}
@@ -0,0 +1,465 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.AccountAbstract;
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.ECustomerStatus;
+import fr.etu.steats.enums.EJournalDurability;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.order.AfterWorkOrder;
+import fr.etu.steats.order.GroupOrder;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.order.OrderRepository;
+import fr.etu.steats.order.OrderSnapshotCodec;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.SlotReservation;
+import fr.etu.steats.utils.EventJournal;
+import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.Scheduler;
+import fr.etu.steats.utils.SnapshotInput;
+import fr.etu.steats.utils.SnapshotOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+/**
+ * This class writes the lifecycle of the orders in an {@link EventJournal}: the accounts registered, the orders created,
+ * the status changes of their items, the cancellations, the refunds and the credits granted. After a restart, the events
+ * written since the last snapshot are replayed on the restored services. The events refer to the accounts by their id,
+ * which the snapshot and the registrations keep, so they are only replayed on top of a snapshot.
+ * <p>
+ * An event is appended once the change it describes is done, except the creation of an order, which is appended
+ * before the order is published to its restaurants so the status changes of its items always come after it.
+ * A snapshot waits for the creations in progress to be published before reading the sequence of the journal it saves,
+ * see {@link #getSnapshotSequence()}. The events replayed may already be in the snapshot, replaying them gives the same state:
+ * an order or an account already known is not created again, and the other events set a status or a balance instead of adding to it.
+ * <p>
+ * The events are appended without waiting for the disk, often while the locks of the orders or the monitor of an item
+ * are held. With {@link EJournalDurability#SYNC}, the thread waits for them in {@link #awaitDurable()} once it released
+ * its locks, and the waits of concurrent threads share one fsync.
+ * <p>
+ * The menus, the deliveries assigned and the orders joined or updated are only saved by the snapshots.
+ * An event referring to an account, a restaurant or an order unknown when it is replayed is skipped with a warning.
+ */
+public class OrderJournal implements Closeable {
+    private static final byte ORDER_CREATED = 1;
+    private static final byte ITEM_STATUS_CHANGED = 2;
+    private static final byte ORDER_CANCELED = 3;
+    private static final byte ORDER_REFUNDED = 4;
+    private static final byte CREDIT_GRANTED = 5;
+    private static final byte ACCOUNT_REGISTERED = 6;
+    private static final EOrderStatus[] STATUSES = EOrderStatus.values();
+    private static final Set<EOrderStatus> DONE_BY_RESTAURANT = Set.of(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.IN_DELIVERY, EOrderStatus.FINISH);
+
+    private final EventJournal journal;
+    private final ReadWriteLock creations = new ReentrantReadWriteLock();
+    private final AtomicBoolean failureLogged = new AtomicBoolean();
+    /**
+     * The sequence of the last event appended by each thread and not waited for yet, 0 if there is none.
+     */
+    private final ThreadLocal<long[]> pendingSequence = ThreadLocal.withInitial(() -> new long[1]);
+
+    public OrderJournal(EventJournal journal) {
+        if (journal == null) {
+            throw new IllegalArgumentException("The journal can't be null");
+        }
+        this.journal = journal;
+    }
+
+    public static OrderJournal open(Path directory, EJournalDurability durability) throws IOException {
+        return new OrderJournal(EventJournal.open(directory, durability));
+    }
+
+    public EventJournal getEventJournal() {
+        return journal;
+    }
+
+    /**
+     * @return the sequence of the last event whose change is done, to save with a snapshot
+     */
+    public long getSnapshotSequence() {
+        creations.writeLock().lock();
+        try {
+            return journal.getLastSequence();
+        } finally {
+            creations.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replay the events written after the snapshot of the services, before the services are used.
+     *
+     * @return the number of events read from the journal
+     * @throws IOException if the journal can't be read or is corrupted
+     */
+    public long replay(SnapshotService services) throws IOException {
+        return replay(services, null);
+    }
+
+    /**
+     * @param scheduler the scheduler of the delivery accounts registered since the snapshot, a new one for each if null
+     */
+    public long replay(SnapshotService services, Scheduler scheduler) throws IOException {
+        long start = System.nanoTime();
+        Replay replay = new Replay(services, scheduler);
+        long count = journal.replay(services.getJournalSequence(), replay::apply);
+        replay.restoreRestaurantWork();
+        LoggerUtils.log(Level.FINE, () -> String.format("%d events replayed from the journal %s in %.1f ms",
+                count, journal.getDirectory(), (System.nanoTime() - start) / 1_000_000.0));
+        return count;
+    }
+
+    /**
+     * Wait until the events appended by the calling thread are on the disk, with {@link EJournalDurability#SYNC}.
+     * It must be called without holding the locks of the orders, the customers or the restaurants.
+     */
+    public void awaitDurable() {
+        long[] pending = pendingSequence.get();
+        long sequence = pending[0];
+        if (sequence == 0) {
+            return;
+        }
+        pending[0] = 0;
+        try {
+            journal.awaitDurable(sequence);
+        } catch (IOException e) {
+            logFailure(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Write the creation of an order that is paid but not published yet, and follow the status of its items.
+     * The snapshots wait until {@link #endOrderCreation()} is called by the same thread.
+     *
+     * @param parent       the group order the order is added to, or null
+     * @param reservations the places claimed for the items in their restaurants
+     */
+    void beginOrderCreation(OrderAbstract order, OrderAbstract parent, Map<Restaurant, SlotReservation> reservations) {
+        creations.readLock().lock();
+        try {
+            Map<OrderItem, Long> slotKeys = new IdentityHashMap<>();
+            for (SlotReservation reservation : reservations.values()) {
+                long[] keys = reservation.getItemSlotKeys();
+                for (int i = 0; i < keys.length; i++) {
+                    slotKeys.put(reservation.getItems().get(i), keys[i]);
+                }
+            }
+            List<OrderItem> items = distinctItems(order);
+            Map<OrderItem, Integer> itemIndexes = new IdentityHashMap<>();
+            SnapshotOutput out = new SnapshotOutput();
+            out.putInt(order.getId());
+            out.putInt((parent == null) ? 0 : parent.getId());
+            out.putDouble(order.getCustomer().getCredit());
+            out.putInt(items.size());
+            for (OrderItem item : items) {
+                itemIndexes.put(item, itemIndexes.size());
+                out.putInt(item.getRestaurant().getId());
+                SnapshotService.writeMenu(out, item.getMenu());
+                OrderSnapshotCodec.writeItem(out, item, 0);
+                out.putLong(slotKeys.getOrDefault(item, -1L));
+            }
+            OrderSnapshotCodec.writeOrder(out, order, false, itemIndexes::get);
+            append(ORDER_CREATED, out);
+            track(order);
+        } catch (RuntimeException e) {
+            creations.readLock().unlock();
+            throw e;
+        }
+    }
+
+    void endOrderCreation() {
+        creations.readLock().unlock();
+    }
+
+    void orderCanceled(OrderAbstract order) {
+        SnapshotOutput out = new SnapshotOutput();
+        out.putInt(order.getId());
+        append(ORDER_CANCELED, out);
+    }
+
+    void orderRefunded(OrderAbstract order, double amount) {
+        SnapshotOutput out = new SnapshotOutput();
+        out.putInt(order.getId());
+        out.putDouble(amount);
+        out.putInt(order.getCustomer().getId());
+        out.putDouble(order.getCustomer().getCredit());
+        append(ORDER_REFUNDED, out);
+    }
+
+    /**
+     * Write a new account once it is registered, and wait for it to be on the disk: the next events may refer to it.
+     */
+    void accountRegistered(AccountAbstract account) {
+        SnapshotOutput out = new SnapshotOutput();
+        SnapshotService.writeAccount(out, account);
+        append(ACCOUNT_REGISTERED, out);
+        awaitDurable();
+    }
+
+    void creditGranted(CustomerAccount customer, double credit) {
+        SnapshotOutput out = new SnapshotOutput();
+        out.putInt(customer.getId());
+        out.putDouble(credit);
+        out.putDouble(customer.getCredit());
+        append(CREDIT_GRANTED, out);
+    }
+
+    /**
+     * Follow the status of the items of the orders already in the repository, once the services are restored.
+     */
+    void trackAll(OrderRepository orders) {
+        Set<OrderAbstract> tracked = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<OrderAbstract> toTrack = new ArrayList<>(orders.findAll());
+        for (int i = 0; i < toTrack.size(); i++) {
+            OrderAbstract order = toTrack.get(i);
+            if (tracked.add(order)) {
+                track(order);
+                if (order instanceof GroupOrder groupOrder) {
+                    toTrack.addAll(groupOrder.getSubOrders());
+                }
+            }
+        }
+    }
+
+    private void track(OrderAbstract order) {
+        if (order instanceof GroupOrder) {
+            return;
+        }
+        int orderId = order.getId();
+        List<OrderItem> items = distinctItems(order);
+        List<OrderItem> allItems = order.getItems();
+        for (OrderItem item : items) {
+            // An item is found back by the index of its first occurrence in the order
+            int itemIndex = allItems.indexOf(item);
+            item.addStatusListener((changedItem, oldStatus, newStatus) -> statusChanged(orderId, itemIndex, changedItem, newStatus));
+        }
+    }
+
+    private void statusChanged(int orderId, int itemIndex, OrderItem item, EOrderStatus status) {
+        SnapshotOutput out = new SnapshotOutput();
+        out.putInt(orderId);
+        out.putInt(itemIndex);
+        out.putByte((status == null) ? -1 : status.ordinal());
+        out.putLong((status == null) ? 0 : item.getStatusTimestamp(status));
+        append(ITEM_STATUS_CHANGED, out);
+    }
+
+    /**
+     * Append an event, waited for by the next {@link #awaitDurable()} of the thread.
+     * A failure is logged once and the state changed is still saved by the next snapshot.
+     */
+    private void append(byte type, SnapshotOutput out) {
+        try {
+            long sequence = journal.appendDeferred(type, out.toByteArray());
+            long[] pending = pendingSequence.get();
+            pending[0] = Math.max(pending[0], sequence);
+        } catch (IOException e) {
+            logFailure(e);
+        }
+    }
+
+    private void logFailure(IOException e) {
+        if (failureLogged.compareAndSet(false, true)) {
+            LoggerUtils.log(Level.SEVERE, () -> "The events can't be written in the journal anymore, the changes are only saved by the snapshots: " + e.getMessage());
+        }
+    }
+
+    private static List<OrderItem> distinctItems(OrderAbstract order) {
+        Set<OrderItem> items = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<OrderItem> distinct = new ArrayList<>();
+        for (OrderItem item : OrderSnapshotCodec.copyOf(order.getItems())) {
+            if (items.add(item)) {
+                distinct.add(item);
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Apply the events read from the journal to the restored services.
+     */
+    private static class Replay {
+        private final RegistrationService registrationService;
+        private final RestaurantService restaurantService;
+        private final OrderService orderService;
+        private final OrderRepository repository;
+        private final Scheduler scheduler;
+        /**
+         * The items given back to each restaurant and the ones it is done with, applied once all the events are read.
+         */
+        private final Map<Restaurant, List<OrderItem>> restoredOrders = new LinkedHashMap<>();
+        private final Map<Restaurant, Set<OrderItem>> doneOrders = new LinkedHashMap<>();
+
+        private Replay(SnapshotService services, Scheduler scheduler) {
+            this.scheduler = scheduler;
+            this.registrationService = services.getRegistrationService();
+            this.restaurantService = services.getRestaurantService();
+            this.orderService = services.getOrderService();
+            this.repository = orderService.getOrderRepository();
+        }
+
+        private void apply(long sequence, byte type, ByteBuffer payload) {
+            SnapshotInput in = SnapshotInput.wrap(payload);
+            try {
+                switch (type) {
+                    case ORDER_CREATED -> replayOrderCreated(in);
+                    case ITEM_STATUS_CHANGED -> replayStatusChanged(in);
+                    case ORDER_CANCELED -> OrderSnapshotCodec.restoreCanceled(order(in.getInt()));
+                    case ORDER_REFUNDED -> {
+                        in.getInt();
+                        in.getDouble();
+                        customer(in.getInt()).setCredit(in.getDouble());
+                    }
+                    case CREDIT_GRANTED -> {
+                        CustomerAccount customer = customer(in.getInt());
+                        in.getDouble();
+                        customer.setCredit(in.getDouble());
+                    }
+                    case ACCOUNT_REGISTERED -> registrationService.restoreAccount(SnapshotService.readAccount(in, scheduler));
+                    default -> throw new IOException("Unknown type of event " + type);
+                }
+            } catch (IOException | RuntimeException e) {
+                LoggerUtils.log(Level.WARNING, () -> "The event " + sequence + " of the journal is skipped: " + e.getMessage());
+            }
+        }
+
+        private void replayOrderCreated(SnapshotInput in) throws IOException {
+            int orderId = in.getInt();
+            if (repository.findById(orderId) != null) {
+                return;
+            }
+            int parentId = in.getInt();
+            double credit = in.getDouble();
+            int itemCount = in.getCount();
+            List<OrderItem> items = new ArrayList<>(itemCount);
+            long[] slotKeys = new long[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                Restaurant restaurant = restaurant(in.getInt());
+                Menu menu = publishedMenu(restaurant, SnapshotService.readMenu(in));
+                items.add(OrderSnapshotCodec.readItem(in, index -> menu, this::restaurantOrNull));
+                slotKeys[i] = in.getLong();
+            }
+            OrderAbstract order = OrderSnapshotCodec.readOrders(in, 1, registrationService::findCustomerById, registrationService::findDeliveryById,
+                    index -> (index >= 0 && index < items.size()) ? items.get(index) : null, this::restaurantOrNull, repository).get(orderId);
+            if (order == null) {
+                throw new IOException("The order " + orderId + " doesn't match its event");
+            }
+
+            if (parentId != 0) {
+                GroupOrder groupOrder = orderService.getGroupOrderById(parentId);
+                if (groupOrder == null) {
+                    throw new IOException("Unknown group order " + parentId);
+                }
+                OrderSnapshotCodec.restoreSubOrder(groupOrder, order);
+            }
+            repository.save(order);
+            if (!(order instanceof GroupOrder)) {
+                order.getCustomer().addOrder(order);
+            }
+            order.getCustomer().setCredit(credit);
+
+            Map<Restaurant, Map<Long, List<OrderItem>>> slots = new LinkedHashMap<>();
+            for (int i = 0; i < itemCount; i++) {
+                if (slotKeys[i] >= 0) {
+                    OrderItem item = items.get(i);
+                    slots.computeIfAbsent(item.getRestaurant(), key -> new LinkedHashMap<>()).computeIfAbsent(slotKeys[i], key -> new ArrayList<>()).add(item);
+                }
+            }
+            slots.forEach((restaurant, restaurantSlots) -> restaurantSlots.forEach((slotKey, slotItems) -> {
+                restaurant.getTimeSlotManager().restoreSlot(slotKey, slotItems, List.of());
+                restoredOrders.computeIfAbsent(restaurant, key -> new ArrayList<>()).addAll(slotItems);
+            }));
+            if (order instanceof AfterWorkOrder afterWorkOrder && !items.isEmpty()) {
+                items.get(0).getRestaurant().getTimeSlotManager().addAfterWorkOrder(afterWorkOrder);
+            }
+        }
+
+        private void replayStatusChanged(SnapshotInput in) throws IOException {
+            OrderAbstract order = order(in.getInt());
+            int itemIndex = in.getInt();
+            int status = in.getByte();
+            long timestamp = in.getLong();
+            List<OrderItem> items = order.getItems();
+            if (itemIndex < 0 || itemIndex >= items.size() || status >= STATUSES.length) {
+                throw new IOException("Unknown item " + itemIndex + " of the order " + order.getId());
+            }
+            OrderItem item = items.get(itemIndex);
+            EOrderStatus newStatus = (status < 0) ? null : STATUSES[status];
+            OrderSnapshotCodec.restoreStatus(item, newStatus, timestamp);
+            if (DONE_BY_RESTAURANT.contains(newStatus)) {
+                doneOrders.computeIfAbsent(item.getRestaurant(), key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(item);
+            }
+        }
+
+        /**
+         * Give the items created by the events to their restaurant, then take back the ones it is done with.
+         * Each restaurant goes through its orders once, instead of once per event.
+         */
+        private void restoreRestaurantWork() {
+            restoredOrders.forEach(Restaurant::restoreOrders);
+            doneOrders.forEach(Restaurant::restoreOrdersDone);
+        }
+
+        /**
+         * @return the item of the current menu of the restaurant if it is the same as the one ordered, else the item ordered,
+         * published as a previous item of the menu
+         */
+        private static Menu publishedMenu(Restaurant restaurant, Menu ordered) {
+            Menu current = restaurant.getMenuItem(ordered.getName());
+            if (current != null && current.isAfterWork() == ordered.isAfterWork() && current.getGlobalPriceInCents() == ordered.getGlobalPriceInCents()
+                    && Arrays.stream(ECustomerStatus.values()).allMatch(type -> current.getSpecificPriceInCents(type) == ordered.getSpecificPriceInCents(type))) {
+                return current;
+            }
+            restaurant.restoreMenu(restaurant.getMenu().getVersion(), restaurant.getMenuItems(), List.of(ordered));
+            return ordered;
+        }
+
+        private OrderAbstract order(int id) throws IOException {
+            OrderAbstract order = repository.findById(id);
+            if (order == null) {
+                throw new IOException("Unknown order " + id);
+            }
+            return order;
+        }
+
+        private CustomerAccount customer(int id) throws IOException {
+            CustomerAccount customer = registrationService.findCustomerById(id);
+            if (customer == null) {
+                throw new IOException("Unknown customer " + id);
+            }
+            return customer;
+        }
+
+        private Restaurant restaurant(int id) throws IOException {
+            Restaurant restaurant = restaurantOrNull(id);
+            if (restaurant == null) {
+                throw new IOException("Unknown restaurant " + id);
+            }
+            return restaurant;
+        }
+
+        private Restaurant restaurantOrNull(int id) {
+            return restaurantService.findRestaurantById(id);
+        }
+    }
+}
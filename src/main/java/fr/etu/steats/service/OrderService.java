@@ -2,26 +2,49 @@ package fr.etu.steats.service;
 
 import fr.etu.steats.account.AdminAccount;
 import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
 import fr.etu.steats.exception.UnauthorizedModificationException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.*;
 import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.SlotReservation;
+import fr.etu.steats.utils.StripedLock;
 import fr.etu.steats.utils.UserLevel;
 import org.joda.time.DateTime;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import static fr.etu.steats.enums.EOrderStatus.*;
 
+/**
+ * This class handles the lifecycle of the orders.
+ * It can be used by several threads at the same time: every operation locks the customers it touches,
+ * so checkouts on unrelated customers run in parallel.
+ * The places in the time slots are claimed with lock-free reservations, so checkouts don't lock the restaurants
+ * and two of them can never share the last place of a slot. Only the creation of an after work order and the cancellation
+ * of an order also lock their restaurants, after the customers, each by ascending stripe. The preparations lock their restaurant
+ * and the deliveries the customers of their order, at their start and again when their delay is over.
+ * The events of the journal are written under these locks, and waited for on the disk once they are released.
+ */
 public class OrderService {
+    private static final int NUMBER_OF_LOCK_STRIPES = 64;
     private static final String ORDER_ERROR = "At this stage of the order you can't add new element, please create a separate order.";
     private static final String PAYMENT_ERROR = "Payment failed";
     private final PaymentService paymentService;
-    private final List<OrderAbstract> orders;
+    private final OrderRepository orders;
+    private final StripedLock customerLocks = new StripedLock(NUMBER_OF_LOCK_STRIPES);
+    private final StripedLock restaurantLocks = new StripedLock(NUMBER_OF_LOCK_STRIPES);
+    private volatile OrderJournal journal;
     public static final int MIN_NUMBER_OF_ORDERS = 10;
     public static final double DISCOUNT = 0.1;
 
@@ -31,13 +54,32 @@ public class OrderService {
 
     public OrderService(PaymentService paymentService) {
         this.paymentService = paymentService;
-        this.orders = new ArrayList<>();
+        this.orders = new OrderRepository();
     }
 
     public List<OrderAbstract> fetchAllOrder() {
+        return this.orders.findAll();
+    }
+
+    public OrderRepository getOrderRepository() {
         return this.orders;
     }
 
+    /**
+     * Write the lifecycle of the orders in the journal from now on, null to stop.
+     * The items of the orders already in the repository are followed too.
+     */
+    public void setJournal(OrderJournal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            journal.trackAll(this.orders);
+        }
+    }
+
+    public OrderJournal getJournal() {
+        return this.journal;
+    }
+
     public boolean createSingleOrder(CustomerAccount customer, List<OrderItem> items, DateTime deliveryDate, String deliveryAddress) throws UnauthorizedOperationException {
         if (customer != null && items != null && !items.isEmpty() && deliveryDate != null && deliveryAddress != null) {
             OrderAbstract order = new OrderBuilder(deliveryDate, customer)
@@ -48,25 +90,33 @@ public class OrderService {
             Map<Restaurant, List<OrderItem>> restaurantItems = order.getItems().stream()
                     .collect(Collectors.groupingBy(OrderItem::getRestaurant, HashMap::new, Collectors.toList()));
 
-            // Check if they all can be handled by the restaurant before the deliveryDate, else they all are refused
-            for (Map.Entry<Restaurant, List<OrderItem>> entry : restaurantItems.entrySet()) {
-                if (!entry.getKey().canOrderBePreparedBeforeDeadline(entry.getValue(), deliveryDate)) {
+            List<Lock> locks = lock(List.of(customer), List.of());
+            Map<Restaurant, SlotReservation> reservations = null;
+            try {
+                // Reserve the items in all the restaurants before the deliveryDate, else they all are refused
+                reservations = reserveInEveryRestaurant(restaurantItems, deliveryDate);
+                if (reservations == null) {
                     return false;
                 }
+                pay(order, reservations);
+
+                order.getItems().forEach(item -> item.setStatus(WAITING_RESTAURANT_ACCEPTANCE));
+                OrderJournal currentJournal = beginJournal(order, null, reservations);
+                try {
+                    reservations.forEach(Restaurant::addOrderListWhoNeedToBePrepareBeforeDeadline);
+
+                    this.orders.save(order);
+                    customer.addOrder(order);
+                    recordSales(order);
+                } finally {
+                    endJournal(currentJournal);
+                }
+            } finally {
+                cancelPending(reservations);
+                StripedLock.unlockAll(locks);
             }
-            if (!paymentService.pay(order.getTotalPrice())) {
-                throw new UnauthorizedOperationException(PAYMENT_ERROR);
-            }
-
-            order.getItems().forEach(item -> item.setStatus(WAITING_RESTAURANT_ACCEPTANCE));
-
-            for (Map.Entry<Restaurant, List<OrderItem>> entry : restaurantItems.entrySet()) {
-                entry.getKey().addOrderListWhoNeedToBePrepareBeforeDeadline(entry.getValue(), deliveryDate);
-            }
-
-            this.orders.add(order);
-            customer.addOrder(order);
-            NotificationService.sendNotificationToUser(UserLevel.USER, "Your single order n°" + order.getId() + " has been created ! To " + order.getDeliveryAddress(), customer.getFullName());
+            awaitJournal();
+            NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your single order n°" + order.getId() + " has been created ! To " + deliveryAddress, customer.getFullName());
             return true;
         }
         return false;
@@ -79,8 +129,14 @@ public class OrderService {
                     .setDeliveryAddress(deliveryAddress)
                     .build();
 
-            this.orders.add(order);
-            NotificationService.sendNotificationToUser(UserLevel.USER, "Your group order n°" + order.getId() + " has been created ! To " + order.getDeliveryAddress(), customer.getFullName());
+            OrderJournal currentJournal = beginJournal(order, null, Map.of());
+            try {
+                this.orders.save(order);
+            } finally {
+                endJournal(currentJournal);
+            }
+            awaitJournal();
+            NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your group order n°" + order.getId() + " has been created ! To " + deliveryAddress, customer.getFullName());
             return true;
         }
         return false;
@@ -94,22 +150,36 @@ public class OrderService {
                     .setStaff(adminAccount)
                     .build();
 
-            if (!restaurant.canOrderBePreparedBeforeDeadline(items, deliveryDate)) {
-                throw new UnauthorizedOperationException("The restaurant can't prepare this buffet order before the deadline. Please contact the restaurant.");
-            }
+            List<Lock> locks = lock(List.of(customer), List.of());
+            SlotReservation reservation = null;
+            try {
+                reservation = restaurant.reserveOrderListBeforeDeadline(items, deliveryDate);
+                if (reservation == null) {
+                    throw new UnauthorizedOperationException("The restaurant can't prepare this buffet order before the deadline. Please contact the restaurant.");
+                }
 
-            if (bufferOrder.needToBePaid()) {
-                if (paymentService.pay(bufferOrder.getTotalPrice())) {
+                if (bufferOrder.needToBePaid()) {
+                    pay(bufferOrder, Map.of(restaurant, reservation));
                     bufferOrder.getItems().forEach(item -> item.setStatus(WAITING_RESTAURANT_ACCEPTANCE));
-                } else {
-                    throw new UnauthorizedOperationException(PAYMENT_ERROR);
                 }
-            }
 
-            restaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(items, deliveryDate);
-            this.orders.add(bufferOrder);
-            customer.addOrder(bufferOrder);
-            NotificationService.sendNotificationToUser(UserLevel.USER, "Your buffet order n°" + bufferOrder.getId() + " has been created !", customer.getFullName());
+                OrderJournal currentJournal = beginJournal(bufferOrder, null, Map.of(restaurant, reservation));
+                try {
+                    restaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(reservation);
+                    this.orders.save(bufferOrder);
+                    customer.addOrder(bufferOrder);
+                    recordSales(bufferOrder);
+                } finally {
+                    endJournal(currentJournal);
+                }
+            } finally {
+                if (reservation != null) {
+                    reservation.cancel();
+                }
+                StripedLock.unlockAll(locks);
+            }
+            awaitJournal();
+            NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your buffet order n°" + bufferOrder.getId() + " has been created !", customer.getFullName());
 
             return true;
         }
@@ -132,22 +202,26 @@ public class OrderService {
                 item.setStatus(IN_PREPARATION);
             }
 
-            this.orders.add(order);
-            customer.addOrder(order);
-            restaurant.addAfterWorkOrder((AfterWorkOrder) order);
-            NotificationService.sendNotificationToUser(UserLevel.USER, "Your after work order n°" + order.getId() + " has been created !\n It'll take place at " + deliveryAddress + " on " + deliveryDate + ".", customer.getFullName());
+            List<Lock> locks = lock(List.of(customer), List.of(restaurant));
+            OrderJournal currentJournal = beginJournal(order, null, Map.of());
+            try {
+                this.orders.save(order);
+                customer.addOrder(order);
+                restaurant.addAfterWorkOrder((AfterWorkOrder) order);
+                recordSales(order);
+            } finally {
+                endJournal(currentJournal);
+                StripedLock.unlockAll(locks);
+            }
+            awaitJournal();
+            NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your after work order n°" + order.getId() + " has been created !\n It'll take place at " + deliveryAddress + " on " + deliveryDate + ".", customer.getFullName());
             return true;
         }
         return false;
     }
 
     public GroupOrder getGroupOrderById(int id) {
-        return orders.stream()
-                .filter(GroupOrder.class::isInstance)
-                .map(GroupOrder.class::cast)
-                .filter(groupOrder -> groupOrder.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return (orders.findById(id) instanceof GroupOrder groupOrder) ? groupOrder : null;
     }
 
     public boolean addOrderToGroupOrder(CustomerAccount customer, List<OrderItem> items, OrderAbstract groupOrder) throws UnauthorizedOperationException {
@@ -163,36 +237,44 @@ public class OrderService {
                 .addMenuItems(items)
                 .build();
 
-        // If the order contain item that need to be prepared by the restaurant, then we should check the schedule.
-        if (!items.isEmpty()) {
-            Map<Restaurant, List<OrderItem>> restaurantItems = order.getItems().stream()
-                    .collect(Collectors.groupingBy(OrderItem::getRestaurant, HashMap::new, Collectors.toList()));
-
-            // Check if they all can be handled by the restaurant before the deliveryDate, else they all are refused
-            for (Map.Entry<Restaurant, List<OrderItem>> entry : restaurantItems.entrySet()) {
-                if (!entry.getKey().canOrderBePreparedBeforeDeadline(entry.getValue(), new DateTime(groupOrder.getDeliveryDate()))) {
+        Map<Restaurant, List<OrderItem>> restaurantItems = order.getItems().stream()
+                .collect(Collectors.groupingBy(OrderItem::getRestaurant, HashMap::new, Collectors.toList()));
+
+        List<Lock> locks = lock(Arrays.asList(customer, groupOrder.getCustomer()), List.of());
+        Map<Restaurant, SlotReservation> reservations = Map.of();
+        try {
+            // If the order contain item that need to be prepared by the restaurant, then we should reserve them in the schedule.
+            if (!items.isEmpty()) {
+                // Reserve the items in all the restaurants before the deliveryDate, else they all are refused
+                reservations = reserveInEveryRestaurant(restaurantItems, new DateTime(groupOrder.getDeliveryDate()));
+                if (reservations == null) {
                     return false;
                 }
-            }
-            if (!paymentService.pay(order.getTotalPrice())) {
-                throw new UnauthorizedOperationException(PAYMENT_ERROR);
-            }
+                pay(order, reservations);
 
-            order.getItems().forEach(item -> item.setStatus(WAITING_RESTAURANT_ACCEPTANCE));
-
-            for (Map.Entry<Restaurant, List<OrderItem>> entry : restaurantItems.entrySet()) {
-                entry.getKey().addOrderListWhoNeedToBePrepareBeforeDeadline(entry.getValue(), new DateTime(groupOrder.getDeliveryDate()));
+                order.getItems().forEach(item -> item.setStatus(WAITING_RESTAURANT_ACCEPTANCE));
             }
-        }
 
-        if (groupOrder.addSubOrder(order)) {
-            customer.addOrder(order);
-            this.orders.add(order);
-            NotificationService.sendNotificationToUser(UserLevel.USER, "Your single order n°" + order.getId() + " has been added to the group order n°" + groupOrder.getId() + " !", customer.getFullName());
-            return true;
+            // The order joins its group before its items are given to the restaurants, so a refused order doesn't keep its places
+            if (!groupOrder.addSubOrder(order)) {
+                return false;
+            }
+            OrderJournal currentJournal = beginJournal(order, groupOrder, reservations);
+            try {
+                reservations.forEach(Restaurant::addOrderListWhoNeedToBePrepareBeforeDeadline);
+                customer.addOrder(order);
+                this.orders.save(order);
+                recordSales(order);
+            } finally {
+                endJournal(currentJournal);
+            }
+        } finally {
+            cancelPending(reservations);
+            StripedLock.unlockAll(locks);
         }
-
-        return false;
+        awaitJournal();
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your single order n°" + order.getId() + " has been added to the group order n°" + groupOrder.getId() + " !", customer.getFullName());
+        return true;
     }
 
     public Boolean joinOrder(OrderAbstract parentOrder, OrderAbstract joiningOrder) throws UnauthorizedOperationException {
@@ -204,39 +286,38 @@ public class OrderService {
         }
 
         OrderAbstract parentGroupOrder;
-        joiningOrder.setDeliveryDate(parentOrder.getDeliveryDate());
-        joiningOrder.setDeliveryAddress(parentOrder.getDeliveryAddress());
-
-        if (!parentOrder.allowSubOrder() && joiningOrder.canBeSubOrder()) {
-            parentGroupOrder = new OrderBuilder(parentOrder.getDeliveryDate(), parentOrder.getCustomer())
-                    .setDeliveryAddress(parentOrder.getDeliveryAddress())
-                    .build();
-            parentGroupOrder.addSubOrder(parentOrder);
-            this.orders.add(parentGroupOrder);
-        } else {
-            parentGroupOrder = parentOrder;
-        }
+        List<Lock> locks = lock(Arrays.asList(parentOrder.getCustomer(), joiningOrder.getCustomer()), List.of());
+        try {
+            joiningOrder.setDeliveryDate(parentOrder.getDeliveryDate());
+            joiningOrder.setDeliveryAddress(parentOrder.getDeliveryAddress());
+
+            if (!parentOrder.allowSubOrder() && joiningOrder.canBeSubOrder()) {
+                parentGroupOrder = new OrderBuilder(parentOrder.getDeliveryDate(), parentOrder.getCustomer())
+                        .setDeliveryAddress(parentOrder.getDeliveryAddress())
+                        .build();
+                parentGroupOrder.addSubOrder(parentOrder);
+                this.orders.save(parentGroupOrder);
+            } else {
+                parentGroupOrder = parentOrder;
+            }
 
-        parentGroupOrder.assignDeliveryMan(parentOrder.getDeliveryMan());
+            parentGroupOrder.assignDeliveryMan(parentOrder.getDeliveryMan());
 
-        parentGroupOrder.addSubOrder(joiningOrder);
-        joiningOrder.setParentGroupOwner(parentGroupOrder);
-        NotificationService.sendNotificationToUser(UserLevel.USER, "Your order n°" + joiningOrder.getId() + " has been added to the group order n°" + parentGroupOrder.getId() + " !", joiningOrder.getCustomer().getFullName());
+            parentGroupOrder.addSubOrder(joiningOrder);
+            joiningOrder.setParentGroupOwner(parentGroupOrder);
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order n°" + joiningOrder.getId() + " has been added to the group order n°" + parentGroupOrder.getId() + " !", joiningOrder.getCustomer().getFullName());
         return true;
     }
 
     public List<OrderAbstract> getOrderReadyToDeliver() {
-        return orders.stream()
-                .filter(order -> !order.isPartOfGroupOrder() && order.needToBeDelivered())
-                .filter(order -> order.getStatus().equals(IN_PREPARATION) || order.getStatus().equals(WAITING_DELIVER_ACCEPTANCE))
-                .toList();
-
+        return orders.findReadyToDeliver();
     }
 
     public List<OrderAbstract> fetchAllOrdersByCustomer(CustomerAccount customer) {
-        return orders.stream()
-                .filter(orderAbstract -> orderAbstract.getCustomer().equals(customer))
-                .toList();
+        return orders.findByCustomer(customer);
     }
 
 
@@ -269,14 +350,31 @@ public class OrderService {
         if (!order.statusAllowsUpdate()) {
             throw new UnauthorizedModificationException("You can't cancel this order.");
         }
-        if (order.cancel()) {
+        boolean canceled;
+        List<Lock> locks = lock(Arrays.asList(order.getCustomer()), order.getItems().stream().map(OrderItem::getRestaurant).toList());
+        try {
+            canceled = order.cancel();
+        } finally {
+            StripedLock.unlockAll(locks);
+        }
+        if (canceled) {
+            OrderJournal currentJournal = journal;
+            if (currentJournal != null) {
+                currentJournal.orderCanceled(order);
+                currentJournal.awaitDurable();
+            }
             if (order.needToBePaid()) {
-                if (!paymentService.refund(order.getTotalPrice())) {
+                double refund = order.getTotalPrice();
+                if (!paymentService.refund(refund)) {
                     throw new UnauthorizedModificationException("Refund failed");
                 }
-                NotificationService.sendNotificationToUser(UserLevel.USER, "Your order n°" + order.getId() + " has been canceled ! You have been refunded of " + order.getTotalPrice() + "€", order.getCustomer().getFullName());
+                NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order n°" + order.getId() + " has been canceled ! You have been refunded of " + refund + "€", order.getCustomer().getFullName());
+                if (currentJournal != null) {
+                    currentJournal.orderRefunded(order, refund);
+                    currentJournal.awaitDurable();
+                }
             } else {
-                NotificationService.sendNotificationToUser(UserLevel.USER, "Your order n°" + order.getId() + " has been canceled !", order.getCustomer().getFullName());
+                NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Your order n°" + order.getId() + " has been canceled !", order.getCustomer().getFullName());
             }
             return true;
         }
@@ -284,9 +382,183 @@ public class OrderService {
     }
 
     public OrderAbstract findOrderById(int id) {
-        return orders.stream()
-                .filter(orderAbstract -> orderAbstract.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return orders.findById(id);
+    }
+
+    /**
+     * Prepare an order of a restaurant without blocking the caller, the order is prepared once the future completes.
+     * The start and the end of the preparation lock the restaurant, as a cancellation does, so they never interleave with it.
+     */
+    public CompletableFuture<Void> prepareOrder(Restaurant restaurant, int orderId) {
+        List<Lock> locks = lock(List.of(), List.of(restaurant));
+        try {
+            return restaurant.prepareOrderAsync(orderId, lockedExecutor(List.of(), List.of(restaurant)));
+        } finally {
+            StripedLock.unlockAll(locks);
+            awaitJournal();
+        }
+    }
+
+    /**
+     * Prepare the orders of the nearest time slot of a restaurant without blocking the caller, with the same locks as {@link #prepareOrder(Restaurant, int)}.
+     */
+    public CompletableFuture<Void> prepareNearestTimeSlot(Restaurant restaurant) throws UnauthorizedOperationException {
+        List<Lock> locks = lock(List.of(), List.of(restaurant));
+        try {
+            return restaurant.prepareAllOrderOfNearestTimeSlotAsync(lockedExecutor(List.of(), List.of(restaurant)));
+        } finally {
+            StripedLock.unlockAll(locks);
+            awaitJournal();
+        }
+    }
+
+    /**
+     * Deliver the order assigned to a delivery man without blocking the caller, the order is delivered once the future completes.
+     * The start and the end of the delivery lock the customers of the order, whose credit is updated at the end, as a checkout does.
+     */
+    public CompletableFuture<Void> deliverAssignedOrder(DeliveryAccount deliveryAccount) throws UnauthorizedOperationException {
+        List<CustomerAccount> customers = customersOf(deliveryAccount.getAssignedOrder());
+        List<Lock> locks = lock(customers, List.of());
+        try {
+            return deliveryAccount.putOrderInDeliveryAsync(lockedExecutor(customers, List.of()));
+        } finally {
+            StripedLock.unlockAll(locks);
+            awaitJournal();
+        }
+    }
+
+    /**
+     * @return the customers whose credit an order updates once delivered, the ones of its sub orders for a group order
+     */
+    private static List<CustomerAccount> customersOf(OrderAbstract order) {
+        if (order == null) {
+            return List.of();
+        }
+        if (order instanceof GroupOrder groupOrder) {
+            List<CustomerAccount> customers = new ArrayList<>();
+            customers.add(groupOrder.getCustomer());
+            groupOrder.getSubOrders().forEach(subOrder -> customers.add(subOrder.getCustomer()));
+            return customers;
+        }
+        return List.of(order.getCustomer());
+    }
+
+    /**
+     * @return an executor running the tasks on the calling thread while holding the locks of the customers and the restaurants,
+     * then waiting for the events they wrote in the journal
+     */
+    private Executor lockedExecutor(Collection<CustomerAccount> customers, Collection<Restaurant> restaurants) {
+        return task -> {
+            List<Lock> locks = lock(customers, restaurants);
+            try {
+                task.run();
+            } finally {
+                StripedLock.unlockAll(locks);
+                awaitJournal();
+            }
+        };
+    }
+
+    /**
+     * Write the creation of the order in the journal, if there is one, before the order is published.
+     *
+     * @return the journal to give to {@link #endJournal(OrderJournal)} once the order is published
+     */
+    private OrderJournal beginJournal(OrderAbstract order, OrderAbstract parent, Map<Restaurant, SlotReservation> reservations) {
+        OrderJournal currentJournal = this.journal;
+        if (currentJournal != null) {
+            currentJournal.beginOrderCreation(order, parent, reservations);
+        }
+        return currentJournal;
+    }
+
+    private static void endJournal(OrderJournal currentJournal) {
+        if (currentJournal != null) {
+            currentJournal.endOrderCreation();
+        }
+    }
+
+    /**
+     * Wait for the events the operation wrote in the journal, once its locks are released so no fsync is done under them.
+     */
+    private void awaitJournal() {
+        OrderJournal currentJournal = this.journal;
+        if (currentJournal != null) {
+            currentJournal.awaitDurable();
+        }
+    }
+
+    /**
+     * Add the order to the statistics of each of its restaurants, with the price paid for their items after the discounts.
+     */
+    private static void recordSales(OrderAbstract order) {
+        if (!order.needToBePaid()) {
+            order.getItems().stream()
+                    .map(OrderItem::getRestaurant)
+                    .distinct()
+                    .forEach(restaurant -> restaurant.getStatistics().recordOrderCreated(0));
+            return;
+        }
+        DiscountService.computeRestaurantPricesAfterDiscountInCents(order)
+                .forEach((restaurant, revenueInCents) -> restaurant.getStatistics().recordOrderCreated(revenueInCents / 100.0));
+    }
+
+    /**
+     * Reserve places for the items in all their restaurants, or in none of them.
+     *
+     * @return the reservation of each restaurant, or null if one of them doesn't have enough places before the deadline
+     */
+    private Map<Restaurant, SlotReservation> reserveInEveryRestaurant(Map<Restaurant, List<OrderItem>> restaurantItems, DateTime deliveryDate) throws UnauthorizedOperationException {
+        Map<Restaurant, SlotReservation> reservations = new HashMap<>();
+        try {
+            for (Map.Entry<Restaurant, List<OrderItem>> entry : restaurantItems.entrySet()) {
+                SlotReservation reservation = entry.getKey().reserveOrderListBeforeDeadline(entry.getValue(), deliveryDate);
+                if (reservation == null) {
+                    reservations.values().forEach(SlotReservation::cancel);
+                    return null;
+                }
+                reservations.put(entry.getKey(), reservation);
+            }
+        } catch (UnauthorizedOperationException | RuntimeException e) {
+            reservations.values().forEach(SlotReservation::cancel);
+            throw e;
+        }
+        return reservations;
+    }
+
+    /**
+     * Give back the places of the reservations that were not committed to their restaurant, whatever stopped the checkout.
+     * A committed reservation can't be cancelled anymore, so it is left as it is.
+     */
+    private static void cancelPending(Map<Restaurant, SlotReservation> reservations) {
+        if (reservations != null) {
+            reservations.values().forEach(SlotReservation::cancel);
+        }
+    }
+
+    /**
+     * Pay the order, the reservations are cancelled if the payment fails.
+     */
+    private void pay(OrderAbstract order, Map<Restaurant, SlotReservation> reservations) throws UnauthorizedOperationException {
+        if (!paymentService.pay(order.getTotalPrice())) {
+            reservations.values().forEach(SlotReservation::cancel);
+            throw new UnauthorizedOperationException(PAYMENT_ERROR);
+        }
+    }
+
+    /**
+     * Lock the given customers, then the given restaurants. Null entries are ignored.
+     *
+     * @return the acquired locks, to release with {@link StripedLock#unlockAll(List)}
+     */
+    private List<Lock> lock(Collection<CustomerAccount> customers, Collection<Restaurant> restaurants) {
+        List<Lock> locks = new ArrayList<>(customerLocks.lockAll(customers.stream().filter(Objects::nonNull).map(CustomerAccount::getId).toList()));
+        try {
+            locks.addAll(restaurantLocks.lockAll(restaurants.stream().filter(Objects::nonNull).map(Restaurant::getId).toList()));
+        } catch (RuntimeException e) {
+            StripedLock.unlockAll(locks);
+            throw e;
+        }
+        return locks;
     }
 }
@@ -0,0 +1,66 @@
+package fr.etu.steats.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class holds the hash of the password of an account or a restaurant.
+ * A new password is hashed in the background on the login pool of {@link CredentialService}.
+ * A password read from a file is kept as is if the file holds its hash, else it is only hashed at its first use:
+ * loading a big file doesn't hash every row, nor fill the login pool.
+ */
+public final class PasswordHash {
+    private volatile CompletableFuture<String> hash;
+    /**
+     * The password read in clear from a file, until it is hashed. Guarded by this.
+     */
+    private String clearPassword;
+
+    private PasswordHash(CompletableFuture<String> hash, String clearPassword) {
+        this.hash = hash;
+        this.clearPassword = clearPassword;
+    }
+
+    /**
+     * @param hash the hash of the password, for example read from a snapshot
+     */
+    public static PasswordHash of(String hash) {
+        return new PasswordHash(CompletableFuture.completedFuture(hash), null);
+    }
+
+    /**
+     * Hash a new password in the background, the first use waits for it.
+     */
+    public static PasswordHash inBackground(String password) {
+        return new PasswordHash(CredentialService.hashAsync(password), null);
+    }
+
+    /**
+     * @param passwordOrHash the password column of a file, either the hash of the password or the password in clear
+     */
+    public static PasswordHash fromFile(String passwordOrHash) {
+        if (passwordOrHash == null || passwordOrHash.isBlank()) {
+            throw new IllegalArgumentException("The password can't be null or blank");
+        }
+        if (CredentialService.getHasher().isHash(passwordOrHash)) {
+            return of(passwordOrHash);
+        }
+        return new PasswordHash(null, passwordOrHash);
+    }
+
+    /**
+     * @return the hash, computed on the calling thread for a password read in clear and not used yet
+     */
+    public String get() {
+        CompletableFuture<String> current = hash;
+        if (current == null) {
+            synchronized (this) {
+                if (hash == null) {
+                    hash = CompletableFuture.completedFuture(CredentialService.getHasher().hash(clearPassword));
+                    clearPassword = null;
+                }
+                current = hash;
+            }
+        }
+        return current.join();
+    }
+}
@@ -0,0 +1,19 @@
+package fr.etu.steats.service;
+
+/**
+ * This interface hashes the passwords before they are stored, and checks a password against a stored hash.
+ * The hash must carry everything needed to check it (algorithm, cost, salt), so the cost can change without
+ * invalidating the passwords already stored.
+ */
+public interface PasswordHasher {
+    String hash(String password);
+
+    boolean matches(String password, String hash);
+
+    /**
+     * @return true if the value is a hash made by this hasher, for example read from a file instead of a password in clear
+     */
+    default boolean isHash(String value) {
+        return false;
+    }
+}
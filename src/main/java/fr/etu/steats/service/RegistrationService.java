@@ -1,21 +1,22 @@
 package fr.etu.steats.service;
 
+import fr.etu.steats.account.AccountAbstract;
+import fr.etu.steats.account.AccountDirectory;
 import fr.etu.steats.account.AdminAccount;
 import fr.etu.steats.account.CustomerAccount;
 import fr.etu.steats.account.DeliveryAccount;
 import fr.etu.steats.exception.AlreadyRegisteredUser;
 import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.NoAccountFoundException;
-import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.CsvLoader;
+import fr.etu.steats.utils.CsvLoader.CsvFile;
+import fr.etu.steats.utils.LoadReport;
 import fr.etu.steats.utils.Scheduler;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
-import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class is used to manage the registration of the different account type
@@ -24,62 +25,116 @@ public class RegistrationService {
     private static final String CUSTOMER_FILE_PATH = "src/main/resources/customer.csv";
     private static final String DELIVERY_FILE_PATH = "src/main/resources/delivery.csv";
     private static final String ADMIN_FILE_PATH = "src/main/resources/admin.csv";
-    private final Set<CustomerAccount> customerList;
-    private final Set<DeliveryAccount> deliveryList;
-    private final Set<AdminAccount> adminList;
+    private final AccountDirectory<CustomerAccount> customerList = new AccountDirectory<>();
+    private final AccountDirectory<DeliveryAccount> deliveryList = new AccountDirectory<>();
+    private final AccountDirectory<AdminAccount> adminList = new AccountDirectory<>();
+    private final List<LoadReport> loadReports;
+    private volatile RegistrationListener registrationListener;
 
     public RegistrationService() {
         this(new Scheduler());
     }
 
+    /**
+     * The three files are read in parallel, then the accounts are created one file after the other:
+     * the ids of the accounts come from a shared counter, so they are the same on every run.
+     */
     public RegistrationService(Scheduler scheduler) {
-        this.customerList = new HashSet<>();
-        this.deliveryList = new HashSet<>();
-        this.adminList = new HashSet<>();
+        CompletableFuture<CsvFile> customers = CompletableFuture.supplyAsync(() -> CsvLoader.read(CUSTOMER_FILE_PATH));
+        CompletableFuture<CsvFile> deliveries = CompletableFuture.supplyAsync(() -> CsvLoader.read(DELIVERY_FILE_PATH));
+        CompletableFuture<CsvFile> admins = CompletableFuture.supplyAsync(() -> CsvLoader.read(ADMIN_FILE_PATH));
+        LoadReport customerReport = loadCustomers(customers.join());
+        LoadReport deliveryReport = loadDeliveries(deliveries.join(), scheduler);
+        LoadReport adminReport = loadAdmins(admins.join());
+        this.loadReports = List.of(customerReport, deliveryReport, adminReport);
+    }
 
-        loadCustomerDataFromCSV();
-        loadDeliveryDataFromCSV(scheduler);
-        loadAdminDataFromCSV();
+    private LoadReport loadCustomers(CsvFile file) {
+        return file.load(row -> {
+            if (!this.customerList.add(CustomerAccount.fromFile(row.get(0), row.get(1), row.get(2)))) {
+                row.reportError("The customer " + row.get(0) + " " + row.get(1) + " is already registered");
+            }
+        });
     }
 
-    private void loadCustomerDataFromCSV() {
-        try (BufferedReader br = new BufferedReader(new FileReader(CUSTOMER_FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] content = line.split(",");
-                this.customerList.add(new CustomerAccount(content[0], content[1], content[2]));
+    private LoadReport loadDeliveries(CsvFile file, Scheduler scheduler) {
+        return file.load(row -> {
+            if (!this.deliveryList.add(DeliveryAccount.fromFile(row.get(0), row.get(1), row.get(2), scheduler))) {
+                row.reportError("The delivery account " + row.get(0) + " " + row.get(1) + " is already registered");
             }
-        } catch (IOException e) {
-            LoggerUtils.log(Level.SEVERE, "Error while reading the customer CSV file: " + CUSTOMER_FILE_PATH);
-        }
+        });
     }
 
-    private void loadDeliveryDataFromCSV(Scheduler scheduler) {
-        try (BufferedReader br = new BufferedReader(new FileReader(DELIVERY_FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] content = line.split(",");
-                this.deliveryList.add(new DeliveryAccount(content[0], content[1], content[2], scheduler));
+    private LoadReport loadAdmins(CsvFile file) {
+        return file.load(row -> {
+            if (!this.adminList.add(AdminAccount.fromFile(row.get(0), row.get(1), row.get(2)))) {
+                row.reportError("The admin account " + row.get(0) + " " + row.get(1) + " is already registered");
             }
-        } catch (IOException e) {
-            LoggerUtils.log(Level.SEVERE, "Error while reading the delivery CSV file: " + DELIVERY_FILE_PATH);
-        }
+        });
     }
 
-    private void loadAdminDataFromCSV() {
-        try (BufferedReader br = new BufferedReader(new FileReader(ADMIN_FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] content = line.split(",");
-                this.adminList.add(new AdminAccount(content[0], content[1], content[2]));
+    /**
+     * Set the listener told of every account registered by {@link #registerCustomer(String, String, String)}
+     * and {@link #registerDelivery(String, String, String)}, null for none.
+     */
+    public void setRegistrationListener(RegistrationListener listener) {
+        this.registrationListener = listener;
+    }
+
+    /**
+     * Give back an account registered after a snapshot, if it is not known yet.
+     */
+    void restoreAccount(AccountAbstract account) {
+        if (account instanceof CustomerAccount customer) {
+            if (customerList.findById(customer.getId()) == null) {
+                customerList.add(customer);
+            }
+        } else if (account instanceof DeliveryAccount delivery) {
+            if (deliveryList.findById(delivery.getId()) == null) {
+                deliveryList.add(delivery);
             }
-        } catch (IOException e) {
-            LoggerUtils.log(Level.SEVERE, "Error while reading the admin CSV file: " + ADMIN_FILE_PATH);
+        } else if (account instanceof AdminAccount admin && adminList.findById(admin.getId()) == null) {
+            adminList.add(admin);
         }
     }
 
+    /**
+     * @return the reports of the load of the customers, the delivery accounts and the admins, empty if nothing was loaded
+     */
+    public List<LoadReport> getLoadReports() {
+        return loadReports;
+    }
+
     public List<CustomerAccount> getCustomerList() {
-        return customerList.stream().toList();
+        return List.copyOf(customerList.getAll());
+    }
+
+    /**
+     * @return a read-only view of the delivery accounts
+     */
+    public Collection<DeliveryAccount> getDeliveryAccounts() {
+        return deliveryList.getAll();
+    }
+
+    /**
+     * @return a read-only view of the admin accounts
+     */
+    public Collection<AdminAccount> getAdminAccounts() {
+        return adminList.getAll();
+    }
+
+    /**
+     * @return the customer with this id, or null if there is none
+     */
+    public CustomerAccount findCustomerById(int id) {
+        return customerList.findById(id);
+    }
+
+    /**
+     * @return the delivery account with this id, or null if there is none
+     */
+    public DeliveryAccount findDeliveryById(int id) {
+        return deliveryList.findById(id);
     }
 
     /**
@@ -90,9 +145,10 @@ public class RegistrationService {
      * @param adminList    the list of admin account to use
      */
     protected RegistrationService(Set<CustomerAccount> customerList, Set<DeliveryAccount> deliveryList, Set<AdminAccount> adminList) {
-        this.customerList = customerList;
-        this.deliveryList = deliveryList;
-        this.adminList = adminList;
+        this.loadReports = List.of();
+        customerList.forEach(this.customerList::add);
+        deliveryList.forEach(this.deliveryList::add);
+        adminList.forEach(this.adminList::add);
     }
 
     public CustomerAccount loginCustomer(String firstname, String lastname, String password) throws NoAccountFoundException, BadPasswordException {
@@ -100,10 +156,9 @@ public class RegistrationService {
         firstname = firstname.toLowerCase().trim();
         lastname = lastname.toLowerCase().trim();
 
-        for (CustomerAccount customerAccount : this.customerList) {
-            if (customerAccount.getFirstName().equals(firstname) && customerAccount.getLastName().equals(lastname) && (customerAccount.checkPassword(password))) {
-                return customerAccount;
-            }
+        CustomerAccount customerAccount = this.customerList.findByName(firstname, lastname);
+        if (customerAccount != null && customerAccount.checkPassword(password)) {
+            return customerAccount;
         }
         throw new NoAccountFoundException("We don't have any customer registered in our system named " + firstname + " " + lastname + ".\nIf that's not the case please use the register feature before trying to login.");
     }
@@ -113,10 +168,9 @@ public class RegistrationService {
         firstname = firstname.toLowerCase().trim();
         lastname = lastname.toLowerCase().trim();
 
-        for (DeliveryAccount deliveryAccount : this.deliveryList) {
-            if (deliveryAccount.getFirstName().equals(firstname) && deliveryAccount.getLastName().equals(lastname) && (deliveryAccount.checkPassword(password))) {
-                return deliveryAccount;
-            }
+        DeliveryAccount deliveryAccount = this.deliveryList.findByName(firstname, lastname);
+        if (deliveryAccount != null && deliveryAccount.checkPassword(password)) {
+            return deliveryAccount;
         }
         throw new NoAccountFoundException("We don't have any delivery account registered in our system named " + firstname + " " + lastname + ".\nIf that's not the case please use the register feature before trying to login.");
     }
@@ -126,14 +180,16 @@ public class RegistrationService {
         firstname = firstname.toLowerCase().trim();
         lastname = lastname.toLowerCase().trim();
 
-        for (CustomerAccount customerAccount : this.customerList) {
-            if (customerAccount.getFirstName().equals(firstname) && customerAccount.getLastName().equals(lastname)) {
-                throw new AlreadyRegisteredUser("You already have an account within our system, please use the login feature instead.\nIf you forgot your password, contact an administrator to change your it.");
-            }
+        if (this.customerList.findByName(firstname, lastname) != null) {
+            throw alreadyRegistered();
         }
 
         CustomerAccount newCustomer = new CustomerAccount(firstname, lastname, password);
-        this.customerList.add(newCustomer);
+        // Another sign-up with the same name may have happened since the check above
+        if (!this.customerList.add(newCustomer)) {
+            throw alreadyRegistered();
+        }
+        accountRegistered(newCustomer);
         return newCustomer;
     }
 
@@ -142,14 +198,16 @@ public class RegistrationService {
         firstname = firstname.toLowerCase().trim();
         lastname = lastname.toLowerCase().trim();
 
-        for (DeliveryAccount deliveryAccount : this.deliveryList) {
-            if (deliveryAccount.getFirstName().equals(firstname) && deliveryAccount.getLastName().equals(lastname)) {
-                throw new AlreadyRegisteredUser("You already have an account within our system, please use the login feature instead.\nIf you forgot your password, contact an administrator to change your it.");
-            }
+        if (this.deliveryList.findByName(firstname, lastname) != null) {
+            throw alreadyRegistered();
         }
 
         DeliveryAccount newDeliveryMan = new DeliveryAccount(firstname, lastname, password);
-        this.deliveryList.add(newDeliveryMan);
+        // Another sign-up with the same name may have happened since the check above
+        if (!this.deliveryList.add(newDeliveryMan)) {
+            throw alreadyRegistered();
+        }
+        accountRegistered(newDeliveryMan);
         return newDeliveryMan;
     }
 
@@ -158,10 +216,9 @@ public class RegistrationService {
         firstname = firstname.toLowerCase().trim();
         lastname = lastname.toLowerCase().trim();
 
-        for (AdminAccount adminAccount : this.adminList) {
-            if (adminAccount.getFirstName().equals(firstname) && adminAccount.getLastName().equals(lastname) && (adminAccount.checkPassword(password))) {
-                return adminAccount;
-            }
+        AdminAccount adminAccount = this.adminList.findByName(firstname, lastname);
+        if (adminAccount != null && adminAccount.checkPassword(password)) {
+            return adminAccount;
         }
         throw new NoAccountFoundException("We don't have any admin account registered in our system named " + firstname + " " + lastname + ".");
     }
@@ -170,9 +227,28 @@ public class RegistrationService {
         return this.deliveryList.remove(deliveryAccount);
     }
 
+    private void accountRegistered(AccountAbstract account) {
+        RegistrationListener listener = registrationListener;
+        if (listener != null) {
+            listener.accountRegistered(account);
+        }
+    }
+
+    private static AlreadyRegisteredUser alreadyRegistered() {
+        return new AlreadyRegisteredUser("You already have an account within our system, please use the login feature instead.\nIf you forgot your password, contact an administrator to change your it.");
+    }
+
     private void checkEntryParameter(String firstname, String lastname, String password) {
         if (firstname == null || firstname.isEmpty() || lastname == null || lastname.isEmpty() || password == null || password.isEmpty()) {
             throw new IllegalArgumentException("The firstname, the lastname and the password can't be null or empty for a login...");
         }
     }
+
+    /**
+     * Callback fired after an account is registered.
+     */
+    @FunctionalInterface
+    public interface RegistrationListener {
+        void accountRegistered(AccountAbstract account);
+    }
 }
@@ -4,23 +4,24 @@ import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.NonExistantRestaurantException;
 import fr.etu.steats.restaurant.Menu;
 import fr.etu.steats.restaurant.Restaurant;
-import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.restaurant.RestaurantDirectory;
+import fr.etu.steats.utils.CsvLoader;
+import fr.etu.steats.utils.CsvRow;
+import fr.etu.steats.utils.LoadReport;
 import fr.etu.steats.utils.Scheduler;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Level;
+import java.util.function.IntFunction;
 
 public class RestaurantService {
     private static final String RESTAURANT_FILE_PATH = "src/main/resources/restaurants.csv";
     private static final AtomicInteger ID_FACTORY = new AtomicInteger(0);
-    private final Set<Restaurant> restaurants;
+    private final RestaurantDirectory restaurants = new RestaurantDirectory();
+    private final LoadReport loadReport;
 
     public RestaurantService() {
         this((Scheduler) null);
@@ -29,53 +30,82 @@ public class RestaurantService {
     public RestaurantService(Scheduler scheduler) {
         // Load restaurants and menus from CSV file
         ID_FACTORY.set(0);
-        this.restaurants = new HashSet<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(RESTAURANT_FILE_PATH))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-
-                if (parts.length != 4) {
-                    LoggerUtils.log(Level.SEVERE, "Badly formatted CSV line: " + line + "\nExpected format: name,menu,password,address");
-                    continue;
-                }
-
-                Restaurant restaurant;
-                if (scheduler != null) {
-                    restaurant = this.addRestaurant(parts[0], parts[2], scheduler, parts[3]);
-                } else {
-                    restaurant = this.addRestaurant(parts[0], parts[2], parts[3]);
-                }
-
-                String[] menuItems = parts[1].split(";");
-                for (String item : menuItems) {
-                    String[] itemParts = item.split(":");
-
-                    if (itemParts.length != 2) {
-                        LoggerUtils.log(Level.SEVERE, "Badly formatted menu item: " + line + "\nExpected format: name:price");
-                        continue;
-                    }
-                    Menu menuItem = new Menu(itemParts[0], Double.parseDouble(itemParts[1].trim())); // trim() to remove any spaces
-                    restaurant.addMenuItem(menuItem);
-                }
-            }
-        } catch (NumberFormatException e) {
-            LoggerUtils.log(Level.SEVERE, "Error converting the price for the item ");
-        } catch (FileNotFoundException e) {
-            LoggerUtils.log(Level.SEVERE, "The file restaurants.csv was not found.");
-        } catch (IOException e) {
-            LoggerUtils.log(Level.SEVERE, "Error reading the file restaurants.csv: " + e.getMessage());
-        } catch (Exception e) {
-            LoggerUtils.log(Level.SEVERE, "Unexpected error: " + e.getMessage());
-        }
+        this.loadReport = CsvLoader.load(RESTAURANT_FILE_PATH, row -> loadRestaurant(row, scheduler));
     }
 
     public RestaurantService(Set<Restaurant> restaurants) {
-        if (restaurants == null) {
+        this(restaurants, restaurants);
+    }
+
+    /**
+     * @param restaurants      the restaurants listed by the service
+     * @param knownRestaurants every restaurant still referred to, removed ones included, whose ids must not be given again
+     */
+    public RestaurantService(Set<Restaurant> restaurants, Collection<Restaurant> knownRestaurants) {
+        if (restaurants == null || knownRestaurants == null) {
             throw new IllegalArgumentException("restaurants cannot be null");
         }
-        this.restaurants = restaurants;
-        ID_FACTORY.set(0);
+        restaurants.forEach(this.restaurants::add);
+        // The next restaurants get ids above the known ones, like after a restore
+        int lastId = Math.max(restaurants.stream().mapToInt(Restaurant::getId).max().orElse(0),
+                knownRestaurants.stream().mapToInt(Restaurant::getId).max().orElse(0));
+        ID_FACTORY.set(lastId);
+        this.loadReport = null;
+    }
+
+    /**
+     * Load a line {@code name,menu,password,address} where the menu is {@code name:price;name:price...}.
+     * A badly formatted menu item is reported and skipped, the rest of the restaurant is loaded.
+     */
+    private void loadRestaurant(CsvRow row, Scheduler scheduler) {
+        if (row.size() != 4) {
+            throw new IllegalArgumentException("Badly formatted CSV line: " + row.getLine() + "\nExpected format: name,menu,password,address");
+        }
+        List<Menu> menuItems = new ArrayList<>();
+        String menu = row.get(1);
+        int itemStart = 0;
+        while (itemStart < menu.length()) {
+            int itemEnd = menu.indexOf(';', itemStart);
+            if (itemEnd < 0) {
+                itemEnd = menu.length();
+            }
+            if (itemEnd > itemStart) {
+                loadMenuItem(row, menu.substring(itemStart, itemEnd), menuItems);
+            }
+            itemStart = itemEnd + 1;
+        }
+
+        Scheduler restaurantScheduler = (scheduler != null) ? scheduler : new Scheduler();
+        Restaurant restaurant = this.addRestaurant(row.get(0), row.get(2),
+                id -> Restaurant.fromFile(row.get(0), id, row.get(2), restaurantScheduler, row.get(3)));
+        for (Menu menuItem : menuItems) {
+            try {
+                restaurant.addMenuItem(menuItem);
+            } catch (IllegalArgumentException e) {
+                row.reportError("The menu item " + menuItem.getName() + " can't be added: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void loadMenuItem(CsvRow row, String item, List<Menu> menuItems) {
+        int separator = item.indexOf(':');
+        if (separator < 0 || item.indexOf(':', separator + 1) >= 0) {
+            row.reportError("Badly formatted menu item: " + item + "\nExpected format: name:price");
+            return;
+        }
+        String name = item.substring(0, separator);
+        try {
+            menuItems.add(new Menu(name, Double.parseDouble(item.substring(separator + 1).trim()))); // trim() to remove any spaces
+        } catch (IllegalArgumentException e) {
+            row.reportError("Error converting the price for the item " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the report of the load of the CSV file, or null if the restaurants were given to the constructor
+     */
+    public LoadReport getLoadReport() {
+        return loadReport;
     }
 
     public List<Menu> viewMenu(int restaurantId) {
@@ -88,11 +118,14 @@ public class RestaurantService {
     }
 
     public Restaurant findRestaurantById(int restaurantId) {
-        return restaurants.stream().filter(r -> r.getId() == restaurantId).findFirst().orElse(null);
+        return restaurants.findById(restaurantId);
     }
 
+    /**
+     * @return a read-only view of the restaurants
+     */
     public Set<Restaurant> getRestaurants() {
-        return restaurants;
+        return restaurants.getAll();
     }
 
     public Restaurant addRestaurant(String name, String password, String address) {
@@ -100,28 +133,29 @@ public class RestaurantService {
     }
 
     public Restaurant addRestaurant(String name, String password, Scheduler scheduler, String address) {
+        return this.addRestaurant(name, password, id -> new Restaurant(name, id, password, scheduler, address));
+    }
+
+    /**
+     * @param factory creates the restaurant with the id given to it
+     */
+    private Restaurant addRestaurant(String name, String password, IntFunction<Restaurant> factory) {
         if (name == null || name.isEmpty() || password == null || password.isEmpty()) {
             throw new IllegalArgumentException("The name and the password can't be null or empty for a restaurant...");
         }
-        Restaurant restaurant = new Restaurant(name, ID_FACTORY.incrementAndGet(), password, scheduler, address);
-        if (restaurants.contains(restaurant)) {
+        if (restaurants.findByName(name) != null) {
             throw new IllegalArgumentException("The restaurant " + name + " already exists...");
         }
-        restaurants.stream().filter(r -> r.getName().equals(name.trim().toLowerCase())).findFirst().ifPresent(r -> {
+        Restaurant restaurant = factory.apply(ID_FACTORY.incrementAndGet());
+        // Another restaurant with the same name may have been added since the check above
+        if (!restaurants.add(restaurant)) {
             throw new IllegalArgumentException("The restaurant " + name + " already exists...");
-        });
-        if (restaurants.add(restaurant)) {
-            return restaurant;
         }
-        return null;
+        return restaurant;
     }
 
     public boolean removeRestaurant(int id) {
-        Restaurant restaurant = this.findRestaurantById(id);
-        if (restaurant == null) {
-            return false;
-        }
-        return restaurants.remove(restaurant);
+        return restaurants.removeById(id) != null;
     }
 
     public Restaurant login(String name, String password) throws NonExistantRestaurantException, BadPasswordException {
@@ -130,10 +164,9 @@ public class RestaurantService {
         }
         name = name.toLowerCase().trim();
 
-        for (Restaurant restaurant : restaurants) {
-            if (restaurant.getName().equals(name) && (restaurant.checkPassword(password))) {
-                return restaurant;
-            }
+        Restaurant restaurant = restaurants.findByName(name);
+        if (restaurant != null && restaurant.checkPassword(password)) {
+            return restaurant;
         }
         throw new NonExistantRestaurantException("We don't have any restaurant registered in our system named " + name + ".\nIf that's not the case please use the register feature before trying to login.");
     }
@@ -0,0 +1,85 @@
+package fr.etu.steats.service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class remembers the principals (accounts, restaurants) whose password was verified, behind a random token.
+ * A session expires after some time without use, so a logged user keeps working without hashing the password again.
+ */
+public class SessionCache {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_LENGTH = 24;
+
+    private final long timeToLiveMillis;
+    private final int evictionThreshold;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * @param timeToLiveMillis  the time after which an unused session expires
+     * @param evictionThreshold the number of sessions above which the expired ones are removed on a new session
+     */
+    public SessionCache(long timeToLiveMillis, int evictionThreshold) {
+        if (timeToLiveMillis <= 0 || evictionThreshold <= 0) {
+            throw new IllegalArgumentException("The time to live and the eviction threshold must be positive");
+        }
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.evictionThreshold = evictionThreshold;
+    }
+
+    /**
+     * @return the token of a new session for this principal
+     */
+    public String open(Object principal) {
+        if (principal == null) {
+            throw new IllegalArgumentException("The principal can't be null");
+        }
+        long now = ClockService.currentTimeMillis();
+        if (sessions.size() >= evictionThreshold) {
+            sessions.values().removeIf(session -> session.isExpired(now));
+        }
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(principal, now + timeToLiveMillis));
+        return token;
+    }
+
+    /**
+     * Check that the token belongs to a session of the principal which is not expired, and extend this session.
+     */
+    public boolean isValid(String token, Object principal) {
+        if (token == null) {
+            return false;
+        }
+        Session session = sessions.get(token);
+        if (session == null || session.principal != principal) {
+            return false;
+        }
+        long now = ClockService.currentTimeMillis();
+        if (session.isExpired(now)) {
+            sessions.remove(token, session);
+            return false;
+        }
+        sessions.replace(token, session, new Session(principal, now + timeToLiveMillis));
+        return true;
+    }
+
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private record Session(Object principal, long expirationMillis) {
+        private boolean isExpired(long now) {
+            return expirationMillis <= now;
+        }
+    }
+}
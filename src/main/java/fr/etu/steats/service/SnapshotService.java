@@ -0,0 +1,743 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.AccountAbstract;
+import fr.etu.steats.account.AdminAccount;
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.ECustomerStatus;
+import fr.etu.steats.order.AfterWorkOrder;
+import fr.etu.steats.order.GroupOrder;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.order.OrderSnapshotCodec;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.MenuSnapshot;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.TimeSlot;
+import fr.etu.steats.restaurant.TimeSlotManager;
+import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.Scheduler;
+import fr.etu.steats.utils.SnapshotInput;
+import fr.etu.steats.utils.SnapshotOutput;
+import org.joda.time.LocalTime;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * This class saves the state of STEats in a binary snapshot file and restores it, so a restart keeps the orders,
+ * the time slots, the credits and the discounts instead of reloading the CSV files.
+ * <p>
+ * A snapshot is taken without stopping the other threads: the collections are read through their concurrent
+ * views and the menus are already immutable versions, so each object is saved as it was when it was read,
+ * but two objects may be saved at slightly different moments. Every snapshot has a sequence number, one
+ * snapshot is written at a time and it replaces the previous file only once complete.
+ * The file is read back through a memory mapping, see {@link SnapshotInput}.
+ * <p>
+ * The sessions are not saved, the users log in again after a restart. The statistics of the restaurants start over.
+ * <p>
+ * The orders changed between two snapshots are kept by the {@link OrderJournal} once one is set, each snapshot saves
+ * the sequence of the journal it covers.
+ */
+public class SnapshotService {
+    public static final short FORMAT_VERSION = 1;
+    private static final byte MENUS = 1;
+    private static final byte RESTAURANTS = 2;
+    private static final byte ACCOUNTS = 3;
+    private static final byte ITEMS = 4;
+    private static final byte ORDERS = 5;
+    private static final byte CUSTOMER_ORDERS = 6;
+    private static final byte DELIVERY_ASSIGNMENTS = 7;
+    private static final byte RESTAURANT_WORK = 8;
+    private static final byte DISCOUNTS = 9;
+    private static final byte JOURNAL = 10;
+    private static final byte CUSTOMER = 1;
+    private static final byte DELIVERY = 2;
+    private static final byte ADMIN = 3;
+    private static final ECustomerStatus[] CUSTOMER_TYPES = ECustomerStatus.values();
+
+    private final RegistrationService registrationService;
+    private final RestaurantService restaurantService;
+    private final OrderService orderService;
+    private final AtomicLong sequence;
+    private final Object writeLock = new Object();
+    private ScheduledExecutorService executor;
+    private volatile OrderJournal journal;
+    /**
+     * The sequence of the last event of the journal in the last snapshot written or restored.
+     */
+    private volatile long journalSequence;
+
+    public SnapshotService(RegistrationService registrationService, RestaurantService restaurantService, OrderService orderService) {
+        this(registrationService, restaurantService, orderService, 0, 0);
+    }
+
+    private SnapshotService(RegistrationService registrationService, RestaurantService restaurantService, OrderService orderService, long lastSequence, long journalSequence) {
+        if (registrationService == null || restaurantService == null || orderService == null) {
+            throw new IllegalArgumentException("The services can't be null");
+        }
+        this.registrationService = registrationService;
+        this.restaurantService = restaurantService;
+        this.orderService = orderService;
+        this.sequence = new AtomicLong(lastSequence);
+        this.journalSequence = journalSequence;
+    }
+
+    public RegistrationService getRegistrationService() {
+        return registrationService;
+    }
+
+    public RestaurantService getRestaurantService() {
+        return restaurantService;
+    }
+
+    public OrderService getOrderService() {
+        return orderService;
+    }
+
+    /**
+     * @return the sequence number of the last snapshot written or restored
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * @return the sequence of the last event of the journal saved in the last snapshot written or restored,
+     * the events after it are replayed by {@link OrderJournal#replay(SnapshotService)}
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Write the lifecycle of the orders, the credits granted and the accounts registered in the journal between two snapshots, null to stop.
+     * Each snapshot then deletes the segments of the journal it covers.
+     * Call it once the events of the journal are replayed.
+     */
+    public void setJournal(OrderJournal journal) {
+        this.journal = journal;
+        orderService.setJournal(journal);
+        DiscountService.setCreditListener((journal == null) ? null : journal::creditGranted);
+        registrationService.setRegistrationListener((journal == null) ? null : journal::accountRegistered);
+    }
+
+    public OrderJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Take a snapshot in the background at a fixed delay, replacing the file each time.
+     * A failed snapshot is logged and the next one is still taken.
+     */
+    public synchronized void start(Path file, long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        stop();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                write(file);
+            } catch (IOException | RuntimeException e) {
+                LoggerUtils.log(Level.SEVERE, () -> "The snapshot to " + file + " failed: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Write a snapshot of the current state, the other threads keep working meanwhile.
+     *
+     * @return the size of the file
+     */
+    public long write(Path file) throws IOException {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            long snapshotSequence = sequence.get() + 1;
+            OrderJournal currentJournal = journal;
+            // Read before the state, so the events after it are replayed even if their change is already saved
+            long snapshotJournalSequence = (currentJournal == null) ? journalSequence : currentJournal.getSnapshotSequence();
+            Capture capture = new Capture();
+            SnapshotOutput out = new SnapshotOutput(FORMAT_VERSION, snapshotSequence, ClockService.currentTimeMillis());
+            writeMenus(out, capture);
+            writeRestaurants(out, capture);
+            writeAccounts(out, capture);
+            writeItems(out, capture);
+            writeOrders(out, capture);
+            writeCustomerOrders(out, capture);
+            writeDeliveryAssignments(out, capture);
+            writeRestaurantWork(out, capture);
+            writeDiscounts(out);
+            out.beginSection(JOURNAL);
+            out.putLong(snapshotJournalSequence);
+            out.endSection();
+            long size = out.writeTo(file);
+            sequence.set(snapshotSequence);
+            journalSequence = snapshotJournalSequence;
+            if (currentJournal != null) {
+                try {
+                    currentJournal.getEventJournal().deleteSegmentsUpTo(snapshotJournalSequence);
+                } catch (IOException e) {
+                    LoggerUtils.log(Level.WARNING, () -> "The segments of the journal covered by the snapshot " + snapshotSequence + " can't be deleted: " + e.getMessage());
+                }
+            }
+            LoggerUtils.log(Level.FINE, () -> String.format("Snapshot %d written to %s: %d orders, %d bytes in %.1f ms",
+                    snapshotSequence, file, capture.orders.size(), size, (System.nanoTime() - start) / 1_000_000.0));
+            return size;
+        }
+    }
+
+    /**
+     * Rebuild the services from a snapshot. The discounts are restored in {@link DiscountService#getDiscountGrantStore()}.
+     *
+     * @param scheduler the scheduler of the restaurants and of the delivery accounts, a new one for each if null
+     * @throws IOException if the file can't be read, or is not a valid snapshot
+     */
+    public static SnapshotService restore(Path file, PaymentService paymentService, Scheduler scheduler) throws IOException {
+        long start = System.nanoTime();
+        SnapshotInput in = SnapshotInput.open(file);
+        if (in.getFormatVersion() > FORMAT_VERSION) {
+            throw new IOException("The snapshot " + file + " has the format " + in.getFormatVersion() + ", only " + FORMAT_VERSION + " is supported");
+        }
+        Restore restore = new Restore(scheduler, new OrderService(paymentService));
+        for (byte tag = in.nextSection(); tag != SnapshotOutput.END_TAG; tag = in.nextSection()) {
+            switch (tag) {
+                case MENUS -> restore.readMenus(in);
+                case RESTAURANTS -> restore.readRestaurants(in);
+                case ACCOUNTS -> restore.readAccounts(in);
+                case ITEMS -> restore.readItems(in);
+                case ORDERS -> restore.readOrders(in);
+                case CUSTOMER_ORDERS -> restore.readCustomerOrders(in);
+                case DELIVERY_ASSIGNMENTS -> restore.readDeliveryAssignments(in);
+                case RESTAURANT_WORK -> restore.readRestaurantWork(in);
+                case DISCOUNTS -> restore.readDiscounts(in);
+                case JOURNAL -> restore.journalSequence = in.getLong();
+                default -> {
+                    byte unknownTag = tag;
+                    LoggerUtils.log(Level.WARNING, () -> "Unknown section " + unknownTag + " skipped in the snapshot " + file);
+                }
+            }
+        }
+        restore.restoreMenus();
+
+        SnapshotService service = new SnapshotService(
+                new RegistrationService(new LinkedHashSet<>(restore.customers.values()), new LinkedHashSet<>(restore.deliveries.values()), new LinkedHashSet<>(restore.admins)),
+                new RestaurantService(restore.listedRestaurants, restore.restaurants.values()),
+                restore.orderService,
+                in.getSequence(),
+                restore.journalSequence);
+        LoggerUtils.log(Level.FINE, () -> String.format("Snapshot %d restored from %s: %d orders in %.1f ms",
+                in.getSequence(), file, restore.orders.size(), (System.nanoTime() - start) / 1_000_000.0));
+        return service;
+    }
+
+    private static void writeMenus(SnapshotOutput out, Capture capture) {
+        out.beginSection(MENUS);
+        out.putInt(capture.menus.size());
+        capture.menus.forEach(menu -> writeMenu(out, menu));
+        out.endSection();
+    }
+
+    /**
+     * Write a menu item with its prices, also used by the {@link OrderJournal}.
+     */
+    static void writeMenu(SnapshotOutput out, Menu menu) {
+        out.putString(menu.getName());
+        out.putBoolean(menu.isAfterWork());
+        out.putLong(menu.getGlobalPriceInCents());
+        out.putByte(CUSTOMER_TYPES.length);
+        for (ECustomerStatus type : CUSTOMER_TYPES) {
+            out.putLong(menu.getSpecificPriceInCents(type));
+        }
+    }
+
+    static Menu readMenu(SnapshotInput in) throws IOException {
+        String name = in.getString();
+        boolean afterWork = in.getBoolean();
+        Menu menu = new Menu(name, in.getLong() / 100.0, afterWork);
+        int typeCount = in.getByte();
+        for (int type = 0; type < typeCount; type++) {
+            long specificPrice = in.getLong();
+            if (type < CUSTOMER_TYPES.length && specificPrice > 0) {
+                setSpecificPrice(menu, CUSTOMER_TYPES[type], specificPrice / 100.0);
+            }
+        }
+        return menu;
+    }
+
+    private static void setSpecificPrice(Menu menu, ECustomerStatus type, double price) {
+        switch (type) {
+            case STUDENT -> menu.setStudentPrice(price);
+            case FACULTY -> menu.setFacultyPrice(price);
+            case STAFF -> menu.setStaffPrice(price);
+            case EXTERNAL -> menu.setExternalPrice(price);
+        }
+    }
+
+    private static void writeRestaurants(SnapshotOutput out, Capture capture) {
+        out.beginSection(RESTAURANTS);
+        out.putInt(capture.restaurants.size());
+        for (int i = 0; i < capture.restaurants.size(); i++) {
+            Restaurant restaurant = capture.restaurants.get(i);
+            MenuSnapshot menu = capture.restaurantMenus.get(i);
+            TimeSlotManager timeSlotManager = restaurant.getTimeSlotManager();
+            out.putInt(restaurant.getId());
+            out.putBoolean(i < capture.listedRestaurantCount);
+            out.putString(restaurant.getName());
+            out.putString(restaurant.getAddress());
+            out.putString(restaurant.getPasswordHash());
+            out.putInt(timeSlotManager.getCapacity());
+            out.putInt(timeSlotManager.getOpeningTime().getMillisOfDay());
+            out.putInt(timeSlotManager.getClosingTime().getMillisOfDay());
+            out.putLong(menu.getVersion());
+            out.putInt(menu.getItems().size());
+            menu.getItems().forEach(item -> out.putInt(capture.menuIndexes.get(item)));
+        }
+        out.endSection();
+    }
+
+    private void writeAccounts(SnapshotOutput out, Capture capture) {
+        List<AdminAccount> admins = new ArrayList<>(registrationService.getAdminAccounts());
+        out.beginSection(ACCOUNTS);
+        out.putInt(capture.customers.size() + capture.deliveries.size() + admins.size());
+        capture.customers.forEach(customer -> writeAccount(out, customer));
+        capture.deliveries.forEach(delivery -> writeAccount(out, delivery));
+        admins.forEach(admin -> writeAccount(out, admin));
+        out.endSection();
+    }
+
+    /**
+     * Write an account with its kind, read back by {@link #readAccount(SnapshotInput, Scheduler)}.
+     */
+    static void writeAccount(SnapshotOutput out, AccountAbstract account) {
+        byte kind;
+        if (account instanceof CustomerAccount) {
+            kind = CUSTOMER;
+        } else if (account instanceof DeliveryAccount) {
+            kind = DELIVERY;
+        } else {
+            kind = ADMIN;
+        }
+        out.putByte(kind);
+        out.putInt(account.getId());
+        out.putString(account.getFirstName());
+        out.putString(account.getLastName());
+        out.putString(account.getPasswordHash());
+        if (account instanceof CustomerAccount customer) {
+            ECustomerStatus type = customer.getType();
+            out.putByte((type == null) ? -1 : type.ordinal());
+            out.putDouble(customer.getCredit());
+        }
+    }
+
+    /**
+     * @param scheduler the scheduler of a delivery account, a new one if null
+     */
+    static AccountAbstract readAccount(SnapshotInput in, Scheduler scheduler) throws IOException {
+        byte kind = in.getByte();
+        int id = in.getInt();
+        String firstName = in.getString();
+        String lastName = in.getString();
+        String passwordHash = in.getString();
+        return switch (kind) {
+            case CUSTOMER -> {
+                int type = in.getByte();
+                ECustomerStatus customerType = (type >= 0 && type < CUSTOMER_TYPES.length) ? CUSTOMER_TYPES[type] : ECustomerStatus.EXTERNAL;
+                yield CustomerAccount.restore(id, firstName, lastName, passwordHash, customerType, in.getDouble());
+            }
+            case DELIVERY -> DeliveryAccount.restore(id, firstName, lastName, passwordHash, scheduler);
+            case ADMIN -> AdminAccount.restore(id, firstName, lastName, passwordHash);
+            default -> throw new IOException("Unknown kind of account " + kind);
+        };
+    }
+
+    private static void writeItems(SnapshotOutput out, Capture capture) {
+        out.beginSection(ITEMS);
+        out.putInt(capture.items.size());
+        for (OrderItem item : capture.items) {
+            OrderSnapshotCodec.writeItem(out, item, capture.menuIndexes.get(item.getMenu()));
+        }
+        out.endSection();
+    }
+
+    private static void writeOrders(SnapshotOutput out, Capture capture) {
+        out.beginSection(ORDERS);
+        out.putInt(capture.orders.size());
+        capture.orders.forEach((order, saved) -> OrderSnapshotCodec.writeOrder(out, order, saved, capture.itemIndexes::get));
+        out.endSection();
+    }
+
+    private static void writeCustomerOrders(SnapshotOutput out, Capture capture) {
+        out.beginSection(CUSTOMER_ORDERS);
+        out.putInt(capture.customers.size());
+        for (CustomerAccount customer : capture.customers) {
+            List<OrderAbstract> orders = new ArrayList<>(customer.getOrders());
+            orders.removeIf(order -> !capture.orders.containsKey(order));
+            out.putInt(customer.getId());
+            out.putInt(orders.size());
+            orders.forEach(order -> out.putInt(order.getId()));
+        }
+        out.endSection();
+    }
+
+    private static void writeDeliveryAssignments(SnapshotOutput out, Capture capture) {
+        Map<DeliveryAccount, OrderAbstract> assignments = new LinkedHashMap<>();
+        for (DeliveryAccount delivery : capture.deliveries) {
+            OrderAbstract order = delivery.getAssignedOrder();
+            if (order != null && capture.orders.containsKey(order)) {
+                assignments.put(delivery, order);
+            }
+        }
+        out.beginSection(DELIVERY_ASSIGNMENTS);
+        out.putInt(assignments.size());
+        assignments.forEach((delivery, order) -> {
+            out.putInt(delivery.getId());
+            out.putInt(order.getId());
+        });
+        out.endSection();
+    }
+
+    private static void writeRestaurantWork(SnapshotOutput out, Capture capture) {
+        out.beginSection(RESTAURANT_WORK);
+        out.putInt(capture.restaurants.size());
+        for (Restaurant restaurant : capture.restaurants) {
+            out.putInt(restaurant.getId());
+            writeItemIndexes(out, capture, restaurant.getOrders());
+            List<Map.Entry<Long, TimeSlot>> slots = new ArrayList<>(restaurant.getTimeSlotManager().getSlots().entrySet());
+            out.putInt(slots.size());
+            for (Map.Entry<Long, TimeSlot> slot : slots) {
+                out.putLong(slot.getKey());
+                writeItemIndexes(out, capture, slot.getValue().getOrderToPrepareDuringTimeSlot());
+                List<AfterWorkOrder> afterWorkOrders = new ArrayList<>(slot.getValue().getAfterWorkOrderCurrentlyOnGoing());
+                afterWorkOrders.removeIf(order -> !capture.orders.containsKey(order));
+                out.putInt(afterWorkOrders.size());
+                afterWorkOrders.forEach(order -> out.putInt(order.getId()));
+            }
+        }
+        out.endSection();
+    }
+
+    private static void writeItemIndexes(SnapshotOutput out, Capture capture, List<OrderItem> items) {
+        List<OrderItem> copy = OrderSnapshotCodec.copyOf(items);
+        copy.removeIf(item -> !capture.itemIndexes.containsKey(item));
+        out.putInt(copy.size());
+        copy.forEach(item -> out.putInt(capture.itemIndexes.get(item)));
+    }
+
+    private static void writeDiscounts(SnapshotOutput out) {
+        List<long[]> grants = new ArrayList<>();
+        DiscountService.getDiscountGrantStore().forEachGrant((customerId, restaurantId, expirationMillis) ->
+                grants.add(new long[]{customerId, restaurantId, expirationMillis}));
+        out.beginSection(DISCOUNTS);
+        out.putInt(grants.size());
+        for (long[] grant : grants) {
+            out.putInt((int) grant[0]);
+            out.putInt((int) grant[1]);
+            out.putLong(grant[2]);
+        }
+        out.endSection();
+    }
+
+    /**
+     * The objects to save, read once from the services, and the tables of the menu items and of the order items,
+     * which are shared between several objects and saved once.
+     */
+    private class Capture {
+        /**
+         * The restaurants of the service first, then the restaurants removed since but still referred to by an item.
+         */
+        private final List<Restaurant> restaurants = new ArrayList<>(restaurantService.getRestaurants());
+        private final int listedRestaurantCount = restaurants.size();
+        private final Map<Restaurant, Boolean> restaurantSet = new IdentityHashMap<>();
+        private final List<MenuSnapshot> restaurantMenus = new ArrayList<>();
+        private final List<CustomerAccount> customers = registrationService.getCustomerList();
+        private final List<DeliveryAccount> deliveries = new ArrayList<>(registrationService.getDeliveryAccounts());
+        /**
+         * Every order to save, and whether it is in the repository of the orders.
+         */
+        private final Map<OrderAbstract, Boolean> orders = new LinkedHashMap<>();
+        private final List<Menu> menus = new ArrayList<>();
+        private final Map<Menu, Integer> menuIndexes = new IdentityHashMap<>();
+        private final List<OrderItem> items = new ArrayList<>();
+        private final Map<OrderItem, Integer> itemIndexes = new IdentityHashMap<>();
+
+        private Capture() {
+            restaurants.forEach(restaurant -> restaurantSet.put(restaurant, true));
+            for (OrderAbstract order : orderService.getOrderRepository().findAll()) {
+                orders.put(order, true);
+            }
+            customers.forEach(customer -> new ArrayList<>(customer.getOrders()).forEach(this::addOrder));
+            deliveries.forEach(delivery -> addOrder(delivery.getAssignedOrder()));
+            for (Restaurant restaurant : restaurants) {
+                for (TimeSlot slot : restaurant.getTimeSlotManager().getSlots().values()) {
+                    slot.getAfterWorkOrderCurrentlyOnGoing().forEach(this::addOrder);
+                }
+            }
+            // The sub orders of a group may not be saved on their own
+            List<OrderAbstract> orderList = new ArrayList<>(orders.keySet());
+            for (int i = 0; i < orderList.size(); i++) {
+                OrderAbstract order = orderList.get(i);
+                if (order instanceof GroupOrder groupOrder) {
+                    for (OrderAbstract subOrder : groupOrder.getSubOrders()) {
+                        if (orders.putIfAbsent(subOrder, false) == null) {
+                            orderList.add(subOrder);
+                        }
+                    }
+                }
+            }
+            for (OrderAbstract order : orderList) {
+                if (!(order instanceof GroupOrder)) {
+                    OrderSnapshotCodec.copyOf(order.getItems()).forEach(this::addItem);
+                }
+            }
+            for (Restaurant restaurant : restaurants) {
+                restaurant.getOrders().forEach(this::addItem);
+                for (TimeSlot slot : restaurant.getTimeSlotManager().getSlots().values()) {
+                    slot.getOrderToPrepareDuringTimeSlot().forEach(this::addItem);
+                }
+            }
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                itemIndexes.put(item, i);
+                if (restaurantSet.putIfAbsent(item.getRestaurant(), true) == null) {
+                    restaurants.add(item.getRestaurant());
+                }
+            }
+            for (Restaurant restaurant : restaurants) {
+                MenuSnapshot menu = restaurant.getMenu();
+                restaurantMenus.add(menu);
+                menu.getItems().forEach(this::addMenu);
+            }
+            items.forEach(item -> addMenu(item.getMenu()));
+        }
+
+        private void addOrder(OrderAbstract order) {
+            if (order != null) {
+                orders.putIfAbsent(order, false);
+            }
+        }
+
+        private void addMenu(Menu menu) {
+            if (!menuIndexes.containsKey(menu)) {
+                menuIndexes.put(menu, menus.size());
+                menus.add(menu);
+            }
+        }
+
+        private void addItem(OrderItem item) {
+            if (item != null && !itemIndexes.containsKey(item)) {
+                itemIndexes.put(item, -1);
+                items.add(item);
+            }
+        }
+    }
+
+    /**
+     * The objects read from a snapshot, by id or by index, until the services are rebuilt.
+     */
+    private static class Restore {
+        private final Scheduler scheduler;
+        private final OrderService orderService;
+        private final List<Menu> menus = new ArrayList<>();
+        private final Map<Integer, Restaurant> restaurants = new LinkedHashMap<>();
+        /**
+         * The restaurants given back to the service, the others were removed but are still referred to by orders.
+         */
+        private final Set<Restaurant> listedRestaurants = new LinkedHashSet<>();
+        private final Map<Restaurant, RestoredMenu> restaurantMenus = new HashMap<>();
+        private final Map<Integer, CustomerAccount> customers = new LinkedHashMap<>();
+        private final Map<Integer, DeliveryAccount> deliveries = new LinkedHashMap<>();
+        private final List<AdminAccount> admins = new ArrayList<>();
+        private final List<OrderItem> items = new ArrayList<>();
+        private Map<Integer, OrderAbstract> orders = Map.of();
+        private long journalSequence;
+
+        private Restore(Scheduler scheduler, OrderService orderService) {
+            this.scheduler = scheduler;
+            this.orderService = orderService;
+        }
+
+        private void readMenus(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                menus.add(readMenu(in));
+            }
+        }
+
+        private void readRestaurants(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                int id = in.getInt();
+                boolean listed = in.getBoolean();
+                String name = in.getString();
+                String address = in.getString();
+                String passwordHash = in.getString();
+                int capacity = in.getInt();
+                Restaurant restaurant = Restaurant.restore(name, id, passwordHash, (scheduler == null) ? new Scheduler() : scheduler, capacity, address);
+                restaurant.getTimeSlotManager().setOpeningTime(LocalTime.fromMillisOfDay(in.getInt()));
+                restaurant.getTimeSlotManager().setClosingTime(LocalTime.fromMillisOfDay(in.getInt()));
+                long version = in.getLong();
+                int itemCount = in.getCount();
+                List<Menu> menuItems = new ArrayList<>(itemCount);
+                for (int item = 0; item < itemCount; item++) {
+                    menuItems.add(menu(in.getInt()));
+                }
+                restaurantMenus.put(restaurant, new RestoredMenu(version, menuItems));
+                restaurants.put(id, restaurant);
+                if (listed) {
+                    listedRestaurants.add(restaurant);
+                }
+            }
+        }
+
+        private void readAccounts(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                AccountAbstract account = readAccount(in, scheduler);
+                if (account instanceof CustomerAccount customer) {
+                    customers.put(customer.getId(), customer);
+                } else if (account instanceof DeliveryAccount delivery) {
+                    deliveries.put(delivery.getId(), delivery);
+                } else {
+                    admins.add((AdminAccount) account);
+                }
+            }
+        }
+
+        private void readItems(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                items.add(OrderSnapshotCodec.readItem(in, this::menuOrNull, restaurants::get));
+            }
+        }
+
+        private void readOrders(SnapshotInput in) throws IOException {
+            orders = OrderSnapshotCodec.readOrders(in, in.getCount(), customers::get, deliveries::get, this::itemOrNull, restaurants::get, orderService.getOrderRepository());
+        }
+
+        private void readCustomerOrders(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                CustomerAccount customer = resolve(customers, in.getInt(), "customer");
+                int orderCount = in.getCount();
+                for (int order = 0; order < orderCount; order++) {
+                    customer.addOrder(resolve(orders, in.getInt(), "order"));
+                }
+            }
+        }
+
+        private void readDeliveryAssignments(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                DeliveryAccount delivery = resolve(deliveries, in.getInt(), "delivery account");
+                delivery.restoreAssignedOrder(resolve(orders, in.getInt(), "order"));
+            }
+        }
+
+        private void readRestaurantWork(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                Restaurant restaurant = resolve(restaurants, in.getInt(), "restaurant");
+                restaurant.restoreOrders(readItemList(in));
+                int slotCount = in.getCount();
+                for (int slot = 0; slot < slotCount; slot++) {
+                    long startEpochMinute = in.getLong();
+                    List<OrderItem> slotItems = readItemList(in);
+                    int afterWorkCount = in.getCount();
+                    List<AfterWorkOrder> afterWorkOrders = new ArrayList<>(afterWorkCount);
+                    for (int order = 0; order < afterWorkCount; order++) {
+                        if (resolve(orders, in.getInt(), "order") instanceof AfterWorkOrder afterWorkOrder) {
+                            afterWorkOrders.add(afterWorkOrder);
+                        }
+                    }
+                    restaurant.getTimeSlotManager().restoreSlot(startEpochMinute, slotItems, afterWorkOrders);
+                }
+            }
+        }
+
+        private void readDiscounts(SnapshotInput in) throws IOException {
+            DiscountGrantStore store = DiscountService.getDiscountGrantStore();
+            store.clear();
+            int count = in.getCount();
+            for (int i = 0; i < count; i++) {
+                store.restoreGrant(in.getInt(), in.getInt(), in.getLong());
+            }
+        }
+
+        /**
+         * Publish the menus once the items are read, with the items of the previous versions still ordered.
+         */
+        private void restoreMenus() {
+            Map<Restaurant, Set<Menu>> previousItems = new HashMap<>();
+            for (OrderItem item : items) {
+                previousItems.computeIfAbsent(item.getRestaurant(), key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(item.getMenu());
+            }
+            restaurantMenus.forEach((restaurant, menu) -> restaurant.restoreMenu(menu.version(), menu.items(), previousItems.getOrDefault(restaurant, Set.of())));
+        }
+
+        private List<OrderItem> readItemList(SnapshotInput in) throws IOException {
+            int count = in.getCount();
+            List<OrderItem> itemList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                OrderItem item = itemOrNull(in.getInt());
+                if (item == null) {
+                    throw new IOException("Unknown item in the snapshot");
+                }
+                itemList.add(item);
+            }
+            return itemList;
+        }
+
+        private Menu menu(int index) throws IOException {
+            Menu menu = menuOrNull(index);
+            if (menu == null) {
+                throw new IOException("Unknown menu item " + index + " in the snapshot");
+            }
+            return menu;
+        }
+
+        private Menu menuOrNull(int index) {
+            return (index >= 0 && index < menus.size()) ? menus.get(index) : null;
+        }
+
+        private OrderItem itemOrNull(int index) {
+            return (index >= 0 && index < items.size()) ? items.get(index) : null;
+        }
+
+        private static <T> T resolve(Map<Integer, T> values, int id, String type) throws IOException {
+            T value = values.get(id);
+            if (value == null) {
+                throw new IOException("Unknown " + type + " " + id + " in the snapshot");
+            }
+            return value;
+        }
+    }
+
+    private record RestoredMenu(long version, List<Menu> items) {
+    }
+}
@@ -0,0 +1,174 @@
+package fr.etu.steats.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * This class hands elements over to a background thread, which processes them by batches.
+ * The producers only put the elements in a bounded queue, drained by a single daemon thread.
+ * When the queue is full, a producer waits at most the configured time, then the element is dropped and counted.
+ * It is the queue behind the asynchronous notifications and the asynchronous console output.
+ *
+ * @param <T> the type of the elements
+ */
+public class AsyncBatchQueue<T> {
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<T> queue;
+    private final int batchSize;
+    private final long maxWaitMillis;
+    private final Consumer<List<T>> consumer;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    /**
+     * The elements accepted but not yet processed, used to wait for the queue to be flushed.
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * @param name          the name of the background thread
+     * @param capacity      the maximum number of elements waiting to be processed
+     * @param batchSize     the maximum number of elements given to the consumer at once
+     * @param maxWaitMillis the time a producer waits for a free place when the queue is full, 0 to drop immediately
+     * @param consumer      the processing of a batch, from the background thread. It must handle its own failures.
+     */
+    public AsyncBatchQueue(String name, int capacity, int batchSize, long maxWaitMillis, Consumer<List<T>> consumer) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("The capacity of the queue and the size of a batch must be positive");
+        }
+        if (consumer == null) {
+            throw new IllegalArgumentException("The consumer can't be null");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.consumer = consumer;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queue an element for processing.
+     *
+     * @return false if the element was dropped, because the queue stayed full or the queue is shut down
+     */
+    public boolean submit(T element) {
+        boolean accepted = false;
+        if (running) {
+            pending.incrementAndGet();
+            try {
+                accepted = (maxWaitMillis == 0) ? queue.offer(element) : queue.offer(element, maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!accepted) {
+                pending.decrementAndGet();
+            }
+        }
+        if (accepted) {
+            submitted.increment();
+        } else {
+            dropped.increment();
+        }
+        return accepted;
+    }
+
+    /**
+     * Wait until every accepted element is processed.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0 || !worker.isAlive()) {
+                return pending.get() == 0;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting elements, process the ones already queued and stop the background thread.
+     *
+     * @return false if the queue could not be flushed before the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            worker.join(Math.max(1, unit.toMillis(timeout)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!worker.isAlive()) {
+            // A producer may have passed the running check just before the shutdown
+            List<T> late = new ArrayList<>();
+            queue.drainTo(late);
+            if (!late.isEmpty()) {
+                process(late);
+            }
+        }
+        return !worker.isAlive() && pending.get() == 0;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Stop at once, but still process what is already queued
+                running = false;
+                Thread.currentThread().interrupt();
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                process(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void process(List<T> batch) {
+        int size = batch.size();
+        try {
+            consumer.accept(batch);
+        } catch (RuntimeException e) {
+            // The consumer counts its own failures, the background thread keeps going
+        } finally {
+            pending.addAndGet(-size);
+        }
+    }
+}
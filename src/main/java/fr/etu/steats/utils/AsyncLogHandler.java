@@ -0,0 +1,75 @@
+package fr.etu.steats.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * This class is a log handler writing on a background thread.
+ * The logging threads only queue the records in an {@link AsyncBatchQueue}; its thread formats them by batches
+ * into a buffered writer, flushed after each batch. When the queue is full the record is dropped and counted.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int BATCH_SIZE = 256;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Writer writer;
+    private final AsyncBatchQueue<LogRecord> queue;
+
+    public AsyncLogHandler(OutputStream outputStream, Formatter formatter, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the queue must be positive");
+        }
+        setFormatter(formatter);
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.queue = new AsyncBatchQueue<>("async-log-handler", capacity, BATCH_SIZE, 0, this::write);
+    }
+
+    @Override
+    public void publish(LogRecord logRecord) {
+        if (isLoggable(logRecord)) {
+            queue.submit(logRecord);
+        }
+    }
+
+    /**
+     * Wait until the queued records are written, at most a few seconds.
+     */
+    @Override
+    public void flush() {
+        queue.flush(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        queue.shutdown(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public long getDroppedCount() {
+        return queue.getDroppedCount();
+    }
+
+    public int getQueueSize() {
+        return queue.getQueueSize();
+    }
+
+    private void write(List<LogRecord> batch) {
+        try {
+            for (LogRecord logRecord : batch) {
+                writer.write(getFormatter().format(logRecord));
+            }
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            reportError(e.getMessage(), e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package fr.etu.steats.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+/**
+ * This class reads the CSV files loaded when the application starts.
+ * A file is read at once through a file channel, mapped in memory when it is big, and decoded once.
+ * The lines are then cut in fields without copying them, see {@link CsvRow}.
+ * An error on a line is reported with its line number and the next lines are still loaded.
+ */
+public class CsvLoader {
+    /**
+     * The size above which a file is mapped in memory instead of read in a buffer.
+     */
+    private static final long MAPPING_THRESHOLD = 1 << 20;
+
+    /**
+     * The action run for each non-empty line of a file.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @throws Exception if the line can't be loaded, it is reported and the next lines are loaded
+         */
+        void accept(CsvRow row) throws Exception;
+    }
+
+    private CsvLoader() {
+        throw new IllegalStateException("Utility class cannot be instantiated");
+    }
+
+    public static LoadReport load(String file, RowHandler handler) {
+        return load(file, ',', handler);
+    }
+
+    /**
+     * Call the handler for each non-empty line of the file, and log the errors and the time taken.
+     */
+    public static LoadReport load(String file, char separator, RowHandler handler) {
+        return read(file, separator).load(handler);
+    }
+
+    public static CsvFile read(String file) {
+        return read(file, ',');
+    }
+
+    /**
+     * Read and decode the file without handling its lines yet, see {@link CsvFile#load(RowHandler)}.
+     * Several files can be read in parallel, then loaded one after the other in a fixed order.
+     */
+    public static CsvFile read(String file, char separator) {
+        LoadReport.Builder report = new LoadReport.Builder(file);
+        CharBuffer content = null;
+        try {
+            content = readContent(Path.of(file), report);
+        } catch (NoSuchFileException e) {
+            report.addError(0, "The file " + file + " was not found.");
+        } catch (IOException e) {
+            report.addError(0, "Error while reading the file " + file + ": " + e.getMessage());
+        }
+        return new CsvFile(file, separator, report, content);
+    }
+
+    /**
+     * A CSV file read and decoded, whose lines are not handled yet.
+     */
+    public static final class CsvFile {
+        private final String file;
+        private final char separator;
+        private final LoadReport.Builder report;
+        /**
+         * The content of the file, null if it could not be read.
+         */
+        private final CharBuffer content;
+
+        private CsvFile(String file, char separator, LoadReport.Builder report, CharBuffer content) {
+            this.file = file;
+            this.separator = separator;
+            this.report = report;
+            this.content = content;
+        }
+
+        /**
+         * Call the handler for each non-empty line of the file, and log the errors and the time taken since the file was read.
+         * It must be called once.
+         */
+        public LoadReport load(RowHandler handler) {
+            if (content != null) {
+                handleLines(handler);
+            }
+            LoadReport result = report.build();
+            for (LoadReport.LineError error : result.errors()) {
+                LoggerUtils.log(Level.SEVERE, () -> file + ((error.lineNumber() > 0) ? " line " + error.lineNumber() : "") + ": " + error.message());
+            }
+            LoggerUtils.log(Level.FINE, result::toString);
+            return result;
+        }
+
+        private void handleLines(RowHandler handler) {
+            CsvRow row = new CsvRow(content, separator, report);
+            int lineNumber = 0;
+            int lineStart = 0;
+            int length = content.limit();
+            while (lineStart < length) {
+                lineNumber++;
+                int lineEnd = lineStart;
+                while (lineEnd < length && content.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && content.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart) {
+                    report.addRow();
+                    row.reset(lineNumber, lineStart, lineEnd);
+                    accept(handler, row, report);
+                }
+                lineStart = next;
+            }
+        }
+    }
+
+    private static void accept(RowHandler handler, CsvRow row, LoadReport.Builder report) {
+        try {
+            handler.accept(row);
+        } catch (Exception e) {
+            report.addError(row.getLineNumber(), (e.getMessage() != null) ? e.getMessage() : e.toString());
+        }
+    }
+
+    private static CharBuffer readContent(Path path, LoadReport.Builder report) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            report.setByteCount(size);
+            ByteBuffer bytes;
+            if (size > MAPPING_THRESHOLD) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0) {
+                        break;
+                    }
+                }
+                bytes.flip();
+            }
+            return StandardCharsets.UTF_8.decode(bytes);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package fr.etu.steats.utils;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * This class is one line of a CSV file read by {@link CsvLoader}.
+ * The row only keeps the offsets of its fields in the content of the file, a field is copied in a String when it is read.
+ * A row is reused for the next line, it must not be kept by the caller.
+ */
+public final class CsvRow {
+    private final CharBuffer content;
+    private final char separator;
+    private final LoadReport.Builder report;
+    private int lineNumber;
+    private int lineStart;
+    private int lineEnd;
+    /**
+     * The start of each field, and the end of the last one, as positions in the content.
+     */
+    private int[] bounds = new int[8];
+    private int size;
+
+    CsvRow(CharBuffer content, char separator, LoadReport.Builder report) {
+        this.content = content;
+        this.separator = separator;
+        this.report = report;
+    }
+
+    void reset(int lineNumber, int start, int end) {
+        this.lineNumber = lineNumber;
+        this.lineStart = start;
+        this.lineEnd = end;
+        this.size = 0;
+        bounds[0] = start;
+        for (int i = start; i < end; i++) {
+            if (content.get(i) == separator) {
+                addBound(i + 1);
+            }
+        }
+        addBound(end + 1);
+    }
+
+    private void addBound(int position) {
+        if (size + 1 >= bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[++size] = position;
+    }
+
+    /**
+     * @return the number of the line in the file, from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the number of fields of the line
+     */
+    public int size() {
+        return size;
+    }
+
+    public String get(int index) {
+        checkIndex(index);
+        return content.subSequence(bounds[index], bounds[index + 1] - 1).toString();
+    }
+
+    /**
+     * @return the field without the spaces around it, parsed as a double
+     */
+    public double getDouble(int index) {
+        return Double.parseDouble(get(index).trim());
+    }
+
+    /**
+     * @return the whole line, separators included
+     */
+    public String getLine() {
+        return content.subSequence(lineStart, lineEnd).toString();
+    }
+
+    /**
+     * Report a problem on this line which doesn't prevent loading the rest of it.
+     */
+    public void reportError(String message) {
+        report.addError(lineNumber, message);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("The line " + lineNumber + " has " + size + " fields, no field " + index);
+        }
+    }
+}
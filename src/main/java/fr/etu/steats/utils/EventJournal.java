@@ -0,0 +1,507 @@
+package fr.etu.steats.utils;
+
+import fr.etu.steats.enums.EJournalDurability;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only journal of binary records, split in segment files of a bounded size.
+ * <p>
+ * A record is written as the length of its payload, the CRC32 of the rest of the record, its sequence number,
+ * its type and its payload. A segment file is named after the sequence of its first record and a record never
+ * spans two segments, so the segments entirely covered by a snapshot can be deleted.
+ * <p>
+ * The records are appended to a buffer in memory and written by batches. With {@link EJournalDurability#SYNC},
+ * an append waits until its record is forced to the disk: the first waiting thread writes the records of every
+ * thread that appended meanwhile, so concurrent appends share one fsync. With {@link EJournalDurability#ASYNC},
+ * an append returns at once and a background thread forces the records periodically, a crash loses at most the
+ * records of the last period. {@link #appendDeferred(byte, byte[])} appends without waiting even with SYNC, the caller
+ * waits later with {@link #awaitDurable(long)}, for example once it released its own locks.
+ * <p>
+ * A record cut by a crash at the end of the last segment is removed when the journal is opened.
+ * Once a write failed, every following append fails, the journal must be opened again.
+ */
+public class EventJournal implements Closeable {
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Byte.BYTES;
+    private static final int CHECKED_OFFSET = 2 * Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final EJournalDurability durability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    /**
+     * The segment files by the sequence of their first record.
+     */
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService flusher;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+    /**
+     * The last segment and its length, only used by the thread writing a batch.
+     */
+    private FileChannel segment;
+    private long segmentLength;
+
+    private EventJournal(Path directory, long segmentSize, EJournalDurability durability, long flushIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.durability = durability;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    LoggerUtils.log(Level.WARNING, () -> "The file " + file + " is not a segment of the journal, it is ignored");
+                }
+            }
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        if (last != null) {
+            segment = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            SegmentEnd end = readSegment(segment, last.getKey(), Long.MAX_VALUE, null);
+            if (end.length() < segment.size()) {
+                LoggerUtils.log(Level.WARNING, () -> "The incomplete record at the end of " + last.getValue() + " is removed");
+                segment.truncate(end.length());
+                segment.force(true);
+            }
+            segment.position(end.length());
+            segmentLength = end.length();
+            lastSequence = end.lastSequence();
+        }
+        durableSequence = lastSequence;
+
+        if (durability == EJournalDurability.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Open the journal of the directory, creating it if needed. The next records follow the last one of the directory.
+     *
+     * @param segmentSize         the size in bytes above which a new segment is started
+     * @param flushIntervalMillis the time between two writes with {@link EJournalDurability#ASYNC}
+     */
+    public static EventJournal open(Path directory, long segmentSize, EJournalDurability durability, long flushIntervalMillis) throws IOException {
+        if (directory == null || durability == null) {
+            throw new IllegalArgumentException("The directory and the durability can't be null");
+        }
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("The segments must be bigger than a record header");
+        }
+        if (durability == EJournalDurability.ASYNC && flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("The flush interval must be positive");
+        }
+        Files.createDirectories(directory);
+        return new EventJournal(directory, segmentSize, durability, flushIntervalMillis);
+    }
+
+    public static EventJournal open(Path directory, EJournalDurability durability) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, durability, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public EJournalDurability getDurability() {
+        return durability;
+    }
+
+    /**
+     * @return the sequence of the last record appended, 0 if the journal is empty
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence of the last record forced to the disk
+     */
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record, on the disk when the method returns with {@link EJournalDurability#SYNC}.
+     *
+     * @param type    the type of the record, given back by {@link #replay(long, RecordVisitor)}
+     * @param payload the content of the record
+     * @return the sequence of the record
+     * @throws IOException if the record can't be written, or if a previous write failed
+     */
+    public long append(byte type, byte[] payload) throws IOException {
+        lock.lock();
+        try {
+            long sequence = appendPending(type, payload);
+            if (durability == EJournalDurability.SYNC) {
+                awaitDurableLocked(sequence);
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record without waiting for the disk, whatever the durability.
+     *
+     * @return the sequence of the record, to give to {@link #awaitDurable(long)}
+     * @throws IOException if a previous write failed
+     */
+    public long appendDeferred(byte type, byte[] payload) throws IOException {
+        lock.lock();
+        try {
+            return appendPending(type, payload);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until a record is on the disk with {@link EJournalDurability#SYNC}. With ASYNC the background thread writes it.
+     *
+     * @throws IOException if the record can't be written
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        if (durability != EJournalDurability.SYNC) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (durableSequence < sequence) {
+                checkWritable();
+                awaitDurableLocked(sequence);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Force every record appended so far to the disk.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkWritable();
+            awaitDurableLocked(lastSequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read the records written to the disk after a sequence, in order.
+     * The records still in memory are not read, {@link #flush()} first to read every record.
+     *
+     * @return the number of records given to the visitor
+     * @throws IOException if a segment can't be read, is corrupted, or if records are missing between two segments
+     */
+    public long replay(long afterSequence, RecordVisitor visitor) throws IOException {
+        List<Map.Entry<Long, Path>> files = new ArrayList<>(segments.entrySet());
+        long count = 0;
+        long expectedSequence = -1;
+        for (int i = 0; i < files.size(); i++) {
+            long firstSequence = files.get(i).getKey();
+            boolean lastSegment = i == files.size() - 1;
+            if (!lastSegment && files.get(i + 1).getKey() - 1 <= afterSequence) {
+                continue;
+            }
+            if (expectedSequence >= 0 && firstSequence != expectedSequence) {
+                throw new IOException("The records " + expectedSequence + " to " + (firstSequence - 1) + " are missing from the journal");
+            }
+            CountingVisitor counter = new CountingVisitor(visitor);
+            try (FileChannel channel = FileChannel.open(files.get(i).getValue(), StandardOpenOption.READ)) {
+                SegmentEnd end = readSegment(channel, firstSequence, afterSequence, counter);
+                if (!lastSegment && end.length() < channel.size()) {
+                    throw new IOException("The segment " + files.get(i).getValue() + " is corrupted");
+                }
+                expectedSequence = end.lastSequence() + 1;
+            }
+            count += counter.count;
+        }
+        return count;
+    }
+
+    /**
+     * Delete the segments whose records all have a sequence lower or equal to the given one, the last segment is kept.
+     *
+     * @return the number of segments deleted
+     */
+    public int deleteSegmentsUpTo(long sequence) throws IOException {
+        int deleted = 0;
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            Long nextFirstSequence = segments.higherKey(entry.getKey());
+            if (nextFirstSequence == null || nextFirstSequence - 1 > sequence) {
+                break;
+            }
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * @return the number of segment files
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Force the records appended so far to the disk and close the files, the next appends fail.
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            try {
+                if (failure == null) {
+                    awaitDurableLocked(lastSequence);
+                }
+            } finally {
+                closed = true;
+                if (segment != null) {
+                    segment.close();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // The failure is logged once, when the write fails
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (closed) {
+            throw new IOException("The journal is closed");
+        }
+        if (failure != null) {
+            throw new IOException("A previous write to the journal failed", failure);
+        }
+    }
+
+    /**
+     * Add a record to the pending ones. The lock must be held.
+     */
+    private long appendPending(byte type, byte[] payload) throws IOException {
+        checkWritable();
+        long sequence = ++lastSequence;
+        ensureCapacity(RECORD_HEADER_SIZE + payload.length);
+        int start = pending.position();
+        pending.putInt(payload.length).putInt(0).putLong(sequence).put(type).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(pending.array(), start + CHECKED_OFFSET, pending.position() - start - CHECKED_OFFSET);
+        pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+        return sequence;
+    }
+
+    /**
+     * Wait until the record is on the disk, writing the pending records if no other thread is doing it.
+     * The lock must be held.
+     */
+    private void awaitDurableLocked(long sequence) throws IOException {
+        while (durableSequence < sequence) {
+            if (failure != null) {
+                throw new IOException("A previous write to the journal failed", failure);
+            }
+            if (flushing) {
+                flushed.awaitUninterruptibly();
+            } else {
+                writePending();
+            }
+        }
+    }
+
+    /**
+     * Write and force the pending records without holding the lock, so the other threads keep appending meanwhile.
+     */
+    private void writePending() throws IOException {
+        ByteBuffer batch = pending.flip();
+        pending = spare.clear();
+        long firstSequence = durableSequence + 1;
+        long batchLastSequence = lastSequence;
+        flushing = true;
+        IOException error = null;
+        lock.unlock();
+        try {
+            write(batch, firstSequence);
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        } finally {
+            lock.lock();
+        }
+        flushing = false;
+        spare = batch.clear();
+        if (error == null) {
+            durableSequence = batchLastSequence;
+        } else {
+            failure = error;
+            IOException loggedError = error;
+            LoggerUtils.log(Level.SEVERE, () -> "The journal " + directory + " can't be written: " + loggedError.getMessage());
+        }
+        flushed.signalAll();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void write(ByteBuffer batch, long firstSequence) throws IOException {
+        if (segment == null || (segmentLength > 0 && segmentLength + batch.remaining() > segmentSize)) {
+            if (segment != null) {
+                segment.close();
+            }
+            Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+            segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            segments.put(firstSequence, file);
+            segmentLength = 0;
+        }
+        while (batch.hasRemaining()) {
+            segmentLength += segment.write(batch);
+        }
+        segment.force(false);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            long capacity = Math.max((long) pending.capacity() * 2, (long) pending.position() + bytes);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The records waiting to be written can't take more than 2 GiB");
+            }
+            ByteBuffer bigger = ByteBuffer.allocate((int) capacity);
+            bigger.put(pending.flip());
+            pending = bigger;
+        }
+    }
+
+    /**
+     * Read the valid records of a segment, stopping at the first invalid one.
+     *
+     * @param visitor given the records after the sequence, may be null
+     * @return the length of the valid records and the sequence of the last one
+     */
+    private static SegmentEnd readSegment(FileChannel channel, long firstSequence, long afterSequence, RecordVisitor visitor) throws IOException {
+        MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        long expectedSequence = firstSequence;
+        int validLength = 0;
+        CRC32 crc = new CRC32();
+        while (content.remaining() >= RECORD_HEADER_SIZE) {
+            int start = content.position();
+            int length = content.getInt();
+            int checksum = content.getInt();
+            if (length < 0 || length > content.remaining() - Long.BYTES - Byte.BYTES) {
+                break;
+            }
+            crc.reset();
+            crc.update(content.duplicate().position(start + CHECKED_OFFSET).limit(start + RECORD_HEADER_SIZE + length));
+            long sequence = content.getLong();
+            if ((int) crc.getValue() != checksum || sequence != expectedSequence) {
+                break;
+            }
+            byte type = content.get();
+            ByteBuffer payload = content.slice(content.position(), length).asReadOnlyBuffer();
+            content.position(content.position() + length);
+            validLength = content.position();
+            if (visitor != null && sequence > afterSequence) {
+                visitor.accept(sequence, type, payload);
+            }
+            expectedSequence++;
+        }
+        return new SegmentEnd(validLength, expectedSequence - 1);
+    }
+
+    /**
+     * Callback given each record read back from the journal.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void accept(long sequence, byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private record SegmentEnd(long length, long lastSequence) {
+    }
+
+    private static class CountingVisitor implements RecordVisitor {
+        private final RecordVisitor visitor;
+        private long count;
+
+        private CountingVisitor(RecordVisitor visitor) {
+            this.visitor = visitor;
+        }
+
+        @Override
+        public void accept(long sequence, byte type, ByteBuffer payload) throws IOException {
+            count++;
+            visitor.accept(sequence, type, payload);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package fr.etu.steats.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This record describes the load of a CSV file: the number of lines read, the errors and the time taken.
+ * Only the first {@value #MAX_KEPT_ERRORS} errors are kept, the count covers all of them.
+ *
+ * @param file         the path of the file
+ * @param rowCount     the number of non-empty lines read
+ * @param errorCount   the number of errors reported
+ * @param errors       the first errors reported
+ * @param byteCount    the size of the file
+ * @param elapsedNanos the time taken to read and load the file
+ */
+public record LoadReport(String file, int rowCount, int errorCount, List<LineError> errors, long byteCount, long elapsedNanos) {
+    public static final int MAX_KEPT_ERRORS = 100;
+
+    /**
+     * @param lineNumber the number of the line in the file from 1, 0 if the error is about the whole file
+     */
+    public record LineError(int lineNumber, String message) {
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows, %d errors, %d bytes in %.1f ms", file, rowCount, errorCount, byteCount, getElapsedMillis());
+    }
+
+    static final class Builder {
+        private final String file;
+        private final long start = System.nanoTime();
+        private final List<LineError> errors = new ArrayList<>();
+        private int errorCount;
+        private int rowCount;
+        private long byteCount;
+
+        Builder(String file) {
+            this.file = file;
+        }
+
+        void addRow() {
+            rowCount++;
+        }
+
+        void setByteCount(long byteCount) {
+            this.byteCount = byteCount;
+        }
+
+        void addError(int lineNumber, String message) {
+            errorCount++;
+            if (errors.size() < MAX_KEPT_ERRORS) {
+                errors.add(new LineError(lineNumber, message));
+            }
+        }
+
+        LoadReport build() {
+            return new LoadReport(file, rowCount, errorCount, List.copyOf(errors), byteCount, System.nanoTime() - start);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package fr.etu.steats.utils;
 
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -9,17 +12,64 @@ import static fr.etu.steats.service.NotificationService.RESET;
 
 /**
  * This class is used to format the log with the color of the user.
+ * The lines are built in a reusable builder of the formatting thread, and the timestamp text is reused within a second.
  */
 public class LogFormatter extends Formatter {
+    private static final String TEXT_RED = "\u001B[31m";
+    private static final int MAX_RETAINED_BUILDER_CAPACITY = 8192;
+    /**
+     * The same pattern as {@link java.util.Date#toString()}.
+     */
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, "");
 
     @Override
     public String format(LogRecord logRecord) {
+        StringBuilder builder = BUILDER.get();
+        if (builder.capacity() > MAX_RETAINED_BUILDER_CAPACITY) {
+            builder = new StringBuilder(256);
+            BUILDER.set(builder);
+        }
+        builder.setLength(0);
+
+        String color = null;
+        String levelName = logRecord.getLevel().toString();
         if (logRecord.getLevel() == Level.SEVERE) {
-            return "\u001B[31m" + new Date(logRecord.getMillis()) + " [" + logRecord.getLevel() + "] : " + logRecord.getMessage() + RESET + "\n";
+            color = TEXT_RED;
         } else if (logRecord.getLevel() instanceof UserLevel logLevel) {
-            return logLevel.getColor() + new Date(logRecord.getMillis()) + " [" + logLevel.getName() + "] : " + logRecord.getMessage() + RESET + "\n";
-        } else {
-            return new Date(logRecord.getMillis()) + " [" + logRecord.getLevel() + "] : " + logRecord.getMessage() + "\n";
+            color = logLevel.getColor();
+            levelName = logLevel.getName();
+        }
+
+        if (color != null) {
+            builder.append(color);
+        }
+        builder.append(timestamp(logRecord.getMillis())).append(" [").append(levelName).append("] : ").append(logRecord.getMessage());
+        if (color != null) {
+            builder.append(RESET);
+        }
+        return builder.append('\n').toString();
+    }
+
+    private String timestamp(long millis) {
+        long second = Math.floorDiv(millis, 1000L);
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.second != second) {
+            cached = new CachedTimestamp(second, TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(second).atZone(ZoneId.systemDefault())));
+            cachedTimestamp = cached;
+        }
+        return cached.text;
+    }
+
+    private static final class CachedTimestamp {
+        private final long second;
+        private final String text;
+
+        private CachedTimestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,9 @@
 package fr.etu.steats.utils;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Supplier;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -7,23 +11,63 @@ import java.util.logging.StreamHandler;
 
 /**
  * This class is used to log using the java.util.logging.Logger.
+ * The logger is configured once, when the class is loaded, so a log call only goes through the handlers.
  */
 public class LoggerUtils {
     protected static final Logger LOGGER = Logger.getLogger(LoggerUtils.class.getName());
+    private static Handler consoleHandler = new StreamHandler(consoleStream(), new LogFormatter());
+
+    static {
+        LOGGER.setLevel(Level.ALL);
+        LOGGER.setUseParentHandlers(false);
+        LOGGER.addHandler(consoleHandler);
+    }
 
     LoggerUtils() {
         throw new IllegalStateException("Utility class cannot be instantiated");
     }
 
     public static void log(Level level, String message) {
-        if (LOGGER.getHandlers().length == 0) {
-            LOGGER.addHandler(new StreamHandler(System.out, new LogFormatter()));
-        }
-        LOGGER.setLevel(Level.ALL);
-        LOGGER.setUseParentHandlers(false);
         LOGGER.log(level, message);
     }
 
+    /**
+     * Log a message built only if the level is logged.
+     *
+     * @param level   the level of the message
+     * @param message the supplier of the message, not called below the active level
+     */
+    public static void log(Level level, Supplier<String> message) {
+        LOGGER.log(level, message);
+    }
+
+    public static boolean isLoggable(Level level) {
+        return LOGGER.isLoggable(level);
+    }
+
+    /**
+     * Change the active level, the messages below are skipped.
+     */
+    public static void setLevel(Level level) {
+        LOGGER.setLevel(level);
+    }
+
+    /**
+     * Write the console output through a buffered handler on a background thread, so log calls don't wait for the console.
+     *
+     * @param capacity the maximum number of records waiting to be written
+     */
+    public static synchronized void enableAsynchronousOutput(int capacity) {
+        replaceConsoleHandler(new AsyncLogHandler(consoleStream(), new LogFormatter(), capacity));
+    }
+
+    /**
+     * Write the console output on the calling thread again, after the pending records.
+     */
+    public static synchronized void disableAsynchronousOutput() {
+        replaceConsoleHandler(new StreamHandler(consoleStream(), new LogFormatter()));
+    }
+
     public static void setHandler(Handler handler) {
         LOGGER.addHandler(handler);
     }
@@ -31,6 +75,28 @@ public class LoggerUtils {
     public static void removeHandler(Handler handler) {
         LOGGER.removeHandler(handler);
     }
-}
 
+    private static void replaceConsoleHandler(Handler handler) {
+        LOGGER.removeHandler(consoleHandler);
+        consoleHandler.close();
+        consoleHandler = handler;
+        LOGGER.addHandler(handler);
+    }
+
+    /**
+     * The standard output, protected from the handlers closing it when they are replaced.
+     */
+    private static OutputStream consoleStream() {
+        return new FilterOutputStream(System.out) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
 
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
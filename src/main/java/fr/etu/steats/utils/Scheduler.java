@@ -1,8 +1,50 @@
 package fr.etu.steats.utils;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Scheduler {
+    private static final int TIMER_THREADS = 2;
+    /**
+     * The timer shared by every scheduler. A pending delay is only a task in its queue,
+     * so thousands of preparations and deliveries in progress only need a couple of threads.
+     */
+    private static final ScheduledExecutorService SHARED_TIMER = createTimer();
+    /**
+     * The threads running the work chained on the delays, which may wait for locks or for the disk.
+     * Idle threads are released after a minute, so the pool only grows while that work is blocked.
+     */
+    private static final ExecutorService SHARED_WORKERS = createWorkers();
+
+    private final ScheduledExecutorService timer;
+    private final Executor workers;
+
+    public Scheduler() {
+        this(SHARED_TIMER);
+    }
+
+    public Scheduler(ScheduledExecutorService timer) {
+        this(timer, SHARED_WORKERS);
+    }
+
+    public Scheduler(ScheduledExecutorService timer, Executor workers) {
+        if (timer == null) {
+            throw new IllegalArgumentException("The timer can't be null");
+        }
+        if (workers == null) {
+            throw new IllegalArgumentException("The workers can't be null");
+        }
+        this.timer = timer;
+        this.workers = workers;
+    }
 
     // This method is used to simulate a 10 minutes wait.
     public void waitTenMinutes() throws InterruptedException {
@@ -12,4 +54,58 @@ public class Scheduler {
             throw new InterruptedException("The wait was interrupted.");
         }
     }
+
+    /**
+     * Simulate a 10 minutes wait without blocking the caller.
+     *
+     * @return a future completed once the 10 minutes are over
+     */
+    public CompletableFuture<Void> afterTenMinutes() {
+        return after(10, TimeUnit.MINUTES);
+    }
+
+    /**
+     * The returned future is completed by a timer thread, so the stages chained on it must stay short.
+     * Cancelling the future removes the pending task from the timer.
+     *
+     * @return a future completed once the delay is over
+     */
+    public CompletableFuture<Void> after(long delay, TimeUnit unit) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ScheduledFuture<?> task = timer.schedule(() -> future.complete(null), Math.max(0, delay), unit);
+        future.whenComplete((result, exception) -> {
+            if (future.isCancelled()) {
+                task.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * The executor to run the work chained on {@link #after(long, TimeUnit)}, so the timer threads only complete the futures.
+     */
+    public Executor getWorkExecutor() {
+        return workers;
+    }
+
+    private static ScheduledExecutorService createTimer() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-timer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(TIMER_THREADS, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static ExecutorService createWorkers() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
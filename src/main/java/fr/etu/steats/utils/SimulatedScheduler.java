@@ -0,0 +1,111 @@
+package fr.etu.steats.utils;
+
+import org.joda.time.DateTimeUtils;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a scheduler running on a virtual time, for discrete-event simulations.
+ * The delays are queued as events and nothing happens until the time is moved forward,
+ * then the events are run in order of date, instantly. Installed as the clock of the application with
+ * {@link fr.etu.steats.service.ClockService#setClock(DateTimeUtils.MillisProvider)}, a whole day of activity
+ * is replayed in a fraction of a second and always gives the same result.
+ */
+public class SimulatedScheduler extends Scheduler implements DateTimeUtils.MillisProvider {
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long currentMillis;
+    private long nextSequence;
+
+    public SimulatedScheduler(long startMillis) {
+        this.currentMillis = startMillis;
+    }
+
+    @Override
+    public synchronized long getMillis() {
+        return currentMillis;
+    }
+
+    /**
+     * Move the time 10 minutes forward, running the events due meanwhile.
+     */
+    @Override
+    public void waitTenMinutes() {
+        advance(10, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public CompletableFuture<Void> after(long delay, TimeUnit unit) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            events.add(new Event(currentMillis + unit.toMillis(Math.max(0, delay)), nextSequence++, future));
+        }
+        return future;
+    }
+
+    /**
+     * The work chained on the events runs on the thread moving the time forward, so a run always gives the same result.
+     */
+    @Override
+    public Executor getWorkExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Run an action once the delay is over, in virtual time.
+     */
+    public CompletableFuture<Void> schedule(long delay, TimeUnit unit, Runnable action) {
+        return after(delay, unit).thenRun(action);
+    }
+
+    /**
+     * Move the time forward, running in order every event due before the new time.
+     */
+    public void advance(long duration, TimeUnit unit) {
+        long end;
+        synchronized (this) {
+            end = currentMillis + unit.toMillis(Math.max(0, duration));
+        }
+        runEventsUntil(end);
+        synchronized (this) {
+            currentMillis = Math.max(currentMillis, end);
+        }
+    }
+
+    /**
+     * Run every event, including the ones scheduled meanwhile, moving the time to the date of the last one.
+     */
+    public void runUntilIdle() {
+        runEventsUntil(Long.MAX_VALUE);
+    }
+
+    public synchronized int getPendingEventCount() {
+        return (int) events.stream().filter(event -> !event.future.isDone()).count();
+    }
+
+    private void runEventsUntil(long end) {
+        while (true) {
+            Event event;
+            synchronized (this) {
+                event = events.peek();
+                if (event == null || event.dueMillis > end) {
+                    return;
+                }
+                events.poll();
+                currentMillis = Math.max(currentMillis, event.dueMillis);
+            }
+            // Outside the lock, the stages chained on the event may schedule new ones
+            event.future.complete(null);
+        }
+    }
+
+    private record Event(long dueMillis, long sequence, CompletableFuture<Void> future) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int comparison = Long.compare(dueMillis, other.dueMillis);
+            return (comparison != 0) ? comparison : Long.compare(sequence, other.sequence);
+        }
+    }
+}
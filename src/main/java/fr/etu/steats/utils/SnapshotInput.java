@@ -0,0 +1,163 @@
+package fr.etu.steats.utils;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads a binary snapshot file written by {@link SnapshotOutput}.
+ * The file is mapped in memory, so it is read by the operating system as the sections are decoded,
+ * without copying it in the heap first. The CRC32 is checked when the file is opened.
+ */
+public class SnapshotInput {
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + 2 * Long.BYTES;
+    private static final int TRAILER_SIZE = Byte.BYTES + Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final short formatVersion;
+    private final long sequence;
+    private final long createdAtMillis;
+    private int sectionEnd = -1;
+
+    private SnapshotInput(ByteBuffer buffer, short formatVersion, long sequence, long createdAtMillis) {
+        this.buffer = buffer;
+        this.formatVersion = formatVersion;
+        this.sequence = sequence;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    /**
+     * Map the file in memory and check its CRC32.
+     *
+     * @throws IOException if the file can't be read, is not a snapshot or is corrupted
+     */
+    public static SnapshotInput open(Path file) throws IOException {
+        MappedByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (content.limit() < HEADER_SIZE + TRAILER_SIZE || content.getInt() != SnapshotOutput.MAGIC) {
+            throw new IOException("The file " + file + " is not a snapshot");
+        }
+        SnapshotInput input = new SnapshotInput(content, content.getShort(), content.getLong(), content.getLong());
+        int crcPosition = content.limit() - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate().position(0).limit(crcPosition));
+        if (content.get(crcPosition - 1) != SnapshotOutput.END_TAG || (int) crc.getValue() != content.getInt(crcPosition)) {
+            throw new IOException("The snapshot " + file + " is corrupted");
+        }
+        content.limit(crcPosition - 1);
+        return input;
+    }
+
+    /**
+     * Read a record written by {@link SnapshotOutput#SnapshotOutput()}, without header nor sections.
+     */
+    public static SnapshotInput wrap(ByteBuffer content) {
+        return new SnapshotInput(content, (short) 0, 0, 0);
+    }
+
+    public short getFormatVersion() {
+        return formatVersion;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * Skip what is left of the current section and start the next one.
+     *
+     * @return the tag of the next section, or {@link SnapshotOutput#END_TAG} at the end of the file
+     */
+    public byte nextSection() throws IOException {
+        if (sectionEnd >= 0) {
+            buffer.position(sectionEnd);
+            sectionEnd = -1;
+        }
+        if (!buffer.hasRemaining()) {
+            return SnapshotOutput.END_TAG;
+        }
+        byte tag = buffer.get();
+        int length = getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("The section " + tag + " is truncated");
+        }
+        sectionEnd = buffer.position() + length;
+        return tag;
+    }
+
+    public byte getByte() throws IOException {
+        try {
+            return buffer.get();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public boolean getBoolean() throws IOException {
+        return getByte() != 0;
+    }
+
+    public int getInt() throws IOException {
+        try {
+            return buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public long getLong() throws IOException {
+        try {
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public double getDouble() throws IOException {
+        try {
+            return buffer.getDouble();
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    public String getString() throws IOException {
+        int length = getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw truncated();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a count written before a list, checked against the bytes left so a corrupted count can't allocate too much.
+     */
+    public int getCount() throws IOException {
+        int count = getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IOException("Invalid count " + count + " in the snapshot");
+        }
+        return count;
+    }
+
+    private IOException truncated() {
+        return new IOException("The snapshot is truncated");
+    }
+}
@@ -0,0 +1,158 @@
+package fr.etu.steats.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This class builds a binary snapshot file, read back with {@link SnapshotInput}.
+ * <p>
+ * The layout is: a header ({@value #MAGIC} magic number, format version, sequence number, creation time), then
+ * sections made of a tag byte, a length in bytes and the content, then the {@link #END_TAG} and the CRC32 of
+ * everything before it. A reader skips the sections it doesn't know thanks to their length.
+ * <p>
+ * The strings are written as their length in bytes followed by their UTF-8 bytes, -1 for null.
+ */
+public class SnapshotOutput {
+    public static final int MAGIC = 0x53544553;
+    public static final byte END_TAG = 0;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int RECORD_INITIAL_CAPACITY = 256;
+
+    private ByteBuffer buffer;
+    private int sectionStart = -1;
+
+    public SnapshotOutput(short formatVersion, long sequence, long createdAtMillis) {
+        buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+        buffer.putInt(MAGIC);
+        buffer.putShort(formatVersion);
+        buffer.putLong(sequence);
+        buffer.putLong(createdAtMillis);
+    }
+
+    /**
+     * Build a record without header nor sections, for example the payload of a journal record, read back with
+     * {@link SnapshotInput#wrap(ByteBuffer)}.
+     */
+    public SnapshotOutput() {
+        buffer = ByteBuffer.allocate(RECORD_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Start a section, its length is written once it is ended.
+     */
+    public void beginSection(byte tag) {
+        if (tag == END_TAG) {
+            throw new IllegalArgumentException("The tag " + END_TAG + " is reserved for the end of the file");
+        }
+        if (sectionStart >= 0) {
+            throw new IllegalStateException("The previous section is not ended");
+        }
+        putByte(tag);
+        sectionStart = buffer.position();
+        putInt(0);
+    }
+
+    public void endSection() {
+        if (sectionStart < 0) {
+            throw new IllegalStateException("No section is started");
+        }
+        buffer.putInt(sectionStart, buffer.position() - sectionStart - Integer.BYTES);
+        sectionStart = -1;
+    }
+
+    public void putByte(int value) {
+        ensureCapacity(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    public void putBoolean(boolean value) {
+        putByte(value ? 1 : 0);
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void putDouble(double value) {
+        ensureCapacity(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * @return a copy of the bytes written so far
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Write the snapshot to a temporary file next to the target, then move it over the target.
+     * A crash while writing leaves the previous snapshot untouched.
+     *
+     * @return the size of the file
+     */
+    public long writeTo(Path file) throws IOException {
+        if (sectionStart >= 0) {
+            throw new IllegalStateException("The last section is not ended");
+        }
+        putByte(END_TAG);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        putInt((int) crc.getValue());
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer content = buffer.duplicate().flip();
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return buffer.position();
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() < bytes) {
+            long capacity = Math.max((long) buffer.capacity() * 2, (long) buffer.position() + bytes);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The snapshot can't be bigger than 2 GiB");
+            }
+            ByteBuffer bigger = ByteBuffer.allocate((int) capacity);
+            bigger.put(buffer.flip());
+            buffer = bigger;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package fr.etu.steats.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is a fixed pool of locks shared by an unbounded number of keys.
+ * Two keys falling in the same stripe share a lock, so the memory stays bounded while unrelated keys rarely contend.
+ * Several stripes are always acquired in ascending stripe order, which prevents deadlocks between callers.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param numberOfStripes the number of locks, rounded up to the next power of two
+     */
+    public StripedLock(int numberOfStripes) {
+        if (numberOfStripes <= 0) {
+            throw new IllegalArgumentException("The number of stripes must be positive");
+        }
+        int size = Integer.highestOneBit(numberOfStripes - 1) << 1;
+        this.stripes = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int getNumberOfStripes() {
+        return stripes.length;
+    }
+
+    public Lock getLock(int key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    /**
+     * Acquire the locks of all the given keys, each stripe once and in ascending stripe order.
+     *
+     * @param keys the keys to lock
+     * @return the acquired locks, to give back to {@link #unlockAll(List)}
+     */
+    public List<Lock> lockAll(Iterable<Integer> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (int key : keys) {
+            indexes.add(stripeIndex(key));
+        }
+        List<Lock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    /**
+     * Release locks in the reverse order of their acquisition.
+     */
+    public static void unlockAll(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private int stripeIndex(int key) {
+        // Spread the high bits so that sequential ids don't all land in neighbouring stripes only
+        int hash = key ^ (key >>> 16);
+        return hash & (stripes.length - 1);
+    }
+}
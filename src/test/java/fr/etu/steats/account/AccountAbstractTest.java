@@ -25,7 +25,7 @@ class AccountAbstractTest {
     void testConstructor(AccountAbstract account, String firstName, String lastName, String password) {
         assertEquals(firstName.toLowerCase(), account.getFirstName());
         assertEquals(lastName.toLowerCase(), account.getLastName());
-        assertEquals(password.toLowerCase(), account.getPassword());
+        assertNotEquals(password, account.getPasswordHash());
         assertEquals(firstName.toLowerCase().substring(0, 1).toUpperCase() + firstName.toLowerCase().substring(1) + " " + lastName.toUpperCase(), account.getFullName());
     }
 
@@ -49,9 +49,9 @@ class AccountAbstractTest {
 
     @ParameterizedTest
     @MethodSource("provideAllAccountTypes")
-    void testSetPassword(AccountAbstract account) {
+    void testSetPassword(AccountAbstract account) throws BadPasswordException {
         account.setPassword("newPassword");
-        assertEquals("newPassword", account.getPassword());
+        assertTrue(account.checkPassword("newPassword"));
     }
 
     @ParameterizedTest
@@ -82,7 +82,13 @@ class AccountAbstractTest {
 
     @Test
     void testEquals_SameValues() {
-        assertEquals(new CustomerAccount("John", "Doe", "password123"), new CustomerAccount("John", "Doe", "password123"));
+        CustomerAccount account = new CustomerAccount("John", "Doe", "password123");
+        assertNotEquals(account, new CustomerAccount("John", "Doe", "password123"));
+
+        int hashCode = account.hashCode();
+        account.addCredit(10);
+        assertEquals(account, account);
+        assertEquals(hashCode, account.hashCode());
     }
 
     @Test
@@ -0,0 +1,67 @@
+package fr.etu.steats.account;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountDirectoryTest {
+
+    @Test
+    void testAddAndFindById() {
+        AccountDirectory<CustomerAccount> directory = new AccountDirectory<>();
+        CustomerAccount customer = new CustomerAccount("John", "Doe", "password123");
+
+        assertTrue(directory.add(customer));
+        assertFalse(directory.add(customer));
+        assertEquals(1, directory.size());
+        assertSame(customer, directory.findById(customer.getId()));
+        assertTrue(directory.contains(customer));
+        assertNull(directory.findById(customer.getId() + 1));
+    }
+
+    @Test
+    void testLookupSurvivesMutation() {
+        AccountDirectory<CustomerAccount> directory = new AccountDirectory<>();
+        CustomerAccount customer = new CustomerAccount("John", "Doe", "password123");
+        directory.add(customer);
+
+        customer.addCredit(20);
+        customer.setPassword("newPassword");
+
+        assertTrue(directory.contains(customer));
+        assertTrue(directory.remove(customer));
+        assertEquals(0, directory.size());
+        assertFalse(directory.contains(customer));
+    }
+
+    @Test
+    void testFindByName() {
+        AccountDirectory<CustomerAccount> directory = new AccountDirectory<>();
+        CustomerAccount customer = new CustomerAccount("John", "Doe", "password123");
+        directory.add(customer);
+
+        assertSame(customer, directory.findByName(" JoHn ", "DOE"));
+        assertNull(directory.findByName("John", "Smith"));
+        assertNull(directory.findByName(null, "Doe"));
+
+        directory.remove(customer);
+        assertNull(directory.findByName("John", "Doe"));
+    }
+
+    @Test
+    void testSameNameIsRegisteredOnce() {
+        AccountDirectory<CustomerAccount> directory = new AccountDirectory<>();
+        CustomerAccount first = new CustomerAccount("John", "Doe", "password123");
+        CustomerAccount second = new CustomerAccount("john ", "doe", "password456");
+
+        assertTrue(directory.add(first));
+        assertFalse(directory.add(second));
+        assertEquals(1, directory.getAll().size());
+        assertSame(first, directory.findByName("John", "Doe"));
+        assertNull(directory.findById(second.getId()));
+        assertFalse(directory.remove(second));
+
+        assertThrows(UnsupportedOperationException.class, () -> directory.getAll().clear());
+        assertThrows(IllegalArgumentException.class, () -> directory.add(null));
+    }
+}
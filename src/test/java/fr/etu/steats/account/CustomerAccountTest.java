@@ -23,12 +23,12 @@ class CustomerAccountTest {
     }
 
     @Test
-    void testCustomerCreationAndParameterProcessing() {
+    void testCustomerCreationAndParameterProcessing() throws BadPasswordException {
         CustomerAccount customerAccount = new CustomerAccount(" Karim", " Charleux ", "Test");
         assertTrue(customerAccount.getOrders().isEmpty());
         assertEquals("karim", customerAccount.getFirstName());
         assertEquals("charleux", customerAccount.getLastName());
-        assertEquals("Test", customerAccount.getPassword());
+        assertTrue(customerAccount.checkPassword("Test"));
         assertEquals(0.0, customerAccount.getCredit());
     }
 
@@ -25,12 +25,12 @@ class DeliveryAccountTest {
     }
 
     @Test
-    void testDeliveryAccountCreationAndParameterProcessing() {
+    void testDeliveryAccountCreationAndParameterProcessing() throws BadPasswordException {
         DeliveryAccount deliveryAccount = new DeliveryAccount(" John", "Doe ", "Delivery1");
         assertNull(deliveryAccount.getAssignedOrder());
         assertEquals("john", deliveryAccount.getFirstName());
         assertEquals("doe", deliveryAccount.getLastName());
-        assertEquals("Delivery1", deliveryAccount.getPassword());
+        assertTrue(deliveryAccount.checkPassword("Delivery1"));
     }
 
     @Test
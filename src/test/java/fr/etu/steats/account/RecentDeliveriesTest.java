@@ -0,0 +1,36 @@
+package fr.etu.steats.account;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentDeliveriesTest {
+
+    @Test
+    void testKeepsTheLatestDeliveries() {
+        RecentDeliveries recentDeliveries = new RecentDeliveries(3);
+        assertTrue(recentDeliveries.hasAtLeastSince(0, 0));
+        assertFalse(recentDeliveries.hasAtLeastSince(1, 0));
+
+        recentDeliveries.record(50);
+        recentDeliveries.record(10);
+        assertTrue(recentDeliveries.hasAtLeastSince(2, 5));
+        assertFalse(recentDeliveries.hasAtLeastSince(2, 10));
+        assertFalse(recentDeliveries.hasAtLeastSince(3, 5));
+
+        // Recorded out of order, the oldest date is forgotten
+        recentDeliveries.record(30);
+        recentDeliveries.record(40);
+        recentDeliveries.record(1);
+        assertTrue(recentDeliveries.hasAtLeastSince(3, 29));
+        assertFalse(recentDeliveries.hasAtLeastSince(3, 30));
+        assertTrue(recentDeliveries.hasAtLeastSince(1, 49));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RecentDeliveries(0));
+        RecentDeliveries recentDeliveries = new RecentDeliveries(2);
+        assertThrows(IllegalArgumentException.class, () -> recentDeliveries.hasAtLeastSince(3, 0));
+    }
+}
@@ -18,8 +18,10 @@ import org.mockito.MockedStatic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mockStatic;
@@ -78,7 +80,7 @@ public class AdminOrderDefinition {
         try (MockedStatic<NotificationService> mockedStatic = mockStatic(NotificationService.class)) {
             this.creationSuccess = this.adminRegistry.createBuffetOrder(this.customerAccount, deliveryDate, itemList, this.restaurant);
 
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), any(Supplier.class), anyString()), times(1));
             mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.RESTAURANT_MANAGER), anyString(), anyString()), times(1));
             notificationSent = true;
         } catch (Exception e) {
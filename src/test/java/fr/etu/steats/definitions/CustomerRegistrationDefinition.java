@@ -71,10 +71,10 @@ public class CustomerRegistrationDefinition {
         assertNotNull(customer);
         assertEquals(firstname.trim().toLowerCase(), customer.getFirstName());
         assertEquals(lastname.trim().toLowerCase(), customer.getLastName());
-        assertEquals(password, customer.getPassword());
+        assertTrue(customer.checkPassword(password));
 
         // The user is registered into the system
-        customer = customerRegistry.getRegistrationService().loginCustomer(customer.getFirstName(), customer.getLastName(), customer.getPassword());
+        customer = customerRegistry.getRegistrationService().loginCustomer(customer.getFirstName(), customer.getLastName(), password);
         assertNotNull(customer);
     }
 
@@ -92,7 +92,7 @@ public class CustomerRegistrationDefinition {
         assertNotNull(customer);
         assertEquals(firstname.trim().toLowerCase(), customer.getFirstName());
         assertEquals(lastname.trim().toLowerCase(), customer.getLastName());
-        assertEquals(password, customer.getPassword());
+        assertTrue(customer.checkPassword(password));
     }
 
     @Then("The login didn't succeed")
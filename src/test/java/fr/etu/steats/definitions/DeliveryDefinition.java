@@ -27,6 +27,7 @@ import org.joda.time.LocalTime;
 import org.mockito.MockedStatic;
 
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import static fr.etu.steats.enums.EOrderStatus.FINISH;
@@ -104,7 +105,7 @@ public class DeliveryDefinition {
 
         try (MockedStatic<NotificationService> mockedStatic = mockStatic(NotificationService.class)) {
             deliveryAccount.setAssignedOrder(order);
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.DELIVERY_MAN), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.DELIVERY_MAN), any(Supplier.class), anyString()), times(1));
             isDeliveryNotificationReceived = true;
         } catch (Exception e) {
             LoggerUtils.log(Level.SEVERE, e.getMessage());
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import static fr.etu.steats.enums.EOrderStatus.FINISH;
@@ -105,7 +106,7 @@ public class PassAnOrderDefinition {
                 }
             });
             customerRegistry.placeSingleOrder(items, deliveryDate, deliveryAddress);
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), any(Supplier.class), anyString()), times(1));
             mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.RESTAURANT_MANAGER), anyString(), anyString()), times(1));
             isUserNotificationReceived = true;
         } catch (UnauthorizedOperationException e) {
@@ -118,7 +119,7 @@ public class PassAnOrderDefinition {
     public void whenHeValidateTheAfterWorkOrder() {
         try (MockedStatic<NotificationService> mockedStatic = mockStatic(NotificationService.class)) {
             customerRegistry.placeAfterWorkOrder(restaurant.getId(), deliveryDate, numberOfParticipant);
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), any(Supplier.class), anyString()), times(1));
             mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.RESTAURANT_MANAGER), anyString(), anyString()), times(1));
             isUserNotificationReceived = true;
         } catch (UnauthorizedOperationException | IllegalArgumentException | NullPointerException e) {
@@ -356,9 +357,15 @@ public class PassAnOrderDefinition {
 
     @When("the restaurant create a student discount for this item")
     public void theRestaurantCreateAStudentDiscountForThisItem() {
+        // A published item can't change, the discount is published in a new version of the menu
         for (String menuName : menus.keySet()) {
             Menu menu = restaurant.getMenuItem(menuName);
-            menu.setStudentPrice(0.5 * menu.getGlobalPrice());
+            Menu discounted = new Menu(menu.getName(), menu.getGlobalPrice());
+            discounted.setStudentPrice(0.5 * menu.getGlobalPrice());
+            discounted.setFacultyPrice(menu.getFacultyPrice());
+            discounted.setExternalPrice(menu.getExternalPrice());
+            discounted.setStaffPrice(menu.getStaffPrice());
+            restaurant.updateMenuItem(menuName, discounted);
         }
     }
 
@@ -414,7 +421,7 @@ public class PassAnOrderDefinition {
         isUserNotificationReceived = false;
         try (MockedStatic<NotificationService> mockedStatic = mockStatic(NotificationService.class)) {
             assertTrue(customerRegistry.cancelOrder(customerRegistry.getOrderService().fetchAllOrder().get(0).getId()));
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.USER), any(Supplier.class), anyString()), times(1));
             isUserNotificationReceived = true;
         }
     }
@@ -26,6 +26,7 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -75,7 +76,7 @@ public class UserDeliveryNotificationDefinition {
         deliveryAccount.setAssignedOrder(order);
         try (MockedStatic<NotificationService> mockedStatic = mockStatic(NotificationService.class)) {
             deliveryAccount.setAssignedOrder(order);
-            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.DELIVERY_MAN), anyString(), anyString()), times(1));
+            mockedStatic.verify(() -> NotificationService.sendNotificationToUser(eq(UserLevel.DELIVERY_MAN), any(Supplier.class), anyString()), times(1));
             isUserNotificationReceived = true;
         } catch (Exception e) {
             LoggerUtils.log(Level.SEVERE, e.getMessage());
@@ -46,6 +46,27 @@ class GroupOrderTest {
         assertEquals(1, groupOrder.getSubOrders().size());
     }
 
+    @Test
+    void testItemsViewFollowsTheSubOrders() throws UnauthorizedOperationException {
+        Restaurant restaurant = new Restaurant("La pizza della mama", 1, "test", "1 rue de la paix");
+        Menu menu = new Menu("Pizza", 12);
+        restaurant.addMenuItem(menu);
+        OrderItem first = new OrderItem(menu, restaurant);
+        OrderItem second = new OrderItem(menu, restaurant);
+
+        assertTrue(groupOrder.getItems().isEmpty());
+        singleOrder.addItem(first);
+        groupOrder.addSubOrder(singleOrder);
+        List<OrderItem> items = groupOrder.getItems();
+        assertEquals(List.of(first), items);
+        assertSame(items, groupOrder.getItems());
+        assertThrows(UnsupportedOperationException.class, () -> items.add(second));
+
+        singleOrder.addItem(second);
+        assertEquals(List.of(first, second), groupOrder.getItems());
+        assertEquals(2400, groupOrder.getNonReducedTotalPriceInCents());
+    }
+
     @Test
     void testAddOrderWithIncorrectField() {
         // Null order
@@ -67,6 +88,43 @@ class GroupOrderTest {
         assertEquals(EOrderStatus.WAITING_PAYMENT, groupOrder.getStatus());
     }
 
+    @Test
+    void testStatusFollowsTheTransitionsOfTheSubOrders() throws UnauthorizedOperationException {
+        Restaurant restaurant = new Restaurant("La pizza della mama", 1, "test", "1 rue de la paix");
+        Menu menu = new Menu("Pizza", 12);
+        restaurant.addMenuItem(menu);
+        int[] statusReads = new int[1];
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            OrderItem item = new OrderItem(menu, restaurant);
+            item.setStatus(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE);
+            items.add(item);
+            groupOrder.addSubOrder(new SingleOrder(customerAccount, deliveryDate, deliveryAddress, new ArrayList<>(List.of(item))) {
+                @Override
+                public EOrderStatus getStatus() {
+                    statusReads[0]++;
+                    return super.getStatus();
+                }
+            });
+        }
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, groupOrder.getStatus());
+
+        // Each transition only reads the status of the sub order that changed
+        statusReads[0] = 0;
+        for (OrderItem item : items) {
+            item.setStatus(EOrderStatus.IN_PREPARATION);
+        }
+        assertEquals(items.size(), statusReads[0]);
+        assertEquals(EOrderStatus.IN_PREPARATION, groupOrder.getStatus());
+
+        items.forEach(item -> item.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE));
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, groupOrder.getStatus());
+        items.get(3).setStatus(EOrderStatus.CANCELED);
+        assertEquals(EOrderStatus.CANCELED, groupOrder.getStatus());
+        items.get(3).setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, groupOrder.getStatus());
+    }
+
     @Test
     void testIncorrectSetInDelivery() {
         Exception exception;
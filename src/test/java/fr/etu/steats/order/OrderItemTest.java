@@ -1,9 +1,20 @@
 package fr.etu.steats.order;
 
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.restaurant.Menu;
 import fr.etu.steats.restaurant.Restaurant;
+import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderItemTest {
@@ -29,4 +40,47 @@ class OrderItemTest {
 
         assertFalse(item.needToBeDelivered());
     }
+
+    @Test
+    void testConcurrentTransitionsKeepTheCountsExact() throws Exception {
+        Restaurant restaurant = new Restaurant("Pizza della mama", 1, "test", "1 rue de la paix");
+        OrderItem item = new OrderItem(new Menu("Pizza", 12), restaurant);
+        SingleOrder order = new SingleOrder(new CustomerAccount("Karim", "Charleux", "test"), new DateTime(), "930 Rte des Colles", new ArrayList<>(List.of(item)));
+        assertEquals(EOrderStatus.WAITING_PAYMENT, order.getStatus());
+        AtomicIntegerArray counts = new AtomicIntegerArray(EOrderStatus.values().length);
+        counts.set(item.getStatus().ordinal(), 1);
+        item.addStatusListener((changedItem, oldStatus, newStatus) -> {
+            counts.decrementAndGet(oldStatus.ordinal());
+            counts.incrementAndGet(newStatus.ordinal());
+        });
+
+        EOrderStatus[] statuses = EOrderStatus.values();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                int offset = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 10_000; j++) {
+                        item.setStatus(statuses[(offset + j) % statuses.length]);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (EOrderStatus status : statuses) {
+            assertEquals(status == item.getStatus() ? 1 : 0, counts.get(status.ordinal()));
+        }
+        assertEquals(order.computeStatus(List.of(item.getStatus())), order.getStatus());
+    }
 }
@@ -0,0 +1,125 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryTest {
+    private OrderRepository repository;
+    private CustomerAccount customer;
+    private Restaurant restaurant;
+    private Menu menu;
+    private DateTime deliveryDate;
+
+    @BeforeEach
+    void setup() {
+        repository = new OrderRepository();
+        customer = new CustomerAccount("Karim", "Charleux", "test");
+        restaurant = new Restaurant("Pizza della mama", 1, "test", "1 rue de la paix");
+        menu = new Menu("Pizza", 12);
+        restaurant.addMenuItem(menu);
+        deliveryDate = new DateTime().plusDays(1);
+    }
+
+    private SingleOrder createSingleOrder(CustomerAccount owner) {
+        return new SingleOrder(owner, deliveryDate, "930 Rte des Colles", new ArrayList<>(List.of(new OrderItem(menu, restaurant))));
+    }
+
+    @Test
+    void testSaveAndFindById() {
+        SingleOrder order = createSingleOrder(customer);
+        assertTrue(repository.save(order));
+        assertFalse(repository.save(order));
+        assertSame(order, repository.findById(order.getId()));
+        assertNull(repository.findById(-1));
+        assertEquals(1, repository.size());
+        assertThrows(IllegalArgumentException.class, () -> repository.save(null));
+    }
+
+    @Test
+    void testFindAllKeepsInsertionOrder() {
+        SingleOrder first = createSingleOrder(customer);
+        SingleOrder second = createSingleOrder(customer);
+        repository.save(second);
+        repository.findAll().add(first);
+
+        assertEquals(List.of(second, first), repository.findAll());
+        assertTrue(repository.findAll().contains(first));
+        assertSame(first, repository.findById(first.getId()));
+    }
+
+    @Test
+    void testFindAllIsIndexedPastItsInitialCapacity() {
+        List<SingleOrder> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SingleOrder order = createSingleOrder(customer);
+            saved.add(order);
+            repository.save(order);
+        }
+        List<OrderAbstract> all = repository.findAll();
+        for (int i = 0; i < saved.size(); i++) {
+            assertSame(saved.get(i), all.get(i));
+        }
+        assertEquals(saved, all);
+        assertThrows(IndexOutOfBoundsException.class, () -> all.get(100));
+        Iterator<OrderAbstract> iterator = all.iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+    }
+
+    @Test
+    void testFindByCustomer() {
+        CustomerAccount otherCustomer = new CustomerAccount("Axel", "Delille", "test");
+        SingleOrder order = createSingleOrder(customer);
+        SingleOrder otherOrder = createSingleOrder(otherCustomer);
+        repository.save(order);
+        repository.save(otherOrder);
+
+        assertEquals(List.of(order), repository.findByCustomer(customer));
+        assertEquals(List.of(otherOrder), repository.findByCustomer(otherCustomer));
+        assertTrue(repository.findByCustomer(new CustomerAccount("Nina", "Boulton", "test")).isEmpty());
+    }
+
+    @Test
+    void testStatusIndexFollowsItemTransitions() {
+        SingleOrder order = createSingleOrder(customer);
+        repository.save(order);
+        assertEquals(List.of(order), repository.findByStatus(EOrderStatus.WAITING_PAYMENT));
+        assertTrue(repository.findReadyToDeliver().isEmpty());
+
+        order.getItems().forEach(item -> item.setStatus(EOrderStatus.IN_PREPARATION));
+        assertTrue(repository.findByStatus(EOrderStatus.WAITING_PAYMENT).isEmpty());
+        assertEquals(List.of(order), repository.findByStatus(EOrderStatus.IN_PREPARATION));
+        assertEquals(List.of(order), repository.findReadyToDeliver());
+
+        order.getItems().forEach(item -> item.setStatus(EOrderStatus.IN_DELIVERY));
+        assertEquals(List.of(order), repository.findByStatus(EOrderStatus.IN_DELIVERY));
+        assertTrue(repository.findReadyToDeliver().isEmpty());
+    }
+
+    @Test
+    void testGroupParentIndex() throws UnauthorizedOperationException {
+        GroupOrder groupOrder = new GroupOrder(customer, deliveryDate, "930 Rte des Colles");
+        SingleOrder subOrder = createSingleOrder(customer);
+        subOrder.getItems().forEach(item -> item.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE));
+        repository.save(groupOrder);
+        repository.save(subOrder);
+        assertEquals(List.of(subOrder), repository.findReadyToDeliver());
+
+        groupOrder.addSubOrder(subOrder);
+        assertEquals(List.of(subOrder), repository.findSubOrders(groupOrder.getId()));
+        assertEquals(List.of(groupOrder), repository.findReadyToDeliver());
+        assertTrue(repository.findSubOrders(subOrder.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package fr.etu.steats.order;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusAggregateTest {
+    private OrderStatusAggregate aggregate;
+    private CustomerAccount customerAccount;
+    private Menu menu;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setup() {
+        aggregate = new OrderStatusAggregate();
+        customerAccount = new CustomerAccount("Karim", "Charleux", "test");
+        menu = new Menu("Pizza", 12);
+        restaurant = new Restaurant("La pizza della mama", 1, "test", "1 rue de la paix");
+        restaurant.addMenuItem(menu);
+    }
+
+    @Test
+    void testResolveFollowsTheTransitions() {
+        assertEquals(-1, aggregate.size());
+        aggregate.clear();
+        assertNull(aggregate.resolve());
+
+        aggregate.add(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE);
+        aggregate.add(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE);
+        assertEquals(2, aggregate.size());
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, aggregate.resolve());
+
+        aggregate.transition(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, aggregate.resolve());
+        aggregate.transition(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.IN_PREPARATION);
+        assertEquals(EOrderStatus.IN_PREPARATION, aggregate.resolve());
+        aggregate.transition(EOrderStatus.IN_PREPARATION, EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, aggregate.resolve());
+        assertEquals(2, aggregate.count(EOrderStatus.WAITING_DELIVER_ACCEPTANCE));
+
+        aggregate.transition(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.IN_DELIVERY);
+        assertEquals(EOrderStatus.IN_DELIVERY, aggregate.resolve());
+        assertFalse(aggregate.dependsOnOrder());
+        aggregate.transition(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.CANCELED);
+        assertTrue(aggregate.dependsOnOrder());
+
+        aggregate.invalidate();
+        assertEquals(-1, aggregate.size());
+    }
+
+    @Test
+    void testOrderStatusMatchesComputeStatus() {
+        List<OrderItem> items = new ArrayList<>(List.of(new OrderItem(menu, restaurant), new OrderItem(menu, restaurant), new OrderItem(menu, restaurant)));
+        SingleOrder order = new SingleOrder(customerAccount, new DateTime(), "930 Rte des Colles", items);
+        assertEquals(EOrderStatus.WAITING_PAYMENT, order.getStatus());
+
+        EOrderStatus[][] transitions = {
+                {EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE},
+                {EOrderStatus.IN_PREPARATION, EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, EOrderStatus.WAITING_DELIVER_ACCEPTANCE},
+                {EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.IN_PREPARATION, EOrderStatus.WAITING_DELIVER_ACCEPTANCE},
+                {EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.WAITING_DELIVER_ACCEPTANCE},
+                {EOrderStatus.FINISH, EOrderStatus.WAITING_DELIVER_ACCEPTANCE, EOrderStatus.CANCELED},
+                {EOrderStatus.IN_PREPARATION, EOrderStatus.CANCELED, EOrderStatus.FINISH},
+        };
+        for (EOrderStatus[] statuses : transitions) {
+            for (int i = 0; i < statuses.length; i++) {
+                items.get(i).setStatus(statuses[i]);
+                assertEquals(order.computeStatus(items.stream().map(OrderItem::getStatus).toList()), order.getStatus());
+            }
+        }
+
+        // An item added behind the order is counted at the next read, and its transitions are followed
+        OrderItem item = new OrderItem(menu, restaurant);
+        items.clear();
+        items.add(item);
+        assertEquals(EOrderStatus.WAITING_PAYMENT, order.getStatus());
+        item.setStatus(EOrderStatus.IN_PREPARATION);
+        assertEquals(EOrderStatus.IN_PREPARATION, order.getStatus());
+    }
+
+    @Test
+    void testGroupOrderFollowsItsSubOrders() throws Exception {
+        GroupOrder groupOrder = new GroupOrder(customerAccount, new DateTime().plusDays(1), "930 Rte des Colles");
+        assertEquals(EOrderStatus.WAITING_PAYMENT, groupOrder.getStatus());
+        OrderItem first = new OrderItem(menu, restaurant);
+        OrderItem second = new OrderItem(menu, restaurant);
+        groupOrder.addSubOrder(new SingleOrder(customerAccount, new DateTime(), "", new ArrayList<>(List.of(first))));
+        groupOrder.addSubOrder(new SingleOrder(customerAccount, new DateTime(), "", new ArrayList<>(List.of(second))));
+        groupOrder.setWaitingRestaurantAcceptance();
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, groupOrder.getStatus());
+
+        first.setStatus(EOrderStatus.IN_PREPARATION);
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, groupOrder.getStatus());
+        second.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        assertEquals(EOrderStatus.IN_PREPARATION, groupOrder.getStatus());
+        first.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, groupOrder.getStatus());
+
+        // A sub order canceled without any item is canceled in the group order too
+        GroupOrder otherGroupOrder = new GroupOrder(customerAccount, new DateTime().plusDays(1), "930 Rte des Colles");
+        SingleOrder emptyOrder = new SingleOrder(customerAccount, new DateTime(), "", new ArrayList<>());
+        otherGroupOrder.addSubOrder(emptyOrder);
+        assertEquals(EOrderStatus.WAITING_PAYMENT, otherGroupOrder.getStatus());
+        OrderSnapshotCodec.restoreCanceled(emptyOrder);
+        assertEquals(EOrderStatus.CANCELED, otherGroupOrder.getStatus());
+    }
+}
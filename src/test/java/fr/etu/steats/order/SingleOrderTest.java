@@ -89,6 +89,15 @@ class SingleOrderTest {
         assertEquals(0.0, customerAccount.getCredit());
     }
 
+    @Test
+    void testTotalPriceIsExactToTheCent() {
+        order.addItem(new OrderItem(new Menu("Candy", 0.1), restaurant));
+        order.addItem(new OrderItem(new Menu("Gum", 0.2), restaurant));
+
+        assertEquals(30, order.getNonReducedTotalPriceInCents());
+        assertEquals(0.3, order.getNonReducedTotalPrice());
+    }
+
     @Test
     void testOrderIdIncrement() {
         SingleOrder order2 = new SingleOrder(customerAccount, deliveryDate, deliveryAddress, new ArrayList<>());
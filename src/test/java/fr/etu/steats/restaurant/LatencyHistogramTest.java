@@ -0,0 +1,72 @@
+package fr.etu.steats.restaurant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private LatencyHistogram histogram;
+
+    @BeforeEach
+    void setup() {
+        histogram = new LatencyHistogram();
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertEquals(20, histogram.getCount());
+        assertEquals(20, histogram.getMax());
+        assertEquals(10.5, histogram.getMean());
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(20, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    void testLargeValuesAreWithinPrecision() {
+        long tenMinutes = 10 * 60_000L;
+        for (int i = 0; i < 99; i++) {
+            histogram.record(tenMinutes);
+        }
+        histogram.record(2 * tenMinutes);
+
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= tenMinutes && median <= tenMinutes * 1.07, "median was " + median);
+        assertEquals(2 * tenMinutes, histogram.getValueAtPercentile(100));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    void testAddAndReset() {
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(100);
+        other.record(300);
+        histogram.record(200);
+
+        histogram.add(other);
+        histogram.add(new LatencyHistogram());
+        assertEquals(3, histogram.getCount());
+        assertEquals(300, histogram.getMax());
+        assertEquals(200, histogram.getMean());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+}
@@ -0,0 +1,53 @@
+package fr.etu.steats.restaurant;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuSnapshotTest {
+
+    @Test
+    void testEveryChangeIsANewVersion() {
+        Menu pizza = new Menu("Pizza", 10.0);
+        Menu salad = new Menu("Salad", 8.0, false);
+
+        MenuSnapshot first = MenuSnapshot.EMPTY.with(pizza);
+        MenuSnapshot second = first.with(salad);
+
+        assertEquals(0, MenuSnapshot.EMPTY.getVersion());
+        assertEquals(1, first.getVersion());
+        assertEquals(2, second.getVersion());
+        assertEquals(1, first.getItems().size());
+        assertEquals(2, second.getItems().size());
+        assertSame(salad, second.getItem("Salad"));
+        assertNull(first.getItem("Salad"));
+        assertEquals(1, second.getAfterWorkItems().size());
+    }
+
+    @Test
+    void testReplaceAndRemove() {
+        Menu pizza = new Menu("Pizza", 10.0);
+        Menu newPizza = new Menu("Pizza", 12.0);
+        MenuSnapshot snapshot = MenuSnapshot.EMPTY.with(pizza).with(new Menu("Salad", 8.0));
+
+        MenuSnapshot replaced = snapshot.replacing("Pizza", newPizza);
+        assertSame(newPizza, replaced.getItem("Pizza"));
+        assertSame(pizza, snapshot.getItem("Pizza"));
+        assertEquals(0, replaced.getItems().indexOf(newPizza));
+
+        MenuSnapshot removed = replaced.without("Pizza");
+        assertNull(removed.getItem("Pizza"));
+        assertEquals(1, removed.getItems().size());
+        assertSame(removed, removed.without("Pizza"));
+    }
+
+    @Test
+    void testErrors() {
+        MenuSnapshot snapshot = MenuSnapshot.EMPTY.with(new Menu("Pizza", 10.0)).with(new Menu("Salad", 8.0));
+
+        assertThrows(IllegalArgumentException.class, () -> snapshot.with(new Menu("Pizza", 11.0)));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.replacing("Burger", new Menu("Burger", 9.0)));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.replacing("Pizza", new Menu("Salad", 9.0)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getItems().add(new Menu("Burger", 9.0)));
+    }
+}
@@ -62,4 +62,23 @@ class MenuTest {
         menu.setAfterWork(false);
         assertFalse(menu.isAfterWork());
     }
+
+    @Test
+    void testPricesInCents() {
+        Menu menu = new Menu("Burger", 10.99);
+        assertEquals(1099, menu.getGlobalPriceInCents());
+        assertEquals(1099, menu.getPriceInCents(null));
+        assertEquals(1099, menu.getPriceInCents(ECustomerStatus.EXTERNAL));
+
+        menu.setExternalPrice(12.5);
+        menu.setGlobalPrice(9.99);
+        assertEquals(1250, menu.getPriceInCents(ECustomerStatus.EXTERNAL));
+        assertEquals(999, menu.getPriceInCents(ECustomerStatus.STUDENT));
+        assertEquals(12.5, menu.getExternalPrice());
+
+        // Back to the global price
+        menu.setExternalPrice(0);
+        assertEquals(999, menu.getPriceInCents(ECustomerStatus.EXTERNAL));
+        assertEquals(9.99, menu.getPrice(ECustomerStatus.EXTERNAL));
+    }
 }
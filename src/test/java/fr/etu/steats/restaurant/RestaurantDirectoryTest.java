@@ -0,0 +1,87 @@
+package fr.etu.steats.restaurant;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestaurantDirectoryTest {
+
+    @Test
+    void testFindByIdAndName() {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        Restaurant restaurant = new Restaurant("Chez Pierre", 1, "test", "1 rue de la paix");
+
+        assertTrue(directory.add(restaurant));
+        assertSame(restaurant, directory.findById(1));
+        assertSame(restaurant, directory.findByName(" CHEZ pierre "));
+        assertNull(directory.findById(2));
+        assertNull(directory.findByName("Chez Paul"));
+        assertNull(directory.findByName(null));
+        assertEquals(1, directory.size());
+    }
+
+    @Test
+    void testDuplicates() {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        directory.add(new Restaurant("Chez Pierre", 1, "test", "1 rue de la paix"));
+
+        assertFalse(directory.add(new Restaurant("chez pierre", 2, "test", "1 rue de la paix")));
+        assertFalse(directory.add(new Restaurant("Chez Paul", 1, "test", "1 rue de la paix")));
+        // The rejected restaurant doesn't keep its name
+        assertNull(directory.findByName("Chez Paul"));
+        assertEquals(1, directory.size());
+        assertThrows(IllegalArgumentException.class, () -> directory.add(null));
+    }
+
+    @Test
+    void testRemove() {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        Restaurant restaurant = new Restaurant("Chez Pierre", 1, "test", "1 rue de la paix");
+        directory.add(restaurant);
+        Restaurant renamed = new Restaurant("Chez Paul", 2, "test", "1 rue de la paix");
+        directory.add(renamed);
+        renamed.setName("Chez Jacques");
+
+        assertSame(restaurant, directory.removeById(1));
+        assertSame(renamed, directory.removeById(2));
+        assertNull(directory.removeById(1));
+        assertNull(directory.findByName("Chez Pierre"));
+        assertNull(directory.findByName("Chez Jacques"));
+        assertEquals(0, directory.size());
+        // Out of the directory, a rename doesn't touch it anymore
+        renamed.setName("Chez Pierre");
+        assertNull(directory.findByName("Chez Pierre"));
+    }
+
+    @Test
+    void testRenameMovesTheName() {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        Restaurant restaurant = new Restaurant("Chez Pierre", 1, "test", "1 rue de la paix");
+        Restaurant other = new Restaurant("Chez Paul", 2, "test", "1 rue de la paix");
+        directory.add(restaurant);
+        directory.add(other);
+
+        restaurant.setName("Chez Jacques");
+        assertSame(restaurant, directory.findByName("chez jacques"));
+        assertNull(directory.findByName("Chez Pierre"));
+        assertTrue(directory.add(new Restaurant("Chez Pierre", 3, "test", "1 rue de la paix")));
+
+        assertThrows(IllegalArgumentException.class, () -> restaurant.setName("CHEZ PAUL"));
+        assertEquals("Chez Jacques", restaurant.getName());
+        assertSame(other, directory.findByName("Chez Paul"));
+        restaurant.setName("chez JACQUES");
+        assertSame(restaurant, directory.findByName("Chez Jacques"));
+    }
+
+    @Test
+    void testView() {
+        RestaurantDirectory directory = new RestaurantDirectory();
+        Restaurant restaurant = new Restaurant("Chez Pierre", 1, "test", "1 rue de la paix");
+        directory.add(restaurant);
+
+        assertTrue(directory.getAll().contains(restaurant));
+        assertFalse(directory.getAll().contains(new Restaurant("Chez Paul", 2, "test", "1 rue de la paix")));
+        assertEquals(1, directory.getAll().size());
+        assertThrows(UnsupportedOperationException.class, () -> directory.getAll().clear());
+    }
+}
@@ -9,7 +9,13 @@ import org.joda.time.LocalTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -75,6 +81,66 @@ class RestaurantTest {
         assertThrows(IllegalArgumentException.class, () -> restaurant.updateMenuItem(null, null));
     }
 
+    @Test
+    void testMenuIndexFollowsTheMenu() {
+        Menu dessert = new Menu("Tiramisu", 7.0, false);
+        restaurant.addMenuItem(dessert);
+        assertSame(dessert, restaurant.getMenuItem("Tiramisu"));
+        assertFalse(restaurant.getAfterWorkMenuItems().contains(dessert));
+        assertThrows(IllegalArgumentException.class, () -> restaurant.addMenuItem(new Menu("Tiramisu", 8.0)));
+
+        restaurant.updateMenuItem("Tiramisu", new Menu("Tiramisu maison", 8.0));
+        assertNull(restaurant.getMenuItem("Tiramisu"));
+        assertEquals(8.0, restaurant.getMenuItem("Tiramisu maison").getGlobalPrice());
+        assertFalse(restaurant.getMenuItem("Tiramisu maison").isAfterWork());
+        assertThrows(IllegalArgumentException.class, () -> restaurant.updateMenuItem("Tiramisu", new Menu("Tiramisu", 8.0)));
+        assertThrows(IllegalArgumentException.class, () -> restaurant.updateMenuItem("Tiramisu maison", new Menu("Poulet rôti", 8.0)));
+
+        Menu afterWorkMenu = new Menu("Planche apéro", 20.0, true);
+        restaurant.addMenuItem(afterWorkMenu);
+        assertTrue(restaurant.getAfterWorkMenuItems().contains(afterWorkMenu));
+        // The published item is indexed by its name and its after-work flag
+        assertThrows(IllegalStateException.class, () -> afterWorkMenu.setAfterWork(false));
+        assertThrows(IllegalStateException.class, () -> afterWorkMenu.setName("Planche"));
+        assertTrue(restaurant.getAfterWorkMenuItems().contains(afterWorkMenu));
+        assertSame(afterWorkMenu, restaurant.getMenuItem("Planche apéro"));
+        restaurant.removeMenuItem("Planche apéro");
+        assertFalse(restaurant.getAfterWorkMenuItems().contains(afterWorkMenu));
+        assertNull(restaurant.getMenuItem("Planche apéro"));
+        assertThrows(UnsupportedOperationException.class, () -> restaurant.getMenuItems().clear());
+    }
+
+    @Test
+    void testOrdersKeepTheirMenuVersion() throws UnauthorizedOperationException {
+        MenuSnapshot before = restaurant.getMenu();
+        Menu steak = restaurant.getMenuItem("Steak au poivre");
+        OrderItem order = new OrderItem(steak, restaurant);
+        restaurant.addOrder(order);
+
+        restaurant.updateMenuItem("Steak au poivre", new Menu("Steak au poivre", 30.0));
+
+        MenuSnapshot after = restaurant.getMenu();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(order.getMenuVersion(), before.getVersion());
+        assertNotSame(steak, after.getItem("Steak au poivre"));
+        assertEquals(30.0, after.getItem("Steak au poivre").getGlobalPrice());
+        // The order and the previous version keep the previous price
+        assertEquals(steak.getGlobalPrice(), order.getPrice(null));
+        assertSame(steak, before.getItem("Steak au poivre"));
+        assertDoesNotThrow(() -> restaurant.verifyOrder(order));
+
+        // A published item never changes
+        assertThrows(IllegalStateException.class, () -> steak.setGlobalPrice(1.0));
+        assertThrows(IllegalStateException.class, () -> steak.setStudentPrice(1.0));
+        assertEquals(after.getVersion(), after.getItem("Steak au poivre").getPublishedVersion());
+
+        // An item taken from a previous version keeps the version that published it
+        OrderItem lateOrder = new OrderItem(steak, restaurant);
+        assertEquals(steak.getPublishedVersion(), lateOrder.getMenuVersion());
+        assertTrue(lateOrder.getMenuVersion() <= before.getVersion());
+        assertEquals(after.getVersion(), new OrderItem(after.getItem("Steak au poivre"), restaurant).getMenuVersion());
+    }
+
     @Test
     void testRemoveOrder() throws UnauthorizedOperationException {
         OrderItem order = new OrderItem(menu1, restaurant);
@@ -88,6 +154,25 @@ class RestaurantTest {
         assertTrue(restaurant.getOrders().isEmpty());
     }
 
+    @Test
+    void testRestoreOrders() {
+        OrderItem first = new OrderItem(menu1, restaurant);
+        OrderItem second = new OrderItem(menu1, restaurant);
+        first.setStatus(EOrderStatus.IN_PREPARATION);
+        second.setStatus(EOrderStatus.IN_PREPARATION);
+
+        restaurant.restoreOrders(List.of(first, second));
+        // An order already there is not given back twice
+        restaurant.restoreOrders(List.of(second, first, second));
+        assertEquals(List.of(first, second), restaurant.getOrders());
+        assertEquals(2, restaurant.countOrders(EOrderStatus.IN_PREPARATION));
+
+        second.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        restaurant.restoreOrdersDone(List.of(second, new OrderItem(menu1, restaurant)));
+        assertEquals(List.of(first), restaurant.getOrders());
+        assertEquals(1, restaurant.countOrders());
+    }
+
     @Test
     void testRemoveIncorrectOrder() {
         OrderItem orderItem = new OrderItem(menu1, restaurant);
@@ -123,6 +208,27 @@ class RestaurantTest {
         restaurant.prepareOrder(1);
     }
 
+    @Test
+    void testPrepareOrderAsync() throws UnauthorizedOperationException {
+        Scheduler scheduler = spy(new Scheduler());
+        CompletableFuture<Void> tenMinutes = new CompletableFuture<>();
+        doReturn(tenMinutes).when(scheduler).afterTenMinutes();
+        restaurant = new Restaurant("Chez Pierre", 1, "test", scheduler, "1 rue de la paix");
+        restaurant.addMenuItem(menu1);
+        OrderItem order = new OrderItem(menu1, restaurant);
+        restaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(List.of(order), new DateTime().plusDays(1).withHourOfDay(12).withMinuteOfHour(0).withSecondOfMinute(0));
+
+        CompletableFuture<Void> preparation = restaurant.prepareOrderAsync(1);
+        assertEquals(EOrderStatus.IN_PREPARATION, order.getStatus());
+        assertFalse(preparation.isDone());
+
+        // The end of the preparation runs on the work executor of the scheduler, not on the thread completing the delay
+        tenMinutes.complete(null);
+        preparation.orTimeout(5, TimeUnit.SECONDS).join();
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, order.getStatus());
+        assertTrue(restaurant.getOrders().isEmpty());
+    }
+
     @Test
     void testVerifyOrder() {
         Exception exception;
@@ -171,4 +277,43 @@ class RestaurantTest {
         assertNotNull(restaurant.getTimeSlotManager());
         assertEquals(2, restaurant.getTimeSlotManager().getCapacity());
     }
+
+    @Test
+    void testCommitReservation() throws UnauthorizedOperationException {
+        OrderItem order = new OrderItem(menu1, restaurant);
+        order.setStatus(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE);
+        SlotReservation reservation = restaurant.reserveOrderListBeforeDeadline(List.of(order), new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0)));
+        assertNotNull(reservation);
+        assertTrue(restaurant.getOrders().isEmpty());
+        assertNull(restaurant.getTimeSlotManager().getNeareastTimeSlotWithWorkRemaining());
+
+        assertTrue(restaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(reservation));
+        assertFalse(restaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(reservation));
+        assertFalse(reservation.cancel());
+        assertEquals(List.of(order), restaurant.getOrders());
+        assertEquals(List.of(order), restaurant.getTimeSlotManager().getNeareastTimeSlotWithWorkRemaining().getOrderToPrepareDuringTimeSlot());
+
+        Restaurant otherRestaurant = new Restaurant("Other", 42, "test", "2 rue de la paix");
+        assertThrows(IllegalArgumentException.class, () -> otherRestaurant.addOrderListWhoNeedToBePrepareBeforeDeadline(reservation));
+    }
+
+    @Test
+    void testOrderCountsFollowTransitionsDuringTracking() throws Exception {
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(new OrderItem(menu1, restaurant));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> transitions = executor.submit(() -> items.forEach(item -> item.setStatus(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE)));
+            Future<?> additions = executor.submit(() -> items.forEach(restaurant::addOrder));
+            transitions.get();
+            additions.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(500, restaurant.countOrders(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE));
+        assertEquals(0, restaurant.countOrders(EOrderStatus.WAITING_PAYMENT));
+        assertEquals(500, restaurant.countOrders());
+    }
 }
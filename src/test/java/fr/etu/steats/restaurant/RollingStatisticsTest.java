@@ -0,0 +1,115 @@
+package fr.etu.steats.restaurant;
+
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.enums.EStatisticsWindow;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.order.AfterWorkOrder;
+import fr.etu.steats.order.OrderBuilder;
+import fr.etu.steats.order.OrderItem;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingStatisticsTest {
+    private static final long MINUTE = 60_000L;
+    private long now;
+    private Restaurant restaurant;
+    private Menu menu;
+
+    @BeforeEach
+    void setup() {
+        now = new DateTime(2024, 1, 15, 12, 0).getMillis();
+        DateTimeUtils.setCurrentMillisFixed(now);
+        restaurant = new Restaurant("la pizza della mama", 1, "test", "1 rue de la paix");
+        menu = new Menu("Pizza margharita", 12);
+        restaurant.addMenuItem(menu);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    private void moveClock(long millis) {
+        now += millis;
+        DateTimeUtils.setCurrentMillisFixed(now);
+    }
+
+    @Test
+    void testWindowsForgetOldActivity() {
+        RollingStatistics statistics = restaurant.getStatistics();
+        statistics.recordOrderCreated(12.5);
+        moveClock(20 * MINUTE);
+        statistics.recordOrderCreated(10);
+        statistics.recordCancellation();
+
+        WindowedStatisticReport lastMinutes = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_15_MINUTES);
+        assertEquals(1, lastMinutes.getNbOrders());
+        assertEquals(10, lastMinutes.getRevenue());
+        assertEquals(1, lastMinutes.getNbCancellations());
+
+        WindowedStatisticReport lastDay = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_DAY);
+        assertEquals(2, lastDay.getNbOrders());
+        assertEquals(22.5, lastDay.getRevenue());
+
+        //Two days later the day is empty but the week still has everything
+        moveClock(2 * 24 * 60 * MINUTE);
+        assertEquals(0, new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_DAY).getNbOrders());
+        assertEquals(2, new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_WEEK).getNbOrders());
+
+        //A week later, the reused buckets don't show the old activity anymore
+        moveClock(7 * 24 * 60 * MINUTE);
+        statistics.recordOrderCreated(5);
+        WindowedStatisticReport lastWeek = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_WEEK);
+        assertEquals(1, lastWeek.getNbOrders());
+        assertEquals(5, lastWeek.getRevenue());
+        assertFalse(lastWeek.toString().isEmpty());
+    }
+
+    @Test
+    void testLatenciesFollowItemTransitions() {
+        OrderItem item = new OrderItem(menu, restaurant);
+        restaurant.addOrder(item);
+        item.setStatus(EOrderStatus.IN_PREPARATION);
+        moveClock(10 * MINUTE);
+        item.setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        item.setStatus(EOrderStatus.IN_DELIVERY);
+        moveClock(5 * MINUTE);
+        item.setStatus(EOrderStatus.FINISH);
+
+        WindowedStatisticReport report = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_15_MINUTES);
+        assertEquals(1, report.getPreparationLatencies().getCount());
+        assertEquals(10 * MINUTE, report.getPreparationLatencies().getMax());
+        assertEquals(1, report.getDeliveryLatencies().getCount());
+        assertEquals(5 * MINUTE, report.getDeliveryLatencies().getMax());
+
+        //The item is finished, its later transitions are not counted
+        item.setStatus(EOrderStatus.CANCELED);
+        assertEquals(0, new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_DAY).getNbCancellations());
+        assertEquals(now - 5 * MINUTE, item.getStatusTimestamp(EOrderStatus.IN_DELIVERY));
+    }
+
+    @Test
+    void testAfterWorkPreparationLatencyIsRecorded() throws UnauthorizedOperationException {
+        AfterWorkOrder order = (AfterWorkOrder) new OrderBuilder(new DateTime(now).plusHours(1), Mockito.mock(CustomerAccount.class))
+                .addMenuItems(List.of(new OrderItem(menu, restaurant)))
+                .setNumberOfParticipant(5)
+                .setRestaurant(restaurant)
+                .build();
+        restaurant.addAfterWorkOrder(order);
+        moveClock(30 * MINUTE);
+        order.setFinished();
+
+        WindowedStatisticReport report = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_DAY);
+        assertEquals(1, report.getPreparationLatencies().getCount());
+        assertEquals(30 * MINUTE, report.getPreparationLatencies().getMax());
+    }
+}
@@ -70,6 +70,30 @@ public class StatisticReportTest {
         assertFalse(report.toString().isEmpty());
     }
 
+    @Test
+    public void testReportFollowsStatusTransitions() {
+        Restaurant restaurant = createSampleRestaurant("Restaurant 1", 3, 1);
+        OrderItem orderItem = restaurant.getOrders().get(0);
+
+        orderItem.setStatus(EOrderStatus.IN_PREPARATION);
+        StatisticReport report = new StatisticReport(restaurant);
+        assertEquals(3, report.getNbOrders());
+        assertEquals(2, report.getNbOrdersWaitingPayment());
+        assertEquals(1, report.getNbOrdersInPreparation());
+
+        orderItem.setStatus(EOrderStatus.CANCELED);
+        report = new StatisticReport(restaurant);
+        assertEquals(0, report.getNbOrdersInPreparation());
+        assertEquals(1, report.getNbOrdersCancelled());
+
+        restaurant.removeOrder(orderItem);
+        orderItem.setStatus(EOrderStatus.FINISH);
+        report = new StatisticReport(restaurant);
+        assertEquals(2, report.getNbOrders());
+        assertEquals(0, report.getNbOrdersCancelled());
+        assertEquals(0, report.getNbOrdersFinish());
+    }
+
     private Restaurant createSampleRestaurant(String name, int numOrders, int id) {
         Restaurant restaurant = new Restaurant(name, id, "test", "1 rue de la paix");
         for (int i = 0; i < numOrders; i++) {
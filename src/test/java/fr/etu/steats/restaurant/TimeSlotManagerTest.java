@@ -4,7 +4,6 @@ import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderItem;
 import org.joda.time.DateTime;
-import org.joda.time.LocalDateTime;
 import org.joda.time.LocalTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -122,45 +121,42 @@ class TimeSlotManagerTest {
     void testGetTimeSlotForOrder() {
         //deliveryDate = tomorrow at noon
         DateTime deliveryDateNoon = new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0));
-        List<DateTime> datesNoon = List.of(
-                deliveryDateNoon.minusMinutes(10),
-                deliveryDateNoon.minusMinutes(20),
-                deliveryDateNoon.minusMinutes(30)
-        );
-        when(timeSlotManager.getPreviousSlotDate(new LocalTime(12, 0, 0).toDateTimeToday().toLocalDateTime(), deliveryDateNoon)).thenReturn(datesNoon);
         List<TimeSlot> timeSlotsNoon = timeSlotManager.getTimeSlotForOrder(deliveryDateNoon);
         assertEquals(3, timeSlotsNoon.size());
         assertTrue(new LocalTime(12, 0, 0).minusMinutes(10).isEqual(timeSlotsNoon.get(0).getBeginningTime()));
         assertTrue(new LocalTime(12, 0, 0).minusMinutes(20).isEqual(timeSlotsNoon.get(1).getBeginningTime()));
         assertTrue(new LocalTime(12, 0, 0).minusMinutes(30).isEqual(timeSlotsNoon.get(2).getBeginningTime()));
 
-        //deliveryDate = tomorrow at midnight
+        //deliveryDate = tomorrow at midnight, the restaurant is closed so the slots before the closing time of today are used
         DateTime deliveryDateMidnight = LocalTime.MIDNIGHT.toDateTimeToday().plusDays(1);
-        List<DateTime> datesMidnight = List.of(
-                new LocalTime(17, 50, 0).toDateTimeToday(),
-                new LocalTime(17, 40, 0).toDateTimeToday(),
-                new LocalTime(17, 30, 0).toDateTimeToday()
-        );
-        when(timeSlotManager.getPreviousSlotDate(new LocalTime(20, 0, 0).toDateTimeToday().toLocalDateTime(), deliveryDateMidnight)).thenReturn(datesMidnight);
-
         List<TimeSlot> timeSlotsMidnight = timeSlotManager.getTimeSlotForOrder(deliveryDateMidnight);
         assertEquals(3, timeSlotsMidnight.size());
-        assertTrue(new LocalTime(17, 50, 0).isEqual(timeSlotsMidnight.get(0).getBeginningTime()));
-        assertTrue(new LocalTime(17, 40, 0).isEqual(timeSlotsMidnight.get(1).getBeginningTime()));
-        assertTrue(new LocalTime(17, 30, 0).isEqual(timeSlotsMidnight.get(2).getBeginningTime()));
+        assertTrue(new LocalTime(19, 50, 0).isEqual(timeSlotsMidnight.get(0).getBeginningTime()));
+        assertTrue(new LocalTime(19, 40, 0).isEqual(timeSlotsMidnight.get(1).getBeginningTime()));
+        assertTrue(new LocalTime(19, 30, 0).isEqual(timeSlotsMidnight.get(2).getBeginningTime()));
+
+        //The slots are sorted by their beginning, today's evening before tomorrow's noon
+        assertEquals(6, timeSlotManager.getSlots().size());
+        assertSame(timeSlotsMidnight.get(2), timeSlotManager.getSlots().firstEntry().getValue());
+        assertSame(timeSlotsNoon.get(0), timeSlotManager.getSlots().lastEntry().getValue());
+        assertEquals(timeSlotsNoon, timeSlotManager.getTimeSlotForOrder(deliveryDateNoon));
     }
 
     @Test
-    void testGetPreviousSlotDate() {
-        assertTrue(timeSlotManager.getPreviousSlotDate(new LocalTime(23, 59, 59).toDateTimeToday().toLocalDateTime().plusDays(1), null).isEmpty());
+    void testGetPreviousSlotKeys() {
         DateTime tomorrow = new DateTime().plusDays(1).withTime(new LocalTime(16, 0, 0));
-        LocalDateTime preparationTime = new LocalTime(16, 0, 0).toDateTimeToday().toLocalDateTime();
+        long tomorrowMinute = tomorrow.getMillis() / 60_000L;
+
+        long[] probablyAvailableSlots = timeSlotManager.getPreviousSlotKeys(tomorrow);
+        assertArrayEquals(new long[]{tomorrowMinute - 10, tomorrowMinute - 20, tomorrowMinute - 30}, probablyAvailableSlots);
+
+        //The deadline is rounded to the previous end of slot, 16:34 => 16:30
+        assertArrayEquals(new long[]{tomorrowMinute + 20, tomorrowMinute + 10, tomorrowMinute},
+                timeSlotManager.getPreviousSlotKeys(tomorrow.withTime(new LocalTime(16, 34, 12))));
 
-        List<DateTime> probablyAvailableSlots = timeSlotManager.getPreviousSlotDate(preparationTime, tomorrow);
-        assertEquals(3, probablyAvailableSlots.size());
-        assertEquals(tomorrow.minusMinutes(10), probablyAvailableSlots.get(0));
-        assertEquals(tomorrow.minusMinutes(20), probablyAvailableSlots.get(1));
-        assertEquals(tomorrow.minusMinutes(30), probablyAvailableSlots.get(2));
+        //The slot beginning at the opening time is not available, 08:00 is not after the opening
+        assertArrayEquals(new long[]{tomorrowMinute - 7 * 60 - 50},
+                timeSlotManager.getPreviousSlotKeys(tomorrow.withTime(new LocalTime(8, 25, 0))));
     }
 
     @Test
@@ -187,4 +183,32 @@ class TimeSlotManagerTest {
         assertEquals(3, timeSlot.numberOfAvailablePlaceForItem());
         assertEquals(2, timeSlot.getOrderToPrepareDuringTimeSlot().size());
     }
+
+    @Test
+    void testReserve() throws UnauthorizedOperationException {
+        TimeSlotManager manager = new TimeSlotManager(2);
+        DateTime deliveryDate = new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0));
+        List<OrderItem> items = List.of(new OrderItem(menu, restaurant), new OrderItem(menu, restaurant), new OrderItem(menu, restaurant));
+
+        //3 items over 3 slots of 2 places, the first slot is filled then the next one
+        SlotReservation reservation = manager.reserve(items, deliveryDate);
+        assertNotNull(reservation);
+        assertTrue(reservation.isPending());
+        assertEquals(0, manager.getSlots().lastEntry().getValue().numberOfAvailablePlaceForItem());
+        assertEquals(2, manager.getSlots().firstEntry().getValue().numberOfAvailablePlaceForItem());
+
+        //Only 3 places are left, so 4 items are refused and nothing stays claimed
+        List<OrderItem> tooManyItems = List.of(new OrderItem(menu, restaurant), new OrderItem(menu, restaurant), new OrderItem(menu, restaurant), new OrderItem(menu, restaurant));
+        assertNull(manager.reserve(tooManyItems, deliveryDate));
+        assertEquals(3, manager.getSlots().values().stream().mapToInt(TimeSlot::numberOfAvailablePlaceForItem).sum());
+
+        //Cancelling gives the places back, only once
+        assertTrue(reservation.cancel());
+        assertFalse(reservation.cancel());
+        assertFalse(reservation.isPending());
+        assertEquals(6, manager.getSlots().values().stream().mapToInt(TimeSlot::numberOfAvailablePlaceForItem).sum());
+        assertTrue(manager.getSlots().values().stream().allMatch(slot -> slot.getOrderToPrepareDuringTimeSlot().isEmpty()));
+
+        assertThrows(UnauthorizedOperationException.class, () -> manager.reserve(new ArrayList<>(), deliveryDate));
+    }
 }
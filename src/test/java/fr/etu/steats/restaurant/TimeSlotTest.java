@@ -79,4 +79,29 @@ class TimeSlotTest {
 
         assertEquals(0, timeSlot.numberOfAvailablePlaceForItem());
     }
+
+    @Test
+    void testTryReserveAndRelease() {
+        assertEquals(3, timeSlot.tryReserve(3));
+        assertEquals(2, timeSlot.numberOfAvailablePlaceForItem());
+        assertEquals(2, timeSlot.tryReserve(4));
+        assertEquals(0, timeSlot.tryReserve(1));
+        assertEquals(0, timeSlot.tryReserve(0));
+        assertFalse(timeSlot.addOrderToTimeSlot(new OrderItem(menu, restaurant)));
+
+        timeSlot.release(2);
+        assertEquals(2, timeSlot.numberOfAvailablePlaceForItem());
+        assertTrue(timeSlot.getOrderToPrepareDuringTimeSlot().isEmpty());
+    }
+
+    @Test
+    void testRemoveOrderFromTimeSlot() {
+        OrderItem item = new OrderItem(menu, restaurant);
+        assertTrue(timeSlot.addOrderToTimeSlot(item));
+        assertEquals(capacity - 1, timeSlot.numberOfAvailablePlaceForItem());
+
+        assertTrue(timeSlot.removeOrderFromTimeSlot(item));
+        assertFalse(timeSlot.removeOrderFromTimeSlot(item));
+        assertEquals(capacity, timeSlot.numberOfAvailablePlaceForItem());
+    }
 }
@@ -0,0 +1,141 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.exception.BadPasswordException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialServiceTest {
+    private final PasswordHasher defaultHasher = CredentialService.getHasher();
+
+    @AfterEach
+    void tearDown() {
+        CredentialService.setHasher(defaultHasher);
+    }
+
+    @Test
+    void testHashAndMatch() {
+        String hash = CredentialService.hash("password");
+
+        assertNotEquals("password", hash);
+        assertTrue(CredentialService.matches("password", hash));
+        assertFalse(CredentialService.matches("wrong", hash));
+    }
+
+    @Test
+    void testHashRunsOnTheLoginPool() {
+        List<String> threadNames = new ArrayList<>();
+        CredentialService.setHasher(new PasswordHasher() {
+            @Override
+            public String hash(String password) {
+                threadNames.add(Thread.currentThread().getName());
+                return password;
+            }
+
+            @Override
+            public boolean matches(String password, String hash) {
+                threadNames.add(Thread.currentThread().getName());
+                return password.equals(hash);
+            }
+        });
+
+        assertTrue(CredentialService.matches("password", CredentialService.hash("password")));
+        assertEquals(2, threadNames.size());
+        assertTrue(threadNames.stream().allMatch(name -> name.startsWith("credential-")));
+    }
+
+    @Test
+    void testAccountCreationDoesNotWaitForTheHash() throws BadPasswordException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean hashed = new AtomicBoolean();
+        CredentialService.setHasher(new PasswordHasher() {
+            @Override
+            public String hash(String password) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                hashed.set(true);
+                return "hash of " + password;
+            }
+
+            @Override
+            public boolean matches(String password, String hash) {
+                return hash.equals("hash of " + password);
+            }
+        });
+
+        CustomerAccount customer;
+        try {
+            customer = new CustomerAccount("Karim", "Charleux", "password");
+            assertFalse(hashed.get());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(customer.checkPassword("password"));
+        assertEquals("hash of password", customer.getPasswordHash());
+    }
+
+    @Test
+    void testAccountsLoadedFromAFileAreHashedAtTheirFirstUse() throws BadPasswordException {
+        String storedHash = CredentialService.hash("password");
+        AtomicInteger hashes = new AtomicInteger();
+        CredentialService.setHasher(new PasswordHasher() {
+            @Override
+            public String hash(String password) {
+                hashes.incrementAndGet();
+                return "hash of " + password;
+            }
+
+            @Override
+            public boolean matches(String password, String hash) {
+                return hash.equals("hash of " + password) || defaultHasher.matches(password, hash);
+            }
+
+            @Override
+            public boolean isHash(String value) {
+                return defaultHasher.isHash(value);
+            }
+        });
+
+        List<CustomerAccount> customers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            customers.add(CustomerAccount.fromFile("Customer", "Number" + i, "password" + i));
+        }
+        CustomerAccount hashedCustomer = CustomerAccount.fromFile("Karim", "Charleux", storedHash);
+        assertEquals(0, hashes.get());
+        assertEquals(0, CredentialService.getPendingCount());
+
+        // The hash read from the file is kept, the passwords in clear are hashed once, when they are first needed
+        assertEquals(storedHash, hashedCustomer.getPasswordHash());
+        assertTrue(hashedCustomer.checkPassword("password"));
+        assertTrue(customers.get(7).checkPassword("password7"));
+        assertThrows(BadPasswordException.class, () -> customers.get(7).checkPassword("password8"));
+        assertEquals("hash of password8", customers.get(8).getPasswordHash());
+        assertEquals(2, hashes.get());
+        assertThrows(IllegalArgumentException.class, () -> CustomerAccount.fromFile("Karim", "Charleux", " "));
+    }
+
+    @Test
+    void testConcurrentChecks() {
+        String hash = CredentialService.hash("password");
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            checks.add(CompletableFuture.supplyAsync(() -> CredentialService.matches("password", hash)));
+        }
+
+        assertTrue(checks.stream().allMatch(CompletableFuture::join));
+        assertThrows(IllegalArgumentException.class, () -> CredentialService.setHasher(null));
+    }
+}
@@ -0,0 +1,121 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.restaurant.Restaurant;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountGrantStoreTest {
+    private static final DateTime NOW = new DateTime(2024, 3, 4, 12, 0);
+
+    private long currentMillis;
+    private CustomerAccount customer;
+    private Restaurant restaurant;
+
+    @BeforeEach
+    void setUp() {
+        currentMillis = NOW.getMillis();
+        ClockService.setClock(() -> currentMillis);
+        customer = new CustomerAccount("Axel", "Delille", "password");
+        restaurant = new Restaurant("Mcdo", 1, "test", "1 rue de la paix");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ClockService.useSystemClock();
+    }
+
+    @Test
+    void testGrantUntilExpiration() {
+        DiscountGrantStore store = new DiscountGrantStore(10);
+        assertFalse(store.hasActiveGrant(customer, restaurant));
+
+        store.grant(customer, restaurant, NOW.plusDays(15));
+        assertTrue(store.hasActiveGrant(customer, restaurant));
+        assertFalse(store.hasActiveGrant(customer, new Restaurant("Kfc", 2, "test", "2 rue de la paix")));
+        assertFalse(store.hasActiveGrant(new CustomerAccount("Axel", "Delille", "password"), restaurant));
+
+        // The grant follows the customer whatever happens to its account
+        customer.addCredit(10);
+        assertTrue(store.hasActiveGrant(customer, restaurant));
+
+        currentMillis = NOW.plusDays(15).getMillis();
+        assertFalse(store.hasActiveGrant(customer, restaurant));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testExpiredGrantsAreEvictedOnWrite() {
+        DiscountGrantStore store = new DiscountGrantStore(10);
+        for (int i = 0; i < 5; i++) {
+            store.grant(new CustomerAccount("Customer" + i, "Test", "password"), restaurant, NOW.plusDays(1));
+        }
+        assertEquals(5, store.size());
+
+        currentMillis = NOW.plusDays(2).getMillis();
+        store.grant(customer, restaurant, NOW.plusDays(17));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testFullStoreEvictsTheGrantExpiringFirst() {
+        DiscountGrantStore store = new DiscountGrantStore(2);
+        CustomerAccount soonExpired = new CustomerAccount("Nina", "Boulton", "password");
+        CustomerAccount lateExpired = new CustomerAccount("Lucie", "Andres", "password");
+        store.grant(lateExpired, restaurant, NOW.plusDays(10));
+        store.grant(soonExpired, restaurant, NOW.plusDays(1));
+        store.grant(customer, restaurant, NOW.plusDays(5));
+
+        assertEquals(2, store.size());
+        assertFalse(store.hasActiveGrant(soonExpired, restaurant));
+        assertTrue(store.hasActiveGrant(lateExpired, restaurant));
+        assertTrue(store.hasActiveGrant(customer, restaurant));
+
+        // Renewing a grant replaces it
+        store.grant(customer, restaurant, NOW.plusDays(20));
+        store.grant(soonExpired, restaurant, NOW.plusDays(15));
+        assertFalse(store.hasActiveGrant(lateExpired, restaurant));
+        assertTrue(store.hasActiveGrant(customer, restaurant));
+
+        store.revoke(customer, restaurant);
+        assertFalse(store.hasActiveGrant(customer, restaurant));
+        store.clear();
+        assertEquals(0, store.size());
+        assertThrows(IllegalArgumentException.class, () -> new DiscountGrantStore(0));
+    }
+
+    @Test
+    void testConcurrentGrantsStayBounded() throws InterruptedException {
+        DiscountGrantStore store = new DiscountGrantStore(100);
+        List<CustomerAccount> customers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            customers.add(new CustomerAccount("Customer" + i, "Concurrent", "password"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < customers.size(); i++) {
+            CustomerAccount buyer = customers.get(i);
+            DateTime expiration = NOW.plusMinutes(1 + i);
+            executor.execute(() -> {
+                store.grant(buyer, restaurant, expiration);
+                store.hasActiveGrant(buyer, restaurant);
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(100, store.size());
+        // The grants expiring last are kept
+        assertTrue(store.hasActiveGrant(customers.get(999), restaurant));
+        assertFalse(store.hasActiveGrant(customers.get(0), restaurant));
+    }
+}
@@ -1,6 +1,7 @@
 package fr.etu.steats.service;
 
 import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.EOrderStatus;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.OrderAbstract;
 import fr.etu.steats.order.OrderBuilder;
@@ -17,8 +18,10 @@ import java.util.List;
 
 import static fr.etu.steats.service.DiscountService.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.when;
 
 class DiscountServiceTest {
     private CustomerAccount customer;
@@ -59,34 +62,102 @@ class DiscountServiceTest {
     }
 
     @Test
-    void testIsUnderCumulatedOrder() {
+    void testIsUnderCumulatedOrder() throws UnauthorizedOperationException {
         //There is no old order and no old discount
-        when(customer.getPreviousOrder()).thenReturn(new ArrayList<>());
+        assertFalse(isUnderCumulatedOrderDiscount(customer, restaurant));
+
+        //There is not enough old order
+        addFinishedOrders(customer, 9, DateTime.now().minusDays(3));
         assertFalse(isUnderCumulatedOrderDiscount(customer, restaurant));
 
         //There is old order but no old discount, so it'll create one
-        when(customer.getPreviousOrder())
-                .thenReturn(List.of(
-                        order, order, order, order, order, order, order, order, order, order
-                ));
+        addFinishedOrders(customer, 1, DateTime.now().minusDays(3));
         assertTrue(isUnderCumulatedOrderDiscount(customer, restaurant));
 
         //There is no old order but an old discount is active
-        when(customer.getPreviousOrder()).thenReturn(new ArrayList<>());
+        doReturn(false).when(customer).hasFinishedOrdersSince(any(), anyInt(), any());
         assertTrue(isUnderCumulatedOrderDiscount(customer, restaurant));
+
+        //The discount doesn't apply to another restaurant
+        assertFalse(isUnderCumulatedOrderDiscount(customer, new Restaurant("Kfc", 2, "test", "2 rue de la paix")));
+    }
+
+    @Test
+    void testIsUnderCumulatedOrderOnlyCountsRecentFinishedOrders() throws UnauthorizedOperationException {
+        CustomerAccount otherCustomer = new CustomerAccount("Nina", "Boulton", "password");
+        addFinishedOrders(otherCustomer, 10, DateTime.now().minusDays(20));
+        assertFalse(isUnderCumulatedOrderDiscount(otherCustomer, restaurant));
+
+        //The orders count once they are finished
+        List<OrderAbstract> onGoingOrders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            OrderAbstract onGoingOrder = createOrder(otherCustomer, DateTime.now().plusHours(1));
+            otherCustomer.addOrder(onGoingOrder);
+            onGoingOrders.add(onGoingOrder);
+        }
+        assertFalse(isUnderCumulatedOrderDiscount(otherCustomer, restaurant));
+        onGoingOrders.forEach(onGoingOrder -> onGoingOrder.getItems().forEach(item -> item.setStatus(EOrderStatus.IN_DELIVERY)));
+        assertFalse(isUnderCumulatedOrderDiscount(otherCustomer, restaurant));
+        onGoingOrders.forEach(onGoingOrder -> onGoingOrder.getItems().forEach(item -> item.setStatus(EOrderStatus.FINISH)));
+        assertTrue(isUnderCumulatedOrderDiscount(otherCustomer, restaurant));
     }
 
     @Test
-    void testComputePriceAfterDiscount() {
+    void testComputePriceAfterDiscount() throws UnauthorizedOperationException {
         //When there is no discount
         assertEquals(12, computePriceAfterDiscount(order), 0.001);
 
         //When there is a discount because we have a lot of old order
-        when(customer.getPreviousOrder())
-                .thenReturn(List.of(
-                        order, order, order, order, order, order, order, order, order, order
-                ));
+        addFinishedOrders(customer, 10, DateTime.now().minusDays(1));
 
         assertEquals(11.4, computePriceAfterDiscount(order), 0.001);
     }
+
+    @Test
+    void testCumulatedOrderDiscountIsRoundedToTheCent() {
+        assertEquals(0, applyCumulatedOrderDiscount(0));
+        assertEquals(1, applyCumulatedOrderDiscount(1));
+        assertEquals(95, applyCumulatedOrderDiscount(100));
+        //9.99 * 0.95 = 9.4905
+        assertEquals(949, applyCumulatedOrderDiscount(999));
+        //0.10 * 0.95 = 0.095
+        assertEquals(10, applyCumulatedOrderDiscount(10));
+    }
+
+    @Test
+    void testComputePriceAfterDiscountHasNoFractionOfCent() throws UnauthorizedOperationException {
+        Menu menu = new Menu("Happy meal", 9.99);
+        restaurant.addMenuItem(menu);
+        OrderAbstract happyMealOrder = new OrderBuilder(DateTime.now().plusDays(1), customer)
+                .setDeliveryAddress("930 route des colles")
+                .addMenuItem(new OrderItem(menu, restaurant), 1)
+                .build();
+        addFinishedOrders(customer, 10, DateTime.now().minusDays(1));
+
+        assertEquals(9.49, computePriceAfterDiscount(happyMealOrder));
+    }
+
+    private OrderAbstract createOrder(CustomerAccount customerAccount, DateTime deliveryDate) throws UnauthorizedOperationException {
+        return new OrderBuilder(deliveryDate, customerAccount)
+                .setDeliveryAddress("930 route des colles")
+                .addMenuItem(new OrderItem(restaurant.getMenuItem("Big mac"), restaurant), 1)
+                .build();
+    }
+
+    /**
+     * Add orders delivered in the past, created when their delivery date was still in the future.
+     */
+    private void addFinishedOrders(CustomerAccount customerAccount, int numberOfOrders, DateTime deliveryDate) throws UnauthorizedOperationException {
+        long orderDate = deliveryDate.minusHours(1).getMillis();
+        ClockService.setClock(() -> orderDate);
+        try {
+            for (int i = 0; i < numberOfOrders; i++) {
+                OrderAbstract previousOrder = createOrder(customerAccount, deliveryDate);
+                previousOrder.getItems().forEach(item -> item.setStatus(EOrderStatus.FINISH));
+                customerAccount.addOrder(previousOrder);
+            }
+        } finally {
+            ClockService.useSystemClock();
+        }
+    }
 }
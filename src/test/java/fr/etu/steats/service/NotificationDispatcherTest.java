@@ -0,0 +1,88 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.utils.UserLevel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatcherTest {
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testNotificationsAreDeliveredInOrder() {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        dispatcher = new NotificationDispatcher(1000, 0, notification -> delivered.add(notification.getText()));
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(dispatcher.submit(new Notification(UserLevel.USER, "Message " + i, "John Doe")));
+        }
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(500, delivered.size());
+        assertEquals("(John Doe) 🔔 Message 0", delivered.get(0));
+        assertEquals("(John Doe) 🔔 Message 499", delivered.get(499));
+        assertEquals(500, dispatcher.getSubmittedCount());
+        assertEquals(500, dispatcher.getDeliveredCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void testNotificationsAreDroppedWhenTheQueueIsFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new NotificationDispatcher(2, 0, notification -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        //The first one is taken by the dispatcher, the two next ones fill the queue
+        assertTrue(dispatcher.submit(new Notification(UserLevel.USER, "First", null)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.submit(new Notification(UserLevel.USER, "Second", null)));
+        assertTrue(dispatcher.submit(new Notification(UserLevel.USER, "Third", null)));
+        assertFalse(dispatcher.submit(new Notification(UserLevel.USER, "Dropped", null)));
+        assertEquals(1, dispatcher.getDroppedCount());
+        assertEquals(2, dispatcher.getQueueSize());
+
+        release.countDown();
+        assertTrue(dispatcher.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(3, dispatcher.getDeliveredCount());
+        assertFalse(dispatcher.isRunning());
+        assertFalse(dispatcher.submit(new Notification(UserLevel.USER, "After shutdown", null)));
+    }
+
+    @Test
+    void testFailingSinkIsCounted() {
+        dispatcher = new NotificationDispatcher(10, 0, notification -> {
+            throw new IllegalStateException("Unreachable");
+        });
+        dispatcher.submit(new Notification(UserLevel.DELIVERY_MAN, "Message", null));
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+        assertEquals(1, dispatcher.getFailedCount());
+        assertEquals(0, dispatcher.getDeliveredCount());
+    }
+
+    @Test
+    void testInvalidDispatcher() {
+        assertThrows(IllegalArgumentException.class, () -> new NotificationDispatcher(0, 0, notification -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new NotificationDispatcher(10, 0, null));
+    }
+}
@@ -9,10 +9,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 class NotificationServiceTest {
 
@@ -20,12 +24,16 @@ class NotificationServiceTest {
 
     @BeforeEach
     public void setUp() {
+        // The application delivers asynchronously once started, these tests check the delivery on the calling thread
+        NotificationService.disableAsynchronousDelivery(1, TimeUnit.SECONDS);
         capturingLogHandler = new CapturingLogHandler();
         LoggerUtils.setHandler(capturingLogHandler);
     }
 
     @AfterEach
     public void tearDown() {
+        NotificationService.disableAsynchronousDelivery(1, TimeUnit.SECONDS);
+        NotificationService.removeSink(UserLevel.USER);
         capturingLogHandler.reset();
         capturingLogHandler.close();
         LoggerUtils.removeHandler(capturingLogHandler);
@@ -49,6 +57,50 @@ class NotificationServiceTest {
         assertEquals("(John Doe) 🔔 This is a test notification message.", capturingLogHandler.getCapturedData());
     }
 
+    @Test
+    void testSinkPerUserLevel() {
+        List<Notification> notifications = new ArrayList<>();
+        NotificationService.setSink(UserLevel.USER, notifications::add);
+
+        NotificationService.sendNotificationToUser(UserLevel.USER, "To the sink", "John Doe");
+        NotificationService.sendNotificationToUser(UserLevel.DELIVERY_MAN, "To the logger");
+
+        assertEquals(1, notifications.size());
+        assertEquals("(John Doe) 🔔 To the sink", notifications.get(0).getText());
+        assertEquals("🔔 To the logger", capturingLogHandler.getCapturedData());
+        assertThrows(IllegalArgumentException.class, () -> NotificationService.setSink(null, notifications::add));
+    }
+
+    @Test
+    void testSuppliedMessageIsBuiltOnDelivery() {
+        AtomicInteger builds = new AtomicInteger();
+        LoggerUtils.setLevel(Level.WARNING);
+        try {
+            NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Skipped n°" + builds.incrementAndGet(), "John Doe");
+            assertEquals(0, builds.get());
+        } finally {
+            LoggerUtils.setLevel(Level.ALL);
+        }
+
+        NotificationService.sendNotificationToUser(UserLevel.USER, () -> "Logged n°" + builds.incrementAndGet(), "John Doe");
+        assertEquals("(John Doe) 🔔 Logged n°1", capturingLogHandler.getCapturedData());
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void testAsynchronousDelivery() {
+        NotificationService.enableAsynchronousDelivery(100, 0);
+        NotificationDispatcher dispatcher = NotificationService.getDispatcher();
+        assertNotNull(dispatcher);
+
+        NotificationService.sendNotificationToUser(UserLevel.USER, "This is a test notification message.");
+        assertTrue(dispatcher.flush(5, TimeUnit.SECONDS));
+        assertEquals("🔔 This is a test notification message.", capturingLogHandler.getCapturedData());
+
+        assertTrue(NotificationService.disableAsynchronousDelivery(1, TimeUnit.SECONDS));
+        assertNull(NotificationService.getDispatcher());
+    }
+
     @Test
     void testErrorAtInitialization() {
         assertThrows(IllegalStateException.class, NotificationService::new);
@@ -0,0 +1,238 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.AdminAccount;
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.enums.ECustomerStatus;
+import fr.etu.steats.enums.EStatisticsWindow;
+import fr.etu.steats.enums.EJournalDurability;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.exception.AlreadyRegisteredUser;
+import fr.etu.steats.exception.BadPasswordException;
+import fr.etu.steats.exception.UnauthorizedModificationException;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.GroupOrder;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.WindowedStatisticReport;
+import fr.etu.steats.restaurant.TimeSlot;
+import fr.etu.steats.utils.EventJournal;
+import fr.etu.steats.utils.Scheduler;
+import org.joda.time.DateTime;
+import org.joda.time.LocalTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+    private static final String ADDRESS = "930 Rte des Colles, 06410 Biot";
+
+    @TempDir
+    Path directory;
+
+    private SnapshotService snapshotService;
+    private OrderService orderService;
+    private OrderJournal journal;
+    private CustomerAccount customer;
+    private Restaurant restaurant;
+    private Menu pizza;
+    private DateTime deliveryDate;
+    private Path snapshot;
+
+    @BeforeEach
+    void setup() throws IOException {
+        customer = new CustomerAccount("Karim", "Charleux", "test", ECustomerStatus.STUDENT);
+        restaurant = new Restaurant("Pizza della mama", 1, "secret", new Scheduler(), ADDRESS);
+        pizza = new Menu("Pizza", 12);
+        pizza.setStudentPrice(10.5);
+        restaurant.addMenuItem(pizza);
+
+        snapshotService = new SnapshotService(
+                new RegistrationService(Set.of(customer), Set.of(), Set.of(new AdminAccount("admin", "admin", "admin"))),
+                new RestaurantService(Set.of(restaurant)),
+                new OrderService());
+        orderService = snapshotService.getOrderService();
+        deliveryDate = new LocalTime(12, 0).toDateTimeToday().plusDays(1);
+        snapshot = directory.resolve("steats.snapshot");
+        journal = new OrderJournal(EventJournal.open(directory.resolve("journal"), 512, EJournalDurability.SYNC, 10));
+        snapshotService.setJournal(journal);
+        snapshotService.write(snapshot);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        snapshotService.setJournal(null);
+        journal.close();
+        DiscountService.getDiscountGrantStore().clear();
+    }
+
+    @Test
+    void testReplayTheOrdersCreatedAfterTheSnapshot() throws IOException, UnauthorizedOperationException {
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        assertTrue(orderService.createGroupOrder(customer, deliveryDate, ADDRESS));
+        List<OrderAbstract> orders = orderService.fetchAllOrder();
+        OrderAbstract order = orders.get(0);
+        GroupOrder groupOrder = (GroupOrder) orders.get(1);
+        assertTrue(orderService.addOrderToGroupOrder(customer, List.of(new OrderItem(pizza, restaurant)), groupOrder));
+        OrderAbstract subOrder = groupOrder.getSubOrders().get(0);
+
+        order.getItems().get(0).setStatus(EOrderStatus.IN_PREPARATION);
+        assertTrue(DiscountService.computeCustomerCredit(List.of(order), 1, 0.1));
+        double credit = customer.getCredit();
+        journal.close();
+
+        SnapshotService restored = restore();
+        OrderAbstract restoredOrder = restored.getOrderService().findOrderById(order.getId());
+        Restaurant restoredRestaurant = restored.getRestaurantService().findRestaurantById(1);
+        CustomerAccount restoredCustomer = restored.getRegistrationService().findCustomerById(customer.getId());
+        assertNotSame(order, restoredOrder);
+        assertEquals(EOrderStatus.IN_PREPARATION, restoredOrder.getStatus());
+        assertEquals(deliveryDate, restoredOrder.getDeliveryDate());
+        assertEquals(10.5, restoredOrder.getItems().get(0).getPrice(ECustomerStatus.STUDENT));
+        assertSame(restoredRestaurant, restoredOrder.getItems().get(0).getRestaurant());
+        assertSame(restoredRestaurant.getMenuItem("Pizza"), restoredOrder.getItems().get(0).getMenu());
+        assertEquals(credit, restoredCustomer.getCredit(), 0.001);
+        assertEquals(List.of(restoredOrder, restored.getOrderService().findOrderById(subOrder.getId())), restoredCustomer.getOrders());
+
+        GroupOrder restoredGroupOrder = restored.getOrderService().getGroupOrderById(groupOrder.getId());
+        assertEquals(List.of(subOrder.getId()), restoredGroupOrder.getSubOrders().stream().map(OrderAbstract::getId).toList());
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, restoredGroupOrder.getStatus());
+
+        assertEquals(1, restoredRestaurant.countOrders(EOrderStatus.IN_PREPARATION));
+        assertEquals(1, restoredRestaurant.countOrders(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE));
+        restaurant.getTimeSlotManager().getSlots().forEach((slotKey, slot) -> {
+            TimeSlot restoredSlot = restoredRestaurant.getTimeSlotManager().getSlots().get(slotKey);
+            assertEquals(slot.getOrderToPrepareDuringTimeSlot().size(), (restoredSlot == null) ? 0 : restoredSlot.getOrderToPrepareDuringTimeSlot().size());
+        });
+    }
+
+    @Test
+    void testReplayTheAccountsRegisteredAfterTheSnapshot() throws IOException, UnauthorizedOperationException, AlreadyRegisteredUser, BadPasswordException {
+        CustomerAccount newCustomer = snapshotService.getRegistrationService().registerCustomer("Axel", "Delille", "password");
+        assertTrue(orderService.createSingleOrder(newCustomer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        OrderAbstract order = orderService.fetchAllOrder().get(0);
+        // The events are on the disk once the operations return
+        assertEquals(journal.getEventJournal().getLastSequence(), journal.getEventJournal().getDurableSequence());
+        journal.close();
+
+        SnapshotService restored = restore();
+        CustomerAccount restoredCustomer = restored.getRegistrationService().findCustomerById(newCustomer.getId());
+        assertNotNull(restoredCustomer);
+        assertEquals("axel", restoredCustomer.getFirstName());
+        assertTrue(restoredCustomer.checkPassword("password"));
+        assertSame(restoredCustomer, restored.getOrderService().findOrderById(order.getId()).getCustomer());
+        assertTrue(new CustomerAccount("Nina", "Boulton", "password").getId() > newCustomer.getId());
+    }
+
+    @Test
+    void testReplayTheCancellationsAndTheRestaurantWork() throws IOException, UnauthorizedOperationException, UnauthorizedModificationException {
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        OrderAbstract canceledOrder = orderService.fetchAllOrder().get(0);
+        OrderAbstract preparedOrder = orderService.fetchAllOrder().get(1);
+        assertTrue(orderService.cancelOrder(canceledOrder));
+        preparedOrder.getItems().get(0).setStatus(EOrderStatus.IN_PREPARATION);
+        preparedOrder.getItems().get(0).setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+        journal.close();
+
+        SnapshotService restored = restore();
+        OrderAbstract restoredCanceledOrder = restored.getOrderService().findOrderById(canceledOrder.getId());
+        assertEquals(EOrderStatus.CANCELED, restoredCanceledOrder.getStatus());
+        assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, restored.getOrderService().findOrderById(preparedOrder.getId()).getStatus());
+        assertEquals(List.of(restored.getOrderService().findOrderById(preparedOrder.getId())), restored.getOrderService().getOrderReadyToDeliver());
+        // The prepared item is not in the work of the restaurant anymore
+        Restaurant restoredRestaurant = restored.getRestaurantService().findRestaurantById(1);
+        assertEquals(List.of(restoredCanceledOrder.getItems().get(0)), restoredRestaurant.getOrders());
+    }
+
+    @Test
+    void testReplayKeepsTheTimeOfTheStatusChanges() throws IOException, UnauthorizedOperationException {
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        OrderAbstract order = orderService.fetchAllOrder().get(0);
+        long start = ClockService.currentTimeMillis();
+        try {
+            ClockService.setClock(() -> start);
+            order.getItems().get(0).setStatus(EOrderStatus.IN_PREPARATION);
+            snapshotService.write(snapshot);
+            ClockService.setClock(() -> start + 10 * 60_000);
+            order.getItems().get(0).setStatus(EOrderStatus.WAITING_DELIVER_ACCEPTANCE);
+            journal.close();
+
+            // Restarted two hours later
+            ClockService.setClock(() -> start + 2 * 60 * 60_000);
+            SnapshotService restored = restore();
+            OrderItem restoredItem = restored.getOrderService().findOrderById(order.getId()).getItems().get(0);
+            assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, restoredItem.getStatus());
+            assertEquals(start + 10 * 60_000, restoredItem.getStatusTimestamp(EOrderStatus.WAITING_DELIVER_ACCEPTANCE));
+            assertEquals(start, restoredItem.getStatusTimestamp(EOrderStatus.IN_PREPARATION));
+            // The preparation ended before the restart, it is not recorded again
+            Restaurant restoredRestaurant = restored.getRestaurantService().findRestaurantById(1);
+            assertEquals(0, new WindowedStatisticReport(restoredRestaurant, EStatisticsWindow.LAST_DAY).getPreparationLatencies().getCount());
+        } finally {
+            ClockService.useSystemClock();
+        }
+    }
+
+    @Test
+    void testSnapshotCoversTheEvents() throws IOException, UnauthorizedOperationException {
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        orderService.fetchAllOrder().get(0).getItems().get(0).setStatus(EOrderStatus.IN_PREPARATION);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(orderService.createGroupOrder(customer, deliveryDate, ADDRESS));
+        }
+        EventJournal eventJournal = journal.getEventJournal();
+        assertTrue(eventJournal.getSegmentCount() > 1);
+
+        snapshotService.write(snapshot);
+        assertEquals(eventJournal.getLastSequence(), snapshotService.getJournalSequence());
+        assertEquals(1, eventJournal.getSegmentCount());
+        assertTrue(orderService.createGroupOrder(customer, deliveryDate, ADDRESS));
+        journal.close();
+
+        SnapshotService restored = SnapshotService.restore(snapshot, new PaymentService(), null);
+        assertEquals(snapshotService.getJournalSequence(), restored.getJournalSequence());
+        try (OrderJournal reopened = OrderJournal.open(directory.resolve("journal"), EJournalDurability.SYNC)) {
+            assertEquals(1, reopened.replay(restored));
+        }
+        assertEquals(12, restored.getOrderService().fetchAllOrder().size());
+        assertEquals(EOrderStatus.IN_PREPARATION, restored.getOrderService().fetchAllOrder().get(0).getStatus());
+    }
+
+    @Test
+    void testReplayedOrdersAreJournaledAgain() throws IOException, UnauthorizedOperationException {
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        int orderId = orderService.fetchAllOrder().get(0).getId();
+        journal.close();
+
+        SnapshotService restored = SnapshotService.restore(snapshot, new PaymentService(), null);
+        try (OrderJournal reopened = OrderJournal.open(directory.resolve("journal"), EJournalDurability.SYNC)) {
+            assertEquals(1, reopened.replay(restored));
+            restored.setJournal(reopened);
+            restored.getOrderService().findOrderById(orderId).getItems().get(0).setStatus(EOrderStatus.IN_PREPARATION);
+            restored.setJournal(null);
+        }
+
+        SnapshotService restoredAgain = SnapshotService.restore(snapshot, new PaymentService(), null);
+        try (OrderJournal reopened = OrderJournal.open(directory.resolve("journal"), EJournalDurability.SYNC)) {
+            assertEquals(2, reopened.replay(restoredAgain));
+        }
+        assertEquals(EOrderStatus.IN_PREPARATION, restoredAgain.getOrderService().findOrderById(orderId).getStatus());
+    }
+
+    private SnapshotService restore() throws IOException {
+        SnapshotService restored = SnapshotService.restore(snapshot, new PaymentService(), null);
+        try (OrderJournal reopened = OrderJournal.open(directory.resolve("journal"), EJournalDurability.SYNC)) {
+            assertTrue(reopened.replay(restored) > 0);
+        }
+        return restored;
+    }
+}
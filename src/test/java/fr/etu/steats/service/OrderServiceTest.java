@@ -2,13 +2,19 @@ package fr.etu.steats.service;
 
 import fr.etu.steats.account.AdminAccount;
 import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
 import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.enums.EStatisticsWindow;
 import fr.etu.steats.exception.UnauthorizedModificationException;
 import fr.etu.steats.exception.UnauthorizedOperationException;
 import fr.etu.steats.order.*;
 import fr.etu.steats.restaurant.Menu;
 import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.TimeSlotManager;
+import fr.etu.steats.restaurant.WindowedStatisticReport;
+import fr.etu.steats.utils.Scheduler;
 import fr.etu.steats.utils.LoggerUtils;
+import fr.etu.steats.utils.SimulatedScheduler;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDateTime;
 import org.joda.time.LocalTime;
@@ -18,6 +24,13 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -242,6 +255,54 @@ class OrderServiceTest {
         assertEquals("Pizza 4 fromagi", order.getItems().get(0).getMenu().getName());
     }
 
+    @Test
+    void testSalesAreRecordedAfterTheDiscount() throws UnauthorizedOperationException {
+        DateTime deliveryDate = LocalDateTime.now().plusDays(1).withHourOfDay(12).withMinuteOfHour(0).withSecondOfMinute(0).toDateTime();
+        Menu menu = new Menu("Pizza", 12);
+        Restaurant restaurant = new Restaurant("Pizza della mama", 1, "test", "1 rue de la paix");
+        restaurant.addMenuItem(menu);
+        DiscountService.getDiscountGrantStore().grant(customer, restaurant, DateTime.now().plusDays(1));
+
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(menu, restaurant)), deliveryDate, "930 Rte des Colles, 06410 Biot"));
+
+        WindowedStatisticReport report = new WindowedStatisticReport(restaurant, EStatisticsWindow.LAST_DAY);
+        assertEquals(1, report.getNbOrders());
+        assertEquals(11.4, report.getRevenue(), 0.001);
+    }
+
+    @Test
+    void testPreparationAndDeliveryFollowTheScheduler() throws UnauthorizedOperationException {
+        DateTime start = LocalDateTime.now().plusDays(1).withHourOfDay(10).withMinuteOfHour(0).withSecondOfMinute(0).toDateTime();
+        SimulatedScheduler scheduler = new SimulatedScheduler(start.getMillis());
+        ClockService.setClock(scheduler);
+        try {
+            Menu menu = new Menu("Pizza", 12);
+            Restaurant restaurant = new Restaurant("Pizza della mama", 1, "test", scheduler, "1 rue de la paix");
+            restaurant.addMenuItem(menu);
+            DeliveryAccount courier = new DeliveryAccount("Jean", "Dupont", "test", scheduler);
+            assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(menu, restaurant)), start.plusHours(2), "930 Rte des Colles, 06410 Biot"));
+            OrderAbstract order = customer.getOrders().get(customer.getOrders().size() - 1);
+
+            CompletableFuture<Void> preparation = orderService.prepareOrder(restaurant, 1);
+            assertEquals(EOrderStatus.IN_PREPARATION, order.getStatus());
+            scheduler.advance(9, TimeUnit.MINUTES);
+            assertFalse(preparation.isDone());
+            scheduler.advance(1, TimeUnit.MINUTES);
+            assertTrue(preparation.isDone());
+            assertEquals(EOrderStatus.WAITING_DELIVER_ACCEPTANCE, order.getStatus());
+
+            courier.setAssignedOrder(order);
+            CompletableFuture<Void> delivery = orderService.deliverAssignedOrder(courier);
+            assertEquals(EOrderStatus.IN_DELIVERY, order.getStatus());
+            scheduler.advance(10, TimeUnit.MINUTES);
+            assertTrue(delivery.isDone());
+            assertEquals(EOrderStatus.FINISH, order.getStatus());
+            assertNull(courier.getAssignedOrder());
+        } finally {
+            ClockService.useSystemClock();
+        }
+    }
+
     @Test
     void testUpdateOrderDeliveryDate() throws UnauthorizedOperationException {
         DateTime deliveryDate = LocalDateTime.now().plusDays(1).withHourOfDay(12).withMinuteOfHour(0).withSecondOfMinute(0).toDateTime();
@@ -327,4 +388,61 @@ class OrderServiceTest {
         assertFalse(orderService.createBuffetOrder(customer, deliveryDate, List.of(new OrderItem(menu, restaurant)), null, null));
         assertFalse(orderService.createBuffetOrder(customer, deliveryDate, List.of(new OrderItem(menu, restaurant)), admin, null));
     }
+
+    @Test
+    void testConcurrentCheckoutsNeverOverbookTimeSlots() throws InterruptedException {
+        DateTime deliveryDate = new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0));
+        Menu menu = new Menu("Pizza", 12);
+        Restaurant restaurant = new Restaurant("Pizza della mama", 3, "test", new Scheduler(), 1, "1 rue de la paix");
+        restaurant.addMenuItem(menu);
+        int numberOfCustomers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> checkouts = new ArrayList<>();
+
+        for (int i = 0; i < numberOfCustomers; i++) {
+            CustomerAccount buyer = new CustomerAccount("Customer" + i, "Concurrent", "test");
+            checkouts.add(executor.submit(() -> {
+                start.await();
+                if (orderService.createSingleOrder(buyer, List.of(new OrderItem(menu, restaurant)), deliveryDate, "930 Rte des Colles, 06410 Biot")) {
+                    accepted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        checkouts.forEach(checkout -> assertDoesNotThrow(() -> checkout.get()));
+
+        // Capacity 1 per slot and 3 slots checked before the deadline
+        assertEquals(TimeSlotManager.MAX_NUMBER_OF_SLOT_TO_CHECK, accepted.get());
+        assertEquals(TimeSlotManager.MAX_NUMBER_OF_SLOT_TO_CHECK, restaurant.getOrders().size());
+        assertEquals(TimeSlotManager.MAX_NUMBER_OF_SLOT_TO_CHECK + 1, orderService.fetchAllOrder().size());
+        restaurant.getTimeSlotManager().getSlots().values()
+                .forEach(slot -> assertTrue(slot.getOrderToPrepareDuringTimeSlot().size() <= slot.getCapacity()));
+    }
+
+    @Test
+    void testRefusedSubOrderGivesBackItsPlaces() throws UnauthorizedOperationException {
+        DateTime deliveryDate = new DateTime().plusDays(1).withTime(new LocalTime(12, 0, 0));
+        Menu menu = new Menu("Pizza", 12);
+        Restaurant restaurant = new Restaurant("Pizza della mama", 4, "test", new Scheduler(), 1, "1 rue de la paix");
+        restaurant.addMenuItem(menu);
+        assertTrue(orderService.createGroupOrder(customer, deliveryDate, "930 Rte des Colles, 06410 Biot"));
+        GroupOrder groupOrder = Mockito.spy((GroupOrder) orderService.fetchAllOrder().get(orderService.fetchAllOrder().size() - 1));
+        Mockito.doReturn(false).when(groupOrder).addSubOrder(Mockito.any());
+
+        assertFalse(orderService.addOrderToGroupOrder(customer, List.of(new OrderItem(menu, restaurant)), groupOrder));
+        assertTrue(restaurant.getOrders().isEmpty());
+        assertFalse(restaurant.getTimeSlotManager().getSlots().isEmpty());
+        restaurant.getTimeSlotManager().getSlots().values()
+                .forEach(slot -> assertEquals(slot.getCapacity(), slot.numberOfAvailablePlaceForItem()));
+
+        Mockito.doThrow(new UnauthorizedOperationException("refused")).when(groupOrder).addSubOrder(Mockito.any());
+        assertThrows(UnauthorizedOperationException.class, () -> orderService.addOrderToGroupOrder(customer, List.of(new OrderItem(menu, restaurant)), groupOrder));
+        restaurant.getTimeSlotManager().getSlots().values()
+                .forEach(slot -> assertEquals(slot.getCapacity(), slot.numberOfAvailablePlaceForItem()));
+    }
 }
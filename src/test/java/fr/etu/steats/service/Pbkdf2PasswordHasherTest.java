@@ -0,0 +1,47 @@
+package fr.etu.steats.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Pbkdf2PasswordHasherTest {
+    private final Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1000);
+
+    @Test
+    void testHashAndMatch() {
+        String hash = hasher.hash("password");
+
+        assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+        assertFalse(hash.contains("password"));
+        assertTrue(hasher.matches("password", hash));
+        assertFalse(hasher.matches("Password", hash));
+        assertFalse(hasher.matches(null, hash));
+    }
+
+    @Test
+    void testSaltIsRandom() {
+        assertNotEquals(hasher.hash("password"), hasher.hash("password"));
+    }
+
+    @Test
+    void testCostChangeKeepsOldHashes() {
+        String hash = new Pbkdf2PasswordHasher(500).hash("password");
+        assertTrue(hasher.matches("password", hash));
+    }
+
+    @Test
+    void testIsHash() {
+        assertTrue(hasher.isHash(hasher.hash("password")));
+        assertFalse(hasher.isHash("password1"));
+        assertFalse(hasher.isHash("pbkdf2-sha256$password"));
+        assertFalse(hasher.isHash(null));
+    }
+
+    @Test
+    void testMalformedHash() {
+        assertFalse(hasher.matches("password", "password"));
+        assertFalse(hasher.matches("password", "pbkdf2-sha256$abc$salt$key"));
+        assertFalse(hasher.matches("password", null));
+        assertThrows(IllegalArgumentException.class, () -> new Pbkdf2PasswordHasher(0));
+    }
+}
@@ -6,14 +6,20 @@ import fr.etu.steats.account.DeliveryAccount;
 import fr.etu.steats.exception.AlreadyRegisteredUser;
 import fr.etu.steats.exception.BadPasswordException;
 import fr.etu.steats.exception.NoAccountFoundException;
+import fr.etu.steats.utils.Scheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RegistrationServiceTest {
     private RegistrationService registrationService;
@@ -32,22 +38,36 @@ class RegistrationServiceTest {
         this.registrationService = new RegistrationService(customerAccounts, deliveryAccounts, adminAccounts);
     }
 
+    @Test
+    void testAccountIdsFollowTheOrderOfTheFiles() {
+        RegistrationService loaded = new RegistrationService(new Scheduler());
+        int[] customerIds = loaded.getCustomerList().stream().mapToInt(CustomerAccount::getId).sorted().toArray();
+        int[] deliveryIds = loaded.getDeliveryAccounts().stream().mapToInt(DeliveryAccount::getId).sorted().toArray();
+
+        assertTrue(customerIds.length > 0);
+        assertTrue(deliveryIds.length > 0);
+        // The customers are created first, then the delivery accounts, each in the order of their file
+        assertEquals(customerIds.length - 1, customerIds[customerIds.length - 1] - customerIds[0]);
+        assertEquals(deliveryIds.length - 1, deliveryIds[deliveryIds.length - 1] - deliveryIds[0]);
+        assertEquals(customerIds[customerIds.length - 1] + 1, deliveryIds[0]);
+    }
+
     @Test
     void testWorkingCaseLogin() throws BadPasswordException, NoAccountFoundException {
         CustomerAccount account = registrationService.loginCustomer(" AxEl ", " dElIlLe ", "test2");
         assertEquals("axel", account.getFirstName());
         assertEquals("delille", account.getLastName());
-        assertEquals("test2", account.getPassword());
+        assertTrue(account.checkPassword("test2"));
 
         account = registrationService.loginCustomer("Axel", "Delille", "test2");
         assertEquals("axel", account.getFirstName());
         assertEquals("delille", account.getLastName());
-        assertEquals("test2", account.getPassword());
+        assertTrue(account.checkPassword("test2"));
 
         account = registrationService.loginCustomer("axel", "delille", "test2");
         assertEquals("axel", account.getFirstName());
         assertEquals("delille", account.getLastName());
-        assertEquals("test2", account.getPassword());
+        assertTrue(account.checkPassword("test2"));
     }
 
     @Test
@@ -76,12 +96,12 @@ class RegistrationServiceTest {
 
         assertEquals("nina", customer.getFirstName());
         assertEquals("boulton", customer.getLastName());
-        assertEquals("test3", customer.getPassword());
+        assertTrue(customer.checkPassword("test3"));
 
         customer = registrationService.loginCustomer("nina", "boulton", "test3");
         assertEquals("nina", customer.getFirstName());
         assertEquals("boulton", customer.getLastName());
-        assertEquals("test3", customer.getPassword());
+        assertTrue(customer.checkPassword("test3"));
     }
 
     @Test
@@ -104,12 +124,12 @@ class RegistrationServiceTest {
         DeliveryAccount deliver = registrationService.loginDelivery(" John ", " Doe ", "delivery1");
         assertEquals("john", deliver.getFirstName());
         assertEquals("doe", deliver.getLastName());
-        assertEquals("delivery1", deliver.getPassword());
+        assertTrue(deliver.checkPassword("delivery1"));
 
         deliver = registrationService.loginDelivery("Jane", "Smith", "delivery2");
         assertEquals("jane", deliver.getFirstName());
         assertEquals("smith", deliver.getLastName());
-        assertEquals("delivery2", deliver.getPassword());
+        assertTrue(deliver.checkPassword("delivery2"));
     }
 
     @Test
@@ -125,11 +145,11 @@ class RegistrationServiceTest {
     }
 
     @Test
-    void testWorkingCaseRegisterDeliveryAccount() throws AlreadyRegisteredUser {
+    void testWorkingCaseRegisterDeliveryAccount() throws AlreadyRegisteredUser, BadPasswordException {
         DeliveryAccount deliver = registrationService.registerDelivery("Mike", "Tyson", "delivery3");
         assertEquals("mike", deliver.getFirstName());
         assertEquals("tyson", deliver.getLastName());
-        assertEquals("delivery3", deliver.getPassword());
+        assertTrue(deliver.checkPassword("delivery3"));
     }
 
     @Test
@@ -144,7 +164,7 @@ class RegistrationServiceTest {
         AdminAccount admin = registrationService.loginAdmin("admin", "admin", "admin");
         assertEquals("admin", admin.getFirstName());
         assertEquals("admin", admin.getLastName());
-        assertEquals("admin", admin.getPassword());
+        assertTrue(admin.checkPassword("admin"));
     }
 
     @Test
@@ -158,4 +178,36 @@ class RegistrationServiceTest {
         assertThrows(IllegalArgumentException.class, () -> registrationService.loginAdmin("admin", "admin", null));
         assertThrows(IllegalArgumentException.class, () -> registrationService.loginAdmin("", "admin", "admin"));
     }
+
+    @Test
+    void testConcurrentRegistrationWithTheSameName() throws InterruptedException {
+        int threadCount = 8;
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    registrationService.registerCustomer("Ada", "Lovelace", "password");
+                    registered.incrementAndGet();
+                } catch (AlreadyRegisteredUser e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, registered.get());
+        assertEquals(threadCount - 1, rejected.get());
+        assertEquals(3, registrationService.getCustomerList().size());
+    }
 }
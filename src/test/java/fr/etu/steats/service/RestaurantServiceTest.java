@@ -124,6 +124,17 @@ class RestaurantServiceTest {
         assertEquals(1, service.getRestaurants().size());
     }
 
+    @Test
+    void testLoginAfterRename() throws BadPasswordException, NonExistantRestaurantException {
+        Restaurant restaurant = service.findRestaurantById(1);
+        restaurant.setName("Chez Paul");
+
+        assertSame(restaurant, service.login("chez paul", "test"));
+        assertThrows(NonExistantRestaurantException.class, () -> service.login("Chez pierre", "test"));
+        assertEquals(2, service.addRestaurant("Chez Pierre", "password", "1 rue de la paix").getId());
+        assertThrows(IllegalArgumentException.class, () -> service.addRestaurant("Chez Paul", "password", "1 rue de la paix"));
+    }
+
     @Test
     void testAddDuplicateRestaurantNameDifferentCase() {
         assertThrows(IllegalArgumentException.class, () -> service.addRestaurant("chez PIERRE", "password", "1 rue de la paix"));
@@ -0,0 +1,71 @@
+package fr.etu.steats.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @AfterEach
+    void tearDown() {
+        ClockService.useSystemClock();
+    }
+
+    @Test
+    void testSessionIsBoundToItsPrincipal() {
+        SessionCache sessions = new SessionCache(1000, 10);
+        Object principal = new Object();
+        String token = sessions.open(principal);
+
+        assertTrue(sessions.isValid(token, principal));
+        assertFalse(sessions.isValid(token, new Object()));
+        assertFalse(sessions.isValid("unknown", principal));
+        assertFalse(sessions.isValid(null, principal));
+        assertNotEquals(token, sessions.open(principal));
+    }
+
+    @Test
+    void testSessionExpiresWithoutUse() {
+        ClockService.setClock(now::get);
+        SessionCache sessions = new SessionCache(1000, 10);
+        Object principal = new Object();
+        String token = sessions.open(principal);
+
+        now.addAndGet(900);
+        assertTrue(sessions.isValid(token, principal));
+        // The check extended the session
+        now.addAndGet(900);
+        assertTrue(sessions.isValid(token, principal));
+        now.addAndGet(1000);
+        assertFalse(sessions.isValid(token, principal));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    void testClose() {
+        SessionCache sessions = new SessionCache(1000, 10);
+        Object principal = new Object();
+        String token = sessions.open(principal);
+
+        sessions.close(token);
+        assertFalse(sessions.isValid(token, principal));
+        assertThrows(IllegalArgumentException.class, () -> sessions.open(null));
+    }
+
+    @Test
+    void testExpiredSessionsAreEvicted() {
+        ClockService.setClock(now::get);
+        SessionCache sessions = new SessionCache(1000, 3);
+        for (int i = 0; i < 3; i++) {
+            sessions.open(new Object());
+        }
+        now.addAndGet(1000);
+        sessions.open(new Object());
+
+        assertEquals(1, sessions.size());
+    }
+}
@@ -0,0 +1,187 @@
+package fr.etu.steats.service;
+
+import fr.etu.steats.account.AdminAccount;
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.ECustomerStatus;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.exception.BadPasswordException;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.GroupOrder;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.TimeSlot;
+import fr.etu.steats.utils.Scheduler;
+import org.joda.time.DateTime;
+import org.joda.time.LocalTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotServiceTest {
+    private static final String ADDRESS = "930 Rte des Colles, 06410 Biot";
+
+    @TempDir
+    Path directory;
+
+    private SnapshotService snapshotService;
+    private CustomerAccount customer;
+    private DeliveryAccount delivery;
+    private Restaurant restaurant;
+    private OrderAbstract order;
+    private DateTime deliveryDate;
+
+    @BeforeEach
+    void setup() throws UnauthorizedOperationException {
+        customer = new CustomerAccount("Karim", "Charleux", "test", ECustomerStatus.STUDENT);
+        delivery = new DeliveryAccount("John", "Doe", "delivery");
+        restaurant = new Restaurant("Pizza della mama", 1, "secret", new Scheduler(), ADDRESS);
+        Menu pizza = new Menu("Pizza", 12);
+        pizza.setStudentPrice(10.5);
+        restaurant.addMenuItem(pizza);
+        restaurant.addMenuItem(new Menu("Tiramisu", 6, false));
+
+        snapshotService = new SnapshotService(
+                new RegistrationService(Set.of(customer), Set.of(delivery), Set.of(new AdminAccount("admin", "admin", "admin"))),
+                new RestaurantService(Set.of(restaurant)),
+                new OrderService());
+        deliveryDate = new LocalTime(12, 0).toDateTimeToday().plusDays(1);
+        OrderService orderService = snapshotService.getOrderService();
+        assertTrue(orderService.createSingleOrder(customer, List.of(new OrderItem(pizza, restaurant)), deliveryDate, ADDRESS));
+        assertTrue(orderService.createGroupOrder(customer, deliveryDate, ADDRESS));
+        order = orderService.fetchAllOrder().get(0);
+
+        // The order keeps the price of the previous version of the menu
+        restaurant.updateMenuItem("Pizza", new Menu("Pizza", 15));
+        DiscountService.getDiscountGrantStore().grant(customer, restaurant, ClockService.now().plusDays(3));
+        customer.setCredit(4.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.stop();
+        DiscountService.getDiscountGrantStore().clear();
+    }
+
+    @Test
+    void testRestoreAccountsAndRestaurants() throws IOException, BadPasswordException {
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.write(file);
+        SnapshotService restored = SnapshotService.restore(file, new PaymentService(), null);
+
+        CustomerAccount restoredCustomer = restored.getRegistrationService().findCustomerById(customer.getId());
+        assertNotSame(customer, restoredCustomer);
+        assertEquals("karim", restoredCustomer.getFirstName());
+        assertEquals(ECustomerStatus.STUDENT, restoredCustomer.getType());
+        assertEquals(4.5, restoredCustomer.getCredit());
+        assertTrue(restoredCustomer.checkPassword("test"));
+        assertTrue(restored.getRegistrationService().findDeliveryById(delivery.getId()).checkPassword("delivery"));
+        assertEquals(1, restored.getRegistrationService().getAdminAccounts().size());
+
+        Restaurant restoredRestaurant = restored.getRestaurantService().findRestaurantById(1);
+        assertEquals("pizza della mama", restoredRestaurant.getName());
+        assertEquals(ADDRESS, restoredRestaurant.getAddress());
+        assertTrue(restoredRestaurant.checkPassword("secret"));
+        assertEquals(restaurant.getMenu().getVersion(), restoredRestaurant.getMenu().getVersion());
+        assertEquals(15, restoredRestaurant.getMenuItem("Pizza").getGlobalPrice());
+        assertFalse(restoredRestaurant.getMenuItem("Tiramisu").isAfterWork());
+        assertEquals(List.of(restoredRestaurant.getMenuItem("Pizza")), restoredRestaurant.getAfterWorkMenuItems());
+        assertTrue(DiscountService.isUnderCumulatedOrderDiscount(restoredCustomer, restoredRestaurant));
+    }
+
+    @Test
+    void testRestoreOrders() throws IOException {
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.write(file);
+        SnapshotService restored = SnapshotService.restore(file, new PaymentService(), null);
+
+        OrderAbstract restoredOrder = restored.getOrderService().getOrderRepository().findById(order.getId());
+        Restaurant restoredRestaurant = restored.getRestaurantService().findRestaurantById(1);
+        assertNotSame(order, restoredOrder);
+        assertEquals(2, restored.getOrderService().fetchAllOrder().size());
+        assertInstanceOf(GroupOrder.class, restored.getOrderService().fetchAllOrder().get(1));
+        assertEquals(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE, restoredOrder.getStatus());
+        assertEquals(deliveryDate, restoredOrder.getDeliveryDate());
+        assertEquals(ADDRESS, restoredOrder.getDeliveryAddress());
+        assertEquals(10.5, restoredOrder.getItems().get(0).getPrice(ECustomerStatus.STUDENT));
+        assertSame(restoredRestaurant, restoredOrder.getItems().get(0).getRestaurant());
+        assertEquals(List.of(restoredOrder), restored.getRegistrationService().findCustomerById(customer.getId()).getOrders());
+        assertEquals(List.of(restoredOrder), restored.getOrderService().getOrderRepository().findByStatus(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE));
+
+        assertEquals(1, restoredRestaurant.countOrders(EOrderStatus.WAITING_RESTAURANT_ACCEPTANCE));
+        TimeSlot slot = restoredRestaurant.getTimeSlotManager().getTimeSlotForOrder(deliveryDate).get(0);
+        assertEquals(restoredOrder.getItems(), slot.getOrderToPrepareDuringTimeSlot());
+        assertEquals(slot.getCapacity() - 1, slot.numberOfAvailablePlaceForItem());
+
+        // The restored order still belongs to its restaurant, even with an item of a previous version of the menu
+        restoredRestaurant.cancelOrder(1);
+        assertEquals(EOrderStatus.CANCELED, restoredOrder.getStatus());
+        assertEquals(0, restoredRestaurant.countOrders());
+    }
+
+    @Test
+    void testNewIdsFollowTheRestoredOnes() throws IOException, UnauthorizedOperationException {
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.write(file);
+        SnapshotService restored = SnapshotService.restore(file, new PaymentService(), null);
+
+        CustomerAccount restoredCustomer = restored.getRegistrationService().findCustomerById(customer.getId());
+        assertTrue(restored.getOrderService().createGroupOrder(restoredCustomer, deliveryDate, ADDRESS));
+        List<OrderAbstract> orders = restored.getOrderService().fetchAllOrder();
+        assertTrue(orders.get(orders.size() - 1).getId() > order.getId());
+        assertTrue(new CustomerAccount("Axel", "Delille", "test").getId() > customer.getId());
+        assertEquals(2, restored.getRestaurantService().addRestaurant("Mcdo", "test", ADDRESS).getId());
+    }
+
+    @Test
+    void testIdsOfRemovedRestaurantsAreNotGivenAgain() throws IOException {
+        assertTrue(snapshotService.getRestaurantService().removeRestaurant(restaurant.getId()));
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.write(file);
+        SnapshotService restored = SnapshotService.restore(file, new PaymentService(), null);
+
+        // The removed restaurant is still referred to by the order
+        assertTrue(restored.getRestaurantService().getRestaurants().isEmpty());
+        assertEquals(2, restored.getRestaurantService().addRestaurant("Mcdo", "test", ADDRESS).getId());
+    }
+
+    @Test
+    void testSequenceAndCorruption() throws IOException {
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.write(file);
+        snapshotService.write(file);
+        assertEquals(2, snapshotService.getSequence());
+        assertEquals(2, SnapshotService.restore(file, new PaymentService(), null).getSequence());
+
+        byte[] content = Files.readAllBytes(file);
+        content[content.length / 2] ^= 1;
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> SnapshotService.restore(file, new PaymentService(), null));
+        assertThrows(IOException.class, () -> SnapshotService.restore(directory.resolve("missing"), new PaymentService(), null));
+    }
+
+    @Test
+    void testPeriodicSnapshots() throws InterruptedException {
+        Path file = directory.resolve("steats.snapshot");
+        snapshotService.start(file, 10);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (snapshotService.getSequence() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        snapshotService.stop();
+        assertTrue(snapshotService.getSequence() >= 2);
+        assertTrue(Files.exists(file));
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.start(file, 0));
+    }
+}
@@ -0,0 +1,74 @@
+package fr.etu.steats.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncBatchQueueTest {
+    private AsyncBatchQueue<Integer> queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testElementsAreProcessedInOrderByBoundedBatches() {
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        AtomicInteger largestBatch = new AtomicInteger();
+        queue = new AsyncBatchQueue<>("test-queue", 1000, 10, 0, batch -> {
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+            processed.addAll(batch);
+        });
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(queue.submit(i));
+        }
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(500, processed.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, processed.get(i));
+        }
+        assertTrue(largestBatch.get() <= 10);
+        assertEquals(500, queue.getSubmittedCount());
+    }
+
+    @Test
+    void testFailingConsumerDoesNotStopTheQueue() {
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        queue = new AsyncBatchQueue<>("test-queue", 10, 1, 0, batch -> {
+            if (batch.contains(0)) {
+                throw new IllegalStateException("Unreachable");
+            }
+            processed.addAll(batch);
+        });
+
+        queue.submit(0);
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+        queue.submit(1);
+        assertTrue(queue.flush(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1), processed);
+
+        assertTrue(queue.shutdown(1, TimeUnit.SECONDS));
+        assertFalse(queue.submit(2));
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    void testInvalidQueue() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncBatchQueue<Integer>("test-queue", 0, 1, 0, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncBatchQueue<Integer>("test-queue", 1, 0, 0, batch -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncBatchQueue<Integer>("test-queue", 1, 1, 0, null));
+    }
+}
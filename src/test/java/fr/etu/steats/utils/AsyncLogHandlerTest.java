@@ -0,0 +1,55 @@
+package fr.etu.steats.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogHandlerTest {
+
+    @Test
+    void testRecordsAreWrittenInOrder() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AsyncLogHandler handler = new AsyncLogHandler(output, new LogFormatter(), 1000);
+
+        for (int i = 0; i < 300; i++) {
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        }
+        handler.flush();
+        handler.close();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(300, lines.length);
+        assertTrue(lines[0].endsWith(" [INFO] : Message 0"));
+        assertTrue(lines[299].endsWith(" [INFO] : Message 299"));
+        assertEquals(0, handler.getDroppedCount());
+
+        handler.publish(new LogRecord(Level.INFO, "After close"));
+        assertEquals(0, handler.getQueueSize());
+    }
+
+    @Test
+    void testFormatterKeepsTheFormatOfTheDate() {
+        LogFormatter formatter = new LogFormatter();
+        LogRecord logRecord = new LogRecord(Level.INFO, "Message");
+        assertEquals(new Date(logRecord.getMillis()) + " [INFO] : Message\n", formatter.format(logRecord));
+
+        LogRecord userRecord = new LogRecord(UserLevel.USER, "Notification");
+        userRecord.setMillis(logRecord.getMillis());
+        assertEquals(UserLevel.USER.getColor() + new Date(logRecord.getMillis()) + " [USER] : Notification\u001B[0m\n", formatter.format(userRecord));
+
+        LogRecord severeRecord = new LogRecord(Level.SEVERE, "Error");
+        severeRecord.setMillis(logRecord.getMillis() + 2000);
+        assertEquals("\u001B[31m" + new Date(severeRecord.getMillis()) + " [SEVERE] : Error\u001B[0m\n", formatter.format(severeRecord));
+    }
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogHandler(new ByteArrayOutputStream(), new LogFormatter(), 0));
+    }
+}
@@ -0,0 +1,124 @@
+package fr.etu.steats.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFieldsAndLines() throws IOException {
+        Path file = write("a,b,c\r\n\nd,,f\ng");
+        List<String> fields = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+
+        LoadReport report = CsvLoader.load(file.toString(), row -> {
+            lineNumbers.add(row.getLineNumber());
+            for (int i = 0; i < row.size(); i++) {
+                fields.add(row.get(i));
+            }
+        });
+
+        assertEquals(List.of("a", "b", "c", "d", "", "f", "g"), fields);
+        assertEquals(List.of(1, 3, 4), lineNumbers);
+        assertEquals(3, report.rowCount());
+        assertFalse(report.hasErrors());
+        assertEquals(Files.size(file), report.byteCount());
+    }
+
+    @Test
+    void testBadLinesAreReportedAndSkipped() throws IOException {
+        Path file = write("pizza,10.0\nburger,abc\nsalad\ntiramisu, 7.5\n");
+        List<Double> prices = new ArrayList<>();
+
+        LoadReport report = CsvLoader.load(file.toString(), row -> {
+            if (row.getDouble(1) > 9) {
+                row.reportError("Expensive");
+            }
+            prices.add(row.getDouble(1));
+        });
+
+        assertEquals(List.of(10.0, 7.5), prices);
+        assertEquals(4, report.rowCount());
+        assertEquals(3, report.errorCount());
+        assertEquals(List.of(1, 2, 3), report.errors().stream().map(LoadReport.LineError::lineNumber).toList());
+        assertEquals("Expensive", report.errors().get(0).message());
+    }
+
+    @Test
+    void testWholeLineWithAnotherSeparator() throws IOException {
+        Path file = write("IUT, 06410 Biot, France\n");
+        List<String> lines = new ArrayList<>();
+
+        CsvLoader.load(file.toString(), '\n', row -> lines.add(row.get(0)));
+
+        assertEquals(List.of("IUT, 06410 Biot, France"), lines);
+    }
+
+    @Test
+    void testFileIsReadBeforeItsLinesAreLoaded() throws IOException {
+        Path file = write("a,b\nc,d\n");
+        CsvLoader.CsvFile csvFile = CsvLoader.read(file.toString());
+        Files.delete(file);
+        List<String> fields = new ArrayList<>();
+
+        LoadReport report = csvFile.load(row -> fields.add(row.get(1)));
+
+        assertEquals(List.of("b", "d"), fields);
+        assertEquals(2, report.rowCount());
+        assertFalse(report.hasErrors());
+    }
+
+    @Test
+    void testMissingFile() {
+        LoadReport report = CsvLoader.load(directory.resolve("missing.csv").toString(), row -> fail("No line expected"));
+
+        assertEquals(0, report.rowCount());
+        assertEquals(1, report.errorCount());
+        assertEquals(0, report.errors().get(0).lineNumber());
+    }
+
+    @Test
+    void testBigFileIsMapped() throws IOException {
+        StringBuilder content = new StringBuilder();
+        int lineCount = 100_000;
+        for (int i = 0; i < lineCount; i++) {
+            content.append("user").append(i).append(",name").append(i).append(",password").append(i).append('\n');
+        }
+        Path file = write(content.toString());
+        long[] sum = new long[1];
+
+        LoadReport report = CsvLoader.load(file.toString(), row -> sum[0] += row.get(0).length() + row.size());
+
+        assertTrue(report.byteCount() > 1 << 20);
+        assertEquals(lineCount, report.rowCount());
+        assertFalse(report.hasErrors());
+        assertTrue(sum[0] > 3L * lineCount);
+    }
+
+    @Test
+    void testErrorsAreCapped() throws IOException {
+        Path file = write("x\n".repeat(LoadReport.MAX_KEPT_ERRORS + 10));
+
+        LoadReport report = CsvLoader.load(file.toString(), row -> row.get(1));
+
+        assertEquals(LoadReport.MAX_KEPT_ERRORS + 10, report.errorCount());
+        assertEquals(LoadReport.MAX_KEPT_ERRORS, report.errors().size());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(directory, "test", ".csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,203 @@
+package fr.etu.steats.utils;
+
+import fr.etu.steats.enums.EJournalDurability;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayAfterReopen() throws IOException {
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            assertEquals(0, journal.getLastSequence());
+            assertEquals(1, journal.append((byte) 1, bytes("first")));
+            assertEquals(2, journal.append((byte) 2, bytes("second")));
+            assertEquals(3, journal.append((byte) 1, new byte[0]));
+            assertEquals(3, journal.getDurableSequence());
+        }
+
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            assertEquals(3, journal.getLastSequence());
+            assertEquals(4, journal.append((byte) 3, bytes("fourth")));
+            List<String> records = new ArrayList<>();
+            assertEquals(3, journal.replay(1, (sequence, type, payload) -> records.add(sequence + ":" + type + ":" + string(payload))));
+            assertEquals(List.of("2:2:second", "3:1:", "4:3:fourth"), records);
+        }
+    }
+
+    @Test
+    void testDeferredAppendIsWaitedForLater() throws IOException {
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            assertEquals(1, journal.appendDeferred((byte) 1, bytes("first")));
+            assertEquals(2, journal.appendDeferred((byte) 1, bytes("second")));
+            assertEquals(0, journal.getDurableSequence());
+
+            // One wait writes every record appended before it
+            journal.awaitDurable(1);
+            assertEquals(2, journal.getDurableSequence());
+            journal.awaitDurable(2);
+        }
+    }
+
+    @Test
+    void testSegmentsRotateAndAreDeleted() throws IOException {
+        try (EventJournal journal = EventJournal.open(directory, 64, EJournalDurability.SYNC, 10)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append((byte) 1, new byte[30]);
+            }
+            assertEquals(10, journal.getSegmentCount());
+            assertEquals(10, countFiles());
+
+            assertEquals(6, journal.deleteSegmentsUpTo(6));
+            assertEquals(4, journal.getSegmentCount());
+            List<Long> sequences = new ArrayList<>();
+            journal.replay(6, (sequence, type, payload) -> sequences.add(sequence));
+            assertEquals(List.of(7L, 8L, 9L, 10L), sequences);
+
+            // The last segment is kept so the next records follow the last sequence
+            assertEquals(3, journal.deleteSegmentsUpTo(100));
+            assertEquals(1, journal.getSegmentCount());
+        }
+        try (EventJournal journal = EventJournal.open(directory, 64, EJournalDurability.SYNC, 10)) {
+            assertEquals(11, journal.append((byte) 1, new byte[30]));
+        }
+    }
+
+    @Test
+    void testIncompleteRecordIsRemovedOnOpen() throws IOException {
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            journal.append((byte) 1, bytes("first"));
+            journal.append((byte) 1, bytes("second"));
+        }
+        Path segment = lastSegment();
+        Files.write(segment, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            assertEquals(2, journal.getLastSequence());
+            assertEquals(3, journal.append((byte) 1, bytes("third")));
+            assertEquals(3, journal.replay(0, (sequence, type, payload) -> {
+            }));
+        }
+    }
+
+    @Test
+    void testCorruptedSegmentFailsTheReplay() throws IOException {
+        try (EventJournal journal = EventJournal.open(directory, 64, EJournalDurability.SYNC, 10)) {
+            journal.append((byte) 1, new byte[30]);
+            journal.append((byte) 1, new byte[30]);
+        }
+        Path firstSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            firstSegment = files.sorted().findFirst().orElseThrow();
+        }
+        byte[] content = Files.readAllBytes(firstSegment);
+        content[content.length - 1] ^= 1;
+        Files.write(firstSegment, content);
+
+        try (EventJournal journal = EventJournal.open(directory, 64, EJournalDurability.SYNC, 10)) {
+            assertThrows(IOException.class, () -> journal.replay(0, (sequence, type, payload) -> {
+            }));
+        }
+    }
+
+    @Test
+    void testConcurrentAppendsShareTheWrites() throws Exception {
+        int threads = 8;
+        int appendsPerThread = 200;
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (EventJournal journal = EventJournal.open(directory, 4096, EJournalDurability.SYNC, 10)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < appendsPerThread; j++) {
+                        long sequence = journal.append((byte) 1, bytes("record"));
+                        sequences.add(sequence);
+                        assertTrue(journal.getDurableSequence() >= sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(threads * appendsPerThread, sequences.size());
+            assertEquals(threads * appendsPerThread, journal.replay(0, (sequence, type, payload) -> assertEquals("record", string(payload))));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAsynchronousDurability() throws IOException, InterruptedException {
+        try (EventJournal journal = EventJournal.open(directory, EventJournal.DEFAULT_SEGMENT_SIZE, EJournalDurability.ASYNC, 5)) {
+            journal.append((byte) 1, bytes("first"));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (journal.getDurableSequence() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, journal.getDurableSequence());
+
+            journal.append((byte) 1, bytes("second"));
+            journal.flush();
+            assertEquals(2, journal.getDurableSequence());
+        }
+        try (EventJournal journal = EventJournal.open(directory, EJournalDurability.SYNC)) {
+            assertEquals(2, journal.getLastSequence());
+        }
+    }
+
+    @Test
+    void testClosedJournal() throws IOException {
+        EventJournal journal = EventJournal.open(directory, EJournalDurability.ASYNC);
+        journal.append((byte) 1, bytes("first"));
+        journal.close();
+        journal.close();
+        assertThrows(IOException.class, () -> journal.append((byte) 1, bytes("second")));
+        assertEquals(1, journal.replay(0, (sequence, type, payload) -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> EventJournal.open(directory, 8, EJournalDurability.SYNC, 10));
+        assertThrows(IllegalArgumentException.class, () -> EventJournal.open(directory, 1024, EJournalDurability.ASYNC, 0));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
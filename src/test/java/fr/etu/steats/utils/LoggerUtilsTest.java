@@ -4,12 +4,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 
 import static fr.etu.steats.utils.LoggerUtils.LOGGER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LoggerUtilsTest {
 
@@ -59,6 +65,43 @@ class LoggerUtilsTest {
         assertEquals("This is a test log message.", capturingLogHandler.getCapturedData());
     }
 
+    @Test
+    void testLazyMessageSkippedBelowTheActiveLevel() {
+        AtomicInteger calls = new AtomicInteger();
+        LoggerUtils.setLevel(Level.WARNING);
+        try {
+            assertFalse(LoggerUtils.isLoggable(Level.INFO));
+            LoggerUtils.log(Level.INFO, () -> "Skipped " + calls.incrementAndGet());
+            assertEquals(0, calls.get());
+            assertEquals("", capturingLogHandler.getCapturedData());
+
+            LoggerUtils.log(Level.SEVERE, () -> "Logged " + calls.incrementAndGet());
+            assertEquals("Logged 1", capturingLogHandler.getCapturedData());
+        } finally {
+            LoggerUtils.setLevel(Level.ALL);
+        }
+    }
+
+    @Test
+    void testStandardOutputStillUsableAfterSwitchingHandlers() {
+        PrintStream standardOutput = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream testOutput = new PrintStream(output, true, StandardCharsets.UTF_8);
+        System.setOut(testOutput);
+        try {
+            LoggerUtils.disableAsynchronousOutput();
+            LoggerUtils.enableAsynchronousOutput(16);
+            LoggerUtils.disableAsynchronousOutput();
+            System.out.println("after");
+
+            assertFalse(testOutput.checkError());
+            assertTrue(output.toString(StandardCharsets.UTF_8).contains("after"));
+        } finally {
+            System.setOut(standardOutput);
+            LoggerUtils.disableAsynchronousOutput();
+        }
+    }
+
     @Test
     void testLoggerInitialization() {
         assertThrows(IllegalStateException.class, LoggerUtils::new);
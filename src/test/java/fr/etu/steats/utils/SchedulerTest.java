@@ -4,6 +4,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertThrows;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,4 +32,56 @@ class SchedulerTest {
         Mockito.doThrow(new InterruptedException()).when(scheduler).waitTenMinutes();
         assertThrows(InterruptedException.class, scheduler::waitTenMinutes);
     }
+
+    @Test
+    void testAfterCompletesWithoutBlocking() {
+        Scheduler scheduler = new Scheduler();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            futures.add(scheduler.after(20, TimeUnit.MILLISECONDS));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).orTimeout(5, TimeUnit.SECONDS).join();
+        Assertions.assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+    }
+
+    @Test
+    void testChainedWorkDoesNotHoldTheTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        try {
+            Scheduler scheduler = new Scheduler(timer);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Void> blocked = scheduler.after(1, TimeUnit.MILLISECONDS).thenRunAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, scheduler.getWorkExecutor());
+
+            // The only timer thread is free to complete the next delay while the first work waits
+            scheduler.after(1, TimeUnit.MILLISECONDS).orTimeout(5, TimeUnit.SECONDS).join();
+            Assertions.assertFalse(blocked.isDone());
+            release.countDown();
+            blocked.orTimeout(5, TimeUnit.SECONDS).join();
+        } finally {
+            timer.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Scheduler(timer, null));
+    }
+
+    @Test
+    void testCancelRemovesTheTask() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true);
+        try {
+            Scheduler scheduler = new Scheduler(timer);
+            CompletableFuture<Void> future = scheduler.afterTenMinutes();
+            Assertions.assertEquals(1, timer.getQueue().size());
+            future.cancel(false);
+            Assertions.assertEquals(0, timer.getQueue().size());
+        } finally {
+            timer.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Scheduler(null));
+    }
 }
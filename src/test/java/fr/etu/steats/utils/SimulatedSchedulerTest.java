@@ -0,0 +1,182 @@
+package fr.etu.steats.utils;
+
+import fr.etu.steats.account.CustomerAccount;
+import fr.etu.steats.account.DeliveryAccount;
+import fr.etu.steats.enums.EOrderStatus;
+import fr.etu.steats.exception.UnauthorizedOperationException;
+import fr.etu.steats.order.OrderAbstract;
+import fr.etu.steats.order.OrderItem;
+import fr.etu.steats.restaurant.Menu;
+import fr.etu.steats.restaurant.Restaurant;
+import fr.etu.steats.restaurant.TimeSlot;
+import fr.etu.steats.service.ClockService;
+import fr.etu.steats.service.OrderService;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedSchedulerTest {
+    private static final DateTime START_OF_DAY = new DateTime(2024, 3, 4, 8, 0);
+    private static final DateTime LAST_ORDER = START_OF_DAY.withHourOfDay(18);
+    private static final DateTime END_OF_DAY = START_OF_DAY.withHourOfDay(21);
+
+    @AfterEach
+    void tearDown() {
+        ClockService.useSystemClock();
+        LoggerUtils.setLevel(Level.ALL);
+    }
+
+    @Test
+    void testEventsRunInOrderOfDate() {
+        SimulatedScheduler scheduler = new SimulatedScheduler(START_OF_DAY.getMillis());
+        List<String> runs = new ArrayList<>();
+        scheduler.schedule(20, TimeUnit.MINUTES, () -> runs.add("second"));
+        scheduler.schedule(5, TimeUnit.MINUTES, () -> runs.add("first"));
+        scheduler.schedule(20, TimeUnit.MINUTES, () -> runs.add("third"));
+        assertEquals(3, scheduler.getPendingEventCount());
+
+        scheduler.advance(10, TimeUnit.MINUTES);
+        assertEquals(List.of("first"), runs);
+        assertEquals(START_OF_DAY.plusMinutes(10).getMillis(), scheduler.getMillis());
+
+        scheduler.waitTenMinutes();
+        assertEquals(List.of("first", "second", "third"), runs);
+        assertEquals(START_OF_DAY.plusMinutes(20).getMillis(), scheduler.getMillis());
+        assertEquals(0, scheduler.getPendingEventCount());
+    }
+
+    @Test
+    void testClockFollowsTheVirtualTime() {
+        SimulatedScheduler scheduler = new SimulatedScheduler(START_OF_DAY.getMillis());
+        ClockService.setClock(scheduler);
+        CompletableFuture<Void> tenMinutes = scheduler.afterTenMinutes();
+        scheduler.runUntilIdle();
+
+        assertTrue(tenMinutes.isDone());
+        assertEquals(START_OF_DAY.plusMinutes(10), ClockService.now());
+        assertEquals(START_OF_DAY.plusMinutes(10).getMillis(), new DateTime().getMillis());
+    }
+
+    @Test
+    void testCampusDayIsReproducible() {
+        LoggerUtils.setLevel(Level.WARNING);
+        long startTime = System.nanoTime();
+        List<Long> firstRun = simulateCampusDay(42);
+        List<Long> secondRun = simulateCampusDay(42);
+
+        assertEquals(firstRun, secondRun);
+        assertTrue(firstRun.get(0) > 100, "A campus day should see more than a hundred orders");
+        assertEquals(firstRun.get(0), firstRun.get(1), "Every accepted order should be delivered");
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime) < 30);
+    }
+
+    /**
+     * @return the number of orders accepted, the number delivered, and the date of the last delivery
+     */
+    private List<Long> simulateCampusDay(long seed) {
+        SimulatedScheduler scheduler = new SimulatedScheduler(START_OF_DAY.getMillis());
+        ClockService.setClock(scheduler);
+        Random random = new Random(seed);
+        OrderService orderService = new OrderService();
+
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Restaurant restaurant = new Restaurant("Restaurant" + i, i + 1, "test", scheduler, 5, i + " rue de la paix");
+            restaurant.addMenuItem(new Menu("Burger", 10));
+            restaurant.addMenuItem(new Menu("Salad", 7.5));
+            restaurants.add(restaurant);
+        }
+        List<CustomerAccount> customers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            customers.add(new CustomerAccount("Customer", "Campus", "test"));
+        }
+        List<DeliveryAccount> couriers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            couriers.add(new DeliveryAccount("Courier", "Campus", "test", scheduler));
+        }
+        List<OrderAbstract> accepted = new ArrayList<>();
+        Set<Restaurant> busyKitchens = new HashSet<>();
+        long[] lastDelivery = new long[1];
+
+        scheduleOrder(scheduler, random, orderService, restaurants, customers, accepted);
+        every(scheduler, 5, () -> {
+            for (Restaurant restaurant : restaurants) {
+                TimeSlot slot = restaurant.getTimeSlotManager().getNeareastTimeSlotWithWorkRemaining();
+                if (slot != null && !busyKitchens.contains(restaurant) && slot.getStartEpochMinute() * 60_000 <= ClockService.currentTimeMillis()) {
+                    busyKitchens.add(restaurant);
+                    call(() -> orderService.prepareNearestTimeSlot(restaurant)).thenRun(() -> busyKitchens.remove(restaurant));
+                }
+            }
+        });
+        every(scheduler, 5, () -> {
+            // The orders still in preparation are listed as well, to let the couriers anticipate
+            List<OrderAbstract> ready = orderService.getOrderReadyToDeliver().stream()
+                    .filter(order -> order.getStatus() == EOrderStatus.WAITING_DELIVER_ACCEPTANCE)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            for (DeliveryAccount courier : couriers) {
+                if (courier.getAssignedOrder() == null && !ready.isEmpty()) {
+                    courier.setAssignedOrder(ready.remove(0));
+                    call(() -> orderService.deliverAssignedOrder(courier)).thenRun(() -> lastDelivery[0] = ClockService.currentTimeMillis());
+                }
+            }
+        });
+
+        scheduler.runUntilIdle();
+        long delivered = accepted.stream().filter(order -> order.getStatus() == EOrderStatus.FINISH).count();
+        return List.of((long) accepted.size(), delivered, lastDelivery[0]);
+    }
+
+    private void scheduleOrder(SimulatedScheduler scheduler, Random random, OrderService orderService,
+                               List<Restaurant> restaurants, List<CustomerAccount> customers, List<OrderAbstract> accepted) {
+        scheduler.schedule(1 + random.nextInt(6), TimeUnit.MINUTES, () -> {
+            if (ClockService.now().isAfter(LAST_ORDER)) {
+                return;
+            }
+            CustomerAccount customer = customers.get(random.nextInt(customers.size()));
+            Restaurant restaurant = restaurants.get(random.nextInt(restaurants.size()));
+            List<OrderItem> items = new ArrayList<>();
+            for (int i = 0; i <= random.nextInt(2); i++) {
+                items.add(new OrderItem(restaurant.getMenuItems().get(random.nextInt(2)), restaurant));
+            }
+            DateTime deliveryDate = ClockService.now().plusMinutes(45 + random.nextInt(75)).withSecondOfMinute(0).withMillisOfSecond(0);
+            if (call(() -> orderService.createSingleOrder(customer, items, deliveryDate, "930 Rte des Colles, 06410 Biot"))) {
+                accepted.add(customer.getOrders().get(customer.getOrders().size() - 1));
+            }
+            scheduleOrder(scheduler, random, orderService, restaurants, customers, accepted);
+        });
+    }
+
+    private void every(SimulatedScheduler scheduler, int minutes, Runnable action) {
+        scheduler.schedule(minutes, TimeUnit.MINUTES, () -> {
+            action.run();
+            if (ClockService.now().isBefore(END_OF_DAY)) {
+                every(scheduler, minutes, action);
+            }
+        });
+    }
+
+    private static <T> T call(SimulationStep<T> step) {
+        try {
+            return step.run();
+        } catch (UnauthorizedOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SimulationStep<T> {
+        T run() throws UnauthorizedOperationException;
+    }
+}
@@ -0,0 +1,97 @@
+package fr.etu.steats.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotInputTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadWhatWasWritten() throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        SnapshotOutput out = new SnapshotOutput((short) 3, 42, 1_000L);
+        out.beginSection((byte) 1);
+        out.putByte(-1);
+        out.putBoolean(true);
+        out.putInt(123_456);
+        out.putLong(Long.MAX_VALUE);
+        out.putDouble(4.5);
+        out.putString("Crêpes");
+        out.putString(null);
+        out.endSection();
+        long size = out.writeTo(file);
+
+        assertEquals(Files.size(file), size);
+        assertFalse(Files.exists(file.resolveSibling("test.snapshot.tmp")));
+        SnapshotInput in = SnapshotInput.open(file);
+        assertEquals(3, in.getFormatVersion());
+        assertEquals(42, in.getSequence());
+        assertEquals(1_000L, in.getCreatedAtMillis());
+        assertEquals(1, in.nextSection());
+        assertEquals(-1, in.getByte());
+        assertTrue(in.getBoolean());
+        assertEquals(123_456, in.getInt());
+        assertEquals(Long.MAX_VALUE, in.getLong());
+        assertEquals(4.5, in.getDouble());
+        assertEquals("Crêpes", in.getString());
+        assertNull(in.getString());
+        assertEquals(SnapshotOutput.END_TAG, in.nextSection());
+    }
+
+    @Test
+    void testSkipTheRestOfASection() throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        SnapshotOutput out = new SnapshotOutput((short) 1, 1, 0);
+        out.beginSection((byte) 7);
+        for (int i = 0; i < 100_000; i++) {
+            out.putLong(i);
+        }
+        out.endSection();
+        out.beginSection((byte) 2);
+        out.putString("next");
+        out.endSection();
+        out.writeTo(file);
+
+        SnapshotInput in = SnapshotInput.open(file);
+        assertEquals(7, in.nextSection());
+        assertEquals(0, in.getLong());
+        assertEquals(2, in.nextSection());
+        assertEquals("next", in.getString());
+        assertEquals(SnapshotOutput.END_TAG, in.nextSection());
+    }
+
+    @Test
+    void testSectionsMustBeEnded() {
+        SnapshotOutput out = new SnapshotOutput((short) 1, 1, 0);
+        assertThrows(IllegalStateException.class, out::endSection);
+        out.beginSection((byte) 1);
+        assertThrows(IllegalStateException.class, () -> out.beginSection((byte) 2));
+        assertThrows(IllegalStateException.class, () -> out.writeTo(directory.resolve("test.snapshot")));
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotOutput((short) 1, 1, 0).beginSection(SnapshotOutput.END_TAG));
+    }
+
+    @Test
+    void testCorruptedFile() throws IOException {
+        Path file = directory.resolve("test.snapshot");
+        SnapshotOutput out = new SnapshotOutput((short) 1, 1, 0);
+        out.beginSection((byte) 1);
+        out.putString("content");
+        out.endSection();
+        out.writeTo(file);
+        byte[] content = Files.readAllBytes(file);
+
+        content[content.length - 8] ^= 1;
+        Files.write(file, content);
+        assertThrows(IOException.class, () -> SnapshotInput.open(file));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> SnapshotInput.open(file));
+    }
+}